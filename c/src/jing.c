@@ -187,15 +187,18 @@ void jing_open_fd(char* filename, jing_result* r) {
 }
 
 void jing_write_fd(int fd, char* buf, size_t len, jing_result* r) {
-	ssize_t written = 0, total = 0;
+	size_t total = 0;
 	while (total < len) {
-		int v = write(fd, buf + total, len - total);
+		ssize_t v = write(fd, buf + total, len - total);
 		if (JING_UNLIKELY(v == -1)) {
 			int err = errno;
+			if (err == EINTR) {
+				continue;
+			}
 			jing_err_result(r, err);
 			return;
 		} else {
-			total += written;
+			total += (size_t) v;
 		}
 	}
 	jing_long_result(r, total);
@@ -12,6 +12,31 @@ int jing_epoll_out(void) {
 	return EPOLLOUT;
 }
 
+int jing_epoll_err(void) {
+	return EPOLLERR;
+}
+
+int jing_epoll_hup(void) {
+	return EPOLLHUP;
+}
+
+int jing_epoll_et(void) {
+	return (int) EPOLLET;
+}
+
+int jing_epoll_oneshot(void) {
+	return EPOLLONESHOT;
+}
+
+int jing_epoll_exclusive(void) {
+#if defined(EPOLLEXCLUSIVE)
+	return EPOLLEXCLUSIVE;
+#else
+	// available since linux 4.5, older glibc headers may not define it
+	return (int) (1U << 28);
+#endif
+}
+
 int jing_epoll_default(void) {
 	return EPOLLERR | EPOLLHUP;
 }
@@ -32,7 +57,42 @@ int jing_epoll_cloexec(void) {
 	return EPOLL_CLOEXEC;
 }
 
-int jing_epoll_create(jing_result* r) {
+// struct epoll_event is packed on x86_64 but naturally aligned on other
+// architectures, so the layout is exported instead of being guessed on the java
+// side
+int jing_epoll_event_size(void) {
+	return (int) sizeof(struct epoll_event);
+}
+
+int jing_epoll_event_data_offset(void) {
+	return (int) offsetof(struct epoll_event, data);
+}
+
+int jing_epoll_ctl_entry_size(void) {
+	return (int) sizeof(jing_epoll_ctl_entry);
+}
+
+int jing_epoll_ctl_entry_fd_offset(void) {
+	return (int) offsetof(jing_epoll_ctl_entry, fd);
+}
+
+int jing_epoll_ctl_entry_op_offset(void) {
+	return (int) offsetof(jing_epoll_ctl_entry, op);
+}
+
+int jing_epoll_ctl_entry_events_offset(void) {
+	return (int) offsetof(jing_epoll_ctl_entry, events);
+}
+
+int jing_epoll_ctl_entry_data_offset(void) {
+	return (int) offsetof(jing_epoll_ctl_entry, data);
+}
+
+int jing_epoll_ctl_entry_err_offset(void) {
+	return (int) offsetof(jing_epoll_ctl_entry, err);
+}
+
+int jing_epoll_create(void) {
 	int epfd = epoll_create1(0);
 	if (JING_UNLIKELY(epfd == -1)) {
 		int err = errno;
@@ -42,8 +102,8 @@ int jing_epoll_create(jing_result* r) {
 	}
 }
 
-void jing_epoll_ctl(int epfd, int socket, int op, uint32_t events,
-                    uint32_t data, jing_result* r) {
+int jing_epoll_ctl(int epfd, int socket, int op, uint32_t events,
+                   uint32_t data) {
 	struct epoll_event event;
 	memset(&event, 0, sizeof(event));
 	event.events   = events;
@@ -51,20 +111,51 @@ void jing_epoll_ctl(int epfd, int socket, int op, uint32_t events,
 	int v          = epoll_ctl(epfd, op, socket, &event);
 	if (JING_UNLIKELY(v == -1)) {
 		int err = errno;
-		jing_err_result(r, err);
+		return err;
 	} else {
-		jing_int_result(r, 0);
+		return 0;
 	}
 }
 
-void jing_epoll_wait(int epfd, struct epoll_event* events, int maxevents,
-                     int timeout, jing_result* r) {
+// returns the number of failed entries, each entry is always submitted
+// regardless of the failures before it
+int jing_epoll_ctl_batch(int epfd, jing_epoll_ctl_entry* entries, int count) {
+	int failures = 0;
+	for (int i = 0; i < count; i++) {
+		jing_epoll_ctl_entry* e = &entries[i];
+		struct epoll_event event;
+		memset(&event, 0, sizeof(event));
+		event.events   = e->events;
+		event.data.u32 = e->data;
+		int v          = epoll_ctl(epfd, e->op, e->fd, &event);
+		if (JING_UNLIKELY(v == -1)) {
+			int err = errno;
+			// closed descriptors were already removed from the epoll set
+			if (e->op == EPOLL_CTL_DEL && (err == EBADF || err == ENOENT)) {
+				e->err = 0;
+			} else {
+				e->err = err;
+				failures++;
+			}
+		} else {
+			e->err = 0;
+		}
+	}
+	return failures;
+}
+
+int jing_epoll_wait(int epfd, struct epoll_event* events, int maxevents,
+                    int timeout) {
 	int v = epoll_wait(epfd, events, maxevents, timeout);
 	if (JING_UNLIKELY(v == -1)) {
 		int err = errno;
-		jing_err_result(r, err);
+		// interrupted by a signal handler, treated as a spurious wakeup
+		if (err == EINTR) {
+			return 0;
+		}
+		return -err;
 	} else {
-		jing_int_result(r, 0);
+		return v;
 	}
 }
 #endif
\ No newline at end of file
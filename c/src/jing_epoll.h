@@ -4,10 +4,35 @@
 #include "jing_common.h"
 
 #if defined(JING_OS_LINUX)
+#include <sys/epoll.h>
+
+// a single ctl operation in jing_epoll_ctl_batch, err is written back by the
+// native side, 0 means success
+typedef struct {
+	int32_t fd;
+	int32_t op;
+	uint32_t events;
+	uint32_t data;
+	int32_t err;
+} jing_epoll_ctl_entry;
+
+static_assert(sizeof(jing_epoll_ctl_entry) == 20,
+              "jing_epoll_ctl_entry size mismatch");
+
 JING_EXPORT_SYMBOL int jing_epoll_in(void);
 
 JING_EXPORT_SYMBOL int jing_epoll_out(void);
 
+JING_EXPORT_SYMBOL int jing_epoll_err(void);
+
+JING_EXPORT_SYMBOL int jing_epoll_hup(void);
+
+JING_EXPORT_SYMBOL int jing_epoll_et(void);
+
+JING_EXPORT_SYMBOL int jing_epoll_oneshot(void);
+
+JING_EXPORT_SYMBOL int jing_epoll_exclusive(void);
+
 JING_EXPORT_SYMBOL int jing_epoll_default(void);
 
 JING_EXPORT_SYMBOL int jing_epoll_ctl_add(void);
@@ -18,15 +43,33 @@ JING_EXPORT_SYMBOL int jing_epoll_ctl_del(void);
 
 JING_EXPORT_SYMBOL int jing_epoll_cloexec(void);
 
-JING_EXPORT_SYMBOL void jing_epoll_create(jing_result* r);
+JING_EXPORT_SYMBOL int jing_epoll_event_size(void);
+
+JING_EXPORT_SYMBOL int jing_epoll_event_data_offset(void);
+
+JING_EXPORT_SYMBOL int jing_epoll_ctl_entry_size(void);
+
+JING_EXPORT_SYMBOL int jing_epoll_ctl_entry_fd_offset(void);
+
+JING_EXPORT_SYMBOL int jing_epoll_ctl_entry_op_offset(void);
+
+JING_EXPORT_SYMBOL int jing_epoll_ctl_entry_events_offset(void);
+
+JING_EXPORT_SYMBOL int jing_epoll_ctl_entry_data_offset(void);
+
+JING_EXPORT_SYMBOL int jing_epoll_ctl_entry_err_offset(void);
+
+JING_EXPORT_SYMBOL int jing_epoll_create(void);
+
+JING_EXPORT_SYMBOL int jing_epoll_ctl(int epfd, int socket, int op,
+                                      uint32_t events, uint32_t data);
 
-JING_EXPORT_SYMBOL void jing_epoll_ctl(int epfd, int socket, int op,
-                                       uint32_t events, uint32_t data,
-                                       jing_result* r);
+JING_EXPORT_SYMBOL int jing_epoll_ctl_batch(int epfd,
+                                            jing_epoll_ctl_entry* entries,
+                                            int count);
 
-JING_EXPORT_SYMBOL void jing_epoll_wait(int epfd, struct epoll_event* events,
-                                        int maxevents, int timeout,
-                                        jing_result* r);
+JING_EXPORT_SYMBOL int jing_epoll_wait(int epfd, struct epoll_event* events,
+                                       int maxevents, int timeout);
 #endif
 
 #endif
\ No newline at end of file
@@ -0,0 +1,304 @@
+#if defined(__linux__) && !defined(_GNU_SOURCE)
+#define _GNU_SOURCE   // syscall, MAP_POPULATE
+#endif
+
+#include "jing_io_uring.h"
+
+#if defined(JING_OS_LINUX)
+#include <errno.h>
+#include <poll.h>
+#include <stdlib.h>
+#include <time.h>
+#include <unistd.h>
+#include <sys/mman.h>
+#include <sys/socket.h>
+#include <sys/syscall.h>
+#include <linux/io_uring.h>
+
+// the ring is driven by raw syscalls so there is no dependency on liburing,
+// submissions are only queued into the ring and submitted together with the
+// next jing_io_uring_wait, completions are copied out without any syscall
+typedef struct {
+	int fd;
+	unsigned* sq_head;
+	unsigned* sq_tail;
+	unsigned* sq_mask;
+	unsigned* sq_entries;
+	unsigned* sq_array;
+	unsigned* cq_head;
+	unsigned* cq_tail;
+	unsigned* cq_mask;
+	struct io_uring_sqe* sqes;
+	struct io_uring_cqe* cqes;
+	void* ring_ptr;
+	size_t ring_size;
+	size_t sqes_size;
+	unsigned to_submit;
+} jing_io_uring;
+
+int jing_io_uring_pollin(void) {
+	return POLLIN;
+}
+
+int jing_io_uring_pollout(void) {
+	return POLLOUT;
+}
+
+int jing_io_uring_pollerr(void) {
+	return POLLERR;
+}
+
+int jing_io_uring_pollhup(void) {
+	return POLLHUP;
+}
+
+static void jing_io_uring_unmap(jing_io_uring* r) {
+	if (r->sqes != NULL && r->sqes != MAP_FAILED) {
+		munmap(r->sqes, r->sqes_size);
+	}
+	if (r->ring_ptr != NULL && r->ring_ptr != MAP_FAILED) {
+		munmap(r->ring_ptr, r->ring_size);
+	}
+}
+
+void* jing_io_uring_create(int entries) {
+	struct io_uring_params p;
+	memset(&p, 0, sizeof(p));
+	int fd = (int) syscall(__NR_io_uring_setup, (unsigned) entries, &p);
+	if (JING_UNLIKELY(fd == -1)) {
+		int err = errno;
+		return jing_make_error_ptr(err);
+	}
+	// the timeout of jing_io_uring_wait relies on IORING_ENTER_EXT_ARG
+	if (JING_UNLIKELY((p.features & IORING_FEAT_EXT_ARG) == 0 ||
+	                  (p.features & IORING_FEAT_SINGLE_MMAP) == 0)) {
+		close(fd);
+		return jing_make_error_ptr(EOPNOTSUPP);
+	}
+	jing_io_uring* r = (jing_io_uring*) calloc(1, sizeof(jing_io_uring));
+	if (JING_UNLIKELY(r == NULL)) {
+		close(fd);
+		return jing_make_error_ptr(ENOMEM);
+	}
+	// with IORING_FEAT_SINGLE_MMAP both rings share one mapping
+	size_t sq_size = p.sq_off.array + p.sq_entries * sizeof(unsigned);
+	size_t cq_size = p.cq_off.cqes + p.cq_entries * sizeof(struct io_uring_cqe);
+	r->fd          = fd;
+	r->ring_size   = sq_size > cq_size ? sq_size : cq_size;
+	r->sqes_size   = p.sq_entries * sizeof(struct io_uring_sqe);
+	r->ring_ptr    = mmap(NULL, r->ring_size, PROT_READ | PROT_WRITE,
+	                      MAP_SHARED | MAP_POPULATE, fd, IORING_OFF_SQ_RING);
+	r->sqes        = (struct io_uring_sqe*) mmap(NULL, r->sqes_size,
+	                                             PROT_READ | PROT_WRITE,
+	                                             MAP_SHARED | MAP_POPULATE, fd,
+	                                             IORING_OFF_SQES);
+	if (JING_UNLIKELY(r->ring_ptr == MAP_FAILED || r->sqes == MAP_FAILED)) {
+		int err = errno;
+		jing_io_uring_unmap(r);
+		close(fd);
+		free(r);
+		return jing_make_error_ptr(err);
+	}
+	char* base    = (char*) r->ring_ptr;
+	r->sq_head    = (unsigned*) (base + p.sq_off.head);
+	r->sq_tail    = (unsigned*) (base + p.sq_off.tail);
+	r->sq_mask    = (unsigned*) (base + p.sq_off.ring_mask);
+	r->sq_entries = (unsigned*) (base + p.sq_off.ring_entries);
+	r->sq_array   = (unsigned*) (base + p.sq_off.array);
+	r->cq_head    = (unsigned*) (base + p.cq_off.head);
+	r->cq_tail    = (unsigned*) (base + p.cq_off.tail);
+	r->cq_mask    = (unsigned*) (base + p.cq_off.ring_mask);
+	r->cqes       = (struct io_uring_cqe*) (base + p.cq_off.cqes);
+	r->to_submit  = 0;
+	return r;
+}
+
+static int jing_io_uring_enter(jing_io_uring* r, unsigned min_complete,
+                               unsigned flags, void* arg, size_t arg_size) {
+	int v = (int) syscall(__NR_io_uring_enter, r->fd, r->to_submit,
+	                      min_complete, flags, arg, arg_size);
+	if (JING_UNLIKELY(v == -1)) {
+		return -errno;
+	}
+	r->to_submit -= (unsigned) v;
+	return v;
+}
+
+static struct io_uring_sqe* jing_io_uring_get_sqe(jing_io_uring* r) {
+	for (int i = 0; i < 2; i++) {
+		unsigned head = __atomic_load_n(r->sq_head, __ATOMIC_ACQUIRE);
+		unsigned tail = *r->sq_tail;
+		if (tail - head < *r->sq_entries) {
+			unsigned index           = tail & *r->sq_mask;
+			struct io_uring_sqe* sqe = &r->sqes[index];
+			memset(sqe, 0, sizeof(struct io_uring_sqe));
+			r->sq_array[index] = index;
+			return sqe;
+		}
+		// submission ring is full, submit the pending ones without waiting
+		int v = jing_io_uring_enter(r, 0, 0, NULL, 0);
+		if (JING_UNLIKELY(v < 0 && v != -EINTR)) {
+			return NULL;
+		}
+	}
+	return NULL;
+}
+
+static void jing_io_uring_commit_sqe(jing_io_uring* r) {
+	__atomic_store_n(r->sq_tail, *r->sq_tail + 1, __ATOMIC_RELEASE);
+	r->to_submit++;
+}
+
+int jing_io_uring_poll_add(void* ring, int fd, uint32_t events,
+                           uint64_t user_data) {
+	jing_io_uring* r         = (jing_io_uring*) ring;
+	struct io_uring_sqe* sqe = jing_io_uring_get_sqe(r);
+	if (JING_UNLIKELY(sqe == NULL)) {
+		return EBUSY;
+	}
+	sqe->opcode        = IORING_OP_POLL_ADD;
+	sqe->fd            = fd;
+	sqe->poll32_events = events;
+	sqe->user_data     = user_data;
+	jing_io_uring_commit_sqe(r);
+	return 0;
+}
+
+int jing_io_uring_poll_remove(void* ring, uint64_t target_user_data,
+                              uint64_t user_data) {
+	jing_io_uring* r         = (jing_io_uring*) ring;
+	struct io_uring_sqe* sqe = jing_io_uring_get_sqe(r);
+	if (JING_UNLIKELY(sqe == NULL)) {
+		return EBUSY;
+	}
+	sqe->opcode    = IORING_OP_POLL_REMOVE;
+	sqe->fd        = -1;
+	sqe->addr      = target_user_data;
+	sqe->user_data = user_data;
+	jing_io_uring_commit_sqe(r);
+	return 0;
+}
+
+// the accepted socket is created non-blocking and close-on-exec, the same as
+// jing_posix_accept, cqe res is the new fd or negative errno
+int jing_io_uring_accept(void* ring, int fd, uint64_t user_data) {
+	jing_io_uring* r         = (jing_io_uring*) ring;
+	struct io_uring_sqe* sqe = jing_io_uring_get_sqe(r);
+	if (JING_UNLIKELY(sqe == NULL)) {
+		return EBUSY;
+	}
+	sqe->opcode       = IORING_OP_ACCEPT;
+	sqe->fd           = fd;
+	sqe->accept_flags = SOCK_NONBLOCK | SOCK_CLOEXEC;
+	sqe->user_data    = user_data;
+	jing_io_uring_commit_sqe(r);
+	return 0;
+}
+
+// buf must stay valid until the completion has been consumed, cqe res is the
+// transferred bytes or negative errno
+int jing_io_uring_recv(void* ring, int fd, void* buf, uint32_t len,
+                       uint64_t user_data) {
+	jing_io_uring* r         = (jing_io_uring*) ring;
+	struct io_uring_sqe* sqe = jing_io_uring_get_sqe(r);
+	if (JING_UNLIKELY(sqe == NULL)) {
+		return EBUSY;
+	}
+	sqe->opcode    = IORING_OP_RECV;
+	sqe->fd        = fd;
+	sqe->addr      = (uint64_t) (uintptr_t) buf;
+	sqe->len       = len;
+	sqe->user_data = user_data;
+	jing_io_uring_commit_sqe(r);
+	return 0;
+}
+
+int jing_io_uring_send(void* ring, int fd, const void* buf, uint32_t len,
+                       uint64_t user_data) {
+	jing_io_uring* r         = (jing_io_uring*) ring;
+	struct io_uring_sqe* sqe = jing_io_uring_get_sqe(r);
+	if (JING_UNLIKELY(sqe == NULL)) {
+		return EBUSY;
+	}
+	sqe->opcode    = IORING_OP_SEND;
+	sqe->fd        = fd;
+	sqe->addr      = (uint64_t) (uintptr_t) buf;
+	sqe->len       = len;
+	sqe->msg_flags = MSG_NOSIGNAL;
+	sqe->user_data = user_data;
+	jing_io_uring_commit_sqe(r);
+	return 0;
+}
+
+// the cancelled request completes with -ECANCELED, or normally if it has
+// already finished
+int jing_io_uring_cancel(void* ring, uint64_t target_user_data,
+                         uint64_t user_data) {
+	jing_io_uring* r         = (jing_io_uring*) ring;
+	struct io_uring_sqe* sqe = jing_io_uring_get_sqe(r);
+	if (JING_UNLIKELY(sqe == NULL)) {
+		return EBUSY;
+	}
+	sqe->opcode    = IORING_OP_ASYNC_CANCEL;
+	sqe->fd        = -1;
+	sqe->addr      = target_user_data;
+	sqe->user_data = user_data;
+	jing_io_uring_commit_sqe(r);
+	return 0;
+}
+
+int jing_io_uring_wait(void* ring, jing_io_uring_event* events, int maxevents,
+                       int timeout) {
+	jing_io_uring* r = (jing_io_uring*) ring;
+	unsigned head    = *r->cq_head;
+	unsigned tail    = __atomic_load_n(r->cq_tail, __ATOMIC_ACQUIRE);
+	if (head == tail) {
+		// nothing completed yet, submit and wait in the same syscall
+		int v;
+		if (timeout == 0) {
+			v = r->to_submit > 0 ? jing_io_uring_enter(r, 0, 0, NULL, 0) : 0;
+		} else {
+			struct __kernel_timespec ts;
+			struct io_uring_getevents_arg arg;
+			memset(&arg, 0, sizeof(arg));
+			if (timeout > 0) {
+				ts.tv_sec  = timeout / 1000;
+				ts.tv_nsec = (long long) (timeout % 1000) * 1000000;
+				arg.ts     = (uint64_t) (uintptr_t) &ts;
+			}
+			v = jing_io_uring_enter(r, 1,
+			                        IORING_ENTER_GETEVENTS | IORING_ENTER_EXT_ARG,
+			                        &arg, sizeof(arg));
+		}
+		if (JING_UNLIKELY(v < 0 && v != -ETIME && v != -EINTR)) {
+			return v;
+		}
+		tail = __atomic_load_n(r->cq_tail, __ATOMIC_ACQUIRE);
+	} else if (r->to_submit > 0) {
+		int v = jing_io_uring_enter(r, 0, 0, NULL, 0);
+		if (JING_UNLIKELY(v < 0 && v != -EINTR)) {
+			return v;
+		}
+	}
+	int n = 0;
+	while (head != tail && n < maxevents) {
+		struct io_uring_cqe* cqe = &r->cqes[head & *r->cq_mask];
+		events[n].user_data      = cqe->user_data;
+		events[n].res            = cqe->res;
+		events[n].flags          = cqe->flags;
+		n++;
+		head++;
+	}
+	__atomic_store_n(r->cq_head, head, __ATOMIC_RELEASE);
+	return n;
+}
+
+int jing_io_uring_close(void* ring) {
+	jing_io_uring* r = (jing_io_uring*) ring;
+	jing_io_uring_unmap(r);
+	int v   = close(r->fd);
+	int err = v == -1 ? errno : 0;
+	free(r);
+	return err;
+}
+#endif
\ No newline at end of file
@@ -0,0 +1,56 @@
+#ifndef JING_IO_URING_H
+#define JING_IO_URING_H
+
+#include "jing_common.h"
+
+#if defined(JING_OS_LINUX)
+// a completion copied out of the completion ring, user_data and res are the
+// raw values of the io_uring_cqe
+typedef struct {
+	uint64_t user_data;
+	int32_t res;
+	uint32_t flags;
+} jing_io_uring_event;
+
+static_assert(sizeof(jing_io_uring_event) == 16,
+              "jing_io_uring_event size mismatch");
+
+JING_EXPORT_SYMBOL int jing_io_uring_pollin(void);
+
+JING_EXPORT_SYMBOL int jing_io_uring_pollout(void);
+
+JING_EXPORT_SYMBOL int jing_io_uring_pollerr(void);
+
+JING_EXPORT_SYMBOL int jing_io_uring_pollhup(void);
+
+JING_EXPORT_SYMBOL void* jing_io_uring_create(int entries);
+
+JING_EXPORT_SYMBOL int jing_io_uring_poll_add(void* ring, int fd,
+                                              uint32_t events,
+                                              uint64_t user_data);
+
+JING_EXPORT_SYMBOL int jing_io_uring_poll_remove(void* ring,
+                                                 uint64_t target_user_data,
+                                                 uint64_t user_data);
+
+JING_EXPORT_SYMBOL int jing_io_uring_accept(void* ring, int fd,
+                                            uint64_t user_data);
+
+JING_EXPORT_SYMBOL int jing_io_uring_recv(void* ring, int fd, void* buf,
+                                          uint32_t len, uint64_t user_data);
+
+JING_EXPORT_SYMBOL int jing_io_uring_send(void* ring, int fd, const void* buf,
+                                          uint32_t len, uint64_t user_data);
+
+JING_EXPORT_SYMBOL int jing_io_uring_cancel(void* ring,
+                                            uint64_t target_user_data,
+                                            uint64_t user_data);
+
+JING_EXPORT_SYMBOL int jing_io_uring_wait(void* ring,
+                                          jing_io_uring_event* events,
+                                          int maxevents, int timeout);
+
+JING_EXPORT_SYMBOL int jing_io_uring_close(void* ring);
+#endif
+
+#endif
\ No newline at end of file
@@ -22,6 +22,18 @@ int jing_kqueue_out(void) {
 // 	return EV_DELETE;
 // }
 
+int jing_kevent_size(void) {
+	return (int) sizeof(struct kevent);
+}
+
+int jing_kevent_filter_offset(void) {
+	return (int) offsetof(struct kevent, filter);
+}
+
+int jing_kevent_udata_offset(void) {
+	return (int) offsetof(struct kevent, udata);
+}
+
 int jing_kqueue(void) {
 	int v = kqueue();
 	if (JING_UNLIKELY(v == -1)) {
@@ -70,6 +82,10 @@ int jing_kevent_wait(int kqfd, struct kevent* events, int nevents,
 	int v = kevent(kqfd, NULL, 0, events, nevents, tp);
 	if (v == -1) {
 		int err = errno;
+		// interrupted by a signal handler, treated as a spurious wakeup
+		if (err == EINTR) {
+			return 0;
+		}
 		return -err;
 	}
 	return v;
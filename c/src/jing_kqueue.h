@@ -13,6 +13,12 @@ JING_EXPORT_SYMBOL int jing_kqueue_out(void);
 
 // int jing_kqueue_del();
 
+JING_EXPORT_SYMBOL int jing_kevent_size(void);
+
+JING_EXPORT_SYMBOL int jing_kevent_filter_offset(void);
+
+JING_EXPORT_SYMBOL int jing_kevent_udata_offset(void);
+
 JING_EXPORT_SYMBOL int jing_kqueue(void);
 
 JING_EXPORT_SYMBOL int jing_kevent_ctl(int kqfd, int socket, int mod_read,
@@ -0,0 +1,120 @@
+#include "jing_log.h"
+
+#if defined(JING_OS_WINDOWS)
+#include <windows.h>
+
+int jing_win_ansi_support(void) {
+	HANDLE stdoutHandle = GetStdHandle(STD_OUTPUT_HANDLE);
+	DWORD mode;
+	if (JING_UNLIKELY(stdoutHandle == INVALID_HANDLE_VALUE)) {
+		return -1;
+	}
+	if (JING_UNLIKELY(GetConsoleMode(stdoutHandle, &mode) == 0)) {
+		return -1;
+	}
+	if ((mode & ENABLE_PROCESSED_OUTPUT) &&
+	    (mode & ENABLE_VIRTUAL_TERMINAL_PROCESSING)) {
+		return 0;
+	}
+	mode |= (ENABLE_PROCESSED_OUTPUT | ENABLE_VIRTUAL_TERMINAL_PROCESSING);
+	if (JING_UNLIKELY(SetConsoleMode(stdoutHandle, mode) == 0)) {
+		return -1;
+	}
+	return 0;
+}
+
+DWORD jing_std_output_dword(void) {
+	return STD_OUTPUT_HANDLE;
+}
+
+DWORD jing_std_error_dword(void) {
+	return STD_ERROR_HANDLE;
+}
+
+void jing_get_std_handle(DWORD d, jing_result* r) {
+	HANDLE v = GetStdHandle(d);
+	if (JING_UNLIKELY(v == INVALID_HANDLE_VALUE)) {
+		int err = GetLastError();
+		jing_err_result(r, err);
+	} else {
+		jing_ptr_result(r, v, SIZE_MAX);
+	}
+}
+
+void jing_create_file(LPCWSTR filename, jing_result* r) {
+	HANDLE v = CreateFileW(filename, GENERIC_WRITE, FILE_SHARE_READ, NULL,
+	                       OPEN_ALWAYS, FILE_ATTRIBUTE_NORMAL, NULL);
+	if (JING_UNLIKELY(v == INVALID_HANDLE_VALUE)) {
+		int err = GetLastError();
+		jing_err_result(r, err);
+	} else {
+		jing_ptr_result(r, v, SIZE_MAX);
+	}
+}
+
+void jing_write_file(HANDLE h, char* buffer, int len, jing_result* r) {
+	DWORD written = 0, total = 0, length = (DWORD) len;
+	while (total < length) {
+		if (JING_LIKELY(
+		        WriteFile(h, buffer + total, length - total, &written, NULL))) {
+			total += written;
+		} else {
+			int err = GetLastError();
+			jing_err_result(r, err);
+			return;
+		}
+	}
+	jing_int_result(r, total);
+}
+
+void jing_flush_file(HANDLE h, jing_result* r) {
+	if (JING_LIKELY(FlushFileBuffers(h))) {
+		jing_int_result(r, 0);
+	} else {
+		int err = GetLastError();
+		jing_err_result(r, err);
+	}
+}
+
+#else
+#include <errno.h>
+#include <fcntl.h>
+#include <unistd.h>
+
+int jing_stdout_fileno(void) {
+	return STDOUT_FILENO;
+}
+
+int jing_stderr_fileno(void) {
+	return STDERR_FILENO;
+}
+
+void jing_open_fd(char* filename, jing_result* r) {
+	int v = open(filename, O_WRONLY | O_CREAT | O_APPEND, 0644);
+	if (JING_UNLIKELY(v == -1)) {
+		int err = errno;
+		jing_err_result(r, err);
+	} else {
+		jing_int_result(r, v);
+	}
+}
+
+void jing_write_fd(int fd, char* buf, size_t len, jing_result* r) {
+	size_t total = 0;
+	while (total < len) {
+		ssize_t v = write(fd, buf + total, len - total);
+		if (JING_UNLIKELY(v == -1)) {
+			int err = errno;
+			if (err == EINTR) {
+				continue;
+			}
+			jing_err_result(r, err);
+			return;
+		} else {
+			total += (size_t) v;
+		}
+	}
+	jing_long_result(r, total);
+}
+
+#endif
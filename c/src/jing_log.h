@@ -0,0 +1,33 @@
+#ifndef JING_LOG_H
+#define JING_LOG_H
+
+#include "jing_common.h"
+
+#if defined(JING_OS_WINDOWS)
+#include <windows.h>
+JING_EXPORT_SYMBOL int jing_win_ansi_support(void);
+
+JING_EXPORT_SYMBOL DWORD jing_std_output_dword(void);
+
+JING_EXPORT_SYMBOL DWORD jing_std_error_dword(void);
+
+JING_EXPORT_SYMBOL void jing_get_std_handle(DWORD d, jing_result* r);
+
+JING_EXPORT_SYMBOL void jing_create_file(LPCWSTR filename, jing_result* r);
+
+JING_EXPORT_SYMBOL void jing_write_file(HANDLE h, char* buffer, int len,
+                                        jing_result* r);
+
+JING_EXPORT_SYMBOL void jing_flush_file(HANDLE h, jing_result* r);
+#else
+JING_EXPORT_SYMBOL int jing_stdout_fileno(void);
+
+JING_EXPORT_SYMBOL int jing_stderr_fileno(void);
+
+JING_EXPORT_SYMBOL void jing_open_fd(char* filename, jing_result* r);
+
+JING_EXPORT_SYMBOL void jing_write_fd(int fd, char* buf, size_t len,
+                                      jing_result* r);
+#endif
+
+#endif
@@ -62,3 +62,29 @@ int jing_tcp_protocol_code(void) {
 int jing_udp_protocol_code(void) {
 	return IPPROTO_UDP;
 }
+
+int jing_sockaddr_in_size(void) {
+	return (int) sizeof(struct sockaddr_in);
+}
+
+int jing_sockaddr_in6_size(void) {
+	return (int) sizeof(struct sockaddr_in6);
+}
+
+// ip is the host order value of the address, e.g. 127.0.0.1 is 0x7F000001
+void jing_set_sockaddr_in(void* addr, uint32_t ip, int port) {
+	struct sockaddr_in* a = (struct sockaddr_in*) addr;
+	memset(a, 0, sizeof(struct sockaddr_in));
+	a->sin_family      = AF_INET;
+	a->sin_port        = htons((uint16_t) port);
+	a->sin_addr.s_addr = htonl(ip);
+}
+
+// ip points to the 16 bytes address in network order
+void jing_set_sockaddr_in6(void* addr, const uint8_t* ip, int port) {
+	struct sockaddr_in6* a = (struct sockaddr_in6*) addr;
+	memset(a, 0, sizeof(struct sockaddr_in6));
+	a->sin6_family = AF_INET6;
+	a->sin6_port   = htons((uint16_t) port);
+	memcpy(&a->sin6_addr, ip, sizeof(a->sin6_addr));
+}
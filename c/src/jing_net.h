@@ -23,4 +23,13 @@ JING_EXPORT_SYMBOL int jing_tcp_protocol_code(void);
 
 JING_EXPORT_SYMBOL int jing_udp_protocol_code(void);
 
+JING_EXPORT_SYMBOL int jing_sockaddr_in_size(void);
+
+JING_EXPORT_SYMBOL int jing_sockaddr_in6_size(void);
+
+JING_EXPORT_SYMBOL void jing_set_sockaddr_in(void* addr, uint32_t ip, int port);
+
+JING_EXPORT_SYMBOL void jing_set_sockaddr_in6(void* addr, const uint8_t* ip,
+                                              int port);
+
 #endif
\ No newline at end of file
@@ -1,6 +1,105 @@
+#if defined(__linux__) && !defined(_GNU_SOURCE)
+#define _GNU_SOURCE   // accept4
+#endif
+
 #include "jing_posix_net.h"
 
 #if defined(JING_OS_LINUX) || defined(JING_OS_MACOS)
+#include <errno.h>
+#include <fcntl.h>
+#include <unistd.h>
+#include <netinet/in.h>
+#include <limits.h>
+#include <netinet/tcp.h>
+#if defined(JING_OS_LINUX)
+#include <sys/eventfd.h>
+#endif
+
+int jing_posix_sol_socket(void) {
+	return SOL_SOCKET;
+}
+
+int jing_posix_so_reuseaddr(void) {
+	return SO_REUSEADDR;
+}
+
+int jing_posix_so_reuseport(void) {
+	return SO_REUSEPORT;
+}
+
+int jing_posix_tcp_nodelay(void) {
+	return TCP_NODELAY;
+}
+
+int jing_posix_msg_trunc(void) {
+	return MSG_TRUNC;
+}
+
+int jing_posix_iovec_size(void) {
+	return (int) sizeof(struct iovec);
+}
+
+int jing_posix_iovec_base_offset(void) {
+	return (int) offsetof(struct iovec, iov_base);
+}
+
+int jing_posix_iovec_len_offset(void) {
+	return (int) offsetof(struct iovec, iov_len);
+}
+
+int jing_posix_iov_max(void) {
+	return IOV_MAX;
+}
+
+#if defined(JING_OS_MACOS)
+// macos has no SOCK_NONBLOCK/SOCK_CLOEXEC or accept4, flags are set after
+// creation
+static int jing_posix_set_nonblock_cloexec(int fd) {
+	int fl = fcntl(fd, F_GETFL, 0);
+	if (JING_UNLIKELY(fl == -1 || fcntl(fd, F_SETFL, fl | O_NONBLOCK) == -1)) {
+		return errno;
+	}
+	int fd_fl = fcntl(fd, F_GETFD, 0);
+	if (JING_UNLIKELY(fd_fl == -1 ||
+	                  fcntl(fd, F_SETFD, fd_fl | FD_CLOEXEC) == -1)) {
+		return errno;
+	}
+	return 0;
+}
+#endif
+
+int jing_posix_socket(int af, int type, int protocol) {
+#if defined(JING_OS_LINUX)
+	int fd = socket(af, type | SOCK_NONBLOCK | SOCK_CLOEXEC, protocol);
+	if (JING_UNLIKELY(fd == -1)) {
+		int err = errno;
+		return -err;
+	}
+	return fd;
+#else
+	int fd = socket(af, type, protocol);
+	if (JING_UNLIKELY(fd == -1)) {
+		int err = errno;
+		return -err;
+	}
+	int err = jing_posix_set_nonblock_cloexec(fd);
+	if (JING_UNLIKELY(err != 0)) {
+		close(fd);
+		return -err;
+	}
+	return fd;
+#endif
+}
+
+int jing_posix_setsockopt(int sockfd, int level, int optname, int value) {
+	int v = setsockopt(sockfd, level, optname, &value, sizeof(value));
+	if (JING_UNLIKELY(v == -1)) {
+		int err = errno;
+		return err;
+	}
+	return 0;
+}
+
 int jing_posix_bind(int sockfd, const struct sockaddr* addr,
                     socklen_t addrlen) {
 	int v = bind(sockfd, addr, addrlen);
@@ -11,4 +110,199 @@ int jing_posix_bind(int sockfd, const struct sockaddr* addr,
 	return 0;
 }
 
+int jing_posix_listen(int sockfd, int backlog) {
+	int v = listen(sockfd, backlog);
+	if (JING_UNLIKELY(v == -1)) {
+		int err = errno;
+		return err;
+	}
+	return 0;
+}
+
+int jing_posix_accept(int sockfd, struct sockaddr* addr, socklen_t* addrlen) {
+#if defined(JING_OS_LINUX)
+	int fd = accept4(sockfd, addr, addrlen, SOCK_NONBLOCK | SOCK_CLOEXEC);
+	if (fd == -1) {
+		int err = errno;
+		return -err;
+	}
+	return fd;
+#else
+	int fd = accept(sockfd, addr, addrlen);
+	if (fd == -1) {
+		int err = errno;
+		return -err;
+	}
+	int err = jing_posix_set_nonblock_cloexec(fd);
+	if (JING_UNLIKELY(err != 0)) {
+		close(fd);
+		return -err;
+	}
+	return fd;
+#endif
+}
+
+// 0 : fatal, the listening socket is broken
+// 1 : only the pending connection failed, accept could continue, including
+//     the pending network errors which accept(2) on linux passes through
+// 2 : out of descriptors or memory, accept should be retried later
+int jing_posix_accept_err_kind(int err) {
+	switch (err) {
+		case ECONNABORTED:
+		case EPROTO:
+		case EPERM:
+		case ENETDOWN:
+		case ENOPROTOOPT:
+		case EHOSTDOWN:
+#if defined(ENONET)
+		case ENONET:
+#endif
+		case EHOSTUNREACH:
+		case EOPNOTSUPP:
+		case ENETUNREACH:
+			return 1;
+		case EMFILE:
+		case ENFILE:
+		case ENOBUFS:
+		case ENOMEM:
+			return 2;
+		default:
+			return 0;
+	}
+}
+
+// wakeup descriptor of the event loops, fds[0] is watched by the mux and
+// fds[1] is signalled by other threads, both are the same eventfd on linux
+int jing_posix_wakeup_create(int* fds) {
+#if defined(JING_OS_LINUX)
+	int fd = eventfd(0, EFD_NONBLOCK | EFD_CLOEXEC);
+	if (JING_UNLIKELY(fd == -1)) {
+		int err = errno;
+		return err;
+	}
+	fds[0] = fd;
+	fds[1] = fd;
+	return 0;
+#else
+	int p[2];
+	if (JING_UNLIKELY(pipe(p) == -1)) {
+		int err = errno;
+		return err;
+	}
+	int err = jing_posix_set_nonblock_cloexec(p[0]);
+	if (JING_LIKELY(err == 0)) {
+		err = jing_posix_set_nonblock_cloexec(p[1]);
+	}
+	if (JING_UNLIKELY(err != 0)) {
+		close(p[0]);
+		close(p[1]);
+		return err;
+	}
+	fds[0] = p[0];
+	fds[1] = p[1];
+	return 0;
+#endif
+}
+
+// a full eventfd counter or pipe means the wakeup is already pending
+int jing_posix_wakeup_signal(int fd) {
+#if defined(JING_OS_LINUX)
+	uint64_t v = 1;
+	ssize_t n  = write(fd, &v, sizeof(v));
+#else
+	char v    = 1;
+	ssize_t n = write(fd, &v, sizeof(v));
+#endif
+	if (n == -1) {
+		int err = errno;
+		return err == EAGAIN || err == EINTR ? 0 : err;
+	}
+	return 0;
+}
+
+int jing_posix_wakeup_drain(int fd) {
+	uint64_t buf[8];
+	for (;;) {
+		ssize_t n = read(fd, buf, sizeof(buf));
+		if (n == -1) {
+			int err = errno;
+			if (err == EINTR) {
+				continue;
+			}
+			return err == EAGAIN ? 0 : err;
+		}
+#if defined(JING_OS_LINUX)
+		// reading an eventfd resets its counter at once
+		return 0;
+#else
+		if (n < (ssize_t) sizeof(buf)) {
+			return 0;
+		}
+#endif
+	}
+}
+
+// the functions below return the transferred bytes or negative errno, they
+// never block since all the sockets are created in non-blocking mode, iovoff
+// is the index of the first entry so the caller could pass the array as is
+int64_t jing_posix_readv(int fd, const struct iovec* iov, int iovoff,
+                         int iovcnt) {
+	ssize_t v = readv(fd, iov + iovoff, iovcnt);
+	if (v == -1) {
+		int err = errno;
+		return -err;
+	}
+	return (int64_t) v;
+}
+
+int64_t jing_posix_writev(int fd, const struct iovec* iov, int iovoff,
+                          int iovcnt) {
+	ssize_t v = writev(fd, iov + iovoff, iovcnt);
+	if (v == -1) {
+		int err = errno;
+		return -err;
+	}
+	return (int64_t) v;
+}
+
+int64_t jing_posix_sendmsg(int sockfd, const struct sockaddr* addr,
+                           socklen_t addrlen, const struct iovec* iov,
+                           int iovoff, int iovcnt, int flags) {
+	struct msghdr msg;
+	memset(&msg, 0, sizeof(msg));
+	msg.msg_name    = (void*) addr;
+	msg.msg_namelen = addr == NULL ? 0 : addrlen;
+	msg.msg_iov     = (struct iovec*) (iov + iovoff);
+	msg.msg_iovlen  = iovcnt;
+	ssize_t v       = sendmsg(sockfd, &msg, flags);
+	if (v == -1) {
+		int err = errno;
+		return -err;
+	}
+	return (int64_t) v;
+}
+
+int64_t jing_posix_recvmsg(int sockfd, struct sockaddr* addr,
+                           socklen_t* addrlen, struct iovec* iov, int iovoff,
+                           int iovcnt, int flags, int* msg_flags) {
+	struct msghdr msg;
+	memset(&msg, 0, sizeof(msg));
+	msg.msg_name    = addr;
+	msg.msg_namelen = addr == NULL ? 0 : *addrlen;
+	msg.msg_iov     = iov + iovoff;
+	msg.msg_iovlen  = iovcnt;
+	ssize_t v       = recvmsg(sockfd, &msg, flags);
+	if (v == -1) {
+		int err = errno;
+		return -err;
+	}
+	if (addr != NULL) {
+		*addrlen = msg.msg_namelen;
+	}
+	if (msg_flags != NULL) {
+		*msg_flags = msg.msg_flags;
+	}
+	return (int64_t) v;
+}
+
 #endif
\ No newline at end of file
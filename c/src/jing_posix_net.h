@@ -5,10 +5,66 @@
 
 #if defined(JING_OS_LINUX) || defined(JING_OS_MACOS)
 #include <sys/socket.h>
+#include <sys/uio.h>
+
+JING_EXPORT_SYMBOL int jing_posix_sol_socket(void);
+
+JING_EXPORT_SYMBOL int jing_posix_so_reuseaddr(void);
+
+JING_EXPORT_SYMBOL int jing_posix_so_reuseport(void);
+
+JING_EXPORT_SYMBOL int jing_posix_tcp_nodelay(void);
+
+JING_EXPORT_SYMBOL int jing_posix_msg_trunc(void);
+
+JING_EXPORT_SYMBOL int jing_posix_iovec_size(void);
+
+JING_EXPORT_SYMBOL int jing_posix_iovec_base_offset(void);
+
+JING_EXPORT_SYMBOL int jing_posix_iovec_len_offset(void);
+
+JING_EXPORT_SYMBOL int jing_posix_iov_max(void);
+
+JING_EXPORT_SYMBOL int jing_posix_socket(int af, int type, int protocol);
+
+JING_EXPORT_SYMBOL int jing_posix_setsockopt(int sockfd, int level, int optname,
+                                             int value);
 
 JING_EXPORT_SYMBOL int jing_posix_bind(int sockfd, const struct sockaddr* addr,
                                        socklen_t addrlen);
 
+JING_EXPORT_SYMBOL int jing_posix_listen(int sockfd, int backlog);
+
+JING_EXPORT_SYMBOL int jing_posix_accept(int sockfd, struct sockaddr* addr,
+                                         socklen_t* addrlen);
+
+JING_EXPORT_SYMBOL int jing_posix_accept_err_kind(int err);
+
+JING_EXPORT_SYMBOL int jing_posix_wakeup_create(int* fds);
+
+JING_EXPORT_SYMBOL int jing_posix_wakeup_signal(int fd);
+
+JING_EXPORT_SYMBOL int jing_posix_wakeup_drain(int fd);
+
+JING_EXPORT_SYMBOL int64_t jing_posix_readv(int fd, const struct iovec* iov,
+                                            int iovoff, int iovcnt);
+
+JING_EXPORT_SYMBOL int64_t jing_posix_writev(int fd, const struct iovec* iov,
+                                             int iovoff, int iovcnt);
+
+JING_EXPORT_SYMBOL int64_t jing_posix_sendmsg(int sockfd,
+                                              const struct sockaddr* addr,
+                                              socklen_t addrlen,
+                                              const struct iovec* iov,
+                                              int iovoff, int iovcnt,
+                                              int flags);
+
+JING_EXPORT_SYMBOL int64_t jing_posix_recvmsg(int sockfd, struct sockaddr* addr,
+                                              socklen_t* addrlen,
+                                              struct iovec* iov, int iovoff,
+                                              int iovcnt, int flags,
+                                              int* msg_flags);
+
 #endif
 
 #endif
\ No newline at end of file
@@ -68,6 +68,8 @@ JING_EXPORT_SYMBOL int jing_posix_madvise(void* addr, size_t size, int advice);
 
 JING_EXPORT_SYMBOL int jing_posix_munmap(void* addr, size_t size);
 
+JING_EXPORT_SYMBOL int jing_posix_close(int fd);
+
 #endif
 
 #endif
\ No newline at end of file
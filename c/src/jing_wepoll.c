@@ -33,6 +33,14 @@ int jing_wepoll_ctl_del(void) {
 	return EPOLL_CTL_DEL;
 }
 
+int jing_wepoll_event_size(void) {
+	return (int) sizeof(struct epoll_event);
+}
+
+int jing_wepoll_event_data_offset(void) {
+	return (int) offsetof(struct epoll_event, data);
+}
+
 HANDLE
 jing_wepoll_create() {
 	HANDLE ptr = epoll_create1(0);
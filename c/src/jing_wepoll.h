@@ -22,6 +22,10 @@ JING_EXPORT_SYMBOL int jing_wepoll_ctl_mod(void);
 
 JING_EXPORT_SYMBOL int jing_wepoll_ctl_del(void);
 
+JING_EXPORT_SYMBOL int jing_wepoll_event_size(void);
+
+JING_EXPORT_SYMBOL int jing_wepoll_event_data_offset(void);
+
 JING_EXPORT_SYMBOL HANDLE jing_wepoll_create();
 
 JING_EXPORT_SYMBOL int jing_wepoll_ctl(HANDLE epfd, SOCKET socket, int op,
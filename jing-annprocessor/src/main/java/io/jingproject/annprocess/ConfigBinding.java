@@ -0,0 +1,46 @@
+package io.jingproject.annprocess;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a record to be populated from the configuration under the prefix, the generated class _Record$$ConfigBinding
+ * provides a static bind() method reading and converting all the components in one pass
+ * <p>
+ * Supported component types are int, long, float, double, boolean, String and List&lt;String&gt;,
+ * components without {@link Default} are required
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface ConfigBinding {
+    /**
+     * Dotted path of the configuration object, starting with the namespace which is not part of the path in the configuration file,
+     * e.g. jing.net binds the keys under net, so it must contain at least two segments
+     */
+    String prefix();
+
+    /**
+     * Reject keys under the prefix not bound to any component, so misspelled keys are reported at startup
+     */
+    boolean strict() default true;
+
+    /**
+     * Overrides the key of a component, which is the component name by default
+     */
+    @Retention(RetentionPolicy.SOURCE)
+    @Target(ElementType.RECORD_COMPONENT)
+    @interface Key {
+        String value();
+    }
+
+    /**
+     * Default value of a component if its key is absent, validated at compile time, list items are separated by ','
+     */
+    @Retention(RetentionPolicy.SOURCE)
+    @Target(ElementType.RECORD_COMPONENT)
+    @interface Default {
+        String value();
+    }
+}
@@ -0,0 +1,368 @@
+package io.jingproject.annprocess;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import java.util.*;
+
+public final class ConfigBindingProcessor extends AbstractProcessor {
+
+    private static final String CONFIGURATION_FACTORY = "io.jingproject.common.ConfigurationFactory";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(ConfigBinding.class.getCanonicalName());
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (!roundEnv.processingOver()) {
+            processConfigBinding(roundEnv);
+        }
+        return true;
+    }
+
+    enum BindingType {
+        INT("int", "parseInt"),
+        LONG("long", "parseLong"),
+        FLOAT("float", "parseFloat"),
+        DOUBLE("double", "parseDouble"),
+        BOOLEAN("boolean", "parseBoolean"),
+        STRING("String", null),
+        LIST("List<String>", null);
+
+        private final String typeName;
+        private final String parser;
+
+        BindingType(String typeName, String parser) {
+            this.typeName = typeName;
+            this.parser = parser;
+        }
+    }
+
+    record ComponentData(
+            String name,
+            String key,
+            BindingType type,
+            String defaultValue
+    ) {
+
+    }
+
+    private void processConfigBinding(RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(ConfigBinding.class)) {
+            if (element instanceof TypeElement t) {
+                if (t.getNestingKind() != NestingKind.TOP_LEVEL) {
+                    throw new AnnotationProcessorException("Only top level element can be annotated with @ConfigBinding");
+                }
+                if (t.getKind() != ElementKind.RECORD) {
+                    throw new AnnotationProcessorException("Only record element can be annotated with @ConfigBinding");
+                }
+                ConfigBinding configBinding = Objects.requireNonNull(t.getAnnotation(ConfigBinding.class));
+                String prefix = configBinding.prefix();
+                validatePrefix(prefix);
+                List<ComponentData> components = new ArrayList<>();
+                Set<String> keys = new HashSet<>();
+                for (RecordComponentElement rc : t.getRecordComponents()) {
+                    String name = rc.getSimpleName().toString();
+                    ConfigBinding.Key k = rc.getAnnotation(ConfigBinding.Key.class);
+                    String key = k == null ? name : k.value();
+                    if (!validKey(key)) {
+                        throw new AnnotationProcessorException("Invalid key for component " + name + " : " + key);
+                    }
+                    if (!keys.add(key)) {
+                        throw new AnnotationProcessorException("Duplicate key for component " + name + " : " + key);
+                    }
+                    BindingType type = bindingType(rc.asType(), name);
+                    ConfigBinding.Default d = rc.getAnnotation(ConfigBinding.Default.class);
+                    String defaultValue = null;
+                    if (d != null) {
+                        defaultValue = d.value();
+                        validateDefault(type, name, defaultValue);
+                    }
+                    components.add(new ComponentData(name, key, type, defaultValue));
+                }
+                generateConfigBindingSource(t, prefix, configBinding.strict(), components);
+            } else {
+                throw new AnnotationProcessorException("Should never be reached");
+            }
+        }
+    }
+
+    /**
+     * The leading segment of a key is the namespace which is stripped by the configuration facade,
+     * e.g. jing.net.loops resolves net.loops, so a single segment prefix would make the components resolve at the root
+     * while the strict check enumerates the children of the prefix itself
+     */
+    private static void validatePrefix(String prefix) {
+        String[] segments = prefix.split("\\.", -1);
+        if (segments.length < 2) {
+            throw new AnnotationProcessorException("@ConfigBinding prefix must start with a namespace, e.g. jing.net : " + prefix);
+        }
+        for (String segment : segments) {
+            if (!validKey(segment)) {
+                throw new AnnotationProcessorException("Invalid @ConfigBinding prefix : " + prefix);
+            }
+        }
+    }
+
+    /**
+     * Same rules as CfgUtil.rejectKey of module jing.common, which is not available to the processor,
+     * a key could only contain ASCII letters, digits, '-' and '_'
+     */
+    private static boolean validKey(String key) {
+        if (key.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z') && (c < '0' || c > '9') && c != '-' && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private BindingType bindingType(TypeMirror typeMirror, String name) {
+        switch (typeMirror.getKind()) {
+            case INT -> {
+                return BindingType.INT;
+            }
+            case LONG -> {
+                return BindingType.LONG;
+            }
+            case FLOAT -> {
+                return BindingType.FLOAT;
+            }
+            case DOUBLE -> {
+                return BindingType.DOUBLE;
+            }
+            case BOOLEAN -> {
+                return BindingType.BOOLEAN;
+            }
+            case DECLARED -> {
+                if (typeMirror instanceof DeclaredType declaredType && declaredType.asElement() instanceof TypeElement typeElement) {
+                    String typeName = typeElement.getQualifiedName().toString();
+                    if (typeName.equals(String.class.getCanonicalName())) {
+                        return BindingType.STRING;
+                    }
+                    if (typeName.equals(List.class.getCanonicalName()) && declaredType.getTypeArguments().size() == 1) {
+                        TypeMirror arg = declaredType.getTypeArguments().getFirst();
+                        if (arg.getKind() == TypeKind.DECLARED && arg instanceof DeclaredType argType && argType.asElement() instanceof TypeElement argElement
+                                && argElement.getQualifiedName().contentEquals(String.class.getCanonicalName())) {
+                            return BindingType.LIST;
+                        }
+                    }
+                }
+            }
+            default -> {
+            }
+        }
+        throw new AnnotationProcessorException("Unsupported type for component " + name + " : " + typeMirror);
+    }
+
+    private static void validateDefault(BindingType type, String name, String defaultValue) {
+        try {
+            switch (type) {
+                case INT -> Integer.parseInt(defaultValue);
+                case LONG -> Long.parseLong(defaultValue);
+                case FLOAT -> Float.parseFloat(defaultValue);
+                case DOUBLE -> Double.parseDouble(defaultValue);
+                case BOOLEAN -> {
+                    if (!"true".equalsIgnoreCase(defaultValue) && !"false".equalsIgnoreCase(defaultValue)) {
+                        throw new AnnotationProcessorException("Invalid default value for component " + name + " : " + defaultValue);
+                    }
+                }
+                case STRING, LIST -> {
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new AnnotationProcessorException("Invalid default value for component " + name + " : " + defaultValue, e);
+        }
+    }
+
+    private void generateConfigBindingSource(TypeElement t, String prefix, boolean strict, List<ComponentData> components) {
+        GeneratorSource source = new GeneratorSource(processingEnv, t, "ConfigBinding");
+        String generatedClass = source.className();
+        String targetClass = source.register(t);
+        TypeElement factoryElement = processingEnv.getElementUtils().getTypeElement(CONFIGURATION_FACTORY);
+        if (factoryElement == null) {
+            throw new AnnotationProcessorException("@ConfigBinding requires module jing.common");
+        }
+        String factory = source.register(factoryElement);
+        String list = source.register(List.class);
+        String illegalStateException = source.register(IllegalStateException.class);
+        String unsupportedOperationException = source.register(UnsupportedOperationException.class);
+        List<GeneratorBlock> blocks = new ArrayList<>();
+        blocks.add(new GeneratorBlock()
+                .addLine("public final class " + generatedClass + " {")
+                .indent()
+                .addLine("private " + generatedClass + "() {")
+                .indent().addLine("throw new " + unsupportedOperationException + "(\"utility class\");")
+                .unindent().addLine("}")
+                .newLine());
+        GeneratorBlock bind = new GeneratorBlock()
+                .addLine("public static " + targetClass + " bind() {")
+                .indent();
+        if (strict) {
+            bind.addLine(list + "<String> keys = " + factory + ".confKeys(" + literal(prefix) + ");")
+                    .addLine("if(keys != null) {")
+                    .indent().addLine("for (String key : keys) {")
+                    .indent().addLine("switch (key) {")
+                    .indent();
+            if (!components.isEmpty()) {
+                StringJoiner cases = new StringJoiner(", ", "case ", " -> {");
+                for (ComponentData c : components) {
+                    cases.add(literal(c.key()));
+                }
+                bind.addLine(cases.toString()).addLine("}");
+            }
+            bind.addLine("default -> throw new " + illegalStateException + "(\"Unknown configuration key : " + escape(prefix) + ".\" + key);")
+                    .unindent().addLine("}")
+                    .unindent().addLine("}")
+                    .unindent().addLine("}");
+        }
+        StringJoiner args = new StringJoiner(", ");
+        for (int i = 0; i < components.size(); i++) {
+            ComponentData c = components.get(i);
+            String key = literal(prefix + "." + c.key());
+            String raw = "raw" + i;
+            String value = "value" + i;
+            args.add(value);
+            if (c.type() == BindingType.LIST) {
+                bind.addLine(list + "<String> " + value + " = " + factory + ".confList(" + key + ");");
+                bind.addLine("if(" + value + " == null) {").indent();
+                if (c.defaultValue() == null) {
+                    bind.addLine("throw new " + illegalStateException + "(\"Missing configuration key : " + escape(prefix + "." + c.key()) + "\");");
+                } else {
+                    StringJoiner items = new StringJoiner(", ", list + ".of(", ");");
+                    for (String item : c.defaultValue().split(",")) {
+                        if (!item.isBlank()) {
+                            items.add(literal(item.strip()));
+                        }
+                    }
+                    bind.addLine(value + " = " + items);
+                }
+                bind.unindent().addLine("}");
+                continue;
+            }
+            bind.addLine("String " + raw + " = " + factory + ".conf(" + key + ");");
+            String converted = c.type() == BindingType.STRING ? raw : c.type().parser + "(" + key + ", " + raw + ")";
+            if (c.defaultValue() == null) {
+                bind.addLine("if(" + raw + " == null) {")
+                        .indent().addLine("throw new " + illegalStateException + "(\"Missing configuration key : " + escape(prefix + "." + c.key()) + "\");")
+                        .unindent().addLine("}")
+                        .addLine(c.type().typeName + " " + value + " = " + converted + ";");
+            } else {
+                bind.addLine(c.type().typeName + " " + value + " = " + raw + " == null ? " + defaultLiteral(c) + " : " + converted + ";");
+            }
+        }
+        bind.addLine("return new " + targetClass + "(" + args + ");")
+                .unindent().addLine("}");
+        blocks.add(bind);
+        EnumSet<BindingType> parsers = EnumSet.noneOf(BindingType.class);
+        for (ComponentData c : components) {
+            if (c.type().parser != null) {
+                parsers.add(c.type());
+            }
+        }
+        for (BindingType type : parsers) {
+            GeneratorBlock parser = new GeneratorBlock()
+                    .newLine()
+                    .addLine("private static " + type.typeName + " " + type.parser + "(String key, String value) {")
+                    .indent();
+            if (type == BindingType.BOOLEAN) {
+                // 与ConfigurationFactory.valueAsBoolean一致，忽略大小写
+                parser.addLine("if(\"true\".equalsIgnoreCase(value)) {")
+                        .indent().addLine("return true;")
+                        .unindent().addLine("} else if(\"false\".equalsIgnoreCase(value)) {")
+                        .indent().addLine("return false;")
+                        .unindent().addLine("}")
+                        .addLine("throw new " + illegalStateException + "(\"Invalid configuration value : \" + key + \" = \" + value);");
+            } else {
+                String boxed = switch (type) {
+                    case INT -> "Integer";
+                    case LONG -> "Long";
+                    case FLOAT -> "Float";
+                    case DOUBLE -> "Double";
+                    default -> throw new AnnotationProcessorException("Should never be reached");
+                };
+                parser.addLine("try {")
+                        .indent().addLine("return " + boxed + "." + type.parser + "(value);")
+                        .unindent().addLine("} catch (NumberFormatException e) {")
+                        .indent().addLine("throw new " + illegalStateException + "(\"Invalid configuration value : \" + key + \" = \" + value, e);")
+                        .unindent().addLine("}");
+            }
+            parser.unindent().addLine("}");
+            blocks.add(parser);
+        }
+        blocks.add(new GeneratorBlock().unindent().addLine("}"));
+        source.addBlocks(blocks);
+        source.writeToFiler();
+    }
+
+    // 默认值在编译期已经校验过，这里生成规范化的字面量
+    private static String defaultLiteral(ComponentData c) {
+        String v = c.defaultValue();
+        return switch (c.type()) {
+            case INT -> Integer.toString(Integer.parseInt(v));
+            case LONG -> Long.parseLong(v) + "L";
+            case FLOAT -> {
+                float f = Float.parseFloat(v);
+                if (Float.isNaN(f)) {
+                    yield "Float.NaN";
+                } else if (Float.isInfinite(f)) {
+                    yield f > 0 ? "Float.POSITIVE_INFINITY" : "Float.NEGATIVE_INFINITY";
+                }
+                yield f + "f";
+            }
+            case DOUBLE -> {
+                double d = Double.parseDouble(v);
+                if (Double.isNaN(d)) {
+                    yield "Double.NaN";
+                } else if (Double.isInfinite(d)) {
+                    yield d > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+                }
+                yield d + "d";
+            }
+            case BOOLEAN -> Boolean.toString("true".equalsIgnoreCase(v));
+            case STRING -> literal(v);
+            case LIST -> throw new AnnotationProcessorException("Should never be reached");
+        };
+    }
+
+    private static String literal(String value) {
+        return "\"" + escape(value) + "\"";
+    }
+
+    private static String escape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -21,16 +21,22 @@ public final class GeneratorSource {
     private int indent = 0;
 
     public GeneratorSource(ProcessingEnvironment processingEnv, TypeElement el, String tag) {
+        this(processingEnv, processingEnv.getElementUtils().getPackageOf(el), "_" + el.getSimpleName() + "$$" + tag);
+    }
+
+    /**
+     * Generate a class not derived from a single element, e.g. a registry for the whole module
+     */
+    public GeneratorSource(ProcessingEnvironment processingEnv, PackageElement packageElement, String className) {
         env = Objects.requireNonNull(processingEnv);
         Elements elm = env.getElementUtils();
-        ModuleElement moduleElement = elm.getModuleOf(el);
-        PackageElement packageElement = elm.getPackageOf(el);
+        ModuleElement moduleElement = elm.getModuleOf(packageElement);
         if (moduleElement.isUnnamed() || elm.isAutomaticModule(moduleElement)) {
             throw new RuntimeException("ModuleElement cannot be unnamed or automatic");
         }
         sourceModuleName = moduleElement.getQualifiedName().toString();
         sourcePackageName = packageElement.getQualifiedName().toString();
-        sourceClassName = "_" + el.getSimpleName() + "$$" + tag;
+        sourceClassName = className;
     }
 
     public String className() {
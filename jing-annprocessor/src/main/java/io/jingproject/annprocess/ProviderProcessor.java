@@ -3,13 +3,12 @@ package io.jingproject.annprocess;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
-import javax.lang.model.element.Element;
-import javax.lang.model.element.Modifier;
-import javax.lang.model.element.NestingKind;
-import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.*;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.MirroredTypeException;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
 import javax.tools.FileObject;
 import javax.tools.StandardLocation;
 import java.io.IOException;
@@ -20,8 +19,33 @@ import java.util.concurrent.locks.ReentrantLock;
 
 public final class ProviderProcessor extends AbstractProcessor {
 
+    private static final String REGISTRY = "io.jingproject.common.ProviderRegistry";
+    private static final String REGISTRY_CLASS_NAME = "_Jing$$ProviderRegistry";
+
     private final Map<String, Set<String>> data = new HashMap<>();
 
+    /**
+     * Providers found in current round, which are not covered by any generated registry yet
+     */
+    private final Map<String, Set<String>> pending = new HashMap<>();
+
+    /**
+     * Binary names of the services, which are what Class.getName() returns at runtime, differing from the qualified names for nested services
+     */
+    private final Map<String, String> binaryNames = new HashMap<>();
+
+    /**
+     * Module of the providers and the package where the registry of current round would be generated, the smallest package name is picked for a stable output
+     */
+    private String moduleName;
+    private String packageName;
+
+    /**
+     * Number of the generated registries, a registry is generated in each round where providers are found instead of the final round,
+     * since source files generated in the final round are not compiled by javac, providers generated by other processors are found in later rounds
+     */
+    private int registries = 0;
+
     private final Lock lock = new ReentrantLock();
 
     @Override
@@ -38,12 +62,71 @@ public final class ProviderProcessor extends AbstractProcessor {
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
         if (roundEnv.processingOver()) {
             writeJsonConfigurationFile();
-        } else {
-            processSpiData(roundEnv);
+        } else if (processSpiData(roundEnv)) {
+            generateRegistrySource();
         }
         return true;
     }
 
+    /**
+     * Generate a registry constructing the providers directly, providers of a service are created on first request of that service,
+     * the registry itself is exposed through the json file, so only the registries need to be located by ServiceLoader at runtime
+     */
+    private void generateRegistrySource() {
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Elements elm = processingEnv.getElementUtils();
+            TypeElement registryElement = elm.getTypeElement(REGISTRY);
+            if (registryElement == null) {
+                throw new AnnotationProcessorException("Module : " + moduleName + " must read jing.common to generate provider registry");
+            }
+            ModuleElement moduleElement = elm.getModuleElement(moduleName);
+            // 后续轮次生成的注册类加上序号，运行时合并同一模块的所有注册类
+            String className = registries == 0 ? REGISTRY_CLASS_NAME : REGISTRY_CLASS_NAME + registries;
+            GeneratorSource source = new GeneratorSource(processingEnv, elm.getPackageElement(moduleElement, packageName), className);
+            String registry = source.register(registryElement);
+            String list = source.register(List.class);
+            List<GeneratorBlock> blocks = new ArrayList<>();
+            blocks.add(new GeneratorBlock()
+                    .addLine("public final class " + source.className() + " implements " + registry + " {")
+                    .indent().newLine()
+                    .addLine("@Override")
+                    .addLine("public " + list + "<?> providers(Class<?> service) {")
+                    .indent().addLine("return switch (service.getName()) {").indent());
+            for (String service : pending.keySet().stream().sorted().toList()) {
+                GeneratorBlock b = new GeneratorBlock()
+                        .addLine("case \"" + binaryNames.get(service) + "\" -> {").indent()
+                        .addLine("class Holder {").indent()
+                        .addLine("static final " + list + "<?> PROVIDERS = " + list + ".of(").indent();
+                Iterator<String> iter = pending.get(service).stream().sorted().iterator();
+                while (iter.hasNext()) {
+                    TypeElement providerElement = elm.getTypeElement(moduleElement, iter.next());
+                    String statement = "new " + source.register(providerElement) + "()";
+                    b.addLine(iter.hasNext() ? statement + "," : statement);
+                }
+                b.unindent().addLine(");").unindent().addLine("}")
+                        .addLine("yield Holder.PROVIDERS;").unindent().addLine("}");
+                blocks.add(b);
+            }
+            blocks.add(new GeneratorBlock()
+                    .addLine("default -> " + list + ".of();")
+                    .unindent().addLine("};")
+                    .unindent().addLine("}").newLine()
+                    .unindent().addLine("}").newLine());
+            source.addBlocks(blocks);
+            source.writeToFiler();
+            data.computeIfAbsent(REGISTRY, _ -> new HashSet<>()).add(packageName + "." + className);
+            registries++;
+            pending.clear();
+            packageName = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     // TODO After json API got stabled in JDK, replace it here
     private void writeJsonConfigurationFile() {
         lock.lock();
@@ -86,8 +169,14 @@ public final class ProviderProcessor extends AbstractProcessor {
         }
     }
 
-    private void processSpiData(RoundEnvironment roundEnv) {
+    /**
+     * @return true if any provider was found in this round
+     */
+    private boolean processSpiData(RoundEnvironment roundEnv) {
         Set<? extends Element> elements = roundEnv.getElementsAnnotatedWith(Provider.class);
+        if (elements.isEmpty()) {
+            return false;
+        }
         for (Element element : elements) {
             if (element instanceof TypeElement t) {
                 if (t.getNestingKind() != NestingKind.TOP_LEVEL) {
@@ -96,21 +185,42 @@ public final class ProviderProcessor extends AbstractProcessor {
                 if (!t.getModifiers().contains(Modifier.FINAL)) {
                     throw new AnnotationProcessorException("Only final element can be annotated with @Provider");
                 }
+                Elements elm = processingEnv.getElementUtils();
                 String targetInterfaceName;
+                String targetInterfaceBinaryName;
                 try {
-                    targetInterfaceName = Objects.requireNonNull(t.getAnnotation(Provider.class)).target().getCanonicalName();
+                    Class<?> target = Objects.requireNonNull(t.getAnnotation(Provider.class)).target();
+                    targetInterfaceName = target.getCanonicalName();
+                    targetInterfaceBinaryName = target.getName();
                 } catch (MirroredTypeException mte) {
                     TypeMirror mirror = mte.getTypeMirror();
                     if (mirror instanceof DeclaredType declaredType && declaredType.asElement() instanceof TypeElement typeElement) {
                         targetInterfaceName = typeElement.getQualifiedName().toString();
+                        targetInterfaceBinaryName = elm.getBinaryName(typeElement).toString();
                     } else {
                         throw new AnnotationProcessorException("Should never be reached");
                     }
                 }
+                if (!t.getModifiers().contains(Modifier.PUBLIC) || ElementFilter.constructorsIn(t.getEnclosedElements()).stream()
+                        .noneMatch(c -> c.getParameters().isEmpty() && c.getModifiers().contains(Modifier.PUBLIC))) {
+                    throw new AnnotationProcessorException("Element annotated with @Provider must be public with a public no-arg constructor : " + t.getQualifiedName());
+                }
+                String targetModuleName = elm.getModuleOf(t).getQualifiedName().toString();
+                String targetPackageName = elm.getPackageOf(t).getQualifiedName().toString();
                 String targetProviderName = t.getQualifiedName().toString();
                 lock.lock();
                 try {
+                    if (moduleName == null) {
+                        moduleName = targetModuleName;
+                    } else if (!moduleName.equals(targetModuleName)) {
+                        throw new AnnotationProcessorException("Providers must be located in the same module, found : " + moduleName + " and " + targetModuleName);
+                    }
+                    if (packageName == null || targetPackageName.compareTo(packageName) < 0) {
+                        packageName = targetPackageName;
+                    }
                     data.computeIfAbsent(targetInterfaceName, _ -> new HashSet<>()).add(targetProviderName);
+                    pending.computeIfAbsent(targetInterfaceName, _ -> new HashSet<>()).add(targetProviderName);
+                    binaryNames.put(targetInterfaceName, targetInterfaceBinaryName);
                 } finally {
                     lock.unlock();
                 }
@@ -118,5 +228,6 @@ public final class ProviderProcessor extends AbstractProcessor {
                 throw new AnnotationProcessorException("Should never be reached");
             }
         }
+        return true;
     }
 }
@@ -1,5 +1,5 @@
 module jing.annprocessor {
     requires transitive java.compiler;
     exports io.jingproject.annprocess;
-    provides javax.annotation.processing.Processor with io.jingproject.annprocess.ProviderProcessor;
+    provides javax.annotation.processing.Processor with io.jingproject.annprocess.ProviderProcessor, io.jingproject.annprocess.ConfigBindingProcessor;
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package io.jingproject.annprocesstest;
+
+import io.jingproject.annprocess.ConfigBindingProcessor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ConfigBindingProcessorTest {
+    private static final String PACKAGE = "io.jingproject.bindtest";
+    private static ClassLoader loader;
+
+    @BeforeAll
+    public static void compileBindings() throws IOException {
+        Path out = compile(Map.of(
+                "Full", """
+                        @ConfigBinding(prefix = "test.full")
+                        public record Full(int port, double ratio, boolean enabled, String name, List<String> hosts) {
+
+                        }
+                        """,
+                "Defaults", """
+                        @ConfigBinding(prefix = "test.partial")
+                        public record Defaults(int port, @ConfigBinding.Default("1.5") float ratio, @ConfigBinding.Default("TRUE") boolean enabled,
+                                               @ConfigBinding.Default("x") String name, @ConfigBinding.Default("a,b") List<String> hosts,
+                                               @ConfigBinding.Default("9") long timeout) {
+
+                        }
+                        """,
+                "Renamed", """
+                        @ConfigBinding(prefix = "test.partial")
+                        public record Renamed(@ConfigBinding.Key("port") int listenPort) {
+
+                        }
+                        """,
+                "Missing", """
+                        @ConfigBinding(prefix = "test.partial", strict = false)
+                        public record Missing(int port, int backlog) {
+
+                        }
+                        """,
+                "Strict", """
+                        @ConfigBinding(prefix = "test.strict")
+                        public record Strict(int port) {
+
+                        }
+                        """,
+                "Lenient", """
+                        @ConfigBinding(prefix = "test.strict", strict = false)
+                        public record Lenient(int port) {
+
+                        }
+                        """,
+                "Flags", """
+                        @ConfigBinding(prefix = "test.flags")
+                        public record Flags(boolean a, boolean b) {
+
+                        }
+                        """,
+                "InvalidFlag", """
+                        @ConfigBinding(prefix = "test.invalid")
+                        public record InvalidFlag(boolean flag) {
+
+                        }
+                        """));
+        Assertions.assertNotNull(out);
+        loader = new URLClassLoader(new URL[]{out.toUri().toURL()}, ConfigBindingProcessorTest.class.getClassLoader());
+    }
+
+    @Test
+    public void testBind() throws Throwable {
+        Assertions.assertEquals("Full[port=8080, ratio=0.5, enabled=true, name=svc, hosts=[a, b]]", bind("Full").toString());
+    }
+
+    @Test
+    public void testDefault() throws Throwable {
+        Assertions.assertEquals("Defaults[port=1, ratio=1.5, enabled=true, name=x, hosts=[a, b], timeout=9]", bind("Defaults").toString());
+        Assertions.assertEquals("Renamed[listenPort=1]", bind("Renamed").toString());
+    }
+
+    @Test
+    public void testMissing() {
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> bind("Missing"));
+        Assertions.assertEquals("Missing configuration key : test.partial.backlog", e.getMessage());
+    }
+
+    @Test
+    public void testStrict() throws Throwable {
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> bind("Strict"));
+        Assertions.assertEquals("Unknown configuration key : test.strict.typo", e.getMessage());
+        Assertions.assertEquals("Lenient[port=1]", bind("Lenient").toString());
+    }
+
+    @Test
+    public void testBoolean() throws Throwable {
+        Assertions.assertEquals("Flags[a=true, b=false]", bind("Flags").toString());
+        Assertions.assertThrows(IllegalStateException.class, () -> bind("InvalidFlag"));
+    }
+
+    @Test
+    public void testInvalidBinding() throws IOException {
+        Assertions.assertNull(compile(Map.of("Root", """
+                @ConfigBinding(prefix = "test")
+                public record Root(int port) {
+
+                }
+                """)));
+        Assertions.assertNull(compile(Map.of("EmptySegment", """
+                @ConfigBinding(prefix = "test..port")
+                public record EmptySegment(int port) {
+
+                }
+                """)));
+        Assertions.assertNull(compile(Map.of("InvalidKey", """
+                @ConfigBinding(prefix = "test.full")
+                public record InvalidKey(@ConfigBinding.Key("a.b") int port) {
+
+                }
+                """)));
+        Assertions.assertNull(compile(Map.of("InvalidDefault", """
+                @ConfigBinding(prefix = "test.full")
+                public record InvalidDefault(@ConfigBinding.Default("yes") boolean enabled) {
+
+                }
+                """)));
+    }
+
+    private static Object bind(String record) throws Throwable {
+        try {
+            return loader.loadClass(PACKAGE + "._" + record + "$$ConfigBinding").getMethod("bind").invoke(null);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Path compile(Map<String, String> records) throws IOException {
+        Map<String, String> classes = new HashMap<>();
+        records.forEach((name, record) -> classes.put(name, "import io.jingproject.annprocess.ConfigBinding;\n\nimport java.util.List;\n\n" + record));
+        return ProcessorCompiler.compile(new ConfigBindingProcessor(), PACKAGE, classes);
+    }
+}
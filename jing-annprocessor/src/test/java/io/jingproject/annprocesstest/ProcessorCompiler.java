@@ -0,0 +1,71 @@
+package io.jingproject.annprocesstest;
+
+import io.jingproject.annprocess.ConfigBinding;
+import io.jingproject.common.ConfigurationFactory;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles sources with a processor as the named module jing.processortest, since the generated sources must be located in a named module
+ */
+final class ProcessorCompiler {
+    private ProcessorCompiler() {
+        throw new UnsupportedOperationException("utility class");
+    }
+
+    /**
+     * Return the output directory, or null if the compilation failed
+     */
+    static Path compile(Processor processor, String packageName, Map<String, String> classes) throws IOException {
+        return compile(List.of(processor), packageName, classes);
+    }
+
+    /**
+     * The processors run in the given order within each round
+     */
+    static Path compile(List<Processor> processors, String packageName, Map<String, String> classes) throws IOException {
+        Path dir = Files.createTempDirectory("jing-processor");
+        Path pkg = Files.createDirectories(dir.resolve("src").resolve(packageName.replace('.', File.separatorChar)));
+        Path out = Files.createDirectories(dir.resolve("out"));
+        List<Path> sources = new ArrayList<>();
+        sources.add(Files.writeString(dir.resolve("src").resolve("module-info.java"), """
+                module jing.processortest {
+                    requires jing.common;
+                    requires static jing.annprocessor;
+                }
+                """));
+        for (Map.Entry<String, String> e : classes.entrySet()) {
+            sources.add(Files.writeString(pkg.resolve(e.getKey() + ".java"), "package " + packageName + ";\n\n" + e.getValue()));
+        }
+        String modulePath = location(ConfigurationFactory.class) + File.pathSeparator + location(ConfigBinding.class);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+                    List.of("-d", out.toString(), "--module-path", modulePath), null, fileManager.getJavaFileObjectsFromPaths(sources));
+            task.setProcessors(processors);
+            return task.call() ? out : null;
+        } catch (RuntimeException e) {
+            // 处理器抛出的异常会被javac包装为RuntimeException
+            return null;
+        }
+    }
+
+    private static Path location(Class<?> c) {
+        try {
+            return Path.of(c.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
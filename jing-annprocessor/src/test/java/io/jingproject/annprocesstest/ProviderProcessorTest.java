@@ -0,0 +1,154 @@
+package io.jingproject.annprocesstest;
+
+import io.jingproject.annprocess.ProviderProcessor;
+import io.jingproject.common.ProviderRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ProviderProcessorTest {
+    private static final String PACKAGE = "io.jingproject.providertest";
+
+    @Test
+    public void testRegistry() throws Exception {
+        Path out = ProcessorCompiler.compile(new ProviderProcessor(), PACKAGE, Map.of(
+                "Services", """
+                        public final class Services {
+                            private Services() {
+
+                            }
+
+                            public interface Codec {
+
+                            }
+                        }
+                        """,
+                "Greeter", """
+                        public interface Greeter {
+
+                        }
+                        """,
+                "JsonCodec", """
+                        import io.jingproject.annprocess.Provider;
+
+                        @Provider(target = Services.Codec.class)
+                        public final class JsonCodec implements Services.Codec {
+
+                        }
+                        """,
+                "XmlCodec", """
+                        import io.jingproject.annprocess.Provider;
+
+                        @Provider(target = Services.Codec.class)
+                        public final class XmlCodec implements Services.Codec {
+
+                        }
+                        """,
+                "DefaultGreeter", """
+                        import io.jingproject.annprocess.Provider;
+
+                        @Provider(target = Greeter.class)
+                        public final class DefaultGreeter implements Greeter {
+
+                        }
+                        """));
+        Assertions.assertNotNull(out);
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{out.toUri().toURL()}, ProviderProcessorTest.class.getClassLoader())) {
+            ProviderRegistry registry = (ProviderRegistry) loader.loadClass(PACKAGE + "._Jing$$ProviderRegistry").getConstructor().newInstance();
+            // 嵌套的服务接口按二进制名称匹配
+            List<?> codecs = registry.providers(loader.loadClass(PACKAGE + ".Services$Codec"));
+            Assertions.assertEquals(List.of(PACKAGE + ".JsonCodec", PACKAGE + ".XmlCodec"), codecs.stream().map(p -> p.getClass().getName()).toList());
+            Assertions.assertSame(codecs, registry.providers(loader.loadClass(PACKAGE + ".Services$Codec")));
+            List<?> greeters = registry.providers(loader.loadClass(PACKAGE + ".Greeter"));
+            Assertions.assertEquals(List.of(PACKAGE + ".DefaultGreeter"), greeters.stream().map(p -> p.getClass().getName()).toList());
+            Assertions.assertEquals(List.of(), registry.providers(Runnable.class));
+        }
+    }
+
+    /**
+     * Generates a provider in the first round, as the ffm processor does for the shared libraries
+     */
+    @SupportedAnnotationTypes("*")
+    static final class GeneratingProcessor extends AbstractProcessor {
+        private boolean generated = false;
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latestSupported();
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+            if (!generated) {
+                generated = true;
+                try (Writer writer = processingEnv.getFiler().createSourceFile(PACKAGE + ".GeneratedGreeter").openWriter()) {
+                    writer.write("package " + PACKAGE + ";\n\n@io.jingproject.annprocess.Provider(target = Greeter.class)\n"
+                            + "public final class GeneratedGreeter implements Greeter {\n\n}\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return false;
+        }
+    }
+
+    @Test
+    public void testGeneratedProvider() throws Exception {
+        Path out = ProcessorCompiler.compile(List.of(new ProviderProcessor(), new GeneratingProcessor()), PACKAGE, Map.of(
+                "Greeter", """
+                        public interface Greeter {
+
+                        }
+                        """,
+                "DefaultGreeter", """
+                        import io.jingproject.annprocess.Provider;
+
+                        @Provider(target = Greeter.class)
+                        public final class DefaultGreeter implements Greeter {
+
+                        }
+                        """));
+        Assertions.assertNotNull(out);
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{out.toUri().toURL()}, ProviderProcessorTest.class.getClassLoader())) {
+            Class<?> greeter = loader.loadClass(PACKAGE + ".Greeter");
+            // 后续轮次中生成的provider注册到新的注册类中
+            ProviderRegistry first = (ProviderRegistry) loader.loadClass(PACKAGE + "._Jing$$ProviderRegistry").getConstructor().newInstance();
+            ProviderRegistry second = (ProviderRegistry) loader.loadClass(PACKAGE + "._Jing$$ProviderRegistry1").getConstructor().newInstance();
+            Assertions.assertEquals(List.of(PACKAGE + ".DefaultGreeter"), first.providers(greeter).stream().map(p -> p.getClass().getName()).toList());
+            Assertions.assertEquals(List.of(PACKAGE + ".GeneratedGreeter"), second.providers(greeter).stream().map(p -> p.getClass().getName()).toList());
+        }
+        String json = Files.readString(out.resolve("jing-providers.json"));
+        Assertions.assertTrue(json.contains("\"" + PACKAGE + "._Jing$$ProviderRegistry\""));
+        Assertions.assertTrue(json.contains("\"" + PACKAGE + "._Jing$$ProviderRegistry1\""));
+    }
+
+    @Test
+    public void testInvalidProvider() throws IOException {
+        Assertions.assertNull(ProcessorCompiler.compile(new ProviderProcessor(), PACKAGE, Map.of("Hidden", """
+                import io.jingproject.annprocess.Provider;
+
+                @Provider(target = Runnable.class)
+                final class Hidden implements Runnable {
+                    @Override
+                    public void run() {
+
+                    }
+                }
+                """)));
+    }
+}
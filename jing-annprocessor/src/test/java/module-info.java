@@ -0,0 +1,6 @@
+open module jing.annprocessortest {
+    exports io.jingproject.annprocesstest;
+    requires jing.annprocessor;
+    requires jing.common;
+    requires org.junit.jupiter.api;
+}
@@ -14,6 +14,21 @@ public interface EpollBindings {
     @Downcall(methodName = "jing_epoll_out", constant = true, critical = true)
     int epollOut();
 
+    @Downcall(methodName = "jing_epoll_err", constant = true, critical = true)
+    int epollErr();
+
+    @Downcall(methodName = "jing_epoll_hup", constant = true, critical = true)
+    int epollHup();
+
+    @Downcall(methodName = "jing_epoll_et", constant = true, critical = true)
+    int epollEt();
+
+    @Downcall(methodName = "jing_epoll_oneshot", constant = true, critical = true)
+    int epollOneshot();
+
+    @Downcall(methodName = "jing_epoll_exclusive", constant = true, critical = true)
+    int epollExclusive();
+
     @Downcall(methodName = "jing_epoll_default", constant = true, critical = true)
     int epollDefault();
 
@@ -29,9 +44,43 @@ public interface EpollBindings {
     @Downcall(methodName = "jing_epoll_cloexec", constant = true, critical = true)
     int epollCloexec();
 
+    @Downcall(methodName = "jing_epoll_event_size", constant = true, critical = true)
+    int epollEventSize();
+
+    @Downcall(methodName = "jing_epoll_event_data_offset", constant = true, critical = true)
+    int epollEventDataOffset();
+
+    @Downcall(methodName = "jing_epoll_ctl_entry_size", constant = true, critical = true)
+    int epollCtlEntrySize();
+
+    @Downcall(methodName = "jing_epoll_ctl_entry_fd_offset", constant = true, critical = true)
+    int epollCtlEntryFdOffset();
+
+    @Downcall(methodName = "jing_epoll_ctl_entry_op_offset", constant = true, critical = true)
+    int epollCtlEntryOpOffset();
+
+    @Downcall(methodName = "jing_epoll_ctl_entry_events_offset", constant = true, critical = true)
+    int epollCtlEntryEventsOffset();
+
+    @Downcall(methodName = "jing_epoll_ctl_entry_data_offset", constant = true, critical = true)
+    int epollCtlEntryDataOffset();
+
+    @Downcall(methodName = "jing_epoll_ctl_entry_err_offset", constant = true, critical = true)
+    int epollCtlEntryErrOffset();
+
     @Downcall(methodName = "jing_epoll_create", critical = true)
     int epollCreate();
 
     @Downcall(methodName = "jing_epoll_ctl", critical = true)
     int epollCtl(int epfd, int socket, int op, int eventTypes, int data);
+
+    @Downcall(methodName = "jing_epoll_ctl_batch")
+    int epollCtlBatch(int epfd, MemorySegment entries, int count);
+
+    @Downcall(methodName = "jing_epoll_wait")
+    int epollWait(int epfd, MemorySegment events, int maxEvents, int timeout);
+
+    // critical variant, only for zero timeout since a blocking critical call would stall safepoints
+    @Downcall(methodName = "jing_epoll_wait", critical = true)
+    int epollWaitNow(int epfd, MemorySegment events, int maxEvents, int timeout);
 }
@@ -0,0 +1,49 @@
+package io.jingproject.bindings;
+
+import io.jingproject.common.Os;
+import io.jingproject.ffm.Downcall;
+import io.jingproject.ffm.FFM;
+
+import java.lang.foreign.MemorySegment;
+
+@FFM(libraryName = "jing", supportedOS = Os.LINUX)
+public interface IoUringBindings {
+    @Downcall(methodName = "jing_io_uring_pollin", constant = true, critical = true)
+    int ioUringPollIn();
+
+    @Downcall(methodName = "jing_io_uring_pollout", constant = true, critical = true)
+    int ioUringPollOut();
+
+    @Downcall(methodName = "jing_io_uring_pollerr", constant = true, critical = true)
+    int ioUringPollErr();
+
+    @Downcall(methodName = "jing_io_uring_pollhup", constant = true, critical = true)
+    int ioUringPollHup();
+
+    @Downcall(methodName = "jing_io_uring_create", critical = true)
+    MemorySegment ioUringCreate(int entries);
+
+    @Downcall(methodName = "jing_io_uring_poll_add")
+    int ioUringPollAdd(MemorySegment ring, int fd, int events, long userData);
+
+    @Downcall(methodName = "jing_io_uring_poll_remove")
+    int ioUringPollRemove(MemorySegment ring, long targetUserData, long userData);
+
+    @Downcall(methodName = "jing_io_uring_accept")
+    int ioUringAccept(MemorySegment ring, int fd, long userData);
+
+    @Downcall(methodName = "jing_io_uring_recv")
+    int ioUringRecv(MemorySegment ring, int fd, MemorySegment buf, int len, long userData);
+
+    @Downcall(methodName = "jing_io_uring_send")
+    int ioUringSend(MemorySegment ring, int fd, MemorySegment buf, int len, long userData);
+
+    @Downcall(methodName = "jing_io_uring_cancel")
+    int ioUringCancel(MemorySegment ring, long targetUserData, long userData);
+
+    @Downcall(methodName = "jing_io_uring_wait")
+    int ioUringWait(MemorySegment ring, MemorySegment events, int maxEvents, int timeout);
+
+    @Downcall(methodName = "jing_io_uring_close", critical = true)
+    int ioUringClose(MemorySegment ring);
+}
@@ -14,12 +14,21 @@ public interface KqueueBindings {
     @Downcall(methodName = "jing_kqueue_out", constant = true, critical = true)
     int kqueueOut();
 
+    @Downcall(methodName = "jing_kevent_size", constant = true, critical = true)
+    int keventSize();
+
+    @Downcall(methodName = "jing_kevent_filter_offset", constant = true, critical = true)
+    int keventFilterOffset();
+
+    @Downcall(methodName = "jing_kevent_udata_offset", constant = true, critical = true)
+    int keventUdataOffset();
+
     @Downcall(methodName = "jing_kqueue", critical = true)
     int kqueue();
 
     @Downcall(methodName = "jing_kevent_ctl", critical = true)
     int keventCtl(int kqfd, int socket, int modRead, int modWrite, MemorySegment udata);
 
-    @Downcall(methodName = "jing_kqueue_wait")
+    @Downcall(methodName = "jing_kevent_wait")
     int keventWait(int kqfd, MemorySegment events, int nevents, int timeout);
 }
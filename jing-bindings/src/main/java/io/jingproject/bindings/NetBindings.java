@@ -37,6 +37,18 @@ public interface NetBindings {
     @Downcall(methodName = "jing_udp_protocol_code", constant = true, critical = true)
     int udpProtocolCode();
 
+    @Downcall(methodName = "jing_sockaddr_in_size", constant = true, critical = true)
+    int sockaddrInSize();
+
+    @Downcall(methodName = "jing_sockaddr_in6_size", constant = true, critical = true)
+    int sockaddrIn6Size();
+
+    @Downcall(methodName = "jing_set_sockaddr_in", critical = true)
+    void setSockaddrIn(MemorySegment addr, int ip, int port);
+
+    @Downcall(methodName = "jing_set_sockaddr_in6", critical = true)
+    void setSockaddrIn6(MemorySegment addr, MemorySegment ip, int port);
+
     @Downcall(methodName = "jing_socket", critical = true)
     int createSocket(int af, int type, int protocol);
 }
@@ -0,0 +1,76 @@
+package io.jingproject.bindings;
+
+import io.jingproject.common.Os;
+import io.jingproject.ffm.Downcall;
+import io.jingproject.ffm.FFM;
+
+import java.lang.foreign.MemorySegment;
+
+@FFM(libraryName = "jing", supportedOS = {Os.LINUX, Os.MACOS})
+public interface PosixNetBindings {
+    @Downcall(methodName = "jing_posix_sol_socket", constant = true, critical = true)
+    int posixSolSocket();
+
+    @Downcall(methodName = "jing_posix_so_reuseaddr", constant = true, critical = true)
+    int posixSoReuseAddr();
+
+    @Downcall(methodName = "jing_posix_so_reuseport", constant = true, critical = true)
+    int posixSoReusePort();
+
+    @Downcall(methodName = "jing_posix_tcp_nodelay", constant = true, critical = true)
+    int posixTcpNoDelay();
+
+    @Downcall(methodName = "jing_posix_msg_trunc", constant = true, critical = true)
+    int posixMsgTrunc();
+
+    @Downcall(methodName = "jing_posix_iovec_size", constant = true, critical = true)
+    int posixIovecSize();
+
+    @Downcall(methodName = "jing_posix_iovec_base_offset", constant = true, critical = true)
+    int posixIovecBaseOffset();
+
+    @Downcall(methodName = "jing_posix_iovec_len_offset", constant = true, critical = true)
+    int posixIovecLenOffset();
+
+    @Downcall(methodName = "jing_posix_iov_max", constant = true, critical = true)
+    int posixIovMax();
+
+    @Downcall(methodName = "jing_posix_socket", critical = true)
+    int posixSocket(int af, int type, int protocol);
+
+    @Downcall(methodName = "jing_posix_setsockopt", critical = true)
+    int posixSetSockOpt(int sockfd, int level, int optName, int value);
+
+    @Downcall(methodName = "jing_posix_bind", critical = true)
+    int posixBind(int sockfd, MemorySegment addr, int addrLen);
+
+    @Downcall(methodName = "jing_posix_listen", critical = true)
+    int posixListen(int sockfd, int backlog);
+
+    @Downcall(methodName = "jing_posix_accept", critical = true)
+    int posixAccept(int sockfd, MemorySegment addr, MemorySegment addrLen);
+
+    @Downcall(methodName = "jing_posix_accept_err_kind", critical = true)
+    int posixAcceptErrKind(int err);
+
+    @Downcall(methodName = "jing_posix_wakeup_create", critical = true)
+    int posixWakeupCreate(MemorySegment fds);
+
+    @Downcall(methodName = "jing_posix_wakeup_signal", critical = true)
+    int posixWakeupSignal(int fd);
+
+    @Downcall(methodName = "jing_posix_wakeup_drain", critical = true)
+    int posixWakeupDrain(int fd);
+
+    @Downcall(methodName = "jing_posix_readv", critical = true)
+    long posixReadv(int fd, MemorySegment iov, int iovoff, int iovcnt);
+
+    @Downcall(methodName = "jing_posix_writev", critical = true)
+    long posixWritev(int fd, MemorySegment iov, int iovoff, int iovcnt);
+
+    @Downcall(methodName = "jing_posix_sendmsg", critical = true)
+    long posixSendmsg(int sockfd, MemorySegment addr, int addrLen, MemorySegment iov, int iovoff, int iovcnt, int flags);
+
+    @Downcall(methodName = "jing_posix_recvmsg", critical = true)
+    long posixRecvmsg(int sockfd, MemorySegment addr, MemorySegment addrLen, MemorySegment iov, int iovoff, int iovcnt, int flags, MemorySegment msgFlags);
+}
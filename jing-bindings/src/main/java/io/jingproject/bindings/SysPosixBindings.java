@@ -1,9 +1,12 @@
 package io.jingproject.bindings;
 
+import io.jingproject.common.Os;
 import io.jingproject.ffm.Downcall;
+import io.jingproject.ffm.FFM;
 
 import java.lang.foreign.MemorySegment;
 
+@FFM(libraryName = "jing", supportedOS = {Os.LINUX, Os.MACOS})
 public interface SysPosixBindings {
     @Downcall(methodName = "jing_posix_page_size", constant = true, critical = true)
     long posixPageSize();
@@ -38,5 +41,6 @@ public interface SysPosixBindings {
     @Downcall(methodName = "jing_posix_munmap", critical = true)
     int posixMunmap(MemorySegment addr, long size);
 
+    @Downcall(methodName = "jing_posix_close", critical = true)
     int posixClose(int fd);
 }
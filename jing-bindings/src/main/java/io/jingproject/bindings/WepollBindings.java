@@ -29,6 +29,12 @@ public interface WepollBindings {
     @Downcall(methodName = "jing_wepoll_ctl_del", constant = true, critical = true)
     int wepollDel();
 
+    @Downcall(methodName = "jing_wepoll_event_size", constant = true, critical = true)
+    int wepollEventSize();
+
+    @Downcall(methodName = "jing_wepoll_event_data_offset", constant = true, critical = true)
+    int wepollEventDataOffset();
+
     @Downcall(methodName = "jing_wepoll_create", critical = true)
     MemorySegment wepollCreate();
 
@@ -36,7 +42,7 @@ public interface WepollBindings {
     int wepollCtl(MemorySegment epfd, long socket, int op, int eventTypes, int data);
 
     @Downcall(methodName = "jing_wepoll_wait")
-    void wepollWait(MemorySegment epfd, MemorySegment events, int maxEvents, int timeout, MemorySegment r);
+    int wepollWait(MemorySegment epfd, MemorySegment events, int maxEvents, int timeout);
 
     @Downcall(methodName = "jing_wepoll_close", critical = true)
     int wepollClose(MemorySegment epfd);
@@ -15,10 +15,13 @@ import java.lang.foreign.SegmentAllocator;
  * It is recommended to use mmap allocator in long-lived threads such as event loops,
  * where the allocator can be held for extended periods to maximize performance benefits.
  * <p>
- * Implementations are restricted to {@link MallocAllocator} and {@link MmapAllocator}
+ * Blocks with interleaved lifetimes, such as connection buffers, should use {@link PoolAllocator} instead,
+ * which supports freeing each block individually.
+ * <p>
+ * Implementations are restricted to {@link MallocAllocator}, {@link MmapAllocator} and {@link PoolAllocator}
  * for controlled extension and type safety.
  */
-public sealed interface Allocator extends SegmentAllocator, AutoCloseable permits MallocAllocator, MmapAllocator {
+public sealed interface Allocator extends SegmentAllocator, AutoCloseable permits MallocAllocator, MmapAllocator, PoolAllocator {
     /**
      * Scoped value for thread-local mmap segment storage.
      * <p>
@@ -27,6 +30,14 @@ public sealed interface Allocator extends SegmentAllocator, AutoCloseable permit
      */
     ScopedValue<MmapSegment> MMAP_SCOPE = ScopedValue.newInstance();
 
+    /**
+     * Scoped value for the thread-owned pool allocator.
+     * <p>
+     * Long-lived threads such as event loops bind their own {@link PoolAllocator} here,
+     * so buffers could be recycled without touching malloc.
+     */
+    ScopedValue<PoolAllocator> POOL_SCOPE = ScopedValue.newInstance();
+
     /**
      * Creates a new allocator instance based on the current thread's context.
      * <p>
@@ -40,10 +51,15 @@ public sealed interface Allocator extends SegmentAllocator, AutoCloseable permit
      * @return an appropriate {@link Allocator} instance for the current context
      */
     static Allocator newInstance() {
-        MmapSegment mmapSegment = MMAP_SCOPE.get();
-        if (mmapSegment == null) {
+        if (!MMAP_SCOPE.isBound()) {
             return new MallocAllocator();
         }
-        return new MmapAllocator(mmapSegment);
+        return new MmapAllocator(MMAP_SCOPE.get());
     }
+
+    /**
+     * Releases the memory allocated by this allocator, never throws checked exceptions
+     */
+    @Override
+    void close();
 }
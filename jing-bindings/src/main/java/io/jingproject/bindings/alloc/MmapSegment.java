@@ -197,6 +197,7 @@ public final class MmapSegment implements AutoCloseable {
             commitAddress = shrinkedCommitAddress;
         }
         writeAddress = lastWriteAddress;
+        scaleArrayIndex = index;
     }
 
     /**
@@ -228,7 +229,8 @@ public final class MmapSegment implements AutoCloseable {
         checkInitialized();
         long alignedAddress = align(writeAddress, byteAlignment);
         long newWriteAddress = Math.addExact(alignedAddress, byteSize);
-        if (newWriteAddress > memSize) {
+        long endAddress = Math.addExact(mem.address(), memSize);
+        if (newWriteAddress > endAddress) {
             throw new IndexOutOfBoundsException("MmapSegment write out of bounds, index : " + newWriteAddress + ", size : " + memSize);
         }
         // Commit more memory if needed
@@ -236,7 +238,7 @@ public final class MmapSegment implements AutoCloseable {
             long newCommitAddress = align(newWriteAddress, MMAP.pageSize());
             // NOTE: If the OS memory mapping granularity is a multiple of the page size (which is true on almost all systems),
             // this branch will never be triggered. It is kept here purely as a defensive safeguard.
-            if (newCommitAddress > memSize) {
+            if (newCommitAddress > endAddress) {
                 throw new IndexOutOfBoundsException("MmapSegment commit out of bounds, index : " + newCommitAddress + ", size : " + memSize);
             }
             try {
@@ -0,0 +1,314 @@
+package io.jingproject.bindings.alloc;
+
+import io.jingproject.ffm.ForeignException;
+import io.jingproject.ffm.NativeSegmentAccess;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An implementation of {@link Allocator} recycling blocks of power-of-two size classes.
+ * <p>
+ * Unlike {@link MmapAllocator}, blocks allocated from this allocator could be freed individually and in any order
+ * through {@link #free(MemorySegment)}, which makes it suitable for buffers with interleaved lifetimes such as
+ * connection read buffers.
+ * <p>
+ * The allocator reserves a virtual address space region using {@link Mmap#reserve(long)} and commits it slab by slab.
+ * Each slab serves a single size class, blocks are carved from the slab by a bump pointer and recycled through an
+ * intrusive free list, the next pointer is stored in the first 8 bytes of the freed block.
+ * <p>
+ * Each instance acts as a thread cache owned by the thread which created it, only the owner could allocate.
+ * Other threads could free blocks as well, these blocks are pushed into a lock-free remote free stack, and
+ * would be reclaimed by the owner when the local free list of a size class runs out.
+ * <p>
+ * Allocations larger than {@link #MAX_CLASS_SIZE} are served by malloc directly and tracked by their addresses,
+ * they are freed back through the same method, or on {@link #close()} if still alive.
+ */
+public final class PoolAllocator implements Allocator {
+    /**
+     * Smallest size class, must be able to hold the free list pointer.
+     */
+    public static final long MIN_CLASS_SIZE = 16L;
+
+    /**
+     * Largest size class.
+     */
+    public static final long MAX_CLASS_SIZE = 64L * 1024L;
+
+    /**
+     * Size of each slab, the unit of commit and of size class assignment.
+     * <p>
+     * This value must be a multiple of {@link #MAX_CLASS_SIZE} and of the page size.
+     */
+    private static final long SLAB_SIZE = 256L * 1024L;
+
+    private static final int MIN_CLASS_SHIFT = Long.numberOfTrailingZeros(MIN_CLASS_SIZE);
+
+    private static final int CLASS_COUNT = Long.numberOfTrailingZeros(MAX_CLASS_SIZE) - MIN_CLASS_SHIFT + 1;
+
+    /**
+     * Marks a slab not yet assigned to any size class.
+     */
+    private static final byte UNASSIGNED = -1;
+
+    /**
+     * Platform-specific memory mapping implementation.
+     */
+    private static final Mmap MMAP = Mmap.getInstance();
+
+    /**
+     * The thread owning this allocator.
+     */
+    private final Thread owner = Thread.currentThread();
+
+    /**
+     * Size of the slab region, aligned to slab size.
+     */
+    private final long memSize;
+
+    /**
+     * Size class of each slab in the region.
+     */
+    private final byte[] slabClasses;
+
+    /**
+     * Head address of the local free list of each size class, 0 if empty.
+     */
+    private final long[] freeHeads = new long[CLASS_COUNT];
+
+    /**
+     * Bump pointer of the slab currently carved by each size class.
+     */
+    private final long[] bumpAddresses = new long[CLASS_COUNT];
+
+    /**
+     * End address of the slab currently carved by each size class.
+     */
+    private final long[] bumpLimits = new long[CLASS_COUNT];
+
+    /**
+     * Head address of the remote free stack, blocks freed by other threads are pushed here.
+     */
+    private final AtomicLong remoteHead = new AtomicLong(0L);
+
+    /**
+     * Live malloc fallback allocations indexed by their addresses, could be removed by any thread.
+     * <p>
+     * Blocks are told apart by their addresses instead of their sizes, since a segment could have been resized before being freed.
+     */
+    private final Map<Long, MemorySegment> fallbacks = new ConcurrentHashMap<>();
+
+    /**
+     * The reserved region.
+     * <p>
+     * State transitions:
+     * - MemorySegment.NULL: Not yet initialized (no virtual address space reserved)
+     * - Valid MemorySegment: Initialized and in use
+     * - null: Closed/released
+     */
+    private MemorySegment mem = MemorySegment.NULL;
+
+    /**
+     * Address of the first slab, aligned to {@link #SLAB_SIZE} so that blocks are naturally aligned to their class size.
+     * <p>
+     * The region is reserved with an extra slab, the slabs start from the first aligned address within it.
+     */
+    private long base = 0L;
+
+    /**
+     * Index of the next slab to be committed.
+     */
+    private int nextSlab = 0;
+
+    /**
+     * Creates a new PoolAllocator owned by current thread.
+     *
+     * @param size the size of the virtual address space to reserve, only the used slabs would be committed
+     */
+    public PoolAllocator(long size) {
+        if (size < SLAB_SIZE) {
+            throw new IllegalArgumentException("Invalid pool size : " + size);
+        }
+        long slabCount = Math.ceilDiv(size, SLAB_SIZE);
+        this.memSize = Math.multiplyExact(slabCount, SLAB_SIZE);
+        this.slabClasses = new byte[Math.toIntExact(slabCount)];
+        Arrays.fill(slabClasses, UNASSIGNED);
+    }
+
+    /**
+     * Ensures the region is reserved.
+     *
+     * @throws IllegalStateException if the allocator has already been closed
+     * @throws ForeignException      if mmap reserve failed
+     */
+    private void checkInitialized() {
+        if (mem == null) {
+            throw new IllegalStateException("PoolAllocator already closed");
+        }
+        if (mem.address() == 0L) {
+            MemorySegment m = MMAP.reserve(Math.addExact(memSize, SLAB_SIZE));
+            base = Math.multiplyExact(Math.ceilDiv(m.address(), SLAB_SIZE), SLAB_SIZE);
+            mem = m;
+        }
+    }
+
+    /**
+     * Returns the size class index of the specified size, which must be no greater than {@link #MAX_CLASS_SIZE}.
+     */
+    private static int sizeClass(long size) {
+        if (size <= MIN_CLASS_SIZE) {
+            return 0;
+        }
+        return Long.SIZE - Long.numberOfLeadingZeros(size - 1L) - MIN_CLASS_SHIFT;
+    }
+
+    /**
+     * Allocates a block from the pool.
+     * <p>
+     * The size is rounded up to the nearest power-of-two size class no smaller than the alignment,
+     * blocks are naturally aligned to their class size.
+     *
+     * @param byteSize      the size of memory to allocate in bytes
+     * @param byteAlignment the alignment requirement (must be a power of two, no greater than {@link #MAX_CLASS_SIZE},
+     *                      or {@link #MIN_CLASS_SIZE} for the malloc fallback)
+     * @return the allocated block, sized exactly byteSize
+     * @throws IllegalStateException    if the allocator has been closed, or called from a thread other than the owner
+     * @throws IllegalArgumentException if the alignment is too large
+     * @throws OutOfMemoryError         if the reserved region has been exhausted
+     * @throws ForeignException         if mmap operations failed
+     */
+    @Override
+    public MemorySegment allocate(long byteSize, long byteAlignment) {
+        assert byteSize > 0L && Long.bitCount(byteAlignment) == 1;
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("PoolAllocator could only be allocated by its owner thread");
+        }
+        checkInitialized();
+        if (byteAlignment > MAX_CLASS_SIZE) {
+            throw new IllegalArgumentException("Alignment too large : " + byteAlignment);
+        }
+        if (byteSize > MAX_CLASS_SIZE) {
+            if (byteAlignment > MIN_CLASS_SIZE) {
+                throw new IllegalArgumentException("Alignment too large for malloc fallback : " + byteAlignment);
+            }
+            MemorySegment segment = Mem.malloc(byteSize);
+            fallbacks.put(segment.address(), segment);
+            return segment;
+        }
+        int c = sizeClass(Math.max(byteSize, byteAlignment));
+        long address = freeHeads[c];
+        if (address == 0L) {
+            drainRemote();
+            address = freeHeads[c];
+        }
+        if (address != 0L) {
+            freeHeads[c] = NativeSegmentAccess.getLong(NativeSegmentAccess.reinterpret(MemorySegment.ofAddress(address), Long.BYTES), 0L);
+            return NativeSegmentAccess.reinterpret(MemorySegment.ofAddress(address), byteSize);
+        }
+        if (bumpAddresses[c] == bumpLimits[c]) {
+            long slabAddress = acquireSlab(c);
+            bumpAddresses[c] = slabAddress;
+            bumpLimits[c] = Math.addExact(slabAddress, SLAB_SIZE);
+        }
+        address = bumpAddresses[c];
+        bumpAddresses[c] = Math.addExact(address, MIN_CLASS_SIZE << c);
+        return NativeSegmentAccess.reinterpret(MemorySegment.ofAddress(address), byteSize);
+    }
+
+    /**
+     * Commits the next slab and assigns it to the specified size class.
+     */
+    private long acquireSlab(int c) {
+        if (nextSlab == slabClasses.length) {
+            throw new OutOfMemoryError("PoolAllocator exhausted, size : " + memSize);
+        }
+        long slabAddress = Math.addExact(base, Math.multiplyExact(nextSlab, SLAB_SIZE));
+        MMAP.commit(NativeSegmentAccess.reinterpret(MemorySegment.ofAddress(slabAddress), SLAB_SIZE));
+        slabClasses[nextSlab] = (byte) c;
+        nextSlab = Math.addExact(nextSlab, 1);
+        return slabAddress;
+    }
+
+    /**
+     * Reclaims all the blocks freed by other threads into the local free lists.
+     */
+    private void drainRemote() {
+        long address = remoteHead.getAndSet(0L);
+        while (address != 0L) {
+            MemorySegment block = NativeSegmentAccess.reinterpret(MemorySegment.ofAddress(address), Long.BYTES);
+            long next = NativeSegmentAccess.getLong(block, 0L);
+            pushLocal(address, block);
+            address = next;
+        }
+    }
+
+    private void pushLocal(long address, MemorySegment block) {
+        int c = slabClasses[Math.toIntExact((address - base) / SLAB_SIZE)];
+        NativeSegmentAccess.setLong(block, 0L, freeHeads[c]);
+        freeHeads[c] = address;
+    }
+
+    /**
+     * Returns a block to the pool.
+     * <p>
+     * Could be called from any thread, blocks freed by other threads would be reclaimed by the owner lazily.
+     * The block must not be accessed after this call, and the allocator must not have been closed.
+     *
+     * @param segment the block returned by {@link #allocate(long, long)}
+     * @throws IllegalArgumentException if the segment was not allocated from this allocator
+     */
+    public void free(MemorySegment segment) {
+        long address = segment.address();
+        long b = base;
+        if (mem == null || b == 0L || address < b || address >= b + memSize) {
+            MemorySegment fallback = fallbacks.remove(address);
+            if (fallback == null) {
+                throw new IllegalArgumentException("Segment not allocated from this PoolAllocator");
+            }
+            Mem.free(fallback);
+            return;
+        }
+        if (slabClasses[Math.toIntExact((address - b) / SLAB_SIZE)] == UNASSIGNED) {
+            throw new IllegalArgumentException("Segment not allocated from this PoolAllocator");
+        }
+        MemorySegment block = NativeSegmentAccess.reinterpret(segment, Long.BYTES);
+        if (Thread.currentThread() == owner) {
+            pushLocal(address, block);
+            return;
+        }
+        for (; ; ) {
+            long head = remoteHead.get();
+            NativeSegmentAccess.setLong(block, 0L, head);
+            if (remoteHead.compareAndSet(head, address)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the allocator, releases the whole region and frees the malloc fallback allocations not yet freed,
+     * all the blocks allocated become invalid.
+     *
+     * @throws IllegalStateException if the allocator has already been closed
+     * @throws ForeignException      if mmap release failed
+     */
+    @Override
+    public void close() {
+        if (mem == null) {
+            throw new IllegalStateException("PoolAllocator already closed");
+        }
+        if (mem.address() != 0L) {
+            MMAP.release(mem);
+        }
+        mem = null;
+        for (Long address : fallbacks.keySet()) {
+            MemorySegment fallback = fallbacks.remove(address);
+            if (fallback != null) {
+                Mem.free(fallback);
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package io.jingproject.bindings.alloc;
+
+import io.jingproject.common.WriteBuffer;
+import io.jingproject.ffm.NativeSegmentAccess;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A {@link WriteBuffer} implementation writing into native memory.
+ * <p>
+ * The buffer obtains its memory from {@link Allocator#newInstance()}, so it would be backed by the thread's
+ * {@link MmapSegment} when running inside an event loop, or by malloc otherwise.
+ * <p>
+ * Unlike {@code HeapWriteBuffer}, the buffer never copies the written content when growing. A new chunk is
+ * allocated and chained after the current one instead, the written content could then be handed over to a
+ * gather write through {@link #chunk(int)} without any heap-to-native copy.
+ * <p>
+ * Primitive values are never split across chunks, if the current chunk can't hold the whole value, the
+ * remaining bytes are left unused and the value goes to the next chunk. Byte arrays are split freely.
+ * <p>
+ * The buffer owns its allocator and must be closed after use. Since mmap allocations are stack-like,
+ * buffers created inside an event loop must be closed in the reverse order of creation, just like
+ * any other {@link Allocator}.
+ */
+public final class SegmentWriteBuffer implements WriteBuffer, AutoCloseable {
+    /**
+     * Default size of each chunk in bytes.
+     */
+    private static final long DEFAULT_CHUNK_SIZE = 4096L;
+
+    /**
+     * Initial length of the chunk array.
+     */
+    private static final int DEFAULT_CHUNK_CAPACITY = 4;
+
+    /**
+     * The allocator providing chunks for this buffer.
+     */
+    private final Allocator allocator;
+
+    /**
+     * Size of each allocated chunk.
+     */
+    private final long chunkSize;
+
+    /**
+     * Allocated chunks, the ones after current index are reusable after {@link #reset()}.
+     */
+    private MemorySegment[] chunks = new MemorySegment[DEFAULT_CHUNK_CAPACITY];
+
+    /**
+     * Written bytes of each chunk.
+     */
+    private long[] lengths = new long[DEFAULT_CHUNK_CAPACITY];
+
+    /**
+     * Number of allocated chunks.
+     */
+    private int chunkCount = 0;
+
+    /**
+     * Index of the chunk being written.
+     */
+    private int current = -1;
+
+    /**
+     * The chunk being written, {@link MemorySegment#NULL} before the first write.
+     */
+    private MemorySegment segment = MemorySegment.NULL;
+
+    /**
+     * Write index within the current chunk.
+     */
+    private long index = 0L;
+
+    /**
+     * Total written bytes.
+     */
+    private long position = 0L;
+
+    public SegmentWriteBuffer() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a buffer with the specified chunk size.
+     *
+     * @param chunkSize size of each chunk, must be able to hold any primitive value
+     */
+    public SegmentWriteBuffer(long chunkSize) {
+        if (chunkSize < Long.BYTES) {
+            throw new IllegalArgumentException("Invalid chunk size : " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.allocator = Allocator.newInstance();
+    }
+
+    /**
+     * Makes sure the current chunk has at least required bytes available, return the write index.
+     */
+    private long ensure(long required) {
+        if (segment == null) {
+            throw new IllegalStateException("SegmentWriteBuffer already closed");
+        }
+        if (Math.addExact(index, required) > segment.byteSize()) {
+            nextChunk();
+        }
+        long r = index;
+        index = Math.addExact(index, required);
+        lengths[current] = index;
+        position = Math.addExact(position, required);
+        return r;
+    }
+
+    private void nextChunk() {
+        current = Math.addExact(current, 1);
+        if (current == chunkCount) {
+            if (chunkCount == chunks.length) {
+                int newCapacity = Math.multiplyExact(chunkCount, 2);
+                chunks = Arrays.copyOf(chunks, newCapacity);
+                lengths = Arrays.copyOf(lengths, newCapacity);
+            }
+            chunks[chunkCount] = allocator.allocate(chunkSize, Long.BYTES);
+            chunkCount = Math.addExact(chunkCount, 1);
+        }
+        segment = chunks[current];
+        lengths[current] = 0L;
+        index = 0L;
+    }
+
+    @Override
+    public void writeByte(byte b) {
+        long offset = ensure(Byte.BYTES);
+        NativeSegmentAccess.setByte(segment, offset, b);
+    }
+
+    @Override
+    public void writeBytes(byte b1, byte b2) {
+        long offset = ensure(2L);
+        NativeSegmentAccess.setByte(segment, offset, b1);
+        NativeSegmentAccess.setByte(segment, offset + 1L, b2);
+    }
+
+    @Override
+    public void writeBytes(byte b1, byte b2, byte b3) {
+        long offset = ensure(3L);
+        NativeSegmentAccess.setByte(segment, offset, b1);
+        NativeSegmentAccess.setByte(segment, offset + 1L, b2);
+        NativeSegmentAccess.setByte(segment, offset + 2L, b3);
+    }
+
+    @Override
+    public void writeBytes(byte[] bytes, int off, int len) {
+        while (len > 0) {
+            if (segment == null) {
+                throw new IllegalStateException("SegmentWriteBuffer already closed");
+            }
+            long available = segment.byteSize() - index;
+            if (available == 0L) {
+                nextChunk();
+                continue;
+            }
+            int n = (int) Math.min(available, len);
+            long offset = ensure(n);
+            MemorySegment.copy(bytes, off, segment, ValueLayout.JAVA_BYTE, offset, n);
+            off = Math.addExact(off, n);
+            len = len - n;
+        }
+    }
+
+    @Override
+    public void writeShort(short s, ByteOrder byteOrder) {
+        long offset = ensure(Short.BYTES);
+        NativeSegmentAccess.setShort(segment, offset, s, byteOrder);
+    }
+
+    @Override
+    public void writeChar(char c, ByteOrder byteOrder) {
+        long offset = ensure(Character.BYTES);
+        NativeSegmentAccess.setChar(segment, offset, c, byteOrder);
+    }
+
+    @Override
+    public void writeInt(int i, ByteOrder byteOrder) {
+        long offset = ensure(Integer.BYTES);
+        NativeSegmentAccess.setInt(segment, offset, i, byteOrder);
+    }
+
+    @Override
+    public void writeLong(long l, ByteOrder byteOrder) {
+        long offset = ensure(Long.BYTES);
+        NativeSegmentAccess.setLong(segment, offset, l, byteOrder);
+    }
+
+    @Override
+    public void writeFloat(float f, ByteOrder byteOrder) {
+        long offset = ensure(Float.BYTES);
+        NativeSegmentAccess.setFloat(segment, offset, f, byteOrder);
+    }
+
+    @Override
+    public void writeDouble(double d, ByteOrder byteOrder) {
+        long offset = ensure(Double.BYTES);
+        NativeSegmentAccess.setDouble(segment, offset, d, byteOrder);
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Returns the number of chunks holding written content.
+     */
+    public int chunkCount() {
+        return current + 1;
+    }
+
+    /**
+     * Returns the written part of the chunk at the specified index, the slice could be passed to a gather write directly.
+     *
+     * @param i chunk index, must be less than {@link #chunkCount()}
+     */
+    public MemorySegment chunk(int i) {
+        if (i > current) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return chunks[i].asSlice(0L, lengths[i]);
+    }
+
+    /**
+     * Discards the written content, allocated chunks are kept and reused by subsequent writes.
+     */
+    public void reset() {
+        if (segment == null) {
+            throw new IllegalStateException("SegmentWriteBuffer already closed");
+        }
+        current = -1;
+        segment = MemorySegment.NULL;
+        index = 0L;
+        position = 0L;
+    }
+
+    /**
+     * Releases all the chunks through the underlying allocator.
+     *
+     * @throws IllegalStateException if the buffer has already been closed
+     */
+    @Override
+    public void close() {
+        if (segment == null) {
+            throw new IllegalStateException("SegmentWriteBuffer already closed");
+        }
+        segment = null;
+        chunks = null;
+        allocator.close();
+    }
+}
@@ -2,16 +2,86 @@ package io.jingproject.bindings.net;
 
 import io.jingproject.bindings.EpollBindings;
 import io.jingproject.bindings.SysPosixBindings;
+import io.jingproject.bindings.alloc.MmapSegment;
 import io.jingproject.common.Descriptor;
 import io.jingproject.ffm.ForeignException;
+import io.jingproject.ffm.NativeSegmentAccess;
 import io.jingproject.ffm.SharedLibs;
 
 import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
 
 public final class EpollMux implements Mux {
     private static final EpollBindings EPOLL_BINDINGS = SharedLibs.getImpl(EpollBindings.class);
     private static final SysPosixBindings SYS_POSIX_BINDINGS = SharedLibs.getImpl(SysPosixBindings.class);
+    private static final long EVENT_SIZE = EPOLL_BINDINGS.epollEventSize();
+    private static final long EVENT_DATA_OFFSET = EPOLL_BINDINGS.epollEventDataOffset();
+    private static final long CTL_ENTRY_SIZE = EPOLL_BINDINGS.epollCtlEntrySize();
+    private static final long CTL_ENTRY_FD_OFFSET = EPOLL_BINDINGS.epollCtlEntryFdOffset();
+    private static final long CTL_ENTRY_OP_OFFSET = EPOLL_BINDINGS.epollCtlEntryOpOffset();
+    private static final long CTL_ENTRY_EVENTS_OFFSET = EPOLL_BINDINGS.epollCtlEntryEventsOffset();
+    private static final long CTL_ENTRY_DATA_OFFSET = EPOLL_BINDINGS.epollCtlEntryDataOffset();
+    private static final long CTL_ENTRY_ERR_OFFSET = EPOLL_BINDINGS.epollCtlEntryErrOffset();
+    private static final int CTL_QUEUE_INITIAL_CAPACITY = 64;
+    /**
+     * Max entries submitted in a single downcall, larger queues are flushed in several batches
+     */
+    private static final int CTL_BATCH_SIZE = 256;
+    private static final Mux.CtlFailure THROWING_CTL_FAILURE = (data, err) -> {
+        throw new ForeignException("Failed to ctl epoll instance, data : " + data + ", err : " + err);
+    };
+    private final boolean batchCtl;
     private int epfd = 0;
+    /**
+     * Pending ctl operations when batchCtl is enabled, at most one entry per descriptor,
+     * consecutive transitions of the same descriptor are merged into its entry until next flush
+     */
+    private int[] ctlFds;
+    private int[] ctlFroms;
+    private int[] ctlTos;
+    private int[] ctlDatas;
+    /**
+     * Whether the descriptor was deleted and added again, the number may belong to a new socket so it could not be merged into a MOD
+     */
+    private boolean[] ctlReadds;
+    private int ctlCount = 0;
+    /**
+     * Indexed by fd, stores entry index + 1 of the pending entry, 0 means no pending entry
+     */
+    private int[] ctlIndexes;
+    /**
+     * Native entry array sliced from the loop's MmapSegment in {@link #events(MmapSegment, int)}, reused by every flush
+     */
+    private MemorySegment ctlEntries;
+    /**
+     * Failed operations collected during flush, reported after the whole queue has been submitted,
+     * so the failure callback could enqueue new operations safely
+     */
+    private int[] failedDatas;
+    private int[] failedErrs;
+    private int failedCount = 0;
+
+    public EpollMux() {
+        this(false);
+    }
+
+    /**
+     * When batchCtl is true, ctl operations are queued and coalesced per descriptor, then submitted in batched downcalls
+     * by {@link #flush(CtlFailure)} or right before {@link #poll(MemorySegment, int, int)}
+     */
+    public EpollMux(boolean batchCtl) {
+        this.batchCtl = batchCtl;
+        if (batchCtl) {
+            this.ctlFds = new int[CTL_QUEUE_INITIAL_CAPACITY];
+            this.ctlFroms = new int[CTL_QUEUE_INITIAL_CAPACITY];
+            this.ctlTos = new int[CTL_QUEUE_INITIAL_CAPACITY];
+            this.ctlDatas = new int[CTL_QUEUE_INITIAL_CAPACITY];
+            this.ctlReadds = new boolean[CTL_QUEUE_INITIAL_CAPACITY];
+            this.ctlIndexes = new int[CTL_QUEUE_INITIAL_CAPACITY];
+            this.failedDatas = new int[CTL_QUEUE_INITIAL_CAPACITY];
+            this.failedErrs = new int[CTL_QUEUE_INITIAL_CAPACITY];
+        }
+    }
 
     @Override
     public void init() {
@@ -30,12 +100,15 @@ public final class EpollMux implements Mux {
     }
 
     private static int getOp(int from, int to) {
-        assert from != to;
+        assert from != to || (to & Mux.MUX_ONESHOT_FLAG) != 0;
         if (from == Mux.MUX_NONE_FLAG) {
             return EPOLL_BINDINGS.epollAdd();
         } else if (to == Mux.MUX_NONE_FLAG) {
             return EPOLL_BINDINGS.epollDel();
         } else {
+            if ((from & Mux.MUX_EXCLUSIVE_FLAG) != 0 || (to & Mux.MUX_EXCLUSIVE_FLAG) != 0) {
+                throw new IllegalArgumentException("Exclusive registration could not be modified");
+            }
             return EPOLL_BINDINGS.epollMod();
         }
     }
@@ -51,6 +124,19 @@ public final class EpollMux implements Mux {
         if ((to & Mux.MUX_WRITEABLE_FLAG) != 0) {
             r |= EPOLL_BINDINGS.epollOut();
         }
+        if ((to & Mux.MUX_EDGE_TRIGGERED_FLAG) != 0) {
+            r |= EPOLL_BINDINGS.epollEt();
+        }
+        if ((to & Mux.MUX_ONESHOT_FLAG) != 0) {
+            r |= EPOLL_BINDINGS.epollOneshot();
+        }
+        if ((to & Mux.MUX_EXCLUSIVE_FLAG) != 0) {
+            // EPOLLEXCLUSIVE could only be combined with EPOLLIN, EPOLLOUT and EPOLLET
+            if ((to & Mux.MUX_ONESHOT_FLAG) != 0) {
+                throw new IllegalArgumentException("Exclusive registration could not be oneshot");
+            }
+            r |= EPOLL_BINDINGS.epollExclusive();
+        }
         return r;
     }
 
@@ -64,15 +150,166 @@ public final class EpollMux implements Mux {
         }
         int op = getOp(from, to);
         int eventTypes = getEventTypes(op, to);
+        if (batchCtl) {
+            enqueue(descriptor.asInt(), from, to, data);
+            return;
+        }
         int err = EPOLL_BINDINGS.epollCtl(epfd, descriptor.asInt(), op, eventTypes, data);
         if (err > 0) {
             throw new ForeignException("Failed to ctl epoll instance, err : " + err);
         }
     }
 
+    private void enqueue(int fd, int from, int to, int data) {
+        if (fd >= ctlIndexes.length) {
+            ctlIndexes = Arrays.copyOf(ctlIndexes, Math.max(Math.multiplyExact(ctlIndexes.length, 2), Math.addExact(fd, 1)));
+        }
+        int index = ctlIndexes[fd] - 1;
+        if (index >= 0) {
+            assert ctlTos[index] == from;
+            if (from == Mux.MUX_NONE_FLAG && ctlFroms[index] != Mux.MUX_NONE_FLAG) {
+                ctlReadds[index] = true;
+            }
+            ctlTos[index] = to;
+            ctlDatas[index] = data;
+            return;
+        }
+        index = ctlCount;
+        if (index == ctlFds.length) {
+            int newCapacity = Math.multiplyExact(index, 2);
+            ctlFds = Arrays.copyOf(ctlFds, newCapacity);
+            ctlFroms = Arrays.copyOf(ctlFroms, newCapacity);
+            ctlTos = Arrays.copyOf(ctlTos, newCapacity);
+            ctlDatas = Arrays.copyOf(ctlDatas, newCapacity);
+            ctlReadds = Arrays.copyOf(ctlReadds, newCapacity);
+        }
+        ctlFds[index] = fd;
+        ctlFroms[index] = from;
+        ctlTos[index] = to;
+        ctlDatas[index] = data;
+        ctlReadds[index] = false;
+        ctlCount = Math.addExact(index, 1);
+        ctlIndexes[fd] = ctlCount;
+    }
+
+    private static void writeCtlEntry(MemorySegment entries, int index, int fd, int op, int eventTypes, int data) {
+        long offset = Math.multiplyExact(CTL_ENTRY_SIZE, index);
+        NativeSegmentAccess.setInt(entries, offset + CTL_ENTRY_FD_OFFSET, fd);
+        NativeSegmentAccess.setInt(entries, offset + CTL_ENTRY_OP_OFFSET, op);
+        NativeSegmentAccess.setInt(entries, offset + CTL_ENTRY_EVENTS_OFFSET, eventTypes);
+        NativeSegmentAccess.setInt(entries, offset + CTL_ENTRY_DATA_OFFSET, data);
+        NativeSegmentAccess.setInt(entries, offset + CTL_ENTRY_ERR_OFFSET, 0);
+    }
+
     @Override
-    public void poll(MemorySegment events, int maxEvents, int timeout) {
+    public void flush(CtlFailure onFailure) {
+        int count = ctlCount;
+        if (count == 0) {
+            return;
+        }
+        if (epfd == Integer.MIN_VALUE) {
+            throw new IllegalStateException("EpollMux already closed");
+        }
+        if (ctlEntries == null) {
+            throw new IllegalStateException("EpollMux events not allocated");
+        }
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            // a re-added descriptor takes two entries, DEL and then ADD
+            if (n > CTL_BATCH_SIZE - 2) {
+                submit(n);
+                n = 0;
+            }
+            int fd = ctlFds[i];
+            int from = ctlFroms[i];
+            int to = ctlTos[i];
+            ctlIndexes[fd] = 0;
+            if (ctlReadds[i]) {
+                writeCtlEntry(ctlEntries, n++, fd, EPOLL_BINDINGS.epollDel(), Integer.MIN_VALUE, ctlDatas[i]);
+                from = Mux.MUX_NONE_FLAG;
+            }
+            if (from == to && (to == Mux.MUX_NONE_FLAG || (to & Mux.MUX_ONESHOT_FLAG) == 0)) {
+                continue; // transitions cancelled each other
+            }
+            int op = getOp(from, to);
+            writeCtlEntry(ctlEntries, n++, fd, op, getEventTypes(op, to), ctlDatas[i]);
+        }
+        if (n > 0) {
+            submit(n);
+        }
+        ctlCount = 0;
+        int failed = failedCount;
+        failedCount = 0;
+        for (int i = 0; i < failed; i++) {
+            onFailure.onFailure(failedDatas[i], failedErrs[i]);
+        }
+    }
 
+    private void submit(int n) {
+        int failures = EPOLL_BINDINGS.epollCtlBatch(epfd, ctlEntries, n);
+        for (int i = 0; i < n && failures > 0; i++) {
+            long offset = Math.multiplyExact(CTL_ENTRY_SIZE, i);
+            int err = NativeSegmentAccess.getInt(ctlEntries, offset + CTL_ENTRY_ERR_OFFSET);
+            if (err != 0) {
+                failures--;
+                if (failedCount == failedDatas.length) {
+                    int newCapacity = Math.multiplyExact(failedCount, 2);
+                    failedDatas = Arrays.copyOf(failedDatas, newCapacity);
+                    failedErrs = Arrays.copyOf(failedErrs, newCapacity);
+                }
+                failedDatas[failedCount] = NativeSegmentAccess.getInt(ctlEntries, offset + CTL_ENTRY_DATA_OFFSET);
+                failedErrs[failedCount] = err;
+                failedCount = Math.addExact(failedCount, 1);
+            }
+        }
+    }
+
+    @Override
+    public MemorySegment events(MmapSegment mmapSegment, int maxEvents) {
+        assert maxEvents > 0;
+        if (batchCtl && ctlEntries == null) {
+            ctlEntries = mmapSegment.slice(Math.multiplyExact(CTL_ENTRY_SIZE, CTL_BATCH_SIZE), Integer.BYTES);
+        }
+        return mmapSegment.slice(Math.multiplyExact(EVENT_SIZE, maxEvents), Long.BYTES);
+    }
+
+    @Override
+    public int poll(MemorySegment events, int maxEvents, int timeout) {
+        if (epfd == Integer.MIN_VALUE) {
+            throw new IllegalStateException("EpollMux already closed");
+        }
+        if (epfd == 0) {
+            throw new IllegalStateException("EpollMux not initialized");
+        }
+        assert events.isNative() && events.byteSize() >= Math.multiplyExact(EVENT_SIZE, maxEvents);
+        flush(THROWING_CTL_FAILURE);
+        int v = timeout == 0 ? EPOLL_BINDINGS.epollWaitNow(epfd, events, maxEvents, timeout) : EPOLL_BINDINGS.epollWait(epfd, events, maxEvents, timeout);
+        if (v < 0) {
+            int err = Math.abs(v);
+            throw new ForeignException("Failed to wait epoll instance, err : " + err);
+        }
+        return v;
+    }
+
+    @Override
+    public int data(MemorySegment events, int index) {
+        return NativeSegmentAccess.getInt(events, Math.addExact(Math.multiplyExact(EVENT_SIZE, index), EVENT_DATA_OFFSET));
+    }
+
+    @Override
+    public int flag(MemorySegment events, int index) {
+        int eventTypes = NativeSegmentAccess.getInt(events, Math.multiplyExact(EVENT_SIZE, index));
+        if ((eventTypes & EPOLL_BINDINGS.epollDefault()) != 0) {
+            return Mux.MUX_READABLE_AND_WRITEABLE_FLAG;
+        }
+        int r = Mux.MUX_NONE_FLAG;
+        if ((eventTypes & EPOLL_BINDINGS.epollIn()) != 0) {
+            r |= Mux.MUX_READABLE_FLAG;
+        }
+        if ((eventTypes & EPOLL_BINDINGS.epollOut()) != 0) {
+            r |= Mux.MUX_WRITEABLE_FLAG;
+        }
+        return r;
     }
 
     @Override
@@ -84,6 +321,9 @@ public final class EpollMux implements Mux {
             return;
         }
         int err = SYS_POSIX_BINDINGS.posixClose(epfd);
+        epfd = Integer.MIN_VALUE;
+        // pending operations are meaningless since closing the epoll instance removes all the registrations
+        ctlCount = 0;
         if (err > 0) {
             throw new ForeignException("Failed to close epoll instance, err : " + err);
         }
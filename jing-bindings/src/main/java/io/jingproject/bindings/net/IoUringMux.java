@@ -0,0 +1,351 @@
+package io.jingproject.bindings.net;
+
+import io.jingproject.bindings.IoUringBindings;
+import io.jingproject.bindings.alloc.MmapSegment;
+import io.jingproject.common.Descriptor;
+import io.jingproject.ffm.ForeignException;
+import io.jingproject.ffm.NativeSegmentAccess;
+import io.jingproject.ffm.SharedLibs;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+
+/**
+ * Mux on top of io_uring, all the requests are only queued in the submission ring and submitted together with the next wait,
+ * so there is no extra syscall per event
+ * <p>
+ * Registrations through {@link #ctl(Descriptor, int, int, int)} are single-shot poll requests which are re-armed as soon as
+ * their completions have been consumed, a poll request failed with a negative result is reported once and then dropped.
+ * Besides, accept, recv and send could be submitted directly by {@link #accept(Descriptor, int)}, {@link #recv(Descriptor, MemorySegment, int)}
+ * and {@link #send(Descriptor, MemorySegment, int)}, their completions are returned by poll with {@link #op(MemorySegment, int)}
+ * and {@link #result(MemorySegment, int)}, so the data is transferred without any readiness round trip
+ * <p>
+ * user_data of each request is composed of the op, a generation and the data, only poll requests use the generation which changes on every ctl,
+ * so completions of removed or replaced poll requests could be recognized and dropped
+ * <p>
+ * The other requests are never dropped, since the kernel might still be using their buffers. {@link #cancel(int)} is asynchronous too,
+ * the final completion of a cancelled request, either -ECANCELED or its real result, is still returned by poll,
+ * the data and the buffer must be kept until then, see {@link #pending(int)}
+ */
+public final class IoUringMux implements Mux {
+    private static final IoUringBindings IO_URING_BINDINGS = SharedLibs.getImpl(IoUringBindings.class);
+    /**
+     * Layout of jing_io_uring_event : user_data u64, res i32, flags u32
+     */
+    private static final long EVENT_SIZE = 16L;
+    private static final long EVENT_USER_DATA_OFFSET = 0L;
+    private static final long EVENT_RES_OFFSET = 8L;
+    /**
+     * After poll, the valid events are compacted in place as (data, flag, op, result)
+     */
+    private static final long EVENT_DATA_OFFSET = 0L;
+    private static final long EVENT_FLAG_OFFSET = 4L;
+    private static final long EVENT_OP_OFFSET = 8L;
+    private static final long EVENT_RESULT_OFFSET = 12L;
+    /**
+     * Readiness event of a ctl registration
+     */
+    public static final int OP_POLL = 0;
+    /**
+     * Completion of {@link #accept(Descriptor, int)}, the result is the accepted fd or negative errno
+     */
+    public static final int OP_ACCEPT = 1;
+    /**
+     * Completion of {@link #recv(Descriptor, MemorySegment, int)}, the result is the received bytes or negative errno
+     */
+    public static final int OP_RECV = 2;
+    /**
+     * Completion of {@link #send(Descriptor, MemorySegment, int)}, the result is the sent bytes or negative errno
+     */
+    public static final int OP_SEND = 3;
+    private static final int OP_SHIFT = 56;
+    private static final int GENERATION_MASK = 0xFFFFFF;
+    /**
+     * user_data of poll remove and cancel requests, their completions are always ignored
+     */
+    private static final long REMOVE_USER_DATA = -1L;
+    private static final int INITIAL_CAPACITY = 64;
+    private final int entries;
+    private MemorySegment ring = MemorySegment.NULL;
+    private int[] fds = new int[INITIAL_CAPACITY];
+    private int[] masks = new int[INITIAL_CAPACITY];
+    private int[] generations = new int[INITIAL_CAPACITY];
+    /**
+     * Bit set of the in-flight accept, recv and send requests of each data, indexed by op
+     */
+    private int[] pendings = new int[INITIAL_CAPACITY];
+    /**
+     * Bit set of the in-flight requests which have been cancelled, so they won't be cancelled twice
+     */
+    private int[] cancels = new int[INITIAL_CAPACITY];
+
+    public IoUringMux(int entries) {
+        this.entries = entries;
+    }
+
+    @Override
+    public void init() {
+        if (ring == null) {
+            throw new IllegalStateException("IoUringMux already closed");
+        }
+        if (ring.address() != 0L) {
+            throw new IllegalStateException("IoUringMux already initialized");
+        }
+        MemorySegment r = IO_URING_BINDINGS.ioUringCreate(entries);
+        if (NativeSegmentAccess.isErrPtr(r)) {
+            int err = NativeSegmentAccess.errCode(r);
+            throw new ForeignException("Failed to create io_uring instance, err : " + err);
+        }
+        ring = r;
+    }
+
+    private static long userData(int op, int generation, int data) {
+        return ((long) op << OP_SHIFT) | ((long) generation << 32) | (data & 0xFFFFFFFFL);
+    }
+
+    private static int pollMask(int to) {
+        int r = 0;
+        if ((to & Mux.MUX_READABLE_FLAG) != 0) {
+            r |= IO_URING_BINDINGS.ioUringPollIn();
+        }
+        if ((to & Mux.MUX_WRITEABLE_FLAG) != 0) {
+            r |= IO_URING_BINDINGS.ioUringPollOut();
+        }
+        return r;
+    }
+
+    private void ensureCapacity(int data) {
+        if (data >= fds.length) {
+            int newCapacity = Math.max(Math.multiplyExact(fds.length, 2), Math.addExact(data, 1));
+            fds = Arrays.copyOf(fds, newCapacity);
+            masks = Arrays.copyOf(masks, newCapacity);
+            generations = Arrays.copyOf(generations, newCapacity);
+            pendings = Arrays.copyOf(pendings, newCapacity);
+            cancels = Arrays.copyOf(cancels, newCapacity);
+        }
+    }
+
+    private void pollAdd(int fd, int mask, long userData) {
+        int err = IO_URING_BINDINGS.ioUringPollAdd(ring, fd, mask, userData);
+        if (err > 0) {
+            throw new ForeignException("Failed to add io_uring poll request, err : " + err);
+        }
+    }
+
+    private void checkState() {
+        if (ring == null) {
+            throw new IllegalStateException("IoUringMux already closed");
+        }
+        if (ring.address() == 0L) {
+            throw new IllegalStateException("IoUringMux not initialized");
+        }
+    }
+
+    @Override
+    public void ctl(Descriptor descriptor, int from, int to, int data) {
+        checkState();
+        if (((from | to) & Mux.MUX_MODIFIER_FLAGS) != 0) {
+            throw new UnsupportedOperationException("IoUringMux doesn't support edge-triggered, oneshot or exclusive registration");
+        }
+        assert from != to && data >= 0;
+        ensureCapacity(data);
+        if (from != Mux.MUX_NONE_FLAG) {
+            int err = IO_URING_BINDINGS.ioUringPollRemove(ring, userData(OP_POLL, generations[data], data), REMOVE_USER_DATA);
+            if (err > 0) {
+                throw new ForeignException("Failed to remove io_uring poll request, err : " + err);
+            }
+        }
+        int generation = (generations[data] + 1) & GENERATION_MASK;
+        generations[data] = generation;
+        if (to == Mux.MUX_NONE_FLAG) {
+            masks[data] = 0;
+        } else {
+            int mask = pollMask(to);
+            fds[data] = descriptor.asInt();
+            masks[data] = mask;
+            pollAdd(descriptor.asInt(), mask, userData(OP_POLL, generation, data));
+        }
+    }
+
+    /**
+     * Submit an accept request on the listening socket, the accepted socket is non-blocking and close-on-exec
+     */
+    public void accept(Descriptor listener, int data) {
+        int err = IO_URING_BINDINGS.ioUringAccept(ring, listener.asInt(), beginOp(OP_ACCEPT, data));
+        endOp(OP_ACCEPT, data, err);
+    }
+
+    /**
+     * Submit a recv request, the buffer is written by the kernel asynchronously, so it must stay valid until the completion has been
+     * returned by poll, even if the request has been cancelled
+     */
+    public void recv(Descriptor socket, MemorySegment buffer, int data) {
+        assert buffer.isNative();
+        int len = (int) Math.min(buffer.byteSize(), Integer.MAX_VALUE);
+        int err = IO_URING_BINDINGS.ioUringRecv(ring, socket.asInt(), buffer, len, beginOp(OP_RECV, data));
+        endOp(OP_RECV, data, err);
+    }
+
+    /**
+     * Submit a send request, the buffer has the same lifetime requirement as {@link #recv(Descriptor, MemorySegment, int)}
+     */
+    public void send(Descriptor socket, MemorySegment buffer, int data) {
+        assert buffer.isNative();
+        int len = (int) Math.min(buffer.byteSize(), Integer.MAX_VALUE);
+        int err = IO_URING_BINDINGS.ioUringSend(ring, socket.asInt(), buffer, len, beginOp(OP_SEND, data));
+        endOp(OP_SEND, data, err);
+    }
+
+    /**
+     * Cancel all the in-flight accept, recv and send requests of the data, the cancellation is asynchronous,
+     * their final completions are still returned by poll, with -ECANCELED if they were cancelled before completing
+     */
+    public void cancel(int data) {
+        checkState();
+        if (data >= pendings.length) {
+            return;
+        }
+        int cancelling = pendings[data] & ~cancels[data];
+        for (int op = OP_ACCEPT; op <= OP_SEND; op++) {
+            if ((cancelling & (1 << op)) != 0) {
+                int err = IO_URING_BINDINGS.ioUringCancel(ring, userData(op, 0, data), REMOVE_USER_DATA);
+                if (err > 0) {
+                    throw new ForeignException("Failed to cancel io_uring request, err : " + err);
+                }
+                cancels[data] |= 1 << op;
+            }
+        }
+    }
+
+    /**
+     * Whether there are accept, recv or send requests of the data whose completions have not been returned by poll yet
+     */
+    public boolean pending(int data) {
+        return data < pendings.length && pendings[data] != 0;
+    }
+
+    private long beginOp(int op, int data) {
+        checkState();
+        assert data >= 0;
+        ensureCapacity(data);
+        if ((pendings[data] & (1 << op)) != 0) {
+            throw new IllegalStateException("Op " + op + " of data " + data + " is already in flight");
+        }
+        return userData(op, 0, data);
+    }
+
+    private void endOp(int op, int data, int err) {
+        if (err > 0) {
+            throw new ForeignException("Failed to submit io_uring request, op : " + op + ", err : " + err);
+        }
+        pendings[data] |= 1 << op;
+    }
+
+    @Override
+    public MemorySegment events(MmapSegment mmapSegment, int maxEvents) {
+        assert maxEvents > 0;
+        return mmapSegment.slice(Math.multiplyExact(EVENT_SIZE, maxEvents), Long.BYTES);
+    }
+
+    @Override
+    public int poll(MemorySegment events, int maxEvents, int timeout) {
+        checkState();
+        assert events.isNative() && events.byteSize() >= Math.multiplyExact(EVENT_SIZE, maxEvents);
+        int v = IO_URING_BINDINGS.ioUringWait(ring, events, maxEvents, timeout);
+        if (v < 0) {
+            int err = Math.abs(v);
+            throw new ForeignException("Failed to wait io_uring instance, err : " + err);
+        }
+        int count = 0;
+        for (int i = 0; i < v; i++) {
+            long offset = Math.multiplyExact(EVENT_SIZE, i);
+            long userData = NativeSegmentAccess.getLong(events, offset + EVENT_USER_DATA_OFFSET);
+            int res = NativeSegmentAccess.getInt(events, offset + EVENT_RES_OFFSET);
+            if (userData == REMOVE_USER_DATA) {
+                continue;
+            }
+            int op = (int) (userData >>> OP_SHIFT);
+            int generation = (int) (userData >>> 32) & GENERATION_MASK;
+            int data = (int) userData;
+            int flag;
+            if (op == OP_POLL) {
+                if (data >= masks.length || masks[data] == 0 || generations[data] != generation) {
+                    continue; // completion of a removed or replaced request
+                }
+                if (res < 0) {
+                    // 请求本身失败时不再重新提交，只通知一次，由后续的读写操作获取具体的错误
+                    masks[data] = 0;
+                    flag = Mux.MUX_READABLE_AND_WRITEABLE_FLAG;
+                } else {
+                    flag = pollFlag(res);
+                    pollAdd(fds[data], masks[data], userData);
+                }
+                res = 0;
+            } else {
+                pendings[data] &= ~(1 << op);
+                cancels[data] &= ~(1 << op);
+                flag = Mux.MUX_NONE_FLAG;
+            }
+            long target = Math.multiplyExact(EVENT_SIZE, count);
+            NativeSegmentAccess.setInt(events, target + EVENT_DATA_OFFSET, data);
+            NativeSegmentAccess.setInt(events, target + EVENT_FLAG_OFFSET, flag);
+            NativeSegmentAccess.setInt(events, target + EVENT_OP_OFFSET, op);
+            NativeSegmentAccess.setInt(events, target + EVENT_RESULT_OFFSET, res);
+            count++;
+        }
+        return count;
+    }
+
+    private static int pollFlag(int res) {
+        if ((res & (IO_URING_BINDINGS.ioUringPollErr() | IO_URING_BINDINGS.ioUringPollHup())) != 0) {
+            return Mux.MUX_READABLE_AND_WRITEABLE_FLAG;
+        }
+        int flag = Mux.MUX_NONE_FLAG;
+        if ((res & IO_URING_BINDINGS.ioUringPollIn()) != 0) {
+            flag |= Mux.MUX_READABLE_FLAG;
+        }
+        if ((res & IO_URING_BINDINGS.ioUringPollOut()) != 0) {
+            flag |= Mux.MUX_WRITEABLE_FLAG;
+        }
+        return flag;
+    }
+
+    @Override
+    public int data(MemorySegment events, int index) {
+        return NativeSegmentAccess.getInt(events, Math.addExact(Math.multiplyExact(EVENT_SIZE, index), EVENT_DATA_OFFSET));
+    }
+
+    @Override
+    public int flag(MemorySegment events, int index) {
+        return NativeSegmentAccess.getInt(events, Math.addExact(Math.multiplyExact(EVENT_SIZE, index), EVENT_FLAG_OFFSET));
+    }
+
+    /**
+     * Op of the event, {@link #OP_POLL} for readiness events whose flag should be used
+     */
+    public int op(MemorySegment events, int index) {
+        return NativeSegmentAccess.getInt(events, Math.addExact(Math.multiplyExact(EVENT_SIZE, index), EVENT_OP_OFFSET));
+    }
+
+    /**
+     * Result of the completion event, always 0 for readiness events
+     */
+    public int result(MemorySegment events, int index) {
+        return NativeSegmentAccess.getInt(events, Math.addExact(Math.multiplyExact(EVENT_SIZE, index), EVENT_RESULT_OFFSET));
+    }
+
+    @Override
+    public void close() {
+        if (ring == null) {
+            throw new IllegalStateException("IoUringMux already closed");
+        }
+        if (ring.address() == 0L) {
+            return;
+        }
+        int err = IO_URING_BINDINGS.ioUringClose(ring);
+        ring = null;
+        if (err != 0) {
+            throw new ForeignException("Failed to close io_uring instance, err : " + err);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package io.jingproject.bindings.net;
+
+import io.jingproject.bindings.NetBindings;
+import io.jingproject.bindings.PosixNetBindings;
+import io.jingproject.bindings.alloc.Allocator;
+import io.jingproject.bindings.alloc.SegmentWriteBuffer;
+import io.jingproject.common.Descriptor;
+import io.jingproject.ffm.ForeignException;
+import io.jingproject.ffm.NativeSegmentAccess;
+import io.jingproject.ffm.SharedLibs;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * A native iovec array for scatter/gather I/O on posix systems.
+ * <p>
+ * The array is allocated once from an {@link Allocator}, usually the mmap allocator of an event loop,
+ * and then reused across syscalls. Each entry only references the address and length of a native segment,
+ * so the data is never copied between the buffers and the kernel.
+ * <p>
+ * Partially transferred arrays could be advanced by {@link #advance(long)}, which drops the completed entries
+ * and shrinks the first pending one, so the next call continues from where the previous one stopped.
+ * <p>
+ * Instances are not thread-safe and are supposed to be owned by a single event loop.
+ */
+public final class IoVec {
+    private static final NetBindings NET_BINDINGS = SharedLibs.getImpl(NetBindings.class);
+    private static final PosixNetBindings POSIX_NET_BINDINGS = SharedLibs.getImpl(PosixNetBindings.class);
+    private static final long IOVEC_SIZE = POSIX_NET_BINDINGS.posixIovecSize();
+    private static final long IOVEC_BASE_OFFSET = POSIX_NET_BINDINGS.posixIovecBaseOffset();
+    private static final long IOVEC_LEN_OFFSET = POSIX_NET_BINDINGS.posixIovecLenOffset();
+    private static final int IOV_MAX = POSIX_NET_BINDINGS.posixIovMax();
+
+    /**
+     * Returned by the transfer methods when the socket is not ready.
+     */
+    public static final long WOULD_BLOCK = -1L;
+
+    /**
+     * The native iovec array.
+     */
+    private final MemorySegment segment;
+
+    /**
+     * Max number of entries of the array.
+     */
+    private final int capacity;
+
+    /**
+     * Index of the first pending entry.
+     */
+    private int start = 0;
+
+    /**
+     * Index after the last entry.
+     */
+    private int end = 0;
+
+    /**
+     * Creates an iovec array which could hold at most capacity entries.
+     *
+     * @param allocator the allocator used for the native array
+     * @param capacity  max number of entries
+     */
+    public IoVec(Allocator allocator, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid iovec capacity : " + capacity);
+        }
+        this.capacity = capacity;
+        this.segment = allocator.allocate(Math.multiplyExact(IOVEC_SIZE, capacity), Long.BYTES);
+    }
+
+    /**
+     * Appends a native segment to the array.
+     *
+     * @param buf the native segment to be read into or written from
+     * @return false if the array is full
+     */
+    public boolean add(MemorySegment buf) {
+        assert buf.isNative();
+        if (end == capacity) {
+            return false;
+        }
+        long offset = Math.multiplyExact(IOVEC_SIZE, end);
+        NativeSegmentAccess.setAddress(segment, offset + IOVEC_BASE_OFFSET, buf);
+        NativeSegmentAccess.setLong(segment, offset + IOVEC_LEN_OFFSET, buf.byteSize());
+        end = Math.addExact(end, 1);
+        return true;
+    }
+
+    /**
+     * Appends the written chunks of a buffer to the array, starting from the specified chunk index.
+     *
+     * @param buffer the buffer to be written from
+     * @param from   index of the first chunk to add
+     * @return index of the first chunk not added, equals to {@link SegmentWriteBuffer#chunkCount()} if all the chunks were added
+     */
+    public int add(SegmentWriteBuffer buffer, int from) {
+        int chunkCount = buffer.chunkCount();
+        for (int i = from; i < chunkCount; i++) {
+            if (!add(buffer.chunk(i))) {
+                return i;
+            }
+        }
+        return chunkCount;
+    }
+
+    /**
+     * Returns the number of pending entries.
+     */
+    public int count() {
+        return end - start;
+    }
+
+    /**
+     * Returns the total bytes of the pending entries.
+     */
+    public long remaining() {
+        long r = 0L;
+        for (int i = start; i < end; i++) {
+            r = Math.addExact(r, NativeSegmentAccess.getLong(segment, Math.multiplyExact(IOVEC_SIZE, i) + IOVEC_LEN_OFFSET));
+        }
+        return r;
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public void clear() {
+        start = 0;
+        end = 0;
+    }
+
+    /**
+     * Drops the transferred bytes from the head of the array.
+     *
+     * @param bytes number of bytes transferred by the last call
+     */
+    public void advance(long bytes) {
+        assert bytes >= 0L;
+        while (bytes > 0L && start < end) {
+            long offset = Math.multiplyExact(IOVEC_SIZE, start);
+            long len = NativeSegmentAccess.getLong(segment, offset + IOVEC_LEN_OFFSET);
+            if (bytes < len) {
+                MemorySegment base = NativeSegmentAccess.getAddress(segment, offset + IOVEC_BASE_OFFSET);
+                NativeSegmentAccess.setAddress(segment, offset + IOVEC_BASE_OFFSET, MemorySegment.ofAddress(Math.addExact(base.address(), bytes)));
+                NativeSegmentAccess.setLong(segment, offset + IOVEC_LEN_OFFSET, len - bytes);
+                return;
+            }
+            bytes -= len;
+            start = Math.addExact(start, 1);
+        }
+        if (start == end) {
+            clear();
+        }
+    }
+
+    /**
+     * Number of entries passed to a single syscall, which fails with EINVAL beyond IOV_MAX,
+     * the remaining entries are transferred by the next call after {@link #advance(long)}.
+     */
+    private int batch() {
+        return Math.min(count(), IOV_MAX);
+    }
+
+    private static long check(long v, String op) {
+        if (v >= 0L) {
+            return v;
+        }
+        int err = Math.toIntExact(-v);
+        if (err == NET_BINDINGS.sendBlockErrCode()) {
+            return WOULD_BLOCK;
+        }
+        throw new ForeignException("Failed to " + op + ", err : " + err);
+    }
+
+    /**
+     * Scatter read into the pending entries, interrupted calls are retried.
+     *
+     * @return bytes read, 0 for end of stream, or {@link #WOULD_BLOCK}
+     */
+    public long readv(Descriptor descriptor) {
+        for (; ; ) {
+            long v = POSIX_NET_BINDINGS.posixReadv(descriptor.asInt(), segment, start, batch());
+            if (v != -NET_BINDINGS.interruptErrCode()) {
+                return check(v, "readv");
+            }
+        }
+    }
+
+    /**
+     * Gather write from the pending entries, interrupted calls are retried.
+     *
+     * @return bytes written or {@link #WOULD_BLOCK}
+     */
+    public long writev(Descriptor descriptor) {
+        for (; ; ) {
+            long v = POSIX_NET_BINDINGS.posixWritev(descriptor.asInt(), segment, start, batch());
+            if (v != -NET_BINDINGS.interruptErrCode()) {
+                return check(v, "writev");
+            }
+        }
+    }
+
+    /**
+     * Send the pending entries as one datagram, at most IOV_MAX entries are sent.
+     *
+     * @param addr    the native sockaddr of the target, or {@link MemorySegment#NULL} for connected sockets
+     * @param addrLen size of the sockaddr
+     * @return bytes sent or {@link #WOULD_BLOCK}
+     */
+    public long sendmsg(Descriptor descriptor, MemorySegment addr, int addrLen) {
+        for (; ; ) {
+            long v = POSIX_NET_BINDINGS.posixSendmsg(descriptor.asInt(), addr, addrLen, segment, start, batch(), 0);
+            if (v != -NET_BINDINGS.interruptErrCode()) {
+                return check(v, "sendmsg");
+            }
+        }
+    }
+
+    /**
+     * Receive one datagram into the pending entries, at most IOV_MAX entries are filled.
+     *
+     * @param addr     the native sockaddr buffer to store the source address, or {@link MemorySegment#NULL}
+     * @param addrLen  a native int holding the size of addr, updated with the actual size
+     * @param msgFlags a native int to store the received flags, or {@link MemorySegment#NULL}
+     * @return bytes received or {@link #WOULD_BLOCK}
+     */
+    public long recvmsg(Descriptor descriptor, MemorySegment addr, MemorySegment addrLen, MemorySegment msgFlags) {
+        for (; ; ) {
+            long v = POSIX_NET_BINDINGS.posixRecvmsg(descriptor.asInt(), addr, addrLen, segment, start, batch(), 0, msgFlags);
+            if (v != -NET_BINDINGS.interruptErrCode()) {
+                return check(v, "recvmsg");
+            }
+        }
+    }
+}
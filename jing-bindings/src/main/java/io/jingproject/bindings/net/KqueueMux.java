@@ -2,8 +2,10 @@ package io.jingproject.bindings.net;
 
 import io.jingproject.bindings.KqueueBindings;
 import io.jingproject.bindings.SysPosixBindings;
+import io.jingproject.bindings.alloc.MmapSegment;
 import io.jingproject.common.Descriptor;
 import io.jingproject.ffm.ForeignException;
+import io.jingproject.ffm.NativeSegmentAccess;
 import io.jingproject.ffm.SharedLibs;
 
 import java.lang.foreign.MemorySegment;
@@ -11,6 +13,9 @@ import java.lang.foreign.MemorySegment;
 public final class KqueueMux implements Mux {
     private static final KqueueBindings KQUEUE_BINDINGS = SharedLibs.getImpl(KqueueBindings.class);
     private static final SysPosixBindings SYS_POSIX_BINDINGS = SharedLibs.getImpl(SysPosixBindings.class);
+    private static final long EVENT_SIZE = KQUEUE_BINDINGS.keventSize();
+    private static final long EVENT_FILTER_OFFSET = KQUEUE_BINDINGS.keventFilterOffset();
+    private static final long EVENT_UDATA_OFFSET = KQUEUE_BINDINGS.keventUdataOffset();
     private int kqFd = 0;
 
     @Override
@@ -43,6 +48,9 @@ public final class KqueueMux implements Mux {
         if (kqFd == 0) {
             throw new IllegalStateException("KqueueMux not initialized");
         }
+        if (((from | to) & Mux.MUX_MODIFIER_FLAGS) != 0) {
+            throw new UnsupportedOperationException("KqueueMux doesn't support edge-triggered, oneshot or exclusive registration");
+        }
         int modRead = mod(from, to, Mux.MUX_READABLE_FLAG);
         int modWrite = mod(from, to, Mux.MUX_WRITEABLE_FLAG);
         int err = KQUEUE_BINDINGS.keventCtl(kqFd, descriptor.asInt(), modRead, modWrite, MemorySegment.ofAddress(data));
@@ -52,8 +60,44 @@ public final class KqueueMux implements Mux {
     }
 
     @Override
-    public void poll(MemorySegment events, int maxEvents, int timeout) {
+    public MemorySegment events(MmapSegment mmapSegment, int maxEvents) {
+        assert maxEvents > 0;
+        return mmapSegment.slice(Math.multiplyExact(EVENT_SIZE, maxEvents), Long.BYTES);
+    }
 
+    @Override
+    public int poll(MemorySegment events, int maxEvents, int timeout) {
+        if (kqFd == Integer.MIN_VALUE) {
+            throw new IllegalStateException("KqueueMux already closed");
+        }
+        if (kqFd == 0) {
+            throw new IllegalStateException("KqueueMux not initialized");
+        }
+        assert events.isNative() && events.byteSize() >= Math.multiplyExact(EVENT_SIZE, maxEvents);
+        int v = KQUEUE_BINDINGS.keventWait(kqFd, events, maxEvents, timeout);
+        if (v < 0) {
+            int err = Math.abs(v);
+            throw new ForeignException("Failed to wait kqueue instance, err : " + err);
+        }
+        return v;
+    }
+
+    @Override
+    public int data(MemorySegment events, int index) {
+        return (int) NativeSegmentAccess.getLong(events, Math.addExact(Math.multiplyExact(EVENT_SIZE, index), EVENT_UDATA_OFFSET));
+    }
+
+    @Override
+    public int flag(MemorySegment events, int index) {
+        // kqueue reports readable and writeable events separately, each event carries only one filter
+        short filter = NativeSegmentAccess.getShort(events, Math.addExact(Math.multiplyExact(EVENT_SIZE, index), EVENT_FILTER_OFFSET));
+        if (filter == KQUEUE_BINDINGS.kqueueIn()) {
+            return Mux.MUX_READABLE_FLAG;
+        } else if (filter == KQUEUE_BINDINGS.kqueueOut()) {
+            return Mux.MUX_WRITEABLE_FLAG;
+        } else {
+            return Mux.MUX_NONE_FLAG;
+        }
     }
 
     @Override
@@ -65,6 +109,7 @@ public final class KqueueMux implements Mux {
             return;
         }
         int err = SYS_POSIX_BINDINGS.posixClose(kqFd);
+        kqFd = Integer.MIN_VALUE;
         if (err > 0) {
             throw new ForeignException("Failed to close kqueue instance, err : " + err);
         }
@@ -1,6 +1,9 @@
 package io.jingproject.bindings.net;
 
+import io.jingproject.bindings.alloc.MmapSegment;
+import io.jingproject.common.ConfigurationFactory;
 import io.jingproject.common.Descriptor;
+import io.jingproject.common.Os;
 
 import java.lang.foreign.MemorySegment;
 
@@ -9,13 +12,54 @@ public interface Mux {
     int MUX_READABLE_FLAG = 0x0001;
     int MUX_WRITEABLE_FLAG = 0x0002;
     int MUX_READABLE_AND_WRITEABLE_FLAG = MUX_READABLE_FLAG | MUX_WRITEABLE_FLAG;
+    // 以下为注册方式的修饰位，需要和可读可写的标志组合使用，不支持的Mux实现会直接抛出UnsupportedOperationException
+    // 边缘触发，事件只在状态变化时通知一次，使用者需要持续读写直到EAGAIN
+    int MUX_EDGE_TRIGGERED_FLAG = 0x0004;
+    // 事件通知一次之后自动禁用，需要通过相同的flag再次ctl进行重新启用
+    int MUX_ONESHOT_FLAG = 0x0008;
+    // 多个Mux监听同一个描述符时只唤醒其中一个，只能在添加时指定，之后不允许修改
+    int MUX_EXCLUSIVE_FLAG = 0x0010;
+    int MUX_MODIFIER_FLAGS = MUX_EDGE_TRIGGERED_FLAG | MUX_ONESHOT_FLAG | MUX_EXCLUSIVE_FLAG;
+
+    // 根据当前的操作系统创建对应的Mux实现，linux下可以通过jing.net.mux选择epoll或者iouring，创建之后仍需要调用init
+    static Mux newInstance() {
+        return switch (Os.current()) {
+            case LINUX -> switch (ConfigurationFactory.conf("jing.net.mux", "epoll")) {
+                case "epoll" -> new EpollMux(ConfigurationFactory.confAsBoolean("jing.net.epoll.batchctl", true));
+                case "iouring" -> new IoUringMux(ConfigurationFactory.confAsInt("jing.net.iouring.entries", 4096));
+                case String mux -> throw new IllegalArgumentException("Unsupported mux : " + mux);
+            };
+            case MACOS -> new KqueueMux();
+            case WINDOWS -> new WepollMux();
+        };
+    }
 
     void init();
 
     // data在创建之后就不允许发生变化，否则是ub
+    // from和to相同时表示重新启用ONESHOT注册的描述符
     void ctl(Descriptor descriptor, int from, int to, int data);
 
-    void poll(MemorySegment events, int maxEvents, int timeout);
+    // 提交所有排队中的ctl操作，失败操作对应的data和错误码会被传递给onFailure，ctl立即生效的实现不需要做任何事情
+    default void flush(CtlFailure onFailure) {
+
+    }
+
+    // 从mmapSegment中分配可以容纳maxEvents个事件的数组，该数组应当在整个事件循环中被复用
+    MemorySegment events(MmapSegment mmapSegment, int maxEvents);
+
+    // 返回就绪事件的数量，之后通过data和flag读取对应下标的事件，整个过程不会产生任何对象分配
+    int poll(MemorySegment events, int maxEvents, int timeout);
+
+    int data(MemorySegment events, int index);
+
+    // 出错或挂断的事件会同时被标记为可读和可写，由后续的读写操作获取具体的错误
+    int flag(MemorySegment events, int index);
 
     void close();
+
+    @FunctionalInterface
+    interface CtlFailure {
+        void onFailure(int data, int err);
+    }
 }
@@ -1,6 +1,7 @@
 package io.jingproject.bindings.net;
 
 import io.jingproject.bindings.WepollBindings;
+import io.jingproject.bindings.alloc.MmapSegment;
 import io.jingproject.common.Descriptor;
 import io.jingproject.ffm.ForeignException;
 import io.jingproject.ffm.NativeSegmentAccess;
@@ -10,6 +11,8 @@ import java.lang.foreign.MemorySegment;
 
 public final class WepollMux implements Mux {
     private static final WepollBindings WEPOLL_BINDINGS = SharedLibs.getImpl(WepollBindings.class);
+    private static final long EVENT_SIZE = WEPOLL_BINDINGS.wepollEventSize();
+    private static final long EVENT_DATA_OFFSET = WEPOLL_BINDINGS.wepollEventDataOffset();
     private MemorySegment epfd = MemorySegment.NULL;
 
     @Override
@@ -61,6 +64,9 @@ public final class WepollMux implements Mux {
         if (epfd.address() == 0L) {
             throw new IllegalStateException("WepollMux not initialized");
         }
+        if (((from | to) & Mux.MUX_MODIFIER_FLAGS) != 0) {
+            throw new UnsupportedOperationException("WepollMux doesn't support edge-triggered, oneshot or exclusive registration");
+        }
         int op = getOp(from, to);
         int eventTypes = getEventTypes(op, to);
         int err = WEPOLL_BINDINGS.wepollCtl(epfd, descriptor.asLong(), op, eventTypes, data);
@@ -70,8 +76,47 @@ public final class WepollMux implements Mux {
     }
 
     @Override
-    public void poll(MemorySegment events, int maxEvents, int timeout) {
+    public MemorySegment events(MmapSegment mmapSegment, int maxEvents) {
+        assert maxEvents > 0;
+        return mmapSegment.slice(Math.multiplyExact(EVENT_SIZE, maxEvents), Long.BYTES);
+    }
+
+    @Override
+    public int poll(MemorySegment events, int maxEvents, int timeout) {
+        if (epfd == null) {
+            throw new IllegalStateException("WepollMux already closed");
+        }
+        if (epfd.address() == 0L) {
+            throw new IllegalStateException("WepollMux not initialized");
+        }
+        assert events.isNative() && events.byteSize() >= Math.multiplyExact(EVENT_SIZE, maxEvents);
+        int v = WEPOLL_BINDINGS.wepollWait(epfd, events, maxEvents, timeout);
+        if (v < 0) {
+            int err = Math.abs(v);
+            throw new ForeignException("Failed to wait wepoll instance, err : " + err);
+        }
+        return v;
+    }
+
+    @Override
+    public int data(MemorySegment events, int index) {
+        return NativeSegmentAccess.getInt(events, Math.addExact(Math.multiplyExact(EVENT_SIZE, index), EVENT_DATA_OFFSET));
+    }
 
+    @Override
+    public int flag(MemorySegment events, int index) {
+        int eventTypes = NativeSegmentAccess.getInt(events, Math.multiplyExact(EVENT_SIZE, index));
+        if ((eventTypes & (WEPOLL_BINDINGS.wepollErr() | WEPOLL_BINDINGS.wepollHup())) != 0) {
+            return Mux.MUX_READABLE_AND_WRITEABLE_FLAG;
+        }
+        int r = Mux.MUX_NONE_FLAG;
+        if ((eventTypes & WEPOLL_BINDINGS.wepollIn()) != 0) {
+            r |= Mux.MUX_READABLE_FLAG;
+        }
+        if ((eventTypes & WEPOLL_BINDINGS.wepollOut()) != 0) {
+            r |= Mux.MUX_WRITEABLE_FLAG;
+        }
+        return r;
     }
 
     @Override
@@ -83,6 +128,7 @@ public final class WepollMux implements Mux {
             return;
         }
         int err = WEPOLL_BINDINGS.wepollClose(epfd);
+        epfd = null;
         if (err != 0) {
             throw new ForeignException("Failed to close wepoll instance, err : " + err);
         }
@@ -6,4 +6,5 @@ module jing.bindings {
 
     exports io.jingproject.bindings;
     exports io.jingproject.bindings.alloc;
+    exports io.jingproject.bindings.net;
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package io.jingproject.bindingstest;
+
+import io.jingproject.bindings.alloc.PoolAllocator;
+import io.jingproject.ffm.NativeSegmentAccess;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class PoolAllocatorTest {
+    private static final long POOL_SIZE = 16L * 1024L * 1024L;
+
+    @Test
+    public void testAlignment() {
+        try (PoolAllocator allocator = new PoolAllocator(POOL_SIZE)) {
+            for (long size = 1L; size <= PoolAllocator.MAX_CLASS_SIZE; size = size * 2L + 1L) {
+                long classSize = Math.max(PoolAllocator.MIN_CLASS_SIZE, Long.highestOneBit(size - 1L) << 1);
+                for (int i = 0; i < 4; i++) {
+                    MemorySegment segment = allocator.allocate(size, 1L);
+                    Assertions.assertEquals(size, segment.byteSize());
+                    Assertions.assertEquals(0L, segment.address() % classSize);
+                }
+            }
+            for (long alignment = 1L; alignment <= PoolAllocator.MAX_CLASS_SIZE; alignment <<= 1) {
+                MemorySegment segment = allocator.allocate(8L, alignment);
+                Assertions.assertEquals(8L, segment.byteSize());
+                Assertions.assertEquals(0L, segment.address() % alignment);
+            }
+            Assertions.assertThrows(IllegalArgumentException.class, () -> allocator.allocate(8L, PoolAllocator.MAX_CLASS_SIZE << 1));
+        }
+    }
+
+    @Test
+    public void testReuse() {
+        try (PoolAllocator allocator = new PoolAllocator(POOL_SIZE)) {
+            List<MemorySegment> segments = new ArrayList<>();
+            Set<Long> addresses = new HashSet<>();
+            for (int i = 0; i < 64; i++) {
+                MemorySegment segment = allocator.allocate(100L, 8L);
+                segment.fill((byte) i);
+                Assertions.assertTrue(addresses.add(segment.address()));
+                segments.add(segment);
+            }
+            for (MemorySegment segment : segments) {
+                allocator.free(segment);
+            }
+            for (int i = 0; i < 64; i++) {
+                Assertions.assertTrue(addresses.contains(allocator.allocate(128L, 8L).address()));
+            }
+            // 其他大小类不会复用这些块
+            Assertions.assertFalse(addresses.contains(allocator.allocate(64L, 8L).address()));
+        }
+    }
+
+    @Test
+    public void testRemoteFree() throws InterruptedException {
+        try (PoolAllocator allocator = new PoolAllocator(POOL_SIZE)) {
+            MemorySegment segment = allocator.allocate(256L, 8L);
+            Thread t = Thread.ofPlatform().start(() -> allocator.free(segment));
+            t.join();
+            Assertions.assertEquals(segment.address(), allocator.allocate(256L, 8L).address());
+            Thread other = Thread.ofPlatform().unstarted(() -> Assertions.assertThrows(IllegalStateException.class, () -> allocator.allocate(256L, 8L)));
+            other.start();
+            other.join();
+        }
+    }
+
+    @Test
+    public void testFallback() {
+        try (PoolAllocator allocator = new PoolAllocator(POOL_SIZE)) {
+            long size = PoolAllocator.MAX_CLASS_SIZE * 2L;
+            MemorySegment segment = allocator.allocate(size, 8L);
+            Assertions.assertEquals(size, segment.byteSize());
+            segment.fill((byte) 1);
+            // 按地址而不是大小区分malloc分配的块，缩小后释放同样有效
+            allocator.free(segment.asSlice(0L, 8L));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> allocator.free(segment));
+            // 池中的块扩大后释放仍然回到池中
+            MemorySegment block = allocator.allocate(8L, 8L);
+            allocator.free(NativeSegmentAccess.reinterpret(block, size));
+            Assertions.assertEquals(block.address(), allocator.allocate(8L, 8L).address());
+            Assertions.assertThrows(IllegalArgumentException.class, () -> allocator.allocate(size, 32L));
+        }
+    }
+
+    @Test
+    public void testFallbackFreedOnClose() {
+        PoolAllocator allocator = new PoolAllocator(POOL_SIZE);
+        MemorySegment segment = allocator.allocate(PoolAllocator.MAX_CLASS_SIZE + 1L, 8L);
+        allocator.close();
+        // 关闭时已经释放，不能再次释放
+        Assertions.assertThrows(IllegalArgumentException.class, () -> allocator.free(segment));
+        Assertions.assertThrows(IllegalStateException.class, allocator::close);
+    }
+}
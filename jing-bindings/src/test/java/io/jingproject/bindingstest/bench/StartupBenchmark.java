@@ -0,0 +1,39 @@
+package io.jingproject.bindingstest.bench;
+
+import io.jingproject.common.Providers;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold lookup of a service in a fresh JVM, each fork measures a single invocation including the class loading
+ * <p>
+ * Placed in a module compiled with ProviderProcessor, so the registry looked up is the generated one, together with the registry of jing.bindings
+ */
+@BenchmarkMode(value = Mode.SingleShotTime)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 20)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StartupBenchmark {
+
+    @Benchmark
+    public StartupService testServiceLoader() {
+        return ServiceLoader.load(StartupService.class).findFirst().orElseThrow();
+    }
+
+    @Benchmark
+    public StartupService testProviderRegistry() {
+        return Providers.findFirst(StartupService.class).orElseThrow();
+    }
+
+    static void main() throws RunnerException {
+        Options opt = new OptionsBuilder().include(StartupBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,8 @@
+package io.jingproject.bindingstest.bench;
+
+/**
+ * Service looked up by {@link StartupBenchmark}, declared here so that no other module provides it
+ */
+public interface StartupService {
+
+}
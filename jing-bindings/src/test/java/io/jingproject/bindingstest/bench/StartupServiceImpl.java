@@ -0,0 +1,11 @@
+package io.jingproject.bindingstest.bench;
+
+import io.jingproject.annprocess.Provider;
+
+/**
+ * Registered both by the generated registry and by the provides clause, so the two lookups find the same provider
+ */
+@Provider(target = StartupService.class)
+public final class StartupServiceImpl implements StartupService {
+
+}
@@ -0,0 +1,14 @@
+open module jing.bindingstest {
+    exports io.jingproject.bindingstest;
+    exports io.jingproject.bindingstest.bench;
+    requires jing.bindings;
+    requires static jing.annprocessor;
+    requires jmh.core;
+    requires jdk.unsupported;
+    requires org.junit.jupiter.api;
+
+    uses io.jingproject.bindingstest.bench.StartupService;
+    // 测试源码不经过jing-maven-plugin处理，注册生成的registry需要手动声明
+    provides io.jingproject.bindingstest.bench.StartupService with io.jingproject.bindingstest.bench.StartupServiceImpl;
+    provides io.jingproject.common.ProviderRegistry with io.jingproject.bindingstest.bench._Jing$$ProviderRegistry;
+}
@@ -1,34 +1,176 @@
 package io.jingproject.common;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 /**
- * BatchQueue acts like a MPSC queue, it uses lock internally, but optimized for batch consuming
+ * BatchQueue acts like a MPSC queue optimized for batch consuming,
  * the consumer could just fetch all the elements at once without busy polling mechanism
+ * <p>
+ * The queue is lock-free rather than wait-free, producers claim a global index with a single getAndAdd, the index determines both the batch and the slot,
+ * so concurrent producers never contend on the same slot. Batches are linked only by the producer claiming the first slot of it,
+ * other producers of the same batch wait until it has been linked, which normally takes a few instructions of the linking producer,
+ * but could take as long as the linking producer stays descheduled
+ * <p>
+ * The consumer reads published slots in order and recycles fully consumed batches, so draining produces no garbage
+ * <p>
+ * The queue could be bounded with an {@link OverflowPolicy} deciding what to do when it's full,
+ * and the consumer could wait with {@link #await(long)} instead of polling, it would be unparked by the first offer after an empty drain
  */
 public final class BatchQueue<T> {
     private static final int DEFAULT_BATCH_SIZE = Integer.getInteger("jing.common.defaultbatchsize", 256);
-    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Index of a batch which has been retired by the consumer and not yet linked again
+     */
+    private static final long RETIRED = -1L;
+
+    /**
+     * Maximum spin count before yielding when waiting for another producer to link the batch,
+     * the linking producer might have been descheduled, spinning longer would only burn its time slice
+     */
+    private static final int MAX_SPIN_COUNT = 64;
+
+    /**
+     * Maximum spin count before parking, yielding alone can't guarantee the linking producer gets scheduled
+     */
+    private static final int MAX_YIELD_COUNT = 128;
+
+    private static final VarHandle PRODUCER_INDEX;
+    private static final VarHandle CONSUMER_INDEX;
+    private static final VarHandle DROPPED;
+    private static final VarHandle WAITER;
+    private static final VarHandle SPARE;
+    private static final VarHandle ELEMENTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(BatchQueue.class, MethodHandles.lookup());
+            PRODUCER_INDEX = lookup.findVarHandle(BatchQueue.class, "producerIndex", long.class);
+            CONSUMER_INDEX = lookup.findVarHandle(BatchQueue.class, "consumerIndex", long.class);
+            DROPPED = lookup.findVarHandle(BatchQueue.class, "dropped", long.class);
+            WAITER = lookup.findVarHandle(BatchQueue.class, "waiter", Thread.class);
+            SPARE = lookup.findVarHandle(BatchQueue.class, "spare", Batch.class);
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final int batchSize;
-    private Batch<T> head;
-    private Batch<T> tail;
+
+    /**
+     * Max number of pending elements, {@link Long#MAX_VALUE} for unbounded queues
+     */
+    private final long capacity;
+
+    private final OverflowPolicy policy;
+
+    /**
+     * Max number of claimed but not yet consumed elements, equals to the capacity except for {@link OverflowPolicy#DROP_OLDEST}
+     */
+    private final long limit;
+
+    /**
+     * Next index to be claimed by producers
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile long producerIndex = 0L;
+
+    /**
+     * The latest linked batch
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile Batch producerBatch;
+
+    /**
+     * A retired batch kept by the consumer for the next linking producer
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile Batch spare = null;
+
+    /**
+     * Number of elements dropped or rejected due to overflow
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile long dropped = 0L;
+
+    /**
+     * The consumer thread parked in {@link #await(long)}, null if the consumer is not waiting
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile Thread waiter = null;
+
+    /**
+     * Next index to be consumed, only written by the consumer thread, read by producers for capacity checking
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile long consumerIndex = 0L;
+
+    /**
+     * Consumer-owned state, only accessed by the consumer thread
+     */
+    private Batch consumerBatch;
+
+    /**
+     * Policies applied when offering to a full bounded queue
+     */
+    public enum OverflowPolicy {
+        /**
+         * Block the producer until the consumer makes room
+         */
+        BLOCK,
+        /**
+         * Discard the element being offered
+         */
+        DROP_NEWEST,
+        /**
+         * Discard the oldest pending elements, producers are never blocked, the excess elements are discarded by the consumer in next drain,
+         * so the queue might temporarily exceed its capacity between two drains, at most to twice the capacity,
+         * elements offered beyond that are discarded as {@link #DROP_NEWEST} does until the consumer catches up
+         */
+        DROP_OLDEST,
+        /**
+         * Throw an {@link IllegalStateException} to the producer
+         */
+        FAIL
+    }
 
     public BatchQueue(int batchSize) {
+        this(batchSize, Long.MAX_VALUE, OverflowPolicy.FAIL);
+    }
+
+    public BatchQueue(int batchSize, long capacity, OverflowPolicy policy) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid batch size : " + batchSize);
+        }
+        if (capacity <= 0L) {
+            throw new IllegalArgumentException("Invalid capacity : " + capacity);
+        }
         this.batchSize = batchSize;
-        this.head = this.tail = new Batch<>(batchSize);
+        this.capacity = capacity;
+        this.policy = policy;
+        this.limit = policy == OverflowPolicy.DROP_OLDEST ? (capacity > Long.MAX_VALUE / 2 ? Long.MAX_VALUE : capacity * 2) : capacity;
+        Batch first = new Batch(batchSize);
+        first.index = 0L;
+        this.producerBatch = first;
+        this.consumerBatch = first;
     }
 
     public BatchQueue() {
         this(DEFAULT_BATCH_SIZE);
     }
 
-    private static final class Batch<T> {
+    private static final class Batch {
         private final Object[] elements;
-        private int index = 0;
-        private Batch<T> next = null;
+        private volatile long index = RETIRED;
+        private volatile Batch next = null;
+        private volatile Batch prev = null;
 
         Batch(int batchSize) {
             this.elements = new Object[batchSize];
@@ -39,45 +181,264 @@ public final class BatchQueue<T> {
         return DEFAULT_BATCH_SIZE;
     }
 
-    public void offer(T element) {
-        lock.lock();
-        try {
-            Batch<T> t = tail;
-            int index = t.index;
-            if (index == batchSize) {
-                Batch<T> next = new Batch<>(batchSize);
-                t.next = next;
-                t = next;
-                tail = t;
+    /**
+     * Offer an element to the queue, could be called from any thread
+     * the offer is lock-free but not wait-free, it might wait for another producer linking the batch of the claimed index
+     *
+     * @return false if the element was dropped by {@link OverflowPolicy#DROP_NEWEST}, or by {@link OverflowPolicy#DROP_OLDEST} beyond twice the capacity
+     * @throws IllegalStateException if the queue is full with {@link OverflowPolicy#FAIL}
+     */
+    public boolean offer(T element) {
+        // A null slot means not yet published, check before claiming an index or the consumer would wait for the slot forever
+        Objects.requireNonNull(element);
+        long p;
+        if (limit == Long.MAX_VALUE) {
+            p = (long) PRODUCER_INDEX.getAndAdd(this, 1L);
+        } else {
+            p = claim();
+            if (p < 0L) {
+                return false;
             }
-            t.elements[index] = element;
-            t.index = Math.addExact(index, 1);
-        } finally {
-            lock.unlock();
         }
+        publish(p, element);
+        Thread w = waiter;
+        if (w != null && WAITER.compareAndSet(this, w, null)) {
+            LockSupport.unpark(w);
+        }
+        return true;
     }
 
-    public Stream<T> stream() {
-        Batch<T> first;
-        lock.lock();
+    /**
+     * Claim an index within the capacity, return -1 if the element should be dropped
+     */
+    private long claim() {
+        for (int spin = 0; ; ) {
+            long p = producerIndex;
+            if (p - consumerIndex >= limit) {
+                switch (policy) {
+                    case BLOCK -> backoff(spin++);
+                    case DROP_NEWEST, DROP_OLDEST -> {
+                        DROPPED.getAndAdd(this, 1L);
+                        return -1L;
+                    }
+                    default -> {
+                        DROPPED.getAndAdd(this, 1L);
+                        throw new IllegalStateException("BatchQueue full, capacity : " + capacity);
+                    }
+                }
+            } else if (PRODUCER_INDEX.compareAndSet(this, p, p + 1L)) {
+                return p;
+            }
+        }
+    }
+
+    private void publish(long p, T element) {
+        long batchIndex = p / batchSize;
+        int offset = (int) (p % batchSize);
+        Batch b = producerBatch;
+        if (b.index != batchIndex) {
+            b = findBatch(batchIndex, offset == 0);
+        }
+        ELEMENTS.setRelease(b.elements, offset, element);
+    }
+
+    /**
+     * Locate the batch of the claimed index, linking it if current producer claimed its first slot
+     */
+    private Batch findBatch(long batchIndex, boolean link) {
+        for (int spin = 0; ; spin++) {
+            Batch b = producerBatch;
+            long index = b.index;
+            if (index == batchIndex) {
+                return b;
+            } else if (index == RETIRED) {
+                // producerBatch has just been retired, the linking producer would update it soon
+                backoff(spin);
+            } else if (index > batchIndex) {
+                // Batches newer than the claimed one are never retired, so the prev chain is safe to walk
+                do {
+                    b = b.prev;
+                } while (b.index != batchIndex);
+                return b;
+            } else if (link && index == batchIndex - 1) {
+                Batch n = (Batch) SPARE.getAndSet(this, null);
+                if (n == null) {
+                    n = new Batch(batchSize);
+                }
+                n.prev = b;
+                n.index = batchIndex;
+                b.next = n;
+                producerBatch = n;
+                return n;
+            } else {
+                // Waiting for the previous batches to be linked
+                backoff(spin);
+            }
+        }
+    }
+
+    private static void backoff(int spin) {
+        if (spin < MAX_SPIN_COUNT) {
+            Thread.onSpinWait();
+        } else if (spin < MAX_YIELD_COUNT) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(1L);
+        }
+    }
+
+    /**
+     * Drain all the published elements to the consumer, must be called from a single consumer thread
+     *
+     * @return number of elements consumed
+     */
+    public int drain(Consumer<T> consumer) {
+        return drain(consumer, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Drain at most limit published elements to the consumer, must be called from a single consumer thread
+     *
+     * @return number of elements consumed
+     */
+    public int drain(Consumer<T> consumer, int limit) {
+        discardOverflow();
+        int count = 0;
+        while (count < limit) {
+            T element = poll();
+            if (element == null) {
+                break;
+            }
+            count++;
+            consumer.accept(element);
+        }
+        return count;
+    }
+
+    /**
+     * Drain published elements into the array, must be called from a single consumer thread
+     *
+     * @return number of elements written into the array
+     */
+    public int drainTo(T[] array) {
+        discardOverflow();
+        int count = 0;
+        while (count < array.length) {
+            T element = poll();
+            if (element == null) {
+                break;
+            }
+            array[count++] = element;
+        }
+        return count;
+    }
+
+    /**
+     * Discard the oldest elements exceeding the capacity for {@link OverflowPolicy#DROP_OLDEST}
+     */
+    private void discardOverflow() {
+        if (policy != OverflowPolicy.DROP_OLDEST) {
+            return;
+        }
+        long excess = producerIndex - consumerIndex - capacity;
+        while (excess > 0L && poll() != null) {
+            DROPPED.getAndAdd(this, 1L);
+            excess--;
+        }
+    }
+
+    /**
+     * Wait until there are elements to drain, must be called from a single consumer thread
+     * <p>
+     * Returns early if current thread is interrupted, the interrupt status is left set for the caller
+     *
+     * @param timeout max nanoseconds to wait, non-positive values return immediately
+     * @return true if there might be elements available, false if timed out
+     */
+    public boolean await(long timeout) {
+        if (producerIndex != consumerIndex) {
+            return true;
+        }
+        if (timeout <= 0L) {
+            return false;
+        }
+        Thread current = Thread.currentThread();
+        long deadline = System.nanoTime() + timeout;
+        waiter = current;
         try {
-            if (head == tail && head.index == 0) {
-                return Stream.empty();
+            // Re-check after publishing the waiter, producers either see the waiter or have already claimed an index visible here
+            while (producerIndex == consumerIndex) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, remaining);
+                if (current.isInterrupted()) {
+                    return producerIndex != consumerIndex;
+                }
+                waiter = current;
             }
-            first = head;
-            Batch<T> b = new Batch<>(batchSize);
-            head = b;
-            tail = b;
+            return true;
         } finally {
-            lock.unlock();
-        }
-        return Stream.iterate(first, Objects::nonNull, batch -> batch.next)
-                .mapMulti((batch, consumer) -> {
-                    for (int i = 0; i < batch.index; i++) {
-                        @SuppressWarnings("unchecked")
-                        T element = (T) batch.elements[i];
-                        consumer.accept(element);
-                    }
-                });
+            waiter = null;
+        }
+    }
+
+    /**
+     * Number of pending elements, including the ones claimed but not yet published
+     */
+    public long size() {
+        return producerIndex - consumerIndex;
+    }
+
+    /**
+     * Number of elements dropped or rejected due to overflow
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Retrieve and remove the next published element, or null if there is none, must be called from a single consumer thread
+     */
+    @SuppressWarnings("unchecked")
+    private T poll() {
+        Batch b = consumerBatch;
+        long c = consumerIndex;
+        int offset = (int) (c % batchSize);
+        if (offset == 0 && c != 0L && b.index != c / batchSize) {
+            Batch n = b.next;
+            if (n == null) {
+                return null;
+            }
+            retire(b, n);
+            b = n;
+        }
+        Object element = ELEMENTS.getAcquire(b.elements, offset);
+        if (element == null) {
+            return null;
+        }
+        b.elements[offset] = null;
+        CONSUMER_INDEX.setRelease(this, c + 1L);
+        return (T) element;
+    }
+
+    /**
+     * Retire a fully consumed batch, keep it as spare if there isn't one
+     */
+    private void retire(Batch b, Batch n) {
+        consumerBatch = n;
+        n.prev = null;
+        b.next = null;
+        b.index = RETIRED;
+        SPARE.compareAndSet(this, null, b);
+    }
+
+    public Stream<T> stream() {
+        List<T> elements = new ArrayList<>();
+        if (drain(elements::add) == 0) {
+            return Stream.empty();
+        }
+        return elements.stream();
     }
 }
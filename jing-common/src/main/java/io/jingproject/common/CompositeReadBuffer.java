@@ -0,0 +1,302 @@
+package io.jingproject.common;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A ReadBuffer presenting a sequence of received slices as one logical stream, so a frame spanning several socket reads
+ * could be decoded without accumulating the slices into a single buffer first
+ * <p>
+ * Primitives that fit in the current slice are read directly from it, only values crossing a slice boundary are assembled byte by byte
+ * <p>
+ * Fully consumed slices are handed to the release callback, unless a mark is set, in which case they are held until
+ * {@link #unmark()} is called, so {@link #reset()} could always rewind to the marked position
+ */
+public final class CompositeReadBuffer implements ReadBuffer {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final ByteOrder NATIVE_ORDER = ByteOrder.nativeOrder();
+    private static final ByteOrder OPPOSITE_ORDER = NATIVE_ORDER == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED;
+    private static final ValueLayout.OfShort SHORT_OP = SHORT.withOrder(OPPOSITE_ORDER);
+    private static final ValueLayout.OfChar CHAR = ValueLayout.JAVA_CHAR_UNALIGNED;
+    private static final ValueLayout.OfChar CHAR_OP = CHAR.withOrder(OPPOSITE_ORDER);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED;
+    private static final ValueLayout.OfInt INT_OP = INT.withOrder(OPPOSITE_ORDER);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED;
+    private static final ValueLayout.OfLong LONG_OP = LONG.withOrder(OPPOSITE_ORDER);
+    private static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED;
+    private static final ValueLayout.OfFloat FLOAT_OP = FLOAT.withOrder(OPPOSITE_ORDER);
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED;
+    private static final ValueLayout.OfDouble DOUBLE_OP = DOUBLE.withOrder(OPPOSITE_ORDER);
+
+    private static final int NO_MARK = -1;
+
+    private final Consumer<MemorySegment> release;
+    /**
+     * Slices in [released, head) are consumed but held by the mark, [head, tail) are readable
+     */
+    private MemorySegment[] slices = new MemorySegment[INITIAL_CAPACITY];
+    private int released = 0;
+    private int head = 0;
+    private int tail = 0;
+    /**
+     * The slice at head, or {@link MemorySegment#NULL} if there is no readable slice
+     */
+    private MemorySegment current = MemorySegment.NULL;
+    private long offset = 0L;
+    private long position = 0L;
+    private long length = 0L;
+    private int markSlice = NO_MARK;
+    private long markOffset = 0L;
+    private long markPosition = 0L;
+
+    /**
+     * @param release invoked with each slice once it has been fully consumed and is no longer held by a mark
+     */
+    public CompositeReadBuffer(Consumer<MemorySegment> release) {
+        this.release = release;
+    }
+
+    /**
+     * Append a received slice to the end of the stream, empty slices are released immediately
+     */
+    public void append(MemorySegment slice) {
+        if (slice.byteSize() == 0L) {
+            release.accept(slice);
+            return;
+        }
+        if (tail == slices.length) {
+            if (released > 0) {
+                int shift = released;
+                System.arraycopy(slices, shift, slices, 0, tail - shift);
+                Arrays.fill(slices, tail - shift, tail, null);
+                released = 0;
+                head = head - shift;
+                tail = tail - shift;
+                if (markSlice != NO_MARK) {
+                    markSlice = markSlice - shift;
+                }
+            } else {
+                slices = Arrays.copyOf(slices, Math.multiplyExact(slices.length, 2));
+            }
+        }
+        slices[tail] = slice;
+        if (head == tail) {
+            current = slice;
+            offset = 0L;
+        }
+        tail = Math.addExact(tail, 1);
+        length = Math.addExact(length, slice.byteSize());
+    }
+
+    /**
+     * Number of bytes available for reading
+     */
+    public long remaining() {
+        return length - position;
+    }
+
+    /**
+     * Remember current position, consumed slices would be held until {@link #unmark()}
+     */
+    public void mark() {
+        markSlice = head;
+        markOffset = offset;
+        markPosition = position;
+    }
+
+    /**
+     * Rewind to the marked position and clear the mark, typically used when a frame is incomplete and should be decoded again after more slices arrived
+     */
+    public void reset() {
+        if (markSlice == NO_MARK) {
+            throw new IllegalStateException("CompositeReadBuffer not marked");
+        }
+        head = markSlice;
+        current = head < tail ? slices[head] : MemorySegment.NULL;
+        offset = markOffset;
+        position = markPosition;
+        markSlice = NO_MARK;
+    }
+
+    /**
+     * Clear the mark and release all the slices consumed since then
+     */
+    public void unmark() {
+        markSlice = NO_MARK;
+        releaseConsumed();
+    }
+
+    private void releaseConsumed() {
+        while (released < head) {
+            MemorySegment slice = slices[released];
+            slices[released] = null;
+            released = released + 1;
+            release.accept(slice);
+        }
+    }
+
+    /**
+     * Move forward n bytes within current slice, jumping to the next slice if current one is exhausted
+     */
+    private void advance(long n) {
+        offset = offset + n;
+        position = position + n;
+        if (offset == current.byteSize() && head < tail) {
+            head = head + 1;
+            current = head < tail ? slices[head] : MemorySegment.NULL;
+            offset = 0L;
+            if (markSlice == NO_MARK) {
+                releaseConsumed();
+            }
+        }
+    }
+
+    private void check(long len) {
+        if (len > length - position) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    /**
+     * Slow path for primitives crossing slice boundaries, assemble the value byte by byte
+     */
+    private long readSlow(int size, ByteOrder byteOrder) {
+        check(size);
+        long r = 0L;
+        for (int i = 0; i < size; i++) {
+            long b = current.get(ValueLayout.JAVA_BYTE, offset) & 0xFFL;
+            advance(1L);
+            r = byteOrder == ByteOrder.BIG_ENDIAN ? (r << 8) | b : r | (b << (i << 3));
+        }
+        return r;
+    }
+
+    private boolean fits(long size) {
+        return offset + size <= current.byteSize();
+    }
+
+    @Override
+    public byte readByte() {
+        check(Byte.BYTES);
+        byte r = current.get(ValueLayout.JAVA_BYTE, offset);
+        advance(Byte.BYTES);
+        return r;
+    }
+
+    @Override
+    public byte[] readBytes(int len) {
+        check(len);
+        byte[] r = new byte[len];
+        int index = 0;
+        while (index < len) {
+            int n = (int) Math.min(current.byteSize() - offset, len - index);
+            MemorySegment.copy(current, ValueLayout.JAVA_BYTE, offset, r, index, n);
+            index = index + n;
+            advance(n);
+        }
+        return r;
+    }
+
+    /**
+     * If the requested bytes lie in a single slice, the returned segment is a view of that slice and only stays valid until the slice is released,
+     * otherwise the bytes are copied into a heap segment
+     */
+    @Override
+    public MemorySegment readSegment(long len) {
+        check(len);
+        if (len == 0L) {
+            return MemorySegment.NULL;
+        }
+        if (fits(len)) {
+            MemorySegment r = current.asSlice(offset, len);
+            advance(len);
+            return r;
+        }
+        return MemorySegment.ofArray(readBytes(Math.toIntExact(len)));
+    }
+
+    @Override
+    public short readShort(ByteOrder byteOrder) {
+        if (fits(Short.BYTES)) {
+            short r = current.get(byteOrder == NATIVE_ORDER ? SHORT : SHORT_OP, offset);
+            advance(Short.BYTES);
+            return r;
+        }
+        return (short) readSlow(Short.BYTES, byteOrder);
+    }
+
+    @Override
+    public char readChar(ByteOrder byteOrder) {
+        if (fits(Character.BYTES)) {
+            char r = current.get(byteOrder == NATIVE_ORDER ? CHAR : CHAR_OP, offset);
+            advance(Character.BYTES);
+            return r;
+        }
+        return (char) readSlow(Character.BYTES, byteOrder);
+    }
+
+    @Override
+    public int readInt(ByteOrder byteOrder) {
+        if (fits(Integer.BYTES)) {
+            int r = current.get(byteOrder == NATIVE_ORDER ? INT : INT_OP, offset);
+            advance(Integer.BYTES);
+            return r;
+        }
+        return (int) readSlow(Integer.BYTES, byteOrder);
+    }
+
+    @Override
+    public long readLong(ByteOrder byteOrder) {
+        if (fits(Long.BYTES)) {
+            long r = current.get(byteOrder == NATIVE_ORDER ? LONG : LONG_OP, offset);
+            advance(Long.BYTES);
+            return r;
+        }
+        return readSlow(Long.BYTES, byteOrder);
+    }
+
+    @Override
+    public float readFloat(ByteOrder byteOrder) {
+        if (fits(Float.BYTES)) {
+            float r = current.get(byteOrder == NATIVE_ORDER ? FLOAT : FLOAT_OP, offset);
+            advance(Float.BYTES);
+            return r;
+        }
+        return Float.intBitsToFloat((int) readSlow(Float.BYTES, byteOrder));
+    }
+
+    @Override
+    public double readDouble(ByteOrder byteOrder) {
+        if (fits(Double.BYTES)) {
+            double r = current.get(byteOrder == NATIVE_ORDER ? DOUBLE : DOUBLE_OP, offset);
+            advance(Double.BYTES);
+            return r;
+        }
+        return Double.longBitsToDouble(readSlow(Double.BYTES, byteOrder));
+    }
+
+    @Override
+    public int intIndex() {
+        return Math.toIntExact(position);
+    }
+
+    @Override
+    public long longIndex() {
+        return position;
+    }
+
+    @Override
+    public int intLength() {
+        return Math.toIntExact(length);
+    }
+
+    @Override
+    public long longLength() {
+        return length;
+    }
+}
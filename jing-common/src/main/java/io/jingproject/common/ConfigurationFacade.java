@@ -6,4 +6,31 @@ public interface ConfigurationFacade {
     String conf(String key);
 
     List<String> confList(String key);
+
+    /**
+     * Names of the direct children of an object key, null if the key is missing or the facade could not enumerate keys
+     */
+    default List<String> confKeys(String key) {
+        return null;
+    }
+
+    default boolean confAsBoolean(String key, boolean defaultValue) {
+        return ConfigurationFactory.valueAsBoolean(conf(key), defaultValue);
+    }
+
+    default int confAsInt(String key, int defaultValue) {
+        return ConfigurationFactory.valueAsInt(conf(key), defaultValue);
+    }
+
+    default long confAsLong(String key, long defaultValue) {
+        return ConfigurationFactory.valueAsLong(conf(key), defaultValue);
+    }
+
+    default float confAsFloat(String key, float defaultValue) {
+        return ConfigurationFactory.valueAsFloat(conf(key), defaultValue);
+    }
+
+    default double confAsDouble(String key, double defaultValue) {
+        return ConfigurationFactory.valueAsDouble(conf(key), defaultValue);
+    }
 }
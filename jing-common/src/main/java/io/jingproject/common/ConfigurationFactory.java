@@ -2,11 +2,17 @@ package io.jingproject.common;
 
 import io.jingproject.common.conf.DefaultConfigurationFacade;
 
+import java.lang.invoke.SwitchPoint;
 import java.util.List;
-import java.util.Optional;
-import java.util.ServiceLoader;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 public final class ConfigurationFactory {
+    /**
+     * Guards all the {@link ConfigurationValue} linked against current configuration
+     */
+    private static volatile SwitchPoint switchPoint = new SwitchPoint();
+    private static final Lock lock = new ReentrantLock();
 
     private ConfigurationFactory() {
         throw new UnsupportedOperationException("utility class");
@@ -14,10 +20,7 @@ public final class ConfigurationFactory {
 
     private static ConfigurationFacade instance() {
         class Holder {
-            static final ConfigurationFacade INSTANCE = Anchor.compute(ConfigurationFacade.class, () -> {
-                Optional<ConfigurationFacade> cf = ServiceLoader.load(ConfigurationFacade.class).findFirst();
-                return cf.orElseGet(DefaultConfigurationFacade::new);
-            });
+            static final ConfigurationFacade INSTANCE = Anchor.compute(ConfigurationFacade.class, () -> Providers.findFirst(ConfigurationFacade.class).orElseGet(DefaultConfigurationFacade::new));
         }
         return Holder.INSTANCE;
     }
@@ -30,6 +33,10 @@ public final class ConfigurationFactory {
         return instance().confList(key);
     }
 
+    public static List<String> confKeys(String key) {
+        return instance().confKeys(key);
+    }
+
     public static String conf(String key, String defaultValue) {
         String value = conf(key);
         if (value == null || value.isBlank()) {
@@ -49,7 +56,7 @@ public final class ConfigurationFactory {
     }
 
     public static boolean confAsBoolean(String key, boolean defaultValue) {
-        return valueAsBoolean(conf(key), defaultValue);
+        return instance().confAsBoolean(key, defaultValue);
     }
 
     public static int valueAsInt(String value, int defaultValue) {
@@ -60,7 +67,7 @@ public final class ConfigurationFactory {
     }
 
     public static int confAsInt(String key, int defaultValue) {
-        return valueAsInt(conf(key), defaultValue);
+        return instance().confAsInt(key, defaultValue);
     }
 
     public static long valueAsLong(String value, long defaultValue) {
@@ -71,7 +78,7 @@ public final class ConfigurationFactory {
     }
 
     public static long confAsLong(String key, long defaultValue) {
-        return valueAsLong(conf(key), defaultValue);
+        return instance().confAsLong(key, defaultValue);
     }
 
     public static float valueAsFloat(String value, float defaultValue) {
@@ -82,7 +89,7 @@ public final class ConfigurationFactory {
     }
 
     public static float confAsFloat(String key, float defaultValue) {
-        return valueAsFloat(conf(key), defaultValue);
+        return instance().confAsFloat(key, defaultValue);
     }
 
     public static double valueAsDouble(String value, double defaultValue) {
@@ -93,6 +100,44 @@ public final class ConfigurationFactory {
     }
 
     public static double confAsDouble(String key, double defaultValue) {
-        return valueAsDouble(conf(key), defaultValue);
+        return instance().confAsDouble(key, defaultValue);
+    }
+
+    static SwitchPoint switchPoint() {
+        return switchPoint;
+    }
+
+    /**
+     * Invalidate all the {@link ConfigurationValue}, should be called by the ConfigurationFacade once the configuration has been reloaded
+     */
+    public static void invalidate() {
+        lock.lock();
+        try {
+            SwitchPoint previous = switchPoint;
+            switchPoint = new SwitchPoint();
+            SwitchPoint.invalidateAll(new SwitchPoint[]{previous});
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static ConfigurationValue<String> watch(String key, String defaultValue) {
+        return new ConfigurationValue<>(() -> conf(key, defaultValue));
+    }
+
+    public static ConfigurationValue<Boolean> watchAsBoolean(String key, boolean defaultValue) {
+        return new ConfigurationValue<>(() -> confAsBoolean(key, defaultValue));
+    }
+
+    public static ConfigurationValue<Integer> watchAsInt(String key, int defaultValue) {
+        return new ConfigurationValue<>(() -> confAsInt(key, defaultValue));
+    }
+
+    public static ConfigurationValue<Long> watchAsLong(String key, long defaultValue) {
+        return new ConfigurationValue<>(() -> confAsLong(key, defaultValue));
+    }
+
+    public static ConfigurationValue<Double> watchAsDouble(String key, double defaultValue) {
+        return new ConfigurationValue<>(() -> confAsDouble(key, defaultValue));
     }
 }
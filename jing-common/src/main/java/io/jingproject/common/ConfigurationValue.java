@@ -0,0 +1,73 @@
+package io.jingproject.common;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.invoke.SwitchPoint;
+import java.util.function.Supplier;
+
+/**
+ * A configuration value cached in a call site, so reads could be constant-folded by the JIT when the instance is held in a static final field
+ * <p>
+ * The cached value is guarded by the SwitchPoint of {@link ConfigurationFactory}, once the configuration has been reloaded,
+ * the next read falls back to the loader and links the new value
+ *
+ * @param <T> the type of the value
+ */
+public final class ConfigurationValue<T> {
+    private static final MethodHandle RELINK;
+
+    static {
+        try {
+            RELINK = MethodHandles.lookup().findVirtual(ConfigurationValue.class, "relink", MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Supplier<T> loader;
+    private final MutableCallSite site;
+    private final MethodHandle mh;
+
+    /**
+     * @param loader computes the value from current configuration, invoked again after each reload
+     */
+    public ConfigurationValue(Supplier<T> loader) {
+        this.loader = loader;
+        this.site = new MutableCallSite(MethodType.methodType(Object.class));
+        this.mh = site.dynamicInvoker();
+        relink();
+    }
+
+    /**
+     * The SwitchPoint must be obtained before loading, so a reload happening in between would invalidate the freshly linked value
+     * <p>
+     * No need to sync the call site, threads still seeing the previous target would fail the guard and relink by themselves
+     */
+    private Object relink() {
+        SwitchPoint switchPoint = ConfigurationFactory.switchPoint();
+        Object value = loader.get();
+        site.setTarget(switchPoint.guardWithTest(MethodHandles.constant(Object.class, value), RELINK.bindTo(this)));
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get() {
+        try {
+            return (T) (Object) mh.invokeExact();
+        } catch (RuntimeException | Error e) {
+            // the loader could fail on relinking, e.g. NumberFormatException for a malformed value
+            throw e;
+        } catch (Throwable t) {
+            throw new AssertionError("Unexpected error in MutableCallSite invocation", t);
+        }
+    }
+
+    /**
+     * Method handle of type ()Object returning current value, could be used as the target of other call sites
+     */
+    public MethodHandle handle() {
+        return mh;
+    }
+}
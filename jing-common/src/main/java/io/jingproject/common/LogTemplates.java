@@ -0,0 +1,75 @@
+package io.jingproject.common;
+
+/**
+ * Substitution of the log template placeholders, shared by eager formatting and the log implementations writing into their own buffers
+ */
+public final class LogTemplates {
+    private LogTemplates() {
+        throw new UnsupportedOperationException("utility class");
+    }
+
+    /**
+     * Receives the formatted parts in order, so long and double arguments could be written without allocation
+     */
+    public interface Appender {
+        /**
+         * Append the chars of the template from start to end, including the placeholders left without an argument
+         */
+        void appendTemplate(String template, int start, int end);
+
+        void appendObject(Object o);
+
+        void appendLong(long l);
+
+        void appendDouble(double d);
+    }
+
+    /**
+     * Each {} is replaced by the next argument according to its kind in the kinds, see {@link Logger#ARG_OBJECT}, at most 3 arguments are substituted
+     */
+    public static void format(String template, int kinds, Object o0, Object o1, Object o2, long l0, long l1, long l2, Appender appender) {
+        int arg = 0;
+        int from = 0;
+        for (int i = template.indexOf("{}"); i >= 0 && arg < 3; i = template.indexOf("{}", from)) {
+            appender.appendTemplate(template, from, i);
+            int kind = (kinds >>> (arg << 1)) & 3;
+            switch (kind) {
+                case Logger.ARG_OBJECT -> appender.appendObject(arg == 0 ? o0 : arg == 1 ? o1 : o2);
+                case Logger.ARG_LONG -> appender.appendLong(arg == 0 ? l0 : arg == 1 ? l1 : l2);
+                case Logger.ARG_DOUBLE -> appender.appendDouble(Double.longBitsToDouble(arg == 0 ? l0 : arg == 1 ? l1 : l2));
+                default -> appender.appendTemplate(template, i, i + 2);
+            }
+            arg++;
+            from = i + 2;
+        }
+        appender.appendTemplate(template, from, template.length());
+    }
+
+    public static String format(String template, int kinds, Object o0, Object o1, Object o2, long l0, long l1, long l2) {
+        StringBuilderAppender appender = new StringBuilderAppender(new StringBuilder(template.length() + 32));
+        format(template, kinds, o0, o1, o2, l0, l1, l2, appender);
+        return appender.sb.toString();
+    }
+
+    private record StringBuilderAppender(StringBuilder sb) implements Appender {
+        @Override
+        public void appendTemplate(String template, int start, int end) {
+            sb.append(template, start, end);
+        }
+
+        @Override
+        public void appendObject(Object o) {
+            sb.append(o);
+        }
+
+        @Override
+        public void appendLong(long l) {
+            sb.append(l);
+        }
+
+        @Override
+        public void appendDouble(double d) {
+            sb.append(d);
+        }
+    }
+}
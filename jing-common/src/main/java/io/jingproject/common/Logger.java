@@ -3,6 +3,17 @@ package io.jingproject.common;
 import java.util.function.Supplier;
 
 public interface Logger {
+    /**
+     * Kinds of the template arguments, each argument takes 2 bits in the kinds, starting from the lowest bits
+     */
+    int ARG_NONE = 0;
+    int ARG_OBJECT = 1;
+    int ARG_LONG = 2;
+    /**
+     * Passed as raw long bits in the long slot
+     */
+    int ARG_DOUBLE = 3;
+
     default void debug(String msg) {
         debug(msg, null);
     }
@@ -59,9 +70,131 @@ public interface Logger {
         log(LogLevel.ERROR, msgSupplier.get(), throwable);
     }
 
+    default void debug(String template, Object a) {
+        if (enabled(LogLevel.DEBUG)) {
+            log(LogLevel.DEBUG, template, ARG_OBJECT, a, null, null, 0L, 0L, 0L);
+        }
+    }
+
+    default void debug(String template, Object a, Object b) {
+        if (enabled(LogLevel.DEBUG)) {
+            log(LogLevel.DEBUG, template, ARG_OBJECT | ARG_OBJECT << 2, a, b, null, 0L, 0L, 0L);
+        }
+    }
+
+    default void debug(String template, Object a, Object b, Object c) {
+        if (enabled(LogLevel.DEBUG)) {
+            log(LogLevel.DEBUG, template, ARG_OBJECT | ARG_OBJECT << 2 | ARG_OBJECT << 4, a, b, c, 0L, 0L, 0L);
+        }
+    }
+
+    default void debug(String template, long a) {
+        if (enabled(LogLevel.DEBUG)) {
+            log(LogLevel.DEBUG, template, ARG_LONG, null, null, null, a, 0L, 0L);
+        }
+    }
+
+    default void debug(String template, long a, long b) {
+        if (enabled(LogLevel.DEBUG)) {
+            log(LogLevel.DEBUG, template, ARG_LONG | ARG_LONG << 2, null, null, null, a, b, 0L);
+        }
+    }
+
+    default void debug(String template, double a) {
+        if (enabled(LogLevel.DEBUG)) {
+            log(LogLevel.DEBUG, template, ARG_DOUBLE, null, null, null, Double.doubleToRawLongBits(a), 0L, 0L);
+        }
+    }
+
+    default void debug(String template, Object a, long b) {
+        if (enabled(LogLevel.DEBUG)) {
+            log(LogLevel.DEBUG, template, ARG_OBJECT | ARG_LONG << 2, a, null, null, 0L, b, 0L);
+        }
+    }
+
+    default void info(String template, Object a) {
+        if (enabled(LogLevel.INFO)) {
+            log(LogLevel.INFO, template, ARG_OBJECT, a, null, null, 0L, 0L, 0L);
+        }
+    }
+
+    default void info(String template, Object a, Object b) {
+        if (enabled(LogLevel.INFO)) {
+            log(LogLevel.INFO, template, ARG_OBJECT | ARG_OBJECT << 2, a, b, null, 0L, 0L, 0L);
+        }
+    }
+
+    default void info(String template, Object a, Object b, Object c) {
+        if (enabled(LogLevel.INFO)) {
+            log(LogLevel.INFO, template, ARG_OBJECT | ARG_OBJECT << 2 | ARG_OBJECT << 4, a, b, c, 0L, 0L, 0L);
+        }
+    }
+
+    default void info(String template, long a) {
+        if (enabled(LogLevel.INFO)) {
+            log(LogLevel.INFO, template, ARG_LONG, null, null, null, a, 0L, 0L);
+        }
+    }
+
+    default void info(String template, long a, long b) {
+        if (enabled(LogLevel.INFO)) {
+            log(LogLevel.INFO, template, ARG_LONG | ARG_LONG << 2, null, null, null, a, b, 0L);
+        }
+    }
+
+    default void info(String template, double a) {
+        if (enabled(LogLevel.INFO)) {
+            log(LogLevel.INFO, template, ARG_DOUBLE, null, null, null, Double.doubleToRawLongBits(a), 0L, 0L);
+        }
+    }
+
+    default void info(String template, Object a, long b) {
+        if (enabled(LogLevel.INFO)) {
+            log(LogLevel.INFO, template, ARG_OBJECT | ARG_LONG << 2, a, null, null, 0L, b, 0L);
+        }
+    }
+
+    default void error(String template, Object a) {
+        log(LogLevel.ERROR, template, ARG_OBJECT, a, null, null, 0L, 0L, 0L);
+    }
+
+    default void error(String template, Object a, Object b) {
+        log(LogLevel.ERROR, template, ARG_OBJECT | ARG_OBJECT << 2, a, b, null, 0L, 0L, 0L);
+    }
+
+    default void error(String template, Object a, Object b, Object c) {
+        log(LogLevel.ERROR, template, ARG_OBJECT | ARG_OBJECT << 2 | ARG_OBJECT << 4, a, b, c, 0L, 0L, 0L);
+    }
+
+    default void error(String template, long a) {
+        log(LogLevel.ERROR, template, ARG_LONG, null, null, null, a, 0L, 0L);
+    }
+
+    default void error(String template, long a, long b) {
+        log(LogLevel.ERROR, template, ARG_LONG | ARG_LONG << 2, null, null, null, a, b, 0L);
+    }
+
+    default void error(String template, double a) {
+        log(LogLevel.ERROR, template, ARG_DOUBLE, null, null, null, Double.doubleToRawLongBits(a), 0L, 0L);
+    }
+
+    default void error(String template, Object a, long b) {
+        log(LogLevel.ERROR, template, ARG_OBJECT | ARG_LONG << 2, a, null, null, 0L, b, 0L);
+    }
+
     void setLevel(LogLevel level);
 
     boolean enabled(LogLevel level);
 
     void log(LogLevel level, String msg, Throwable throwable);
+
+    /**
+     * Log a template with at most 3 arguments, each {} in the template is replaced by the next argument,
+     * object arguments are passed in the object slots and primitive ones in the long slots, as described by kinds
+     * <p>
+     * Implementations could defer formatting to another thread, so the object arguments must not be mutated after the call
+     */
+    default void log(LogLevel level, String template, int kinds, Object o0, Object o1, Object o2, long l0, long l1, long l2) {
+        log(level, LogTemplates.format(template, kinds, o0, o1, o2, l0, l1, l2), null);
+    }
 }
@@ -2,8 +2,6 @@ package io.jingproject.common;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Optional;
-import java.util.ServiceLoader;
 
 public final class LoggerFactory {
 
@@ -13,10 +11,7 @@ public final class LoggerFactory {
 
     public static Logger getLogger(Class<?> clazz) {
         class Holder {
-            static final LoggerFacade INSTANCE = Anchor.compute(LoggerFacade.class, () -> {
-                Optional<LoggerFacade> fc = ServiceLoader.load(LoggerFacade.class).findFirst();
-                return fc.orElseGet(DefaultLoggerFacade::new);
-            });
+            static final LoggerFacade INSTANCE = Anchor.compute(LoggerFacade.class, () -> Providers.findFirst(LoggerFacade.class).orElseGet(DefaultLoggerFacade::new));
         }
         return Holder.INSTANCE.getLogger(clazz);
     }
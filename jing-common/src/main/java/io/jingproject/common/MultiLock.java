@@ -0,0 +1,241 @@
+package io.jingproject.common;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A specialized synchronization wrapper for Record objects that supports
+ * mutual exclusion between any number of threads.
+ * <p>
+ * This is the multi-party sibling of {@link DualLock}, sharing the same record-swap API:
+ * {@link #lock()} returns the current Record, and {@link #unlock(Record)} publishes a new one.
+ * <p>
+ * The synchronization state is represented by the 'value' field:
+ * - When it's a Record instance: The resource is unlocked/available
+ * - When it's {@link #OWNED}: The resource is locked, and no thread is waiting
+ * - When it's any other Node: The resource is locked, and the Node is the tail of the waiter queue
+ * <p>
+ * Waiters form an intrusive FIFO queue linked through {@link Node#next}. Uncontended acquisition and release
+ * take a single CAS on the 'value' field. On contended release, the new Record is handed off directly to the
+ * first waiter instead of being published, so the lock could not be barged while waiters are queued.
+ *
+ * @param <T> The type of Record to be wrapped
+ */
+public final class MultiLock<T extends Record> {
+    /**
+     * Maximum spin count before parking a contending thread.
+     * Excessive spinning can harm performance.
+     */
+    private static final int MAX_SPIN_COUNT = 1024;
+
+    /**
+     * Marks the resource as locked by a thread which acquired it without queueing.
+     */
+    private static final Node OWNED = new Node(null);
+
+    /**
+     * VarHandle for atomic operations on the value field.
+     */
+    private static final VarHandle handle;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(MultiLock.class, MethodHandles.lookup());
+            handle = lookup.findVarHandle(MultiLock.class, "value", Object.class);
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * An entry of the waiter queue.
+     */
+    private static final class Node {
+        /**
+         * The waiting thread.
+         */
+        private final Thread thread;
+
+        /**
+         * The next waiter, linked by the successor after it has been enqueued.
+         */
+        private volatile Node next;
+
+        /**
+         * The Record handed off by the previous owner, null while still waiting.
+         */
+        private volatile Object item;
+
+        Node(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    /**
+     * The synchronization state:
+     * - Record instance: Resource is available (unlocked state)
+     * - Node instance: Resource is locked, either {@link #OWNED} or the tail of the waiter queue
+     * <p>
+     * Because T extends Record, we can safely assume Node and T are distinct types.
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile Object value;
+
+    /**
+     * The first waiter which enqueued itself behind {@link #OWNED}.
+     * Set by that waiter and taken by the owner when releasing.
+     */
+    private volatile Node first;
+
+    /**
+     * The queue node of current owner, null if the owner acquired the resource without queueing.
+     * Only accessed by the owner, visibility is guaranteed by the hand-off.
+     */
+    private Node ownerNode;
+
+    /**
+     * Number of spin iterations a contending thread will perform before queueing,
+     * and the first waiter will perform before parking.
+     */
+    private final int spinCount;
+
+    /**
+     * Creates a MultiLock wrapper with the specified Record element.
+     * Uses default spin behavior (-1 means immediate parking when lock is contended).
+     *
+     * @param element the Record to wrap
+     */
+    public MultiLock(T element) {
+        this(element, -1);
+    }
+
+    /**
+     * Creates a MultiLock wrapper with the specified Record element and spin count.
+     *
+     * @param element   the Record to wrap
+     * @param spinCount number of spin attempts before parking (clamped to 0-{@link #MAX_SPIN_COUNT})
+     *                  Use -1 for immediate parking (no spinning)
+     */
+    public MultiLock(T element, int spinCount) {
+        this.value = Objects.requireNonNull(element, "element must not be null");
+        this.spinCount = Math.clamp(spinCount, 0, MAX_SPIN_COUNT);
+    }
+
+    /**
+     * Non-blocking peek at the current value.
+     * If the resource is locked, this method spins until a Record value appears,
+     * which may take long under sustained contention since Records are handed off directly to the waiters.
+     *
+     * @return the current Record value (never null)
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        for (; ; ) {
+            Object current = handle.getVolatile(this);
+            if (current instanceof Node) {
+                Thread.onSpinWait();
+            } else {
+                return (T) current;
+            }
+        }
+    }
+
+    /**
+     * Acquires exclusive access to the wrapped Record.
+     * <p>
+     * A contending thread spins for spinCount iterations (if configured) trying to take the available Record,
+     * then appends itself to the waiter queue and parks until the Record is handed off by the previous owner.
+     * <p>
+     * This lock is not reentrant, calling this method while holding the lock deadlocks the current thread.
+     *
+     * @return the Record value at the time of successful lock acquisition
+     */
+    @SuppressWarnings("unchecked")
+    public T lock() {
+        int spin = spinCount;
+        for (; ; ) {
+            Object current = handle.getVolatile(this);
+            if (current instanceof Node) {
+                if (spin-- > 0) {
+                    Thread.onSpinWait();
+                } else {
+                    break;
+                }
+            } else if (handle.compareAndSet(this, current, OWNED)) {
+                return (T) current;
+            }
+        }
+        Node node = new Node(Thread.currentThread());
+        Node pred;
+        for (; ; ) {
+            Object current = handle.getVolatile(this);
+            if (current instanceof Node n) {
+                if (handle.compareAndSet(this, current, node)) {
+                    pred = n;
+                    break;
+                }
+            } else if (handle.compareAndSet(this, current, OWNED)) {
+                return (T) current;
+            }
+        }
+        if (pred == OWNED) {
+            first = node;
+            spin = spinCount;
+        } else {
+            pred.next = node;
+            spin = 0;
+        }
+        Object item;
+        while ((item = node.item) == null) {
+            if (spin-- > 0) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        ownerNode = node;
+        return (T) item;
+    }
+
+    /**
+     * Releases exclusive access and updates the wrapped value.
+     * <p>
+     * If there is no waiter, the new value is published with a single CAS,
+     * otherwise it's handed off to the first waiter, which would be unparked and become the new owner.
+     * <p>
+     * This method must only be called by the thread currently holding the lock.
+     *
+     * @param value the new Record value (must not be null)
+     * @throws IllegalStateException if the resource is not locked
+     * @throws NullPointerException  if value is null
+     */
+    public void unlock(T value) {
+        Objects.requireNonNull(value, "value must not be null");
+        Node node = ownerNode;
+        Object expected = node == null ? OWNED : node;
+        Object current = handle.getVolatile(this);
+        if (!(current instanceof Node)) {
+            throw new IllegalStateException("Corrupted state");
+        }
+        ownerNode = null;
+        if (current == expected && handle.compareAndSet(this, expected, value)) {
+            return;
+        }
+        // A waiter has swapped itself in as the tail, wait until it has been linked
+        Node successor;
+        if (node == null) {
+            while ((successor = first) == null) {
+                Thread.onSpinWait();
+            }
+            first = null;
+        } else {
+            while ((successor = node.next) == null) {
+                Thread.onSpinWait();
+            }
+        }
+        successor.item = value;
+        LockSupport.unpark(successor.thread);
+    }
+}
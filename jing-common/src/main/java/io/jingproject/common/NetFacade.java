@@ -1,5 +1,11 @@
 package io.jingproject.common;
 
+/**
+ * Handles the net events, the implementation is provided by module jing.net
+ * <p>
+ * Listening sockets are only supported on linux and macos for now, a listen event throws UnsupportedOperationException on windows,
+ * descriptors created elsewhere could still be registered there
+ */
 @FunctionalInterface
 public interface NetFacade {
     void handle(NetEvent event);
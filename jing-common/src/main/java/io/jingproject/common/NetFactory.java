@@ -1,7 +1,5 @@
 package io.jingproject.common;
 
-import java.util.ServiceLoader;
-
 public final class NetFactory {
     private NetFactory() {
         throw new UnsupportedOperationException("utility class");
@@ -9,10 +7,7 @@ public final class NetFactory {
 
     public static NetFacade getInstance() {
         class Holder {
-            static final NetFacade INSTANCE = Anchor.compute(NetFacade.class, () -> {
-                ServiceLoader<NetFacade> nc = ServiceLoader.load(NetFacade.class);
-                return nc.findFirst().orElseGet(DefaultNetImpl::new);
-            });
+            static final NetFacade INSTANCE = Anchor.compute(NetFacade.class, () -> Providers.findFirst(NetFacade.class).orElseGet(DefaultNetImpl::new));
         }
         return Holder.INSTANCE;
     }
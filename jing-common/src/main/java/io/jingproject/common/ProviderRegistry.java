@@ -0,0 +1,13 @@
+package io.jingproject.common;
+
+import java.util.List;
+
+/**
+ * Registry of the @Provider classes in a module, generated at build time by the annotation processor
+ */
+public interface ProviderRegistry {
+    /**
+     * Provider instances of the service, created on first request of that service, empty if the module provides nothing for it
+     */
+    List<?> providers(Class<?> service);
+}
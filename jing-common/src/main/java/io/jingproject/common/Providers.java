@@ -0,0 +1,59 @@
+package io.jingproject.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+/**
+ * Service provider lookup backed by the generated {@link ProviderRegistry}
+ * <p>
+ * Only the registries are located through ServiceLoader, usually one per module, the providers of a service are constructed directly
+ * by the registry when that service is requested, services provided without @Provider fall back to ServiceLoader
+ */
+public final class Providers {
+    private Providers() {
+        throw new UnsupportedOperationException("utility class");
+    }
+
+    private static List<ProviderRegistry> registries() {
+        class Holder {
+            static final List<ProviderRegistry> REGISTRIES = ServiceLoader.load(ProviderRegistry.class).stream().map(ServiceLoader.Provider::get).toList();
+        }
+        return Holder.REGISTRIES;
+    }
+
+    public static <T> List<T> load(Class<T> service) {
+        List<T> r = new ArrayList<>();
+        for (ProviderRegistry registry : registries()) {
+            for (Object provider : registry.providers(service)) {
+                r.add(service.cast(provider));
+            }
+        }
+        if (r.isEmpty()) {
+            fallback(service).forEach(r::add);
+        }
+        return List.copyOf(r);
+    }
+
+    public static <T> Optional<T> findFirst(Class<T> service) {
+        for (ProviderRegistry registry : registries()) {
+            List<?> providers = registry.providers(service);
+            if (!providers.isEmpty()) {
+                return Optional.of(service.cast(providers.getFirst()));
+            }
+        }
+        return fallback(service).findFirst();
+    }
+
+    /**
+     * Services from modules without a generated registry, current module declares the usage at runtime since the services are unknown here
+     */
+    private static <T> ServiceLoader<T> fallback(Class<T> service) {
+        Module module = Providers.class.getModule();
+        if (!module.canUse(service)) {
+            module.addUses(service);
+        }
+        return ServiceLoader.load(service);
+    }
+}
@@ -3,7 +3,7 @@ package io.jingproject.common;
 import java.lang.foreign.MemorySegment;
 import java.nio.ByteOrder;
 
-public sealed interface ReadBuffer permits HeapReadBuffer, SegmentReadBuffer {
+public sealed interface ReadBuffer permits CompositeReadBuffer, HeapReadBuffer, SegmentReadBuffer {
 
     byte readByte();
 
@@ -0,0 +1,168 @@
+package io.jingproject.common.conf;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Index based scanner over the whole content of a configuration file
+ * <p>
+ * Bytes skipped by {@link #search(boolean[])} form the current segment, which could be sliced into a String
+ * or validated in place, without being copied into an intermediate buffer
+ */
+public final class CfgCursor {
+    private final byte[] content;
+    private int index = 0;
+    private int segmentStart = 0;
+    private int segmentEnd = 0;
+
+    public CfgCursor(byte[] content) {
+        this.content = content;
+    }
+
+    /**
+     * Build a lookup table for the target bytes, the targets must be ASCII characters
+     */
+    public static boolean[] targets(int... targets) {
+        boolean[] r = new boolean[128];
+        for (int target : targets) {
+            r[target] = true;
+        }
+        return r;
+    }
+
+    private static boolean matches(boolean[] targets, int b) {
+        return b < targets.length && targets[b];
+    }
+
+    public int read() {
+        if (index == content.length) {
+            return -1;
+        }
+        return content[index++] & 0xFF;
+    }
+
+    /**
+     * Step back one byte, the byte must have been consumed by a previous read
+     */
+    public void unread() {
+        if (index == 0) {
+            throw new AssertionError();
+        }
+        index--;
+    }
+
+    public void assume(int target) {
+        int b = read();
+        if (b == -1) {
+            throw new CfgException("EOF reached");
+        }
+        if (b != target) {
+            throw new CfgException("Invalid target, assumed: " + target + " actual: " + b);
+        }
+    }
+
+    /**
+     * Move forward till one of the targets is found, the bytes skipped become current segment
+     *
+     * @return the target found, which has been consumed
+     */
+    public int search(boolean[] targets) {
+        int b = seek(targets);
+        if (b == -1) {
+            throw new CfgException("EOF reached");
+        }
+        return b;
+    }
+
+    /**
+     * Same as {@link #search(boolean[])}, except that reaching EOF is allowed, in which case the segment extends to the end
+     *
+     * @return the target found, which has been consumed, or -1 if EOF reached
+     */
+    public int seek(boolean[] targets) {
+        int start = index;
+        for (int i = start; i < content.length; i++) {
+            int b = content[i] & 0xFF;
+            if (matches(targets, b)) {
+                segmentStart = start;
+                segmentEnd = i;
+                index = i + 1;
+                return b;
+            }
+        }
+        segmentStart = start;
+        segmentEnd = content.length;
+        index = content.length;
+        return -1;
+    }
+
+    /**
+     * Move forward over the targets
+     *
+     * @return the first byte not in targets, which has been consumed, or -1 if EOF reached
+     */
+    public int ignore(boolean[] targets) {
+        while (index < content.length) {
+            int b = content[index++] & 0xFF;
+            if (!matches(targets, b)) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    public int ignoreTillEOF(boolean[] targets) {
+        int b = ignore(targets);
+        if (b == -1) {
+            throw new CfgException("EOF reached");
+        }
+        return b;
+    }
+
+    public int readUnicode(int len) {
+        if (len < 0 || len > Math.divideExact(Integer.SIZE, 4)) {
+            throw new AssertionError();
+        }
+        int r = 0;
+        for (int i = 0; i < len; i++) {
+            int b = read();
+            if (b == -1) {
+                throw new CfgException("EOF reached");
+            }
+            if ((b >= '0' && b <= '9')) {
+                r = (r << 4) | (b - '0');
+            } else if ((b >= 'a' && b <= 'f')) {
+                r = (r << 4) | (b - 'a' + 10);
+            } else if ((b >= 'A' && b <= 'F')) {
+                r = (r << 4) | (b - 'A' + 10);
+            } else {
+                throw new CfgException("Bad hex character: " + b);
+            }
+        }
+        return r;
+    }
+
+    public byte[] content() {
+        return content;
+    }
+
+    public int segmentStart() {
+        return segmentStart;
+    }
+
+    public int segmentEnd() {
+        return segmentEnd;
+    }
+
+    public boolean segmentEmpty() {
+        return segmentStart == segmentEnd;
+    }
+
+    public String segment(Charset charset) {
+        return new String(content, segmentStart, segmentEnd - segmentStart, charset);
+    }
+
+    public void writeSegment(ByteArrayOutputStream output) {
+        output.write(content, segmentStart, segmentEnd - segmentStart);
+    }
+}
@@ -0,0 +1,223 @@
+package io.jingproject.common.conf;
+
+import io.jingproject.common.ConfigurationFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable flat view of a configuration tree, every item, list and object is indexed by its dotted path,
+ * with the item values parsed once into the typed forms
+ * <p>
+ * Found lookups are cached by the full key, so repeated lookups cost a single hash lookup without any allocation,
+ * missing keys are not cached, so lookups of arbitrary absent keys could not grow the cache
+ */
+public final class CfgSnapshot {
+    private static final int INT = 1;
+    private static final int LONG = 1 << 1;
+    private static final int FLOAT = 1 << 2;
+    private static final int DOUBLE = 1 << 3;
+    private static final int BOOLEAN = 1 << 4;
+
+    private final CfgObject root;
+    private final Map<String, Entry> entries;
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    private CfgSnapshot(CfgObject root, Map<String, Entry> entries) {
+        this.root = root;
+        this.entries = entries;
+    }
+
+    public static CfgSnapshot compile(CfgObject root) {
+        Map<String, Entry> entries = new HashMap<>();
+        flatten(root, null, entries);
+        return new CfgSnapshot(root, Map.copyOf(entries));
+    }
+
+    private static void flatten(CfgObject cfgObject, String prefix, Map<String, Entry> entries) {
+        for (Map.Entry<String, Cfg> e : cfgObject.value().entrySet()) {
+            String path = prefix == null ? e.getKey() : prefix + "." + e.getKey();
+            switch (e.getValue()) {
+                case CfgItem(String value) -> entries.put(path, new Entry("Item", value, null, null));
+                case CfgList(List<String> value) -> entries.put(path, new Entry("List", null, List.copyOf(value), null));
+                case CfgObject co -> {
+                    entries.put(path, new Entry("Object", null, null, List.copyOf(co.value().keySet())));
+                    flatten(co, path, entries);
+                }
+            }
+        }
+    }
+
+    public String conf(String key) {
+        Entry entry = lookup(key);
+        if (entry == null) {
+            return null;
+        }
+        return entry.item(key);
+    }
+
+    public List<String> confList(String key) {
+        Entry entry = lookup(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.list == null) {
+            throw new CfgException("Invalid key : " + key + ", type : " + entry.type);
+        }
+        return entry.list;
+    }
+
+    public List<String> confKeys(String key) {
+        Entry entry = lookup(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.children == null) {
+            throw new CfgException("Invalid key : " + key + ", type : " + entry.type);
+        }
+        return entry.children;
+    }
+
+    public boolean confAsBoolean(String key, boolean defaultValue) {
+        Entry entry = lookup(key);
+        if (entry == null) {
+            return defaultValue;
+        }
+        entry.item(key);
+        return (entry.flags & BOOLEAN) != 0 ? entry.booleanValue : defaultValue;
+    }
+
+    public int confAsInt(String key, int defaultValue) {
+        Entry entry = lookup(key);
+        if (entry == null) {
+            return defaultValue;
+        }
+        String value = entry.item(key);
+        return (entry.flags & INT) != 0 ? (int) entry.longValue : Integer.parseInt(value);
+    }
+
+    public long confAsLong(String key, long defaultValue) {
+        Entry entry = lookup(key);
+        if (entry == null) {
+            return defaultValue;
+        }
+        String value = entry.item(key);
+        return (entry.flags & LONG) != 0 ? entry.longValue : Long.parseLong(value);
+    }
+
+    public float confAsFloat(String key, float defaultValue) {
+        Entry entry = lookup(key);
+        if (entry == null) {
+            return defaultValue;
+        }
+        String value = entry.item(key);
+        return (entry.flags & FLOAT) != 0 ? entry.floatValue : Float.parseFloat(value);
+    }
+
+    public double confAsDouble(String key, double defaultValue) {
+        Entry entry = lookup(key);
+        if (entry == null) {
+            return defaultValue;
+        }
+        String value = entry.item(key);
+        return (entry.flags & DOUBLE) != 0 ? entry.doubleValue : Double.parseDouble(value);
+    }
+
+    private Entry lookup(String key) {
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            entry = resolve(key);
+            if (entry != null) {
+                cache.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * The leading segment of a nested key is the namespace and is not part of the path, e.g. jing.net.loops resolves net.loops,
+     * missing keys are validated against the tree so invalid keys and keys nested under non-object values are still rejected
+     */
+    private Entry resolve(String key) {
+        int index = key.indexOf('.');
+        Entry entry = entries.get(index < 0 ? key : key.substring(index + 1));
+        if (entry != null) {
+            return entry;
+        }
+        List<String> nestedKeys = CfgUtil.readCfgNestedKey(key.getBytes(StandardCharsets.UTF_8));
+        if (nestedKeys.size() <= 1) {
+            return null;
+        }
+        CfgObject current = root;
+        for (String nestedKey : nestedKeys.subList(1, Math.subtractExact(nestedKeys.size(), 1))) {
+            Cfg cfg = current.value().get(nestedKey);
+            if (cfg == null) {
+                return null;
+            }
+            if (cfg instanceof CfgObject co) {
+                current = co;
+            } else {
+                throw new CfgException("Invalid key : " + key + ", current nested key: " + nestedKey + ", type : " + cfg.type());
+            }
+        }
+        return null;
+    }
+
+    private static final class Entry {
+        private final String type;
+        private final String value;
+        private final List<String> list;
+        private final List<String> children;
+        private final int flags;
+        private final boolean booleanValue;
+        private final long longValue;
+        private final float floatValue;
+        private final double doubleValue;
+
+        Entry(String type, String value, List<String> list, List<String> children) {
+            this.type = type;
+            this.value = value;
+            this.list = list;
+            this.children = children;
+            int f = 0;
+            boolean b = false;
+            long l = 0L;
+            float fl = 0.0f;
+            double d = 0.0d;
+            if (value != null) {
+                if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+                    b = ConfigurationFactory.valueAsBoolean(value, false);
+                    f |= BOOLEAN;
+                }
+                try {
+                    l = Long.parseLong(value);
+                    f |= l == (int) l ? LONG | INT : LONG;
+                } catch (NumberFormatException _) {
+                    // not an integer
+                }
+                try {
+                    d = Double.parseDouble(value);
+                    fl = Float.parseFloat(value);
+                    f |= DOUBLE | FLOAT;
+                } catch (NumberFormatException _) {
+                    // not a floating-point number
+                }
+            }
+            this.flags = f;
+            this.booleanValue = b;
+            this.longValue = l;
+            this.floatValue = fl;
+            this.doubleValue = d;
+        }
+
+        String item(String key) {
+            if (value == null) {
+                throw new CfgException("Invalid key : " + key + ", type : " + type);
+            }
+            return value;
+        }
+    }
+}
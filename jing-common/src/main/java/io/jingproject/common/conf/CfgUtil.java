@@ -1,13 +1,9 @@
 package io.jingproject.common.conf;
 
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 public final class CfgUtil {
     private static final int MAX_DEPTH = 128;
@@ -15,96 +11,48 @@ public final class CfgUtil {
         throw new AssertionError();
     }
 
-    public static void assume(InputStream input, int target) throws IOException {
-        if(input == null) {
-            throw new AssertionError();
-        }
-        int b = input.read();
-        if(b == -1) {
-            throw new CfgException("EOF reached");
-        }
-        if(b != target) {
-            throw new CfgException("Invalid target, assumed: " + target + " actual: " + b);
-        }
+    public static boolean rejectKey(byte b) {
+        return (b < 'a' || b > 'z') && (b < 'A' || b > 'Z') && (b < '0' || b > '9') && b != '-' && b != '_';
     }
 
-    public static int search(InputStream input, OutputStream output, int... targets) throws IOException {
-        if(input == null) {
+    public static String readCfgKey(byte[] content) {
+        if(content == null) {
             throw new AssertionError();
         }
-        int b;
-        while ((b = input.read()) != -1) {
-            for (int target : targets) {
-                if (b == target) {
-                    return target;
-                }
-            }
-            if(output != null) {
-                output.write(b);
-            }
-        }
-        throw new CfgException("EOF reached");
+        return readCfgKey(content, 0, content.length);
     }
 
-    public static int ignore(InputStream input, int... targets) throws IOException {
-        if(input == null) {
+    public static String readCfgKey(byte[] content, int from, int to) {
+        if(content == null || from >= to) {
             throw new AssertionError();
         }
-        int b;
-        while ((b = input.read()) != -1) {
-            boolean matched = false;
-            for (int target : targets) {
-                if (b == target) {
-                    matched = true;
-                    break;
-                }
+        for (int i = from; i < to; i++) {
+            if (rejectKey(content[i])) {
+                throw new CfgException("Invalid key byte: " + content[i]);
             }
-            if (!matched) {
-                return b;
-            }
-        }
-        return -1;
-    }
-
-    public static int ignoreTillEOF(InputStream input, int... targets) throws IOException {
-        if(input == null) {
-            throw new AssertionError();
-        }
-        int b = ignore(input, targets);
-        if (b == -1) {
-            throw new CfgException("EOF reached");
         }
-        return b;
+        return new String(content, from, to - from, StandardCharsets.US_ASCII);
     }
 
-    public static boolean rejectKey(byte b) {
-        return (b < 'a' || b > 'z') && (b < 'A' || b > 'Z') && (b < '0' || b > '9') && b != '-' && b != '_';
-    }
-
-    public static String readCfgKey(byte[] content) {
-        if(content == null || content.length == 0) {
+    public static List<String> readCfgNestedKey(byte[] content) {
+        if(content == null) {
             throw new AssertionError();
         }
-        for (byte b : content) {
-            if (rejectKey(b)) {
-                throw new CfgException("Invalid key byte: " + b);
-            }
-        }
-        return new String(content, StandardCharsets.US_ASCII);
+        return readCfgNestedKey(content, 0, content.length);
     }
 
-    public static List<String> readCfgNestedKey(byte[] content) {
-        if(content == null || content.length == 0) {
+    public static List<String> readCfgNestedKey(byte[] content, int from, int to) {
+        if(content == null || from >= to) {
             throw new AssertionError();
         }
-        for (byte b : content) {
-            if(rejectKey(b) && b != (byte) '.') {
-                throw new CfgException("Invalid key byte: " + b);
+        for (int i = from; i < to; i++) {
+            if(rejectKey(content[i]) && content[i] != (byte) '.') {
+                throw new CfgException("Invalid key byte: " + content[i]);
             }
         }
         List<String> r = new ArrayList<>();
-        int start = 0;
-        for(int i = 0; i < content.length; i++) {
+        int start = from;
+        for(int i = from; i < to; i++) {
             if(content[i] == '.') {
                 if(i == start) {
                     throw new CfgException("Invalid consecutive delimiters");
@@ -116,8 +64,8 @@ public final class CfgUtil {
                 start = i + 1;
             }
         }
-        if (start < content.length) {
-            r.add(new String(content, start, content.length - start, StandardCharsets.US_ASCII));
+        if (start < to) {
+            r.add(new String(content, start, to - start, StandardCharsets.US_ASCII));
             if(r.size() > MAX_DEPTH) {
                 throw new CfgException("Maximum nesting depth exceeded");
             }
@@ -126,32 +74,6 @@ public final class CfgUtil {
         throw new CfgException("Invalid delimiters");
     }
 
-    public static int readUnicode(InputStream input, int len) throws IOException {
-        if(input == null) {
-            throw new AssertionError();
-        }
-        if(len < 0 || len > Math.divideExact(Integer.SIZE, 4)) {
-            throw new AssertionError();
-        }
-        int r = 0;
-        for (int i = 0; i < len; i++) {
-            int b = input.read();
-            if(b == -1) {
-                throw new CfgException("EOF reached");
-            }
-            if((b >= '0' && b <= '9')) {
-                r = (r << 4) | (b - '0');
-            } else if((b >= 'a' && b <= 'f')) {
-                r = (r << 4) | (b - 'a' + 10);
-            }  else if((b >= 'A' && b <= 'F')) {
-                r = (r << 4) | (b - 'A' + 10);
-            } else {
-                throw new CfgException("Bad hex character: " + b);
-            }
-        }
-        return r;
-    }
-
     public static void writeUnicodeInUtf8(ByteArrayOutputStream out, int codePoint) {
         if (!Character.isValidCodePoint(codePoint)) {
             throw new CfgException("Invalid code point: " + codePoint);
@@ -1,14 +1,22 @@
 package io.jingproject.common.conf;
 
 import io.jingproject.common.ConfigurationFacade;
+import io.jingproject.common.ConfigurationFactory;
+import io.jingproject.common.LoggerFactory;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 // 简化报错信息，可以分为几种，EOF，或者duplicate 或者corrupted 或者empty，核心就是这几个
 public final class DefaultConfigurationFacade implements ConfigurationFacade {
@@ -16,126 +24,157 @@ public final class DefaultConfigurationFacade implements ConfigurationFacade {
     // 搜索的优先级顺序是先toml，再json，最后properties
     private static final List<String> SUPPORTED_FILE_EXT = List.of("toml", "json", "properties");
 
-    private static CfgObject getConfiguration() {
-        class Holder {
-            static final CfgObject INSTANCE = createConfiguration();
+    private static final Lock lock = new ReentrantLock();
+    // 当前生效的配置快照，首次访问时加载，开启jing.config.watch后文件变更会整体替换快照
+    private static volatile CfgSnapshot current;
+
+    private record CfgSource(String ext, URL url) {
+
+    }
+
+    // 配置在首次访问时编译为扁平快照，之后的查询只需要一次hash查找
+    private static CfgSnapshot getConfiguration() {
+        CfgSnapshot r = current;
+        if (r != null) {
+            return r;
+        }
+        lock.lock();
+        try {
+            r = current;
+            if (r == null) {
+                CfgSource source = locateConfiguration();
+                r = CfgSnapshot.compile(loadConfiguration(source));
+                current = r;
+                if (Boolean.getBoolean("jing.config.watch")) {
+                    watchConfiguration(source);
+                }
+            }
+            return r;
+        } finally {
+            lock.unlock();
         }
-        return Holder.INSTANCE;
     }
 
-    private static CfgObject createConfiguration() {
+    private static CfgSource locateConfiguration() {
         String fileName = System.getProperty("jing.config.file", "jing-config");
         String fileExt = System.getProperty("jing.config.ext", "").trim();
         List<String> fileExts = fileExt.isBlank() ? SUPPORTED_FILE_EXT : List.of(fileExt);
-        CfgObject r = null;
         for(String ext : fileExts) {
-            if(!SUPPORTED_FILE_EXT.contains(fileExt)) {
+            if(!SUPPORTED_FILE_EXT.contains(ext)) {
                 throw new CfgException("Unsupported configuration file extension: " + ext);
             }
-            String fullName = fileName + "." + ext;
-            InputStream rawStream = Thread.currentThread()
+            URL url = Thread.currentThread()
                     .getContextClassLoader()
-                    .getResourceAsStream(fullName);
-            if(rawStream == null) {
-                continue ;
-            }
-            try (InputStream stream = new BufferedInputStream(rawStream)) {
-                r = switch (ext) {
-                    case "toml" -> new TomlCfgReader(stream).parse();
-                    case "json" -> new JsonCfgReader(stream).parse();
-                    case "properties" -> new PropertiesCfgReader(stream).parse();
-                    default -> throw new AssertionError();
-                };
-                break;
-            } catch (IOException e) {
-                throw new ExceptionInInitializerError(e);
+                    .getResource(fileName + "." + ext);
+            if(url != null) {
+                return new CfgSource(ext, url);
             }
         }
-        if (r == null) {
-            throw new CfgException("Configuration file not found, filename : " + fileName + " , exts: " + fileExts);
+        throw new CfgException("Configuration file not found, filename : " + fileName + " , exts: " + fileExts);
+    }
+
+    private static CfgObject loadConfiguration(CfgSource source) {
+        // toml和json整体读入后按下标扫描，properties交给jdk解析
+        try (InputStream stream = source.url().openStream()) {
+            return switch (source.ext()) {
+                case "toml" -> new TomlCfgReader(stream.readAllBytes()).parse();
+                case "json" -> new JsonCfgReader(stream.readAllBytes()).parse();
+                case "properties" -> new PropertiesCfgReader(new BufferedInputStream(stream)).parse();
+                default -> throw new AssertionError();
+            };
+        } catch (IOException e) {
+            throw new CfgException("Failed to read configuration file : " + source.url(), e);
         }
-        return r;
     }
 
-    @Override
-    public String conf(String key) {
-        CfgObject cfgObject = getConfiguration();
-        List<String> nestedkeys = CfgUtil.readCfgNestedKey(key.getBytes(StandardCharsets.UTF_8));
-        switch (nestedkeys.size()) {
-            case 0 -> throw new CfgException("Invalid key: " + key);
-            case 1 -> {
-                Cfg cfg = cfgObject.value().get(nestedkeys.getLast());
-                if(cfg == null) {
-                    return null;
-                }
-                if(cfg instanceof CfgItem(String value)) {
-                    return value;
+    // 只有位于文件系统上的配置文件才能监听，jar包内的配置文件无法修改
+    private static void watchConfiguration(CfgSource source) {
+        if(!"file".equals(source.url().getProtocol())) {
+            return ;
+        }
+        Path path;
+        WatchService watchService;
+        try {
+            path = Path.of(source.url().toURI());
+            watchService = path.getFileSystem().newWatchService();
+            path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (URISyntaxException | IOException e) {
+            throw new CfgException("Failed to watch configuration file : " + source.url(), e);
+        }
+        Thread.ofPlatform().name("jing-config-watcher").daemon(true).start(() -> {
+            for( ; ; ) {
+                WatchKey watchKey;
+                try {
+                    watchKey = watchService.take();
+                } catch (InterruptedException _) {
+                    return ;
                 }
-                throw new CfgException("Invalid key : " + key + ", type : " + cfg.type());
-            }
-            default -> {
-                CfgObject current = cfgObject;
-                for (String nestedKey : nestedkeys.subList(1, Math.subtractExact(nestedkeys.size(), 1))) {
-                    Cfg cfg = current.value().get(nestedKey);
-                    if(cfg == null) {
-                        return null;
-                    }
-                    if(cfg instanceof CfgObject co) {
-                        current = co;
-                    } else {
-                        throw new CfgException("Invalid key : " + key + ", current nested key: " + nestedKey + ", type : " + cfg.type());
+                boolean changed = false;
+                for (WatchEvent<?> event : watchKey.pollEvents()) {
+                    if(path.getFileName().equals(event.context())) {
+                        changed = true;
                     }
                 }
-                Cfg cfg = current.value().get(nestedkeys.getLast());
-                if(cfg == null) {
-                    return null;
+                if(changed) {
+                    reloadConfiguration(source);
                 }
-                if(cfg instanceof CfgItem(String value)) {
-                    return value;
+                if(!watchKey.reset()) {
+                    return ;
                 }
-                throw new CfgException("Invalid key : " + key + ", type : " + cfg.type());
             }
+        });
+    }
+
+    // 重新加载失败时保留之前的配置，编辑器保存文件的中间状态也可能触发失败
+    private static void reloadConfiguration(CfgSource source) {
+        CfgSnapshot snapshot;
+        try {
+            snapshot = CfgSnapshot.compile(loadConfiguration(source));
+        } catch (RuntimeException e) {
+            LoggerFactory.getLogger(DefaultConfigurationFacade.class).error("Failed to reload configuration : " + source.url(), e);
+            return ;
         }
+        current = snapshot;
+        ConfigurationFactory.invalidate();
+    }
+
+    @Override
+    public String conf(String key) {
+        return getConfiguration().conf(key);
     }
 
     @Override
     public List<String> confList(String key) {
-        CfgObject cfgObject = getConfiguration();
-        List<String> nestedkeys = CfgUtil.readCfgNestedKey(key.getBytes(StandardCharsets.UTF_8));
-        switch (nestedkeys.size()) {
-            case 0 -> throw new CfgException("Invalid key: " + key);
-            case 1 -> {
-                Cfg cfg = cfgObject.value().get(nestedkeys.getLast());
-                if(cfg == null) {
-                    return null;
-                }
-                if(cfg instanceof CfgList(List<String> value)) {
-                    return value;
-                }
-                throw new CfgException("Invalid key : " + key + ", type : " + cfg.type());
-            }
-            default -> {
-                CfgObject current = cfgObject;
-                for (String nestedKey : nestedkeys.subList(1, Math.subtractExact(nestedkeys.size(), 1))) {
-                    Cfg cfg = current.value().get(nestedKey);
-                    if(cfg == null) {
-                        return null;
-                    }
-                    if(cfg instanceof CfgObject co) {
-                        current = co;
-                    } else {
-                        throw new CfgException("Invalid key : " + key + ", current nested key: " + nestedKey + ", type : " + cfg.type());
-                    }
-                }
-                Cfg cfg = current.value().get(nestedkeys.getLast());
-                if(cfg == null) {
-                    return null;
-                }
-                if(cfg instanceof CfgList(List<String> value)) {
-                    return value;
-                }
-                throw new CfgException("Invalid key : " + key + ", type : " + cfg.type());
-            }
-        }
+        return getConfiguration().confList(key);
+    }
+
+    @Override
+    public List<String> confKeys(String key) {
+        return getConfiguration().confKeys(key);
+    }
+
+    @Override
+    public boolean confAsBoolean(String key, boolean defaultValue) {
+        return getConfiguration().confAsBoolean(key, defaultValue);
+    }
+
+    @Override
+    public int confAsInt(String key, int defaultValue) {
+        return getConfiguration().confAsInt(key, defaultValue);
+    }
+
+    @Override
+    public long confAsLong(String key, long defaultValue) {
+        return getConfiguration().confAsLong(key, defaultValue);
+    }
+
+    @Override
+    public float confAsFloat(String key, float defaultValue) {
+        return getConfiguration().confAsFloat(key, defaultValue);
+    }
+
+    @Override
+    public double confAsDouble(String key, double defaultValue) {
+        return getConfiguration().confAsDouble(key, defaultValue);
     }
 }
@@ -1,20 +1,24 @@
 package io.jingproject.common.conf;
 
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public final class TomlCfgReader {
-    private final InputStream input;
+    private static final boolean[] BLANK = CfgCursor.targets(' ', '\t');
+    private static final boolean[] WHITESPACE = CfgCursor.targets(' ', '\t', '\r', '\n');
+    private static final boolean[] LINE_END = CfgCursor.targets('\r', '\n');
+    private static final boolean[] TABLE_END = CfgCursor.targets(']');
+    private static final boolean[] KEY_END = CfgCursor.targets(' ', '\t', '=');
+    private static final boolean[] STR_END = CfgCursor.targets('"', '\\');
+    private final CfgCursor cursor;
     private final CfgObject root = new CfgObject(new HashMap<>());
     private final Set<String> tables = new HashSet<>();
     private CfgObject current = root;
     private String key = null;
 
-    public TomlCfgReader(InputStream input) {
-        this.input = input;
+    public TomlCfgReader(byte[] content) {
+        this.cursor = new CfgCursor(content);
     }
 
     enum State {
@@ -28,126 +32,125 @@ public final class TomlCfgReader {
         ARR_START,
     }
 
-    public CfgObject parse() throws IOException {
+    public CfgObject parse() {
         State state = State.INITIAL;
         int b;
-        try(ByteArrayOutputStream output = new ByteArrayOutputStream()) {
-            for( ; ; ) {
-                switch (state) {
-                    case INITIAL -> {
-                        b = CfgUtil.ignore(input, ' ', '\t', '\r', '\n');
-                        if(b == -1) {
-                            return root;
-                        } else if(b == '#') {
-                            state = State.COMMENT;
-                        } else if(b == '[') {
-                            state = State.TABLE_START;
-                        } else {
-                            output.write(b);
-                            state = State.KEY_START;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for( ; ; ) {
+            switch (state) {
+                case INITIAL -> {
+                    b = cursor.ignore(WHITESPACE);
+                    if(b == -1) {
+                        return root;
+                    } else if(b == '#') {
+                        state = State.COMMENT;
+                    } else if(b == '[') {
+                        state = State.TABLE_START;
+                    } else {
+                        state = State.KEY_START;
+                    }
+                }
+                case COMMENT -> {
+                    // 注释可以位于文件末尾，不要求换行结束
+                    cursor.seek(LINE_END);
+                    // 控制字符都在ASCII范围内，UTF-8编码下可以直接按字节检查
+                    byte[] content = cursor.content();
+                    for (int i = cursor.segmentStart(); i < cursor.segmentEnd(); i++) {
+                        if (rejectCommentControlCharacter(content[i])) {
+                            throw new CfgException("Corrupt toml configuration");
                         }
                     }
-                    case COMMENT -> {
-                        CfgUtil.search(input, output, '\r', '\n');
-                        String commentStr = output.toString(StandardCharsets.UTF_8);
-                        output.reset();
-                        commentStr.chars().forEach(c -> {
-                            if (Character.getType(c) == Character.CONTROL && rejectCommentControlCharacter(c)) {
-                                throw new CfgException("Corrupt toml configuration");
-                            }
-                        });
-                        state = State.INITIAL;
+                    state = State.INITIAL;
+                }
+                case TABLE_START -> {
+                    current = root;
+                    cursor.search(TABLE_END);
+                    if(cursor.segmentEmpty()) {
+                        throw new CfgException("Corrupt toml configuration");
                     }
-                    case TABLE_START -> {
-                        current = root;
-                        CfgUtil.search(input, output, ']');
-                        byte[] nestedKeyBytes = output.toByteArray();
-                        String nestedKeyStr = new String(nestedKeyBytes, StandardCharsets.US_ASCII);
-                        if(!tables.add(nestedKeyStr)) {
-                            throw new CfgException("Duplicate table: " + nestedKeyStr);
-                        }
-                        output.reset();
-                        for (String nestedKey : CfgUtil.readCfgNestedKey(nestedKeyBytes)) {
-                            Map<String, Cfg> currentMap = current.value();
-                            Cfg currentObj = currentMap.get(nestedKey);
-                            if(currentObj == null) {
-                                CfgObject cm = new CfgObject(new HashMap<>());
-                                currentMap.put(nestedKey, cm);
-                                current = cm;
-                            } else if(currentObj instanceof CfgObject cm) {
-                                current = cm;
-                            } else {
-                                throw new CfgException("Duplicate table: " + nestedKeyStr);
-                            }
-                        }
-                        state = State.VALUE_END;
+                    String nestedKeyStr = cursor.segment(StandardCharsets.US_ASCII);
+                    if(!tables.add(nestedKeyStr)) {
+                        throw new CfgException("Duplicate table: " + nestedKeyStr);
                     }
-                    case VALUE_END -> {
-                        b = CfgUtil.ignore(input, '\r', '\n', '#');
-                        if(b == -1) {
-                            return root;
-                        } else if(b == '\r' || b == '\n') {
-                            state = State.INITIAL;
-                        } else if(b == '#') {
-                            state = State.COMMENT;
+                    for (String nestedKey : CfgUtil.readCfgNestedKey(cursor.content(), cursor.segmentStart(), cursor.segmentEnd())) {
+                        Map<String, Cfg> currentMap = current.value();
+                        Cfg currentObj = currentMap.get(nestedKey);
+                        if(currentObj == null) {
+                            CfgObject cm = new CfgObject(new HashMap<>());
+                            currentMap.put(nestedKey, cm);
+                            current = cm;
+                        } else if(currentObj instanceof CfgObject cm) {
+                            current = cm;
                         } else {
-                            throw new AssertionError();
+                            throw new CfgException("Duplicate table: " + nestedKeyStr);
                         }
                     }
-                    case KEY_START -> {
-                        b = CfgUtil.search(input, output, ' ', '\t', '=');
-                        byte[] keyBytes = output.toByteArray();
-                        output.reset();
-                        key = CfgUtil.readCfgKey(keyBytes);
-                        if(b != '=') {
-                            b = CfgUtil.ignoreTillEOF(input, ' ', '\t');
-                            if(b != '=') {
-                                throw new CfgException("Corrupt toml configuration");
-                            }
-                        }
-                        state = State.VALUE_START;
+                    state = State.VALUE_END;
+                }
+                case VALUE_END -> {
+                    b = cursor.ignore(BLANK);
+                    if(b == -1) {
+                        return root;
+                    } else if(b == '\r' || b == '\n') {
+                        state = State.INITIAL;
+                    } else if(b == '#') {
+                        state = State.COMMENT;
+                    } else {
+                        throw new CfgException("Corrupt toml configuration");
                     }
-                    case VALUE_START -> {
-                        b = CfgUtil.ignoreTillEOF(input, ' ', '\t');
-                        if(b == '"') {
-                            state = State.STR_START;
-                        } else if(b == '[') {
-                            state = State.ARR_START;
-                        } else {
+                }
+                case KEY_START -> {
+                    // INITIAL状态读到的key首字节已经被消费，回退一位
+                    cursor.unread();
+                    b = cursor.search(KEY_END);
+                    if(cursor.segmentEmpty()) {
+                        throw new CfgException("Corrupt toml configuration");
+                    }
+                    key = CfgUtil.readCfgKey(cursor.content(), cursor.segmentStart(), cursor.segmentEnd());
+                    if(b != '=') {
+                        b = cursor.ignoreTillEOF(BLANK);
+                        if(b != '=') {
                             throw new CfgException("Corrupt toml configuration");
                         }
                     }
-                    case STR_START -> {
-                        readTomlStrValue(input, output);
-                        String str = output.toString(StandardCharsets.UTF_8);
-                        output.reset();
-                        if (current.value().putIfAbsent(key, new CfgItem(str)) != null) {
-                            throw new CfgException("Duplicate key: " + key);
-                        }
-                        key = null;
-                        state = State.VALUE_END;
+                    state = State.VALUE_START;
+                }
+                case VALUE_START -> {
+                    b = cursor.ignoreTillEOF(BLANK);
+                    if(b == '"') {
+                        state = State.STR_START;
+                    } else if(b == '[') {
+                        state = State.ARR_START;
+                    } else {
+                        throw new CfgException("Corrupt toml configuration");
                     }
-                    case ARR_START -> {
-                        List<String> strList = new ArrayList<>();
-                        for( ; ; ) {
-                            b = CfgUtil.ignoreTillEOF(input, ' ', '\t');
-                            if(b != '"') {
-                                throw new CfgException("Corrupt toml configuration");
-                            }
-                            readTomlStrValue(input, output);
-                            strList.add(output.toString(StandardCharsets.UTF_8));
-                            output.reset();
-                            b = CfgUtil.ignoreTillEOF(input, ' ', '\t');
-                            if(b == ']') {
-                                if (current.value().putIfAbsent(key, new CfgList(strList)) != null) {
-                                    throw new CfgException("Duplicate key: " + key);
-                                }
-                                key = null;
-                                state = State.VALUE_END;
-                                break ;
-                            } else if(b != ',') {
-                                throw new CfgException("Corrupt toml configuration");
+                }
+                case STR_START -> {
+                    String str = readTomlStrValue(cursor, output);
+                    if (current.value().putIfAbsent(key, new CfgItem(str)) != null) {
+                        throw new CfgException("Duplicate key: " + key);
+                    }
+                    key = null;
+                    state = State.VALUE_END;
+                }
+                case ARR_START -> {
+                    List<String> strList = new ArrayList<>();
+                    for( ; ; ) {
+                        b = cursor.ignoreTillEOF(BLANK);
+                        if(b != '"') {
+                            throw new CfgException("Corrupt toml configuration");
+                        }
+                        strList.add(readTomlStrValue(cursor, output));
+                        b = cursor.ignoreTillEOF(BLANK);
+                        if(b == ']') {
+                            if (current.value().putIfAbsent(key, new CfgList(strList)) != null) {
+                                throw new CfgException("Duplicate key: " + key);
                             }
+                            key = null;
+                            state = State.VALUE_END;
+                            break ;
+                        } else if(b != ',') {
+                            throw new CfgException("Corrupt toml configuration");
                         }
                     }
                 }
@@ -160,63 +163,44 @@ public final class TomlCfgReader {
         return (b >= 0x0000 && b <= 0x0008) || (b >= 0x000A && b <= 0x001F) || b == 0x007F;
     }
 
-    private static void readTomlStrValue(InputStream input, ByteArrayOutputStream output) throws IOException {
-        boolean escaping = false;
-        int b;
-        while ((b = input.read()) != -1) {
-            if(escaping) {
-                switch (b) {
-                    case 'b' -> output.write('\b');
-                    case 't' -> output.write('\t');
-                    case 'n' -> output.write('\n');
-                    case 'f' -> output.write('\f');
-                    case 'r' -> output.write('\r');
-                    case 'e' -> output.write('\u001B');
-                    case '"' -> output.write('\"');
-                    case '\\' -> output.write('\\');
-                    case 'x' -> {
-                        int codePoint = CfgUtil.readUnicode(input, 2);
-                        if(!Character.isValidCodePoint(codePoint)) {
-                            throw new CfgException("Invalid code point: " + codePoint);
-                        }
-                        if(codePoint instanceof char charCodePoint && Character.isSurrogate(charCodePoint)) {
-                            throw new CfgException("Invalid surrogate code point: " + codePoint);
-                        }
-                        CfgUtil.writeUnicodeInUtf8(output, codePoint);
-                    }
-                    case 'u' -> {
-                        int codePoint = CfgUtil.readUnicode(input, 4);
-                        if(!Character.isValidCodePoint(codePoint)) {
-                            throw new CfgException("Invalid code point: " + codePoint);
-                        }
-                        if(codePoint instanceof char charCodePoint && Character.isSurrogate(charCodePoint)) {
-                            throw new CfgException("Invalid surrogate code point: " + codePoint);
-                        }
-                        CfgUtil.writeUnicodeInUtf8(output, codePoint);
-                    }
-                    case 'U' -> {
-                        int codePoint = CfgUtil.readUnicode(input, 8);
-                        if(!Character.isValidCodePoint(codePoint)) {
-                            throw new CfgException("Invalid code point: " + codePoint);
-                        }
-                        if(codePoint instanceof char charCodePoint && Character.isSurrogate(charCodePoint)) {
-                            throw new CfgException("Invalid surrogate code point: " + codePoint);
-                        }
-                        CfgUtil.writeUnicodeInUtf8(output, codePoint);
-                    }
-                    default -> throw new CfgException("Invalid escape sequence: " + b);
-                }
-                escaping = false;
-            } else {
-                if (b == '\\') {
-                    escaping = true;
-                } else if (b == '"') {
-                    return ;
-                } else {
-                    output.write(b);
-                }
+    // 没有转义字符时直接从原始字节切出字符串，否则在output中拼接
+    private static String readTomlStrValue(CfgCursor cursor, ByteArrayOutputStream output) {
+        if(cursor.search(STR_END) == '"') {
+            return cursor.segment(StandardCharsets.UTF_8);
+        }
+        output.reset();
+        for( ; ; ) {
+            cursor.writeSegment(output);
+            int b = cursor.read();
+            switch (b) {
+                case -1 -> throw new CfgException("EOF reached");
+                case 'b' -> output.write('\b');
+                case 't' -> output.write('\t');
+                case 'n' -> output.write('\n');
+                case 'f' -> output.write('\f');
+                case 'r' -> output.write('\r');
+                case 'e' -> output.write('\u001B');
+                case '"' -> output.write('\"');
+                case '\\' -> output.write('\\');
+                case 'x' -> writeTomlUnicode(output, cursor.readUnicode(2));
+                case 'u' -> writeTomlUnicode(output, cursor.readUnicode(4));
+                case 'U' -> writeTomlUnicode(output, cursor.readUnicode(8));
+                default -> throw new CfgException("Invalid escape sequence: " + b);
+            }
+            if(cursor.search(STR_END) == '"') {
+                cursor.writeSegment(output);
+                return output.toString(StandardCharsets.UTF_8);
             }
         }
-        throw new CfgException("EOF reached");
+    }
+
+    private static void writeTomlUnicode(ByteArrayOutputStream output, int codePoint) {
+        if(!Character.isValidCodePoint(codePoint)) {
+            throw new CfgException("Invalid code point: " + codePoint);
+        }
+        if(codePoint instanceof char charCodePoint && Character.isSurrogate(charCodePoint)) {
+            throw new CfgException("Invalid surrogate code point: " + codePoint);
+        }
+        CfgUtil.writeUnicodeInUtf8(output, codePoint);
     }
 }
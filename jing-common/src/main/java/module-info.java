@@ -4,4 +4,5 @@ module jing.common {
     uses io.jingproject.common.LoggerFacade;
     uses io.jingproject.common.ConfigurationFacade;
     uses io.jingproject.common.NetFacade;
+    uses io.jingproject.common.ProviderRegistry;
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package io.jingproject.commontest;
+
+import io.jingproject.common.BatchQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class BatchQueueTest {
+    record Element(int producer, int sequence) {
+
+    }
+
+    @Test
+    public void testMpsc() throws InterruptedException {
+        int producerCount = 4;
+        int elementCount = 100000;
+        for (int batchSize : new int[]{2, 7, 256}) {
+            BatchQueue<Element> queue = new BatchQueue<>(batchSize);
+            CountDownLatch startLatch = new CountDownLatch(1);
+            Thread[] producers = new Thread[producerCount];
+            for (int p = 0; p < producerCount; p++) {
+                int producer = p;
+                producers[p] = Thread.ofPlatform().start(() -> {
+                    try {
+                        startLatch.await();
+                        for (int i = 0; i < elementCount; i++) {
+                            queue.offer(new Element(producer, i));
+                        }
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            }
+            startLatch.countDown();
+            int[] last = new int[producerCount];
+            Arrays.fill(last, -1);
+            Element[] elements = new Element[64];
+            long total = 0L;
+            while (total < (long) producerCount * elementCount) {
+                int n = queue.drainTo(elements);
+                for (int i = 0; i < n; i++) {
+                    Element e = elements[i];
+                    Assertions.assertEquals(last[e.producer()] + 1, e.sequence());
+                    last[e.producer()] = e.sequence();
+                }
+                total += n;
+                if (n == 0) {
+                    Thread.onSpinWait();
+                }
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            Assertions.assertEquals(0, queue.drain(_ -> Assertions.fail()));
+        }
+    }
+
+    @Test
+    public void testOverflowPolicies() {
+        BatchQueue<Integer> dropNewest = new BatchQueue<>(4, 10, BatchQueue.OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 15; i++) {
+            Assertions.assertEquals(i < 10, dropNewest.offer(i));
+        }
+        List<Integer> elements = new ArrayList<>();
+        dropNewest.drain(elements::add);
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), elements);
+        Assertions.assertEquals(5L, dropNewest.dropped());
+
+        BatchQueue<Integer> dropOldest = new BatchQueue<>(4, 10, BatchQueue.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 15; i++) {
+            Assertions.assertTrue(dropOldest.offer(i));
+        }
+        elements.clear();
+        dropOldest.drain(elements::add);
+        Assertions.assertEquals(List.of(5, 6, 7, 8, 9, 10, 11, 12, 13, 14), elements);
+        Assertions.assertEquals(5L, dropOldest.dropped());
+
+        BatchQueue<Integer> boundedOldest = new BatchQueue<>(4, 10, BatchQueue.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 25; i++) {
+            Assertions.assertEquals(i < 20, boundedOldest.offer(i));
+        }
+        Assertions.assertEquals(20L, boundedOldest.size());
+        elements.clear();
+        boundedOldest.drain(elements::add);
+        Assertions.assertEquals(List.of(10, 11, 12, 13, 14, 15, 16, 17, 18, 19), elements);
+        Assertions.assertEquals(15L, boundedOldest.dropped());
+
+        BatchQueue<Integer> fail = new BatchQueue<>(4, 3, BatchQueue.OverflowPolicy.FAIL);
+        for (int i = 0; i < 3; i++) {
+            fail.offer(i);
+        }
+        Assertions.assertThrows(IllegalStateException.class, () -> fail.offer(3));
+        Assertions.assertEquals(3L, fail.size());
+    }
+
+    @Test
+    public void testBlockAndAwait() throws InterruptedException {
+        int producerCount = 4;
+        int elementCount = 50000;
+        BatchQueue<Integer> queue = new BatchQueue<>(8, 16, BatchQueue.OverflowPolicy.BLOCK);
+        Thread[] producers = new Thread[producerCount];
+        for (int p = 0; p < producerCount; p++) {
+            producers[p] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < elementCount; i++) {
+                    queue.offer(i);
+                }
+            });
+        }
+        long total = 0L;
+        while (total < (long) producerCount * elementCount) {
+            if (queue.await(1_000_000_000L)) {
+                Assertions.assertTrue(queue.size() <= 16L);
+                total += queue.drain(_ -> {
+                });
+            }
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        Assertions.assertFalse(queue.await(10_000_000L));
+        Thread.ofPlatform().start(() -> queue.offer(1));
+        Assertions.assertTrue(queue.await(10_000_000_000L));
+    }
+
+    @Test
+    public void testAwaitInterrupted() {
+        BatchQueue<Integer> queue = new BatchQueue<>(8);
+        Thread.currentThread().interrupt();
+        long start = System.nanoTime();
+        Assertions.assertFalse(queue.await(10_000_000_000L));
+        Assertions.assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        // 中断状态保留给调用者
+        Assertions.assertTrue(Thread.interrupted());
+    }
+}
@@ -0,0 +1,90 @@
+package io.jingproject.commontest;
+
+import io.jingproject.common.conf.CfgException;
+import io.jingproject.common.conf.CfgItem;
+import io.jingproject.common.conf.CfgList;
+import io.jingproject.common.conf.CfgObject;
+import io.jingproject.common.conf.JsonCfgReader;
+import io.jingproject.common.conf.TomlCfgReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+public class CfgReaderTest {
+    private static final CfgObject EXPECTED = new CfgObject(Map.of(
+            "name", new CfgItem("jing"),
+            "hosts", new CfgList(List.of("a", "b")),
+            "net", new CfgObject(Map.of(
+                    "port", new CfgItem("8080"),
+                    "loops", new CfgItem("4")
+            ))
+    ));
+
+    private static CfgObject toml(String content) {
+        return new TomlCfgReader(content.getBytes(StandardCharsets.UTF_8)).parse();
+    }
+
+    private static CfgObject json(String content) {
+        return new JsonCfgReader(content.getBytes(StandardCharsets.UTF_8)).parse();
+    }
+
+    @Test
+    public void testTomlMultipleLines() {
+        Assertions.assertEquals(EXPECTED, toml("""
+                # comment
+                name = "jing"
+                hosts = ["a", "b"]
+
+                [net]
+                port = "8080" # trailing comment
+                loops = "4"
+                """));
+        Assertions.assertEquals(EXPECTED, toml("name = \"jing\"\r\nhosts = [\"a\",\"b\"]\r\n[net]\r\nport = \"8080\"\r\nloops = \"4\"\r\n"));
+    }
+
+    @Test
+    public void testTomlTrailingComment() {
+        Assertions.assertEquals(new CfgObject(Map.of("name", new CfgItem("jing"))), toml("name = \"jing\"\n# end"));
+        Assertions.assertEquals(new CfgObject(Map.of("name", new CfgItem("jing"))), toml("name = \"jing\" # end"));
+        Assertions.assertEquals(new CfgObject(Map.of("name", new CfgItem("jing"))), toml("name = \"jing\""));
+    }
+
+    @Test
+    public void testTomlInvalid() {
+        Assertions.assertThrows(CfgException.class, () -> toml("name = \"jing\" port = \"8080\"\n"));
+        Assertions.assertThrows(CfgException.class, () -> toml("name = \"jing\"\nname = \"jing\"\n"));
+    }
+
+    @Test
+    public void testJsonMultipleValues() {
+        Assertions.assertEquals(EXPECTED, json("""
+                {
+                    "name": "jing",
+                    "hosts": ["a", "b"],
+                    "net": {
+                        "port": "8080",
+                        "loops": "4"
+                    }
+                }
+                """));
+        Assertions.assertEquals(EXPECTED, json("{\"hosts\":[\"a\",\"b\"],\"net\":{\"port\":\"8080\",\"loops\":\"4\"},\"name\":\"jing\"}"));
+    }
+
+    @Test
+    public void testJsonInvalid() {
+        Assertions.assertThrows(CfgException.class, () -> json("{\"name\": \"jing\" \"port\": \"8080\"}"));
+        Assertions.assertThrows(CfgException.class, () -> json("{\"hosts\": [\"a\"] \"port\": \"8080\"}"));
+    }
+
+    @Test
+    public void testEmptyKey() {
+        Assertions.assertThrows(CfgException.class, () -> toml("= \"jing\"\n"));
+        Assertions.assertThrows(CfgException.class, () -> toml("[]\nname = \"jing\"\n"));
+        Assertions.assertThrows(CfgException.class, () -> toml("[net..tcp]\nname = \"jing\"\n"));
+        Assertions.assertThrows(CfgException.class, () -> json("{\"\": \"jing\"}"));
+        Assertions.assertThrows(CfgException.class, () -> json("{\"net\": {\"\": \"jing\"}}"));
+    }
+}
@@ -0,0 +1,119 @@
+package io.jingproject.commontest;
+
+import io.jingproject.common.conf.CfgException;
+import io.jingproject.common.conf.CfgSnapshot;
+import io.jingproject.common.conf.DefaultConfigurationFacade;
+import io.jingproject.common.conf.TomlCfgReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class CfgSnapshotTest {
+    private static final String CONTENT = """
+            name = "jing"
+            flag = "TRUE"
+            hosts = ["a", "b"]
+
+            [net]
+            port = "8080"
+            ratio = "0.5"
+            timeout = "10000000000"
+
+            [net.tcp]
+            backlog = "128"
+            """;
+
+    private static CfgSnapshot snapshot() {
+        return CfgSnapshot.compile(new TomlCfgReader(CONTENT.getBytes(StandardCharsets.UTF_8)).parse());
+    }
+
+    @Test
+    public void testLookup() {
+        CfgSnapshot snapshot = snapshot();
+        Assertions.assertEquals("jing", snapshot.conf("jing.name"));
+        Assertions.assertEquals(List.of("a", "b"), snapshot.confList("jing.hosts"));
+        Assertions.assertEquals(Set.of("port", "ratio", "timeout", "tcp"), Set.copyOf(snapshot.confKeys("jing.net")));
+        Assertions.assertEquals(List.of("backlog"), snapshot.confKeys("jing.net.tcp"));
+        Assertions.assertTrue(snapshot.confAsBoolean("jing.flag", false));
+        Assertions.assertEquals(8080, snapshot.confAsInt("jing.net.port", 0));
+        Assertions.assertEquals(10000000000L, snapshot.confAsLong("jing.net.timeout", 0L));
+        Assertions.assertEquals(0.5f, snapshot.confAsFloat("jing.net.ratio", 0.0f));
+        Assertions.assertEquals(0.5d, snapshot.confAsDouble("jing.net.ratio", 0.0d));
+        Assertions.assertEquals(128, snapshot.confAsInt("jing.net.tcp.backlog", 0));
+        // 第二次查询命中缓存，结果不变
+        Assertions.assertEquals(8080, snapshot.confAsInt("jing.net.port", 0));
+        Assertions.assertThrows(NumberFormatException.class, () -> snapshot.confAsInt("jing.net.timeout", 0));
+    }
+
+    @Test
+    public void testMissing() {
+        CfgSnapshot snapshot = snapshot();
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertNull(snapshot.conf("jing.missing"));
+            Assertions.assertNull(snapshot.confList("jing.net.missing"));
+            Assertions.assertNull(snapshot.confKeys("jing.net.tcp.missing"));
+            Assertions.assertEquals(7, snapshot.confAsInt("jing.net.missing", 7));
+            Assertions.assertTrue(snapshot.confAsBoolean("jing.missing.flag", true));
+        }
+    }
+
+    @Test
+    public void testNamespace() {
+        CfgSnapshot snapshot = snapshot();
+        Assertions.assertEquals("8080", snapshot.conf("jing.net.port"));
+        Assertions.assertEquals("8080", snapshot.conf("other.net.port"));
+        Assertions.assertNull(snapshot.conf("net.port"));
+        Assertions.assertNull(snapshot.conf("jing.port"));
+    }
+
+    @Test
+    public void testInvalidKey() {
+        CfgSnapshot snapshot = snapshot();
+        // 类型不匹配
+        Assertions.assertThrows(CfgException.class, () -> snapshot.conf("jing.hosts"));
+        Assertions.assertThrows(CfgException.class, () -> snapshot.conf("jing.net"));
+        Assertions.assertThrows(CfgException.class, () -> snapshot.confList("jing.name"));
+        Assertions.assertThrows(CfgException.class, () -> snapshot.confKeys("jing.name"));
+        Assertions.assertThrows(CfgException.class, () -> snapshot.confAsInt("jing.hosts", 0));
+        // 非法字符和嵌套在非对象值下的key，未命中的key不缓存，每次都会被拒绝
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertThrows(CfgException.class, () -> snapshot.conf("jing.net.p ort"));
+            Assertions.assertThrows(CfgException.class, () -> snapshot.conf("jing..port"));
+            Assertions.assertThrows(CfgException.class, () -> snapshot.conf("jing.name.first"));
+            Assertions.assertThrows(CfgException.class, () -> snapshot.conf("jing.net.port.value"));
+        }
+    }
+
+    @Test
+    public void testReload() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("jing-config");
+        Path file = dir.resolve("jing-config.toml");
+        Files.writeString(file, CONTENT);
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        System.setProperty("jing.config.watch", "true");
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, previous)) {
+            Thread.currentThread().setContextClassLoader(loader);
+            DefaultConfigurationFacade facade = new DefaultConfigurationFacade();
+            Assertions.assertEquals("8080", facade.conf("jing.net.port"));
+            Files.writeString(file, CONTENT.replace("8080", "9090"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (!"9090".equals(facade.conf("jing.net.port")) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Assertions.assertEquals("9090", facade.conf("jing.net.port"));
+            Assertions.assertEquals(9090, facade.confAsInt("jing.net.port", 0));
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+            System.clearProperty("jing.config.watch");
+        }
+    }
+}
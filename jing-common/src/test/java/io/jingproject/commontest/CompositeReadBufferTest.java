@@ -0,0 +1,65 @@
+package io.jingproject.commontest;
+
+import io.jingproject.common.CompositeReadBuffer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompositeReadBufferTest {
+    private static MemorySegment slice(int... bytes) {
+        byte[] r = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            r[i] = (byte) bytes[i];
+        }
+        return MemorySegment.ofArray(r);
+    }
+
+    @Test
+    public void testCrossBoundary() {
+        List<MemorySegment> released = new ArrayList<>();
+        CompositeReadBuffer buffer = new CompositeReadBuffer(released::add);
+        buffer.append(slice(0x01, 0x02));
+        buffer.append(slice(0x03));
+        buffer.append(slice(0x04, 0x05));
+        Assertions.assertEquals(5L, buffer.remaining());
+        Assertions.assertEquals(0x01020304, buffer.readInt(ByteOrder.BIG_ENDIAN));
+        Assertions.assertEquals(2, released.size());
+        Assertions.assertEquals((byte) 0x05, buffer.readByte());
+        Assertions.assertEquals(3, released.size());
+        Assertions.assertEquals(0L, buffer.remaining());
+    }
+
+    @Test
+    public void testMarkAndReset() {
+        List<MemorySegment> released = new ArrayList<>();
+        CompositeReadBuffer buffer = new CompositeReadBuffer(released::add);
+        buffer.append(slice(0x01, 0x02));
+        buffer.mark();
+        buffer.readShort(ByteOrder.BIG_ENDIAN);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> buffer.readShort(ByteOrder.BIG_ENDIAN));
+        Assertions.assertTrue(released.isEmpty());
+        buffer.reset();
+        buffer.append(slice(0x03, 0x04));
+        Assertions.assertEquals(0x01020304, buffer.readInt(ByteOrder.BIG_ENDIAN));
+        Assertions.assertEquals(2, released.size());
+    }
+
+    @Test
+    public void testEmptyReadOnDrainedBuffer() {
+        List<MemorySegment> released = new ArrayList<>();
+        CompositeReadBuffer buffer = new CompositeReadBuffer(released::add);
+        Assertions.assertEquals(0L, buffer.readSegment(0L).byteSize());
+        buffer.append(slice(0x01));
+        Assertions.assertEquals((byte) 0x01, buffer.readByte());
+        Assertions.assertEquals(0L, buffer.readSegment(0L).byteSize());
+        Assertions.assertEquals(0, buffer.readBytes(0).length);
+        buffer.append(slice(0x02, 0x03));
+        Assertions.assertEquals(2L, buffer.remaining());
+        Assertions.assertEquals((short) 0x0203, buffer.readShort(ByteOrder.BIG_ENDIAN));
+        Assertions.assertEquals(2, released.size());
+    }
+}
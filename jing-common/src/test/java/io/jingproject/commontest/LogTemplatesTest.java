@@ -0,0 +1,51 @@
+package io.jingproject.commontest;
+
+import io.jingproject.common.LogTemplates;
+import io.jingproject.common.Logger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LogTemplatesTest {
+    @Test
+    public void testFormat() {
+        Assertions.assertEquals("a=x, b=-2, c=0.5", LogTemplates.format("a={}, b={}, c={}",
+                Logger.ARG_OBJECT | Logger.ARG_LONG << 2 | Logger.ARG_DOUBLE << 4, "x", null, null, 0L, -2L, Double.doubleToRawLongBits(0.5d)));
+        Assertions.assertEquals("null", LogTemplates.format("{}", Logger.ARG_OBJECT, null, null, null, 0L, 0L, 0L));
+        Assertions.assertEquals("no placeholder", LogTemplates.format("no placeholder", Logger.ARG_LONG, null, null, null, 1L, 0L, 0L));
+    }
+
+    @Test
+    public void testMissingArgs() {
+        // 没有参数的占位符原样保留，最多替换3个参数
+        Assertions.assertEquals("1 {} {}", LogTemplates.format("{} {} {}", Logger.ARG_LONG, null, null, null, 1L, 0L, 0L));
+        Assertions.assertEquals("1 2 3 {}", LogTemplates.format("{} {} {} {}", Logger.ARG_LONG | Logger.ARG_LONG << 2 | Logger.ARG_LONG << 4,
+                null, null, null, 1L, 2L, 3L));
+    }
+
+    @Test
+    public void testAppender() {
+        StringBuilder sb = new StringBuilder();
+        LogTemplates.format("{}-{}", Logger.ARG_LONG | Logger.ARG_DOUBLE << 2, null, null, null, 7L, Double.doubleToRawLongBits(1.5d), 0L, new LogTemplates.Appender() {
+            @Override
+            public void appendTemplate(String template, int start, int end) {
+                sb.append('[').append(template, start, end).append(']');
+            }
+
+            @Override
+            public void appendObject(Object o) {
+                sb.append("o:").append(o);
+            }
+
+            @Override
+            public void appendLong(long l) {
+                sb.append("l:").append(l);
+            }
+
+            @Override
+            public void appendDouble(double d) {
+                sb.append("d:").append(d);
+            }
+        });
+        Assertions.assertEquals("[]l:7[-]d:1.5[]", sb.toString());
+    }
+}
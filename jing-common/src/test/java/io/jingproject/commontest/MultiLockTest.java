@@ -0,0 +1,49 @@
+package io.jingproject.commontest;
+
+import io.jingproject.common.MultiLock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+public class MultiLockTest {
+    record IntHolder(int value) {
+
+    }
+
+    @Test
+    public void testMultiLock() throws InterruptedException {
+        for (int spinCount : new int[]{-1, 128}) {
+            for (int threadCount : new int[]{2, 4, 8}) {
+                for (int times = 0; times < 100; times++) {
+                    MultiLock<IntHolder> multiLock = new MultiLock<>(new IntHolder(0), spinCount);
+                    CountDownLatch startLatch = new CountDownLatch(1);
+                    CountDownLatch endLatch = new CountDownLatch(threadCount);
+                    for (int t = 0; t < threadCount; t++) {
+                        Thread.ofPlatform().start(() -> {
+                            try {
+                                startLatch.await();
+                                for (int i = 0; i < 10000; i++) {
+                                    IntHolder intHolder = multiLock.lock();
+                                    multiLock.unlock(new IntHolder(intHolder.value() + 1));
+                                }
+                                endLatch.countDown();
+                            } catch (InterruptedException e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+                    }
+                    startLatch.countDown();
+                    endLatch.await();
+                    Assertions.assertEquals(10000 * threadCount, multiLock.peek().value());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUnlockWithoutLock() {
+        MultiLock<IntHolder> multiLock = new MultiLock<>(new IntHolder(0));
+        Assertions.assertThrows(IllegalStateException.class, () -> multiLock.unlock(new IntHolder(1)));
+    }
+}
@@ -0,0 +1,52 @@
+package io.jingproject.commontest.bench;
+
+import io.jingproject.common.conf.CfgObject;
+import io.jingproject.common.conf.TomlCfgReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(value = Mode.AverageTime)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 3, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CfgBenchmark {
+    private static final int TARGET_SIZE = 5 * 1024 * 1024;
+
+    private byte[] content;
+
+    /**
+     * A generated routing table, about 5 MB
+     */
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder(TARGET_SIZE + 1024);
+        sb.append("# generated routing table\n");
+        for (int route = 0; sb.length() < TARGET_SIZE; route++) {
+            sb.append("[routes.route-").append(route).append("]\n");
+            sb.append("path = \"/api/v1/service-").append(route).append("/resource/{id}\"\n");
+            sb.append("upstream = \"http://10.0.").append(route % 256).append('.').append(route % 97).append(":8080\"\n");
+            sb.append("timeout = \"").append(route % 5000).append("\" # milliseconds\n");
+            sb.append("description = \"route \\\"").append(route).append("\\\" \\u00e9\\t\"\n");
+            sb.append("methods = [ \"GET\", \"POST\", \"PUT\" ]\n\n");
+        }
+        content = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public CfgObject testToml() {
+        return new TomlCfgReader(content).parse();
+    }
+
+    static void main() throws RunnerException {
+        Options opt = new OptionsBuilder().include(CfgBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build();
+        new Runner(opt).run();
+    }
+}
@@ -1,6 +1,7 @@
 package io.jingproject.commontest.bench;
 
 import io.jingproject.common.DualLock;
+import io.jingproject.common.MultiLock;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
 import org.openjdk.jmh.profile.GCProfiler;
@@ -162,6 +163,65 @@ public class ExBenchmark {
         endLatch.await();
     }
 
+    @State(Scope.Benchmark)
+    public static class Contenders {
+        @Param({"2", "4", "8"})
+        int threads;
+    }
+
+    private static void contend(int threads, Runnable task) throws InterruptedException {
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch endLatch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread.ofPlatform().start(() -> {
+                try {
+                    startLatch.await();
+                    task.run();
+                    endLatch.countDown();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+        startLatch.countDown();
+        endLatch.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10000)
+    public void testMultiLock(Blackhole blackhole, Contenders contenders) throws InterruptedException {
+        MultiLock<IntHolder> multiLock = new MultiLock<>(new IntHolder(0), 64);
+        int count = 10000 / contenders.threads;
+        contend(contenders.threads, () -> {
+            for (int i = 0; i < count; i++) {
+                IntHolder intHolder = multiLock.lock();
+                int value = intHolder.value();
+                blackhole.consume(value);
+                multiLock.unlock(new IntHolder(value + 1));
+            }
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10000)
+    public void testContendedLock(Blackhole blackhole, Contenders contenders) throws InterruptedException {
+        MutableIntHolder intHolder = new MutableIntHolder();
+        Lock lock = new ReentrantLock();
+        int count = 10000 / contenders.threads;
+        contend(contenders.threads, () -> {
+            for (int i = 0; i < count; i++) {
+                lock.lock();
+                try {
+                    int value = intHolder.value();
+                    blackhole.consume(value);
+                    intHolder.setValue(value + 1);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
     static void main() throws RunnerException {
         Options opt = new OptionsBuilder().include(ExBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build();
         new Runner(opt).run();
@@ -233,8 +233,9 @@ public final class FfmProcessor extends AbstractProcessor {
         String generatedClass = source.className();
         String sharedLib = source.register(SharedLib.class);
         List<GeneratorBlock> blocks = new ArrayList<>();
+        // SharedLibs按SharedLib查找所有的provider，绑定的接口由target()返回
         blocks.add(new GeneratorBlock()
-                .addLine("@" + provider + "(target = " + targetClass + ".class)")
+                .addLine("@" + provider + "(target = " + sharedLib + ".class)")
                 .addLine("public final class " + generatedClass + " implements " + sharedLib + " {")
                 .indent().newLine());
         String atomicBoolean = source.register(AtomicBoolean.class);
@@ -1,8 +1,12 @@
 package io.jingproject.ffm;
 
+import io.jingproject.common.Anchor;
+import io.jingproject.common.LifeCycle;
 import io.jingproject.common.Os;
+import io.jingproject.common.Providers;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.foreign.*;
 import java.lang.invoke.MethodHandle;
 import java.nio.file.Files;
@@ -40,47 +44,131 @@ public final class SharedLibs {
     }
 
     private static final ConcurrentMap<String, MemorySegment> VM_FUNCTIONS = new ConcurrentHashMap<>();
-    private static final Map<String, LibDescriptor> DESCRIPTORS;
-    private static final Map<Class<?>, Object> IMPLS;
-
-    record LibDescriptorCache(
-            String mappedName,
-            SymbolLookup lookup,
-            Map<String, MemorySegment> functions
-    ) {
-        public void registerFunctions(List<String> functionNames) {
-            for (String functionName : functionNames) {
-                functions.computeIfAbsent(functionName, k -> lookup.find(k).orElse(MemorySegment.NULL));
+
+    /**
+     * Libraries are loaded on first request, functions of a library are resolved on first request
+     */
+    private static final ConcurrentMap<String, LibDescriptor> DESCRIPTORS = new ConcurrentHashMap<>();
+
+    /**
+     * Names of the libraries required by the bindings supported on current os
+     */
+    private static final Set<String> LIB_NAMES;
+    private static final Map<Class<?>, SharedLib> LIBS;
+
+    /**
+     * Impls are created on first request of each binding, so unused bindings are never instantiated
+     */
+    private static final ClassValue<Object> IMPLS = new ClassValue<>() {
+        @Override
+        protected Object computeValue(Class<?> type) {
+            SharedLib lib = LIBS.get(type);
+            if (lib == null) {
+                throw new ForeignException("Impl for class : " + type + " not found");
             }
+            return lib.supplier().get();
         }
-    }
+    };
+
+    private static final Manifest MANIFEST = Manifest.create();
 
     static {
-        Map<String, LibDescriptorCache> descriptors = new HashMap<>();
-        Map<Class<?>, Object> impls = new HashMap<>();
-        ServiceLoader<SharedLib> libs = ServiceLoader.load(SharedLib.class);
-        for (SharedLib lib : libs) {
-            if (impls.put(lib.target(), lib.supplier().get()) != null) {
+        Set<String> libNames = new HashSet<>();
+        Map<Class<?>, SharedLib> libs = new HashMap<>();
+        for (SharedLib lib : Providers.load(SharedLib.class)) {
+            if (libs.put(lib.target(), lib) != null) {
                 throw new ForeignException("SharedLib : " + lib.target() + " already exists");
             }
             if (lib.supportedOS().contains(Os.current())) {
-                String libName = lib.libName();
-                LibDescriptorCache cache = descriptors.get(libName);
-                if (cache == null) {
-                    String mappedLibraryName = System.mapLibraryName(libName);
-                    Path libPath = SEARCH_PATH.stream().map(p -> Paths.get(p, mappedLibraryName))
-                            .filter(Files::exists).findFirst().orElseThrow(() -> new ForeignException("Library : " + libName + " not found"));
-                    SymbolLookup lookup = SymbolLookup.libraryLookup(libPath, Arena.global());
-                    cache = new LibDescriptorCache(mappedLibraryName, lookup, new HashMap<>());
-                    descriptors.put(libName, cache);
+                libNames.add(lib.libName());
+            }
+        }
+        LIB_NAMES = Set.copyOf(libNames);
+        LIBS = Map.copyOf(libs);
+        if (MANIFEST != null) {
+            MANIFEST.preload();
+        }
+    }
+
+    /**
+     * Symbols used by previous runs, specified by -Djing.ffm.manifest, the listed symbols are resolved at startup
+     * <p>
+     * With -Djing.ffm.manifest.record=true, symbols linked in current run are written back to the manifest on shutdown, one libName:functionName per line
+     */
+    private static final class Manifest implements LifeCycle {
+        private final Path path;
+        private final Set<String> used = ConcurrentHashMap.newKeySet();
+        private final boolean recording;
+
+        private Manifest(Path path, boolean recording) {
+            this.path = path;
+            this.recording = recording;
+        }
+
+        static Manifest create() {
+            String manifestPath = System.getProperty("jing.ffm.manifest");
+            if (manifestPath == null || manifestPath.isBlank()) {
+                return null;
+            }
+            Manifest manifest = new Manifest(Paths.get(manifestPath), Boolean.getBoolean("jing.ffm.manifest.record"));
+            if (manifest.recording) {
+                Anchor.addLifeCycle(manifest);
+            }
+            return manifest;
+        }
+
+        void preload() {
+            if (!Files.isRegularFile(path)) {
+                return;
+            }
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(path);
+            } catch (IOException e) {
+                throw new ForeignException("Failed to read manifest : " + path, e);
+            }
+            for (String line : lines) {
+                int index = line.indexOf(':');
+                if (index <= 0) {
+                    continue;
+                }
+                String libName = line.substring(0, index).strip();
+                String functionName = line.substring(index + 1).strip();
+                try {
+                    if (libName.equals(FFM.VM)) {
+                        getFunctionAddressFromVM(functionName);
+                    } else {
+                        getFunctionAddressFromLib(libName, functionName);
+                    }
+                } catch (ForeignException _) {
+                    // the manifest might come from another environment, the failure would be reported on first use
                 }
-                cache.registerFunctions(lib.methodNames());
             }
         }
-        Map<String, LibDescriptor> temp = new HashMap<>();
-        descriptors.forEach((k, v) -> temp.put(k, new LibDescriptor(k, v.mappedName(), v.lookup(), Map.copyOf(v.functions()))));
-        DESCRIPTORS = Map.copyOf(temp);
-        IMPLS = Map.copyOf(impls);
+
+        void record(String libName, String functionName) {
+            if (recording) {
+                used.add(libName + ":" + functionName);
+            }
+        }
+
+        @Override
+        public void start() {
+            // nothing to do, symbols are preloaded in the static initializer of SharedLibs
+        }
+
+        @Override
+        public void stop() throws IOException {
+            Files.write(path, used.stream().sorted().toList());
+        }
+    }
+
+    private static LibDescriptor loadLibrary(String libName) {
+        String mappedLibraryName = System.mapLibraryName(libName);
+        Path libPath = SEARCH_PATH.stream().map(p -> Paths.get(p, mappedLibraryName))
+                .filter(Files::exists).findFirst().orElseThrow(() -> new ForeignException("Library : " + libName + " not found"));
+        SymbolLookup lookup = SymbolLookup.libraryLookup(libPath, Arena.global());
+        return new LibDescriptor(libName, mappedLibraryName, lookup, new ConcurrentHashMap<>());
     }
 
     private SharedLibs() {
@@ -98,6 +186,9 @@ public final class SharedLibs {
     public static MethodHandle getMethodHandleFromVM(String functionName, FunctionDescriptor descriptor, boolean critical) {
         Linker linker = Linker.nativeLinker();
         MemorySegment functionAddr = getFunctionAddressFromVM(functionName);
+        if (MANIFEST != null) {
+            MANIFEST.record(FFM.VM, functionName);
+        }
         if (JING_CRITICAL && critical) {
             return linker.downcallHandle(functionAddr, descriptor, Linker.Option.critical(false));
         } else {
@@ -106,11 +197,11 @@ public final class SharedLibs {
     }
 
     public static MemorySegment getFunctionAddressFromLib(String libName, String functionName) {
-        LibDescriptor libDescriptor = DESCRIPTORS.get(libName);
+        LibDescriptor libDescriptor = getLibDescriptor(libName);
         if (libDescriptor == null) {
             throw new ForeignException("Library : " + libName + " not found");
         }
-        MemorySegment segment = libDescriptor.functions().get(functionName);
+        MemorySegment segment = libDescriptor.functions().computeIfAbsent(functionName, k -> libDescriptor.lookup().find(k).orElse(MemorySegment.NULL));
         if (segment.address() == 0L) {
             throw new ForeignException("Function : " + functionName + " not found");
         }
@@ -123,6 +214,9 @@ public final class SharedLibs {
         }
         Linker linker = Linker.nativeLinker();
         MemorySegment segment = getFunctionAddressFromLib(libName, functionName);
+        if (MANIFEST != null) {
+            MANIFEST.record(libName, functionName);
+        }
         if (JING_CRITICAL && critical) {
             return linker.downcallHandle(segment, descriptor, Linker.Option.critical(false));
         } else {
@@ -130,16 +224,17 @@ public final class SharedLibs {
         }
     }
 
+    /**
+     * Load the library on first request, null if no binding supported on current os requires the library
+     */
     public static LibDescriptor getLibDescriptor(String libName) {
-        return DESCRIPTORS.get(libName);
+        if (!LIB_NAMES.contains(libName)) {
+            return null;
+        }
+        return DESCRIPTORS.computeIfAbsent(libName, SharedLibs::loadLibrary);
     }
 
-    // TODO LazyConstants
     public static <T> T getImpl(Class<T> clazz) {
-        Object o = IMPLS.get(clazz);
-        if (o == null) {
-            throw new ForeignException("Impl for class : " + clazz + " not found");
-        }
-        return clazz.cast(o);
+        return clazz.cast(IMPLS.get(clazz));
     }
 }
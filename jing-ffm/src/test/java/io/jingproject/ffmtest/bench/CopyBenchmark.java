@@ -0,0 +1,86 @@
+package io.jingproject.ffmtest.bench;
+
+import io.jingproject.ffm.SharedLibs;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.foreign.*;
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * memcpy downcall against MemorySegment.copy across sizes, for both native and heap source
+ * <p>
+ * testMemcpyCritical is what Mem.memcpy does, heap segments could only be passed to a downcall linked with heap access allowed
+ */
+@BenchmarkMode(value = Mode.AverageTime)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 3, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CopyBenchmark {
+    private static final FunctionDescriptor MEMCPY = FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG);
+    private static final MethodHandle MEMCPY_NORMAL = SharedLibs.getMethodHandleFromVM("memcpy", MEMCPY, false);
+    private static final MethodHandle MEMCPY_CRITICAL = SharedLibs.getMethodHandleFromVM("memcpy", MEMCPY, true);
+    private static final MethodHandle MEMCPY_HEAP = Linker.nativeLinker().downcallHandle(SharedLibs.getFunctionAddressFromVM("memcpy"), MEMCPY, Linker.Option.critical(true));
+
+    @Param({"8", "64", "256", "1024", "4096", "65536", "1048576"})
+    private int size;
+
+    private Arena arena;
+    private MemorySegment src;
+    private MemorySegment dest;
+    private MemorySegment heapSrc;
+
+    @Setup
+    public void setup() {
+        arena = Arena.ofConfined();
+        src = arena.allocate(size, Long.BYTES);
+        dest = arena.allocate(size, Long.BYTES);
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) i;
+        }
+        heapSrc = MemorySegment.ofArray(bytes);
+        MemorySegment.copy(heapSrc, 0L, src, 0L, size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        arena.close();
+    }
+
+    @Benchmark
+    public MemorySegment testMemcpyNormal() throws Throwable {
+        return (MemorySegment) MEMCPY_NORMAL.invokeExact(dest, src, (long) size);
+    }
+
+    @Benchmark
+    public MemorySegment testMemcpyCritical() throws Throwable {
+        return (MemorySegment) MEMCPY_CRITICAL.invokeExact(dest, src, (long) size);
+    }
+
+    @Benchmark
+    public void testSegmentCopy() {
+        MemorySegment.copy(src, 0L, dest, 0L, size);
+    }
+
+    @Benchmark
+    public MemorySegment testMemcpyHeapSource() throws Throwable {
+        return (MemorySegment) MEMCPY_HEAP.invokeExact(dest, heapSrc, (long) size);
+    }
+
+    @Benchmark
+    public void testSegmentCopyHeapSource() {
+        MemorySegment.copy(heapSrc, 0L, dest, 0L, size);
+    }
+
+    static void main() throws RunnerException {
+        Options opt = new OptionsBuilder().include(CopyBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
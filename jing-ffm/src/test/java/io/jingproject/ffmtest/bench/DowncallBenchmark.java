@@ -0,0 +1,75 @@
+package io.jingproject.ffmtest.bench;
+
+import io.jingproject.ffm.SharedLibs;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed cost of a downcall, linked the same way as the generated bindings, compared with the Java equivalent as the baseline
+ */
+@BenchmarkMode(value = Mode.AverageTime)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 3, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DowncallBenchmark {
+    private static final FunctionDescriptor ABS = FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT);
+    private static final MethodHandle ABS_NORMAL = SharedLibs.getMethodHandleFromVM("abs", ABS, false);
+    private static final MethodHandle ABS_CRITICAL = SharedLibs.getMethodHandleFromVM("abs", ABS, true);
+
+    private static final MethodHandle GET_PAGE_SIZE = SharedLibs.getMethodHandleFromVM("getpagesize", FunctionDescriptor.of(ValueLayout.JAVA_INT), true);
+
+    /**
+     * Same as the Holder.CACHED generated for @Downcall(constant = true)
+     */
+    private static final int PAGE_SIZE;
+
+    static {
+        try {
+            PAGE_SIZE = (int) GET_PAGE_SIZE.invokeExact();
+        } catch (Throwable t) {
+            throw new ExceptionInInitializerError(t);
+        }
+    }
+
+    private int value = -42;
+
+    @Benchmark
+    public int testJavaAbs() {
+        return Math.abs(value);
+    }
+
+    @Benchmark
+    public int testNormalDowncall() throws Throwable {
+        return (int) ABS_NORMAL.invokeExact(value);
+    }
+
+    @Benchmark
+    public int testCriticalDowncall() throws Throwable {
+        return (int) ABS_CRITICAL.invokeExact(value);
+    }
+
+    @Benchmark
+    public int testConstantPerCall() throws Throwable {
+        return (int) GET_PAGE_SIZE.invokeExact();
+    }
+
+    @Benchmark
+    public int testConstantCached() {
+        return PAGE_SIZE;
+    }
+
+    static void main() throws RunnerException {
+        Options opt = new OptionsBuilder().include(DowncallBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
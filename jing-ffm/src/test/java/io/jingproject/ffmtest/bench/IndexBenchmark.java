@@ -1,4 +1,130 @@
 package io.jingproject.ffmtest.bench;
 
+import io.jingproject.ffm.NativeSegmentAccess;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NativeSegmentAccess accessors against plain MemorySegment access, scanning a native segment by index
+ */
+@BenchmarkMode(value = Mode.AverageTime)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 3, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
 public class IndexBenchmark {
+    private static final ValueLayout.OfInt JAVA_INT_UNALIGNED_BE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    @Param({"64", "4096"})
+    private int size;
+
+    private Arena arena;
+    private MemorySegment segment;
+
+    @Setup
+    public void setup() {
+        arena = Arena.ofConfined();
+        segment = arena.allocate(size, Long.BYTES);
+        for (long i = 0; i < size; i += Integer.BYTES) {
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, i, (int) i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        arena.close();
+    }
+
+    @Benchmark
+    public int testSegmentGetInt() {
+        int r = 0;
+        for (long i = 0; i < size; i += Integer.BYTES) {
+            r += segment.get(ValueLayout.JAVA_INT_UNALIGNED, i);
+        }
+        return r;
+    }
+
+    @Benchmark
+    public int testAccessGetInt() {
+        int r = 0;
+        for (long i = 0; i < size; i += Integer.BYTES) {
+            r += NativeSegmentAccess.getInt(segment, i);
+        }
+        return r;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--enable-native-access=ALL-UNNAMED", "-DJING_REMOVE_BOUNDARY_CHECKING=true"})
+    public int testAccessGetIntUnchecked() {
+        int r = 0;
+        for (long i = 0; i < size; i += Integer.BYTES) {
+            r += NativeSegmentAccess.getInt(segment, i);
+        }
+        return r;
+    }
+
+    @Benchmark
+    public int testSegmentGetIntBigEndian() {
+        int r = 0;
+        for (long i = 0; i < size; i += Integer.BYTES) {
+            r += segment.get(JAVA_INT_UNALIGNED_BE, i);
+        }
+        return r;
+    }
+
+    @Benchmark
+    public int testAccessGetIntBigEndian() {
+        int r = 0;
+        for (long i = 0; i < size; i += Integer.BYTES) {
+            r += NativeSegmentAccess.getInt(segment, i, ByteOrder.BIG_ENDIAN);
+        }
+        return r;
+    }
+
+    @Benchmark
+    public long testSegmentGetLong() {
+        long r = 0L;
+        for (long i = 0; i < size; i += Long.BYTES) {
+            r += segment.get(ValueLayout.JAVA_LONG_UNALIGNED, i);
+        }
+        return r;
+    }
+
+    @Benchmark
+    public long testAccessGetLong() {
+        long r = 0L;
+        for (long i = 0; i < size; i += Long.BYTES) {
+            r += NativeSegmentAccess.getLong(segment, i);
+        }
+        return r;
+    }
+
+    @Benchmark
+    public void testSegmentSetInt() {
+        for (long i = 0; i < size; i += Integer.BYTES) {
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, i, (int) i);
+        }
+    }
+
+    @Benchmark
+    public void testAccessSetInt() {
+        for (long i = 0; i < size; i += Integer.BYTES) {
+            NativeSegmentAccess.setInt(segment, i, (int) i);
+        }
+    }
+
+    static void main() throws RunnerException {
+        Options opt = new OptionsBuilder().include(IndexBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
 }
@@ -1,4 +1,5 @@
 open module jing.ffmtest {
+    exports io.jingproject.ffmtest.bench;
     requires transitive jing.ffm;
     requires jmh.core;
     requires jdk.unsupported;
@@ -0,0 +1,239 @@
+package io.jingproject.log;
+
+import io.jingproject.common.Logger;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.time.ZoneId;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A reusable native buffer which log events are encoded into as compact binary records, rendered back to text by {@link LogDecoder}
+ * <p>
+ * Each record starts with its type and ends with {@link #RECORD_END}, so a record never ends with a zero byte.
+ * A stream starts with a header, followed by the dictionary records and the event records :
+ * <ul>
+ *     <li>header : magic, version, zone id</li>
+ *     <li>dictionary : kind, id, string, class names, thread names and templates are only written once per file</li>
+ *     <li>message : level, timestamp delta, class ref, thread ref, message, stack trace</li>
+ *     <li>template : level, timestamp delta, class ref, thread ref, template ref, kinds, arguments, stack trace</li>
+ * </ul>
+ * Integers are varints, timestamps are zigzag encoded deltas against the previous event, long arguments are zigzag varints,
+ * double arguments are 8 raw bytes, strings are prefixed by their UTF-8 length.
+ * A reference is the dictionary id plus one, or zero followed by the inline string once the dictionary is full
+ */
+final class BinaryLogBuffer implements LogEncoder {
+    static final byte[] MAGIC = {'J', 'L', 'O', 'G'};
+    static final int VERSION = 1;
+    static final int HEADER = 1;
+    static final int DICTIONARY = 2;
+    static final int MESSAGE = 3;
+    static final int TEMPLATE = 4;
+    static final int RECORD_END = 0xFF;
+    static final int CLASS_NAMES = 0;
+    static final int THREAD_NAMES = 1;
+    static final int TEMPLATES = 2;
+    private static final int MAX_DICTIONARY_SIZE = 4096;
+
+    private final MemorySegment segment;
+    private final long capacity;
+    private final LogBuffer.Sink sink;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private long position = 0L;
+
+    /**
+     * The strings are compared by identity, class names and templates are usually the same instances for each event,
+     * equal strings of different instances would only waste a few dictionary entries
+     */
+    private final Map<String, Integer> classNames = new IdentityHashMap<>();
+    private final Map<String, Integer> threadNames = new IdentityHashMap<>();
+    private final Map<String, Integer> templates = new IdentityHashMap<>();
+    private boolean started = false;
+    private long lastTimestamp;
+
+    BinaryLogBuffer(int capacity, LogBuffer.Sink sink) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid log buffer size : " + capacity);
+        }
+        this.segment = Arena.ofAuto().allocate(capacity, Long.BYTES);
+        this.capacity = capacity;
+        this.sink = sink;
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        if (!started) {
+            putHeader();
+        }
+        int classRef = ref(classNames, CLASS_NAMES, event.className());
+        int threadRef = ref(threadNames, THREAD_NAMES, event.threadName());
+        String template = event.template();
+        int templateRef = template == null ? 0 : ref(templates, TEMPLATES, template);
+        putByte(template == null ? MESSAGE : TEMPLATE);
+        putByte(event.level().ordinal());
+        putVarLong(zigzag(event.timestamp() - lastTimestamp));
+        lastTimestamp = event.timestamp();
+        putRef(classRef, event.className());
+        putRef(threadRef, event.threadName());
+        if (template == null) {
+            putString(String.valueOf(event.msg()));
+        } else {
+            putRef(templateRef, template);
+            putTemplateArgs(event);
+        }
+        Throwable throwable = event.throwable();
+        if (throwable == null) {
+            putByte(0);
+        } else {
+            putByte(1);
+            putString(LogBuffer.stackTrace(throwable));
+        }
+        putByte(RECORD_END);
+    }
+
+    @Override
+    public void flush() {
+        if (position > 0L) {
+            long size = position;
+            position = 0L;
+            sink.write(segment, size);
+        }
+    }
+
+    @Override
+    public void reset() {
+        classNames.clear();
+        threadNames.clear();
+        templates.clear();
+        started = false;
+    }
+
+    private void putHeader() {
+        putByte(HEADER);
+        for (byte b : MAGIC) {
+            putByte(b);
+        }
+        putVarLong(VERSION);
+        putString(zone.getId());
+        putByte(RECORD_END);
+        lastTimestamp = 0L;
+        started = true;
+    }
+
+    /**
+     * Return the reference of the string, a dictionary record is written before the event if it's a new entry
+     */
+    private int ref(Map<String, Integer> dictionary, int kind, String s) {
+        Integer id = dictionary.get(s);
+        if (id != null) {
+            return id + 1;
+        }
+        if (dictionary.size() == MAX_DICTIONARY_SIZE) {
+            return 0;
+        }
+        int newId = dictionary.size();
+        dictionary.put(s, newId);
+        putByte(DICTIONARY);
+        putByte(kind);
+        putVarLong(newId);
+        putString(s);
+        putByte(RECORD_END);
+        return newId + 1;
+    }
+
+    private void putRef(int ref, String s) {
+        putVarLong(ref);
+        if (ref == 0) {
+            putString(s);
+        }
+    }
+
+    private void putTemplateArgs(LogEvent event) {
+        int kinds = 0;
+        for (int i = 0; i < 3; i++) {
+            kinds |= event.kind(i) << (i << 1);
+        }
+        putByte(kinds);
+        for (int i = 0; i < 3; i++) {
+            switch (event.kind(i)) {
+                case Logger.ARG_OBJECT -> putString(String.valueOf(event.objectArg(i)));
+                case Logger.ARG_LONG -> putVarLong(zigzag(event.longArg(i)));
+                case Logger.ARG_DOUBLE -> {
+                    long bits = event.longArg(i);
+                    for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                        putByte((int) (bits >>> shift));
+                    }
+                }
+                default -> {
+                    // no argument
+                }
+            }
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0L) {
+            putByte((int) ((value & 0x7FL) | 0x80L));
+            value >>>= 7;
+        }
+        putByte((int) value);
+    }
+
+    /**
+     * Encode as UTF-8 without allocation, unpaired surrogates are replaced by '?' as {@link String#getBytes} does
+     */
+    private void putString(String s) {
+        int len = s.length();
+        long size = 0L;
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                size += 1;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                size += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                size += 1;
+            } else {
+                size += 3;
+            }
+        }
+        putVarLong(size);
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                putByte(c);
+            } else if (c < 0x800) {
+                putByte(0xC0 | (c >> 6));
+                putByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                putByte(0xF0 | (cp >> 18));
+                putByte(0x80 | ((cp >> 12) & 0x3F));
+                putByte(0x80 | ((cp >> 6) & 0x3F));
+                putByte(0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                putByte('?');
+            } else {
+                putByte(0xE0 | (c >> 12));
+                putByte(0x80 | ((c >> 6) & 0x3F));
+                putByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void putByte(int b) {
+        if (position == capacity) {
+            flush();
+        }
+        segment.set(ValueLayout.JAVA_BYTE, position++, (byte) b);
+    }
+}
@@ -2,17 +2,24 @@ package io.jingproject.log;
 
 import io.jingproject.common.ConfigurationFactory;
 import io.jingproject.common.Os;
+import io.jingproject.ffm.ForeignException;
+import io.jingproject.ffm.NativeSegmentAccess;
 import io.jingproject.ffm.SharedLibs;
 
-import java.util.Map;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
 
 /**
- * ConsoleLogEventHandler is designed to output logs to stdout and stderr
+ * ConsoleLogEventHandler is designed to output logs to stdout, events are formatted into a native buffer and written once per batch
  */
 public final class ConsoleLogEventHandler implements LogEventHandler {
     private static final LogBindings LOG_BINDINGS = SharedLibs.getImpl(LogBindings.class);
     private static final String IDEA_RUNTIME_TYPICAL_CLASS_NAME = "com.intellij.rt.compiler.JavacResourcesReader";
     private static final Boolean USING_INTELLIJ_IDEA = checkIntellijIdeaEnvironment();
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final MemorySegment result = Arena.ofAuto().allocate(NativeSegmentAccess.rLayout());
+    private final LogBuffer buffer;
 
     /**
      * Check if current environment is using IntelliJ IDEA, if so, the terminal support ansi color by default
@@ -45,11 +52,42 @@ public final class ConsoleLogEventHandler implements LogEventHandler {
     }
 
     public ConsoleLogEventHandler() {
+        int bufferSize = ConfigurationFactory.confAsInt("jing.log.buffersize", DEFAULT_BUFFER_SIZE);
+        LogBuffer.Sink sink = switch (Os.current()) {
+            case WINDOWS -> {
+                LOG_BINDINGS.getStdHandle(LOG_BINDINGS.stdOutputDword(), result);
+                checkResult("get std handle");
+                MemorySegment handle = NativeSegmentAccess.rAddress(result);
+                yield (segment, size) -> {
+                    LOG_BINDINGS.writeFile(handle, segment, Math.toIntExact(size), result);
+                    checkResult("write file");
+                };
+            }
+            case LINUX, MACOS -> {
+                int fd = LOG_BINDINGS.stdOutputFileno();
+                yield (segment, size) -> {
+                    LOG_BINDINGS.writeFd(fd, segment, size, result);
+                    checkResult("write fd");
+                };
+            }
+            default -> throw new AssertionError("Should never be reached");
+        };
+        this.buffer = new LogBuffer(bufferSize, checkAnsiColorEnabled(), sink);
+    }
 
+    private void checkResult(String operation) {
+        if (NativeSegmentAccess.rLen(result) == 0L) {
+            throw new ForeignException("Failed to " + operation + ", err code : " + NativeSegmentAccess.rErrCode(result));
+        }
     }
 
     @Override
     public void handle(LogEvent logEvent) {
+        buffer.append(logEvent);
+    }
 
+    @Override
+    public void flush() {
+        buffer.flush();
     }
 }
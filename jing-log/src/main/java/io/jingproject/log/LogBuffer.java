@@ -0,0 +1,234 @@
+package io.jingproject.log;
+
+import io.jingproject.common.LogLevel;
+import io.jingproject.common.LogTemplates;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A reusable native buffer which log events are formatted into, the content is handed to the sink when the buffer is full or flushed,
+ * so the sink is invoked once per batch rather than once per line
+ */
+final class LogBuffer implements LogEncoder {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final byte[] ANSI_RESET = "\u001B[0m".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ANSI_DEBUG = "\u001B[36m".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ANSI_INFO = "\u001B[32m".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ANSI_ERROR = "\u001B[31m".getBytes(StandardCharsets.US_ASCII);
+
+    @FunctionalInterface
+    interface Sink {
+        void write(MemorySegment segment, long size);
+    }
+
+    private final MemorySegment segment;
+    private final long capacity;
+    private final Sink sink;
+    private final boolean ansi;
+    private final ZoneId zone;
+    private long position = 0L;
+
+    /**
+     * Formatted date time of the cached second, timestamps within the same second share it
+     */
+    private long cachedSecond = Long.MIN_VALUE;
+    private byte[] cachedDateTime;
+
+    /**
+     * Scratch space for the digits of a long
+     */
+    private final byte[] digits = new byte[20];
+
+    /**
+     * Formats the templates with the raw arguments, long arguments are written without allocation, objects are converted by String.valueOf
+     */
+    private final LogTemplates.Appender templateAppender = new LogTemplates.Appender() {
+        @Override
+        public void appendTemplate(String template, int start, int end) {
+            putString(template, start, end);
+        }
+
+        @Override
+        public void appendObject(Object o) {
+            putString(String.valueOf(o));
+        }
+
+        @Override
+        public void appendLong(long l) {
+            putLong(l);
+        }
+
+        @Override
+        public void appendDouble(double d) {
+            putString(Double.toString(d));
+        }
+    };
+
+    LogBuffer(int capacity, boolean ansi, Sink sink) {
+        this(capacity, ansi, ZoneId.systemDefault(), sink);
+    }
+
+    LogBuffer(int capacity, boolean ansi, ZoneId zone, Sink sink) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid log buffer size : " + capacity);
+        }
+        this.segment = Arena.ofAuto().allocate(capacity, Long.BYTES);
+        this.capacity = capacity;
+        this.ansi = ansi;
+        this.zone = zone;
+        this.sink = sink;
+    }
+
+    /**
+     * Format as : yyyy-MM-dd HH:mm:ss.SSS [threadName] LEVEL className - msg
+     */
+    @Override
+    public void append(LogEvent event) {
+        putTimestamp(event.timestamp());
+        putByte((byte) ' ');
+        putByte((byte) '[');
+        putString(event.threadName());
+        putByte((byte) ']');
+        putByte((byte) ' ');
+        putLevel(event.level());
+        putByte((byte) ' ');
+        putString(event.className());
+        putByte((byte) ' ');
+        putByte((byte) '-');
+        putByte((byte) ' ');
+        if (event.template() == null) {
+            putString(String.valueOf(event.msg()));
+        } else {
+            event.formatTo(templateAppender);
+        }
+        putByte((byte) '\n');
+        Throwable throwable = event.throwable();
+        if (throwable != null) {
+            putString(stackTrace(throwable));
+        }
+    }
+
+    static String stackTrace(Throwable throwable) {
+        StringWriter sw = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(sw));
+        return sw.toString();
+    }
+
+    /**
+     * Append the text as is, e.g. a stack trace which has already been rendered
+     */
+    void appendText(String text) {
+        putString(text);
+    }
+
+    @Override
+    public void flush() {
+        if (position > 0L) {
+            long size = position;
+            position = 0L;
+            sink.write(segment, size);
+        }
+    }
+
+    private void putTimestamp(long timestamp) {
+        long second = Math.floorDiv(timestamp, 1000L);
+        if (second != cachedSecond) {
+            cachedDateTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), zone).format(FORMATTER).getBytes(StandardCharsets.US_ASCII);
+            cachedSecond = second;
+        }
+        putBytes(cachedDateTime);
+        int millis = (int) Math.floorMod(timestamp, 1000L);
+        putByte((byte) '.');
+        putByte((byte) ('0' + millis / 100));
+        putByte((byte) ('0' + millis / 10 % 10));
+        putByte((byte) ('0' + millis % 10));
+    }
+
+    private void putLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            putString(Long.toString(value));
+            return;
+        }
+        if (value < 0L) {
+            putByte((byte) '-');
+            value = -value;
+        }
+        int i = digits.length;
+        do {
+            digits[--i] = (byte) ('0' + value % 10L);
+            value /= 10L;
+        } while (value != 0L);
+        putBytes(digits, i, digits.length - i);
+    }
+
+    private void putLevel(LogLevel level) {
+        if (ansi) {
+            putBytes(switch (level) {
+                case DEBUG -> ANSI_DEBUG;
+                case INFO -> ANSI_INFO;
+                case ERROR -> ANSI_ERROR;
+            });
+        }
+        String name = level.name();
+        putString(name);
+        for (int i = name.length(); i < 5; i++) {
+            putByte((byte) ' ');
+        }
+        if (ansi) {
+            putBytes(ANSI_RESET);
+        }
+    }
+
+    /**
+     * ASCII characters are written in place, the remaining part is encoded at once when a non-ASCII character is met,
+     * which could only be a high surrogate or a BMP character, so the surrogate pairs are never split
+     */
+    private void putString(String s) {
+        putString(s, 0, s.length());
+    }
+
+    private void putString(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                putByte((byte) c);
+            } else {
+                putBytes(s.substring(i, to).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+        }
+    }
+
+    private void putByte(byte b) {
+        if (position == capacity) {
+            flush();
+        }
+        segment.set(ValueLayout.JAVA_BYTE, position++, b);
+    }
+
+    private void putBytes(byte[] bytes) {
+        putBytes(bytes, 0, bytes.length);
+    }
+
+    private void putBytes(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        while (offset < end) {
+            if (position == capacity) {
+                flush();
+            }
+            int len = (int) Math.min(end - offset, capacity - position);
+            MemorySegment.copy(bytes, offset, segment, ValueLayout.JAVA_BYTE, position, len);
+            position += len;
+            offset += len;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package io.jingproject.log;
+
+import io.jingproject.common.LogLevel;
+import io.jingproject.common.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command line tool rendering the binary log files written by {@link BinaryLogBuffer} back to text, in the same format as the text log files
+ * <p>
+ * Usage : java -m jing.log/io.jingproject.log.LogDecoder [file...], the files are decoded in order to stdout, stdin is decoded if no file is specified
+ */
+public final class LogDecoder {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final LogLevel[] LEVELS = LogLevel.values();
+
+    private final InputStream in;
+    private final LogBuffer.Sink sink;
+    private final List<List<String>> dictionaries = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    private LogBuffer buffer;
+    private long timestamp;
+    private long offset = 0L;
+
+    LogDecoder(InputStream in, LogBuffer.Sink sink) {
+        this.in = in;
+        this.sink = sink;
+    }
+
+    public static void main(String[] args) throws IOException {
+        FileChannel out = new FileOutputStream(FileDescriptor.out).getChannel();
+        LogBuffer.Sink sink = (segment, size) -> {
+            ByteBuffer bb = segment.asSlice(0L, size).asByteBuffer();
+            try {
+                while (bb.hasRemaining()) {
+                    out.write(bb);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        if (args.length == 0) {
+            new LogDecoder(new BufferedInputStream(System.in), sink).decode();
+            return;
+        }
+        for (String arg : args) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(Path.of(arg)))) {
+                new LogDecoder(in, sink).decode();
+            }
+        }
+    }
+
+    /**
+     * Records decoded before a corrupted or truncated one are still written out
+     */
+    void decode() throws IOException {
+        try {
+            for (int type = in.read(); type >= 0; type = in.read()) {
+                offset++;
+                // 未正常关闭的文件末尾可能残留映射窗口填充的0
+                if (type == 0) {
+                    continue;
+                }
+                switch (type) {
+                    case BinaryLogBuffer.HEADER -> readHeader();
+                    case BinaryLogBuffer.DICTIONARY -> readDictionary();
+                    case BinaryLogBuffer.MESSAGE, BinaryLogBuffer.TEMPLATE -> readEvent(type);
+                    default -> throw corrupt("unknown record type " + type);
+                }
+                if (readByte() != BinaryLogBuffer.RECORD_END) {
+                    throw corrupt("missing record end");
+                }
+            }
+        } finally {
+            if (buffer != null) {
+                buffer.flush();
+            }
+        }
+    }
+
+    private void readHeader() throws IOException {
+        byte[] magic = readBytes(BinaryLogBuffer.MAGIC.length);
+        if (!Arrays.equals(magic, BinaryLogBuffer.MAGIC)) {
+            throw corrupt("bad magic");
+        }
+        long version = readVarLong();
+        if (version != BinaryLogBuffer.VERSION) {
+            throw corrupt("unsupported version " + version);
+        }
+        ZoneId zone = ZoneId.of(readString());
+        if (buffer != null) {
+            buffer.flush();
+        }
+        buffer = new LogBuffer(BUFFER_SIZE, false, zone, sink);
+        dictionaries.forEach(List::clear);
+        timestamp = 0L;
+    }
+
+    private void readDictionary() throws IOException {
+        List<String> dictionary = dictionary(readByte());
+        long id = readVarLong();
+        if (id != dictionary.size()) {
+            throw corrupt("unexpected dictionary id " + id);
+        }
+        dictionary.add(readString());
+    }
+
+    private void readEvent(int type) throws IOException {
+        if (buffer == null) {
+            throw corrupt("missing header");
+        }
+        int level = readByte();
+        if (level >= LEVELS.length) {
+            throw corrupt("unknown level " + level);
+        }
+        timestamp += unzigzag(readVarLong());
+        String className = readRef(BinaryLogBuffer.CLASS_NAMES);
+        String threadName = readRef(BinaryLogBuffer.THREAD_NAMES);
+        LogEvent event;
+        if (type == BinaryLogBuffer.MESSAGE) {
+            event = new LogEvent(LEVELS[level], timestamp, className, threadName, null, readString());
+        } else {
+            String template = readRef(BinaryLogBuffer.TEMPLATES);
+            int kinds = readByte();
+            Object[] objects = new Object[3];
+            long[] longs = new long[3];
+            for (int i = 0; i < 3; i++) {
+                switch ((kinds >>> (i << 1)) & 3) {
+                    case Logger.ARG_OBJECT -> objects[i] = readString();
+                    case Logger.ARG_LONG -> longs[i] = unzigzag(readVarLong());
+                    case Logger.ARG_DOUBLE -> {
+                        long bits = 0L;
+                        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                            bits |= (long) readByte() << shift;
+                        }
+                        longs[i] = bits;
+                    }
+                    default -> {
+                        // no argument
+                    }
+                }
+            }
+            event = new LogEvent();
+            event.setTemplate(LEVELS[level], timestamp, className, threadName, template, kinds,
+                    objects[0], objects[1], objects[2], longs[0], longs[1], longs[2]);
+        }
+        String stackTrace = readByte() == 0 ? null : readString();
+        buffer.append(event);
+        if (stackTrace != null) {
+            buffer.appendText(stackTrace);
+        }
+    }
+
+    private List<String> dictionary(int kind) throws IOException {
+        if (kind >= dictionaries.size()) {
+            throw corrupt("unknown dictionary " + kind);
+        }
+        return dictionaries.get(kind);
+    }
+
+    private String readRef(int kind) throws IOException {
+        long ref = readVarLong();
+        if (ref == 0L) {
+            return readString();
+        }
+        List<String> dictionary = dictionary(kind);
+        if (ref > dictionary.size()) {
+            throw corrupt("unknown dictionary id " + (ref - 1));
+        }
+        return dictionary.get((int) (ref - 1));
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Truncated log stream at offset : " + offset);
+        }
+        offset++;
+        return b;
+    }
+
+    private byte[] readBytes(int len) throws IOException {
+        byte[] bytes = in.readNBytes(len);
+        if (bytes.length != len) {
+            throw new EOFException("Truncated log stream at offset : " + offset);
+        }
+        offset += len;
+        return bytes;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw corrupt("malformed varint");
+    }
+
+    private String readString() throws IOException {
+        long len = readVarLong();
+        if (len > Integer.MAX_VALUE) {
+            throw corrupt("string too long " + len);
+        }
+        return new String(readBytes((int) len), StandardCharsets.UTF_8);
+    }
+
+    private IOException corrupt(String reason) {
+        return new IOException("Corrupt log stream at offset : " + offset + ", " + reason);
+    }
+}
@@ -0,0 +1,17 @@
+package io.jingproject.log;
+
+/**
+ * Encodes the log events into a buffer, the encoded content is handed to the sink when the buffer is full or flushed
+ */
+interface LogEncoder {
+    void append(LogEvent event);
+
+    void flush();
+
+    /**
+     * Invoked with an empty buffer when a new file starts, encoders keeping state across events should start over
+     */
+    default void reset() {
+
+    }
+}
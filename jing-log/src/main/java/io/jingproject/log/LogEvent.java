@@ -1,14 +1,151 @@
 package io.jingproject.log;
 
 import io.jingproject.common.LogLevel;
+import io.jingproject.common.LogTemplates;
+import io.jingproject.common.Logger;
 
-public record LogEvent(
-        LogLevel level,
-        long timestamp,
-        String className,
-        String threadName,
-        Throwable throwable,
-        String msg
-) {
+/**
+ * A log event, either carrying a formatted message or a template with its raw arguments, which is formatted by the log thread
+ * <p>
+ * Events could be pooled and recycled once all the handlers have processed them, handlers must not keep references to the events
+ */
+public final class LogEvent {
+    private LogLevel level;
+    private long timestamp;
+    private String className;
+    private String threadName;
+    private Throwable throwable;
+    private String msg;
 
+    private String template;
+    private int kinds;
+    private Object o0;
+    private Object o1;
+    private Object o2;
+    private long l0;
+    private long l1;
+    private long l2;
+
+    public LogEvent(LogLevel level, long timestamp, String className, String threadName, Throwable throwable, String msg) {
+        this.level = level;
+        this.timestamp = timestamp;
+        this.className = className;
+        this.threadName = threadName;
+        this.throwable = throwable;
+        this.msg = msg;
+    }
+
+    LogEvent() {
+
+    }
+
+    void setMessage(LogLevel level, long timestamp, String className, String threadName, Throwable throwable, String msg) {
+        this.level = level;
+        this.timestamp = timestamp;
+        this.className = className;
+        this.threadName = threadName;
+        this.throwable = throwable;
+        this.msg = msg;
+        this.template = null;
+    }
+
+    void setTemplate(LogLevel level, long timestamp, String className, String threadName, String template, int kinds,
+                     Object o0, Object o1, Object o2, long l0, long l1, long l2) {
+        this.level = level;
+        this.timestamp = timestamp;
+        this.className = className;
+        this.threadName = threadName;
+        this.template = template;
+        this.kinds = kinds;
+        this.o0 = o0;
+        this.o1 = o1;
+        this.o2 = o2;
+        this.l0 = l0;
+        this.l1 = l1;
+        this.l2 = l2;
+    }
+
+    /**
+     * Drop the references before returning to the pool
+     */
+    void clear() {
+        this.level = null;
+        this.className = null;
+        this.threadName = null;
+        this.throwable = null;
+        this.msg = null;
+        this.template = null;
+        this.o0 = null;
+        this.o1 = null;
+        this.o2 = null;
+    }
+
+    public LogLevel level() {
+        return level;
+    }
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    public String className() {
+        return className;
+    }
+
+    public String threadName() {
+        return threadName;
+    }
+
+    public Throwable throwable() {
+        return throwable;
+    }
+
+    /**
+     * The formatted message, template events are formatted on each call, use {@link #template()} and the arguments to avoid allocation
+     */
+    public String msg() {
+        if (template == null) {
+            return msg;
+        }
+        return LogTemplates.format(template, kinds, o0, o1, o2, l0, l1, l2);
+    }
+
+    /**
+     * Format the template into the appender, the event must carry a template
+     */
+    void formatTo(LogTemplates.Appender appender) {
+        LogTemplates.format(template, kinds, o0, o1, o2, l0, l1, l2, appender);
+    }
+
+    /**
+     * The template, null if the event carries a formatted message
+     */
+    public String template() {
+        return template;
+    }
+
+    /**
+     * Kind of the argument at index, see {@link Logger#ARG_OBJECT}
+     */
+    public int kind(int index) {
+        return (kinds >>> (index << 1)) & 3;
+    }
+
+    public Object objectArg(int index) {
+        return switch (index) {
+            case 0 -> o0;
+            case 1 -> o1;
+            case 2 -> o2;
+            default -> throw new IndexOutOfBoundsException(index);
+        };
+    }
+
+    public long longArg(int index) {
+        return switch (index) {
+            case 0 -> l0;
+            case 1 -> l1;
+            case 2 -> l2;
+            default -> throw new IndexOutOfBoundsException(index);
+        };
+    }
 }
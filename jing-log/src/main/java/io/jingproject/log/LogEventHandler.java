@@ -3,4 +3,18 @@ package io.jingproject.log;
 @FunctionalInterface
 public interface LogEventHandler {
     void handle(LogEvent logEvent);
+
+    /**
+     * Invoked after each drained batch, handlers buffering the events should write them out here
+     */
+    default void flush() {
+
+    }
+
+    /**
+     * Invoked once after the last batch when the logging system stops
+     */
+    default void close() {
+
+    }
 }
@@ -0,0 +1,62 @@
+package io.jingproject.log;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free pool of template events, acquired by the logging threads and released by the log thread
+ * <p>
+ * Both sides only probe a few slots, a missed acquire allocates a new event and a missed release leaves the event to GC,
+ * so the pool never blocks and only allocates when the pending events outnumber the pool size
+ */
+final class LogEventPool {
+    private static final int PROBES = 8;
+
+    private final AtomicReferenceArray<LogEvent> slots;
+    private final int mask;
+
+    /**
+     * Next slots to probe, the release cursor follows the acquire cursor around the ring,
+     * races on the cursors only affect where the probing starts
+     */
+    private int acquireIndex = 0;
+    private int releaseIndex = 0;
+
+    LogEventPool(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Invalid log event pool size : " + size);
+        }
+        int capacity = Integer.highestOneBit(Math.max(size, PROBES) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots.set(i, new LogEvent());
+        }
+    }
+
+    LogEvent acquire() {
+        int start = acquireIndex;
+        for (int i = 0; i < PROBES; i++) {
+            int index = (start + i) & mask;
+            LogEvent event = slots.getPlain(index);
+            if (event != null && slots.compareAndSet(index, event, null)) {
+                acquireIndex = index + 1;
+                return event;
+            }
+        }
+        acquireIndex = start + PROBES;
+        return new LogEvent();
+    }
+
+    void release(LogEvent event) {
+        event.clear();
+        int start = releaseIndex;
+        for (int i = 0; i < PROBES; i++) {
+            int index = (start + i) & mask;
+            if (slots.getPlain(index) == null && slots.compareAndSet(index, null, event)) {
+                releaseIndex = index + 1;
+                return;
+            }
+        }
+        releaseIndex = start + PROBES;
+    }
+}
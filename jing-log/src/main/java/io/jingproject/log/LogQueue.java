@@ -0,0 +1,32 @@
+package io.jingproject.log;
+
+import io.jingproject.common.LogLevel;
+
+import java.util.function.Consumer;
+
+/**
+ * Transfers the log events from the logging threads to the log thread, offering never fails, events are dropped or blocked as configured on overflow
+ */
+interface LogQueue {
+    void offer(LogLevel level, long timestamp, String className, String threadName, Throwable throwable, String msg);
+
+    void offer(LogLevel level, long timestamp, String className, String threadName, String template, int kinds,
+               Object o0, Object o1, Object o2, long l0, long l1, long l2);
+
+    /**
+     * Wait until there are events to drain, only called by the log thread, returns early on interrupt with the interrupt status kept
+     *
+     * @return true if there might be events available, false if timed out
+     */
+    boolean await(long timeout);
+
+    /**
+     * Drain the pending events, only called by the log thread, the events could be recycled after the consumer returns
+     */
+    void drain(Consumer<LogEvent> consumer);
+
+    /**
+     * Number of events dropped due to overflow
+     */
+    long dropped();
+}
@@ -1,28 +1,140 @@
 package io.jingproject.log;
 
+import io.jingproject.annprocess.Provider;
 import io.jingproject.common.*;
 
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+@Provider(target = LoggerFacade.class)
 public final class LoggerFacadeImpl implements LoggerFacade, LifeCycle {
-    private final LogLevel level;
-    private final BatchQueue<LogEvent> queue;
+    private static final long DEFAULT_CAPACITY = 1024L * 1024;
+    private static final int DEFAULT_POOL_SIZE = 1024;
+    private static final int DEFAULT_RING_SIZE = 4096;
+    private static final long AWAIT_TIMEOUT = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ConfigurationValue<LogLevel> level;
+    private final LogQueue queue;
+    private final Supplier<List<LogEventHandler>> handlerFactory;
     private final Thread logThread;
+    private volatile boolean running = true;
+
+    // 以下字段只在日志线程中访问，未启动时由stop的调用线程访问
+    private List<LogEventHandler> handlers;
+    private long reportedDropped = 0L;
 
     public LoggerFacadeImpl() {
-        this.level = LogLevel.fromString(ConfigurationFactory.conf("jing.log.level", "INFO"));
-        this.queue = new BatchQueue<>(ConfigurationFactory.confAsInt("jing.log.batchsize", BatchQueue.defaultBatchSize()));
-        this.logThread = Thread.ofPlatform().unstarted(() -> {
+        this(LoggerFacadeImpl::createHandlers);
+    }
+
+    /**
+     * The handlers are created when starting, or when stopping if it has never been started
+     */
+    LoggerFacadeImpl(Supplier<List<LogEventHandler>> handlerFactory) {
+        this.handlerFactory = handlerFactory;
+        this.level = new ConfigurationValue<>(() -> LogLevel.fromString(ConfigurationFactory.conf("jing.log.level", "INFO")));
+        int batchSize = ConfigurationFactory.confAsInt("jing.log.batchsize", BatchQueue.defaultBatchSize());
+        long capacity = ConfigurationFactory.confAsLong("jing.log.capacity", DEFAULT_CAPACITY);
+        // 默认丢弃新日志，保证业务线程永远不会因为日志而阻塞
+        BatchQueue.OverflowPolicy policy = BatchQueue.OverflowPolicy.valueOf(ConfigurationFactory.conf("jing.log.overflow", "DROP_NEWEST").toUpperCase(Locale.ROOT));
+        if (policy == BatchQueue.OverflowPolicy.FAIL) {
+            throw new IllegalArgumentException("Unsupported overflow policy for logging : " + policy);
+        }
+        LogQueue shared = new SharedLogQueue(batchSize, capacity, policy, ConfigurationFactory.confAsInt("jing.log.poolsize", DEFAULT_POOL_SIZE));
+        // thread模式下每个平台线程独占一个环形队列，只支持丢弃新日志或阻塞
+        this.queue = switch (ConfigurationFactory.conf("jing.log.queue", "shared").toLowerCase(Locale.ROOT)) {
+            case "shared" -> shared;
+            case "thread" -> switch (policy) {
+                case DROP_NEWEST, BLOCK -> new ThreadLogQueue(ConfigurationFactory.confAsInt("jing.log.ringsize", DEFAULT_RING_SIZE),
+                        policy == BatchQueue.OverflowPolicy.BLOCK, shared);
+                default -> throw new IllegalArgumentException("Unsupported overflow policy for per-thread log rings : " + policy);
+            };
+            default -> throw new IllegalArgumentException("Unsupported log queue : " + ConfigurationFactory.conf("jing.log.queue"));
+        };
+        this.logThread = Thread.ofPlatform().name("jing-log").daemon(true).unstarted(this::run);
+    }
+
+    private static List<LogEventHandler> createHandlers() {
+        List<LogEventHandler> handlers = Providers.load(LogEventHandler.class);
+        if (!handlers.isEmpty()) {
+            return handlers;
+        }
+        // 配置了日志文件时写入文件，否则输出到控制台
+        String file = ConfigurationFactory.conf("jing.log.file.path", null);
+        return List.of(file == null ? new ConsoleLogEventHandler() : new RollingFileLogEventHandler(Path.of(file)));
+    }
 
-        });
+    private void run() {
+        while (running) {
+            if (queue.await(AWAIT_TIMEOUT)) {
+                drainAndFlush();
+            }
+        }
+        drainAndFlush();
+        closeHandlers();
+    }
+
+    private void drainAndFlush() {
+        try {
+            long dropped = queue.dropped();
+            if (dropped != reportedDropped) {
+                dispatch(new LogEvent(LogLevel.ERROR, System.currentTimeMillis(), LoggerFacadeImpl.class.getName(),
+                        Thread.currentThread().getName(), null, (dropped - reportedDropped) + " log events dropped due to overflow"));
+                reportedDropped = dropped;
+            }
+            queue.drain(this::dispatch);
+            for (LogEventHandler handler : handlers) {
+                handler.flush();
+            }
+        } catch (RuntimeException e) {
+            // 日志系统本身出错时只能输出到stderr
+            e.printStackTrace(System.err);
+        }
+    }
+
+    private void closeHandlers() {
+        for (LogEventHandler handler : handlers) {
+            try {
+                handler.close();
+            } catch (RuntimeException e) {
+                e.printStackTrace(System.err);
+            }
+        }
+    }
+
+    private void dispatch(LogEvent event) {
+        for (LogEventHandler handler : handlers) {
+            handler.handle(event);
+        }
     }
 
     @Override
     public void start() throws Exception {
-
+        handlers = handlerFactory.get();
+        logThread.start();
     }
 
+    /**
+     * Events offered before stopping are guaranteed to be flushed, by the log thread or by current thread if the log thread has never been started
+     */
     @Override
     public void stop() throws Exception {
-
+        running = false;
+        if (logThread.getState() == Thread.State.NEW) {
+            if (handlers == null) {
+                handlers = handlerFactory.get();
+            }
+            drainAndFlush();
+            closeHandlers();
+        } else {
+            // 不能中断日志线程，中断会关闭文件处理器使用的FileChannel，最多等待一次await超时
+            LockSupport.unpark(logThread);
+            logThread.join();
+        }
     }
 
     @Override
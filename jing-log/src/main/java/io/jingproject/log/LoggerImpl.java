@@ -1,23 +1,25 @@
 package io.jingproject.log;
 
-import io.jingproject.common.BatchQueue;
+import io.jingproject.common.ConfigurationValue;
 import io.jingproject.common.LogLevel;
 import io.jingproject.common.Logger;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.invoke.MutableCallSite;
 import java.util.Objects;
 
 public final class LoggerImpl implements Logger {
-    private final Class<?> clazz;
+    private final String className;
     private final MutableCallSite site;
     private final MethodHandle mh;
-    private final BatchQueue<LogEvent> queue;
+    private final LogQueue queue;
 
-    public LoggerImpl(Class<?> clazz, LogLevel level, BatchQueue<LogEvent> queue) {
-        this.clazz = clazz;
-        this.site = new MutableCallSite(MethodHandles.constant(LogLevel.class, level));
+    // 默认跟随配置中的日志级别，配置重新加载后自动生效，调用setLevel后不再跟随配置
+    public LoggerImpl(Class<?> clazz, ConfigurationValue<LogLevel> level, LogQueue queue) {
+        this.className = clazz.getName();
+        this.site = new MutableCallSite(level.handle().asType(MethodType.methodType(LogLevel.class)));
         this.mh = site.dynamicInvoker();
         this.queue = queue;
     }
@@ -39,10 +41,15 @@ public final class LoggerImpl implements Logger {
         return current.value() <= Objects.requireNonNull(level).value();
     }
 
+    // 只负责入队，格式化和写出都在日志线程中完成，队列满时按照配置的策略处理
     @Override
     public void log(LogLevel level, String msg, Throwable throwable) {
-        String className = clazz.getCanonicalName();
-        String threadName = Thread.currentThread().getName();
-        // TODO 做具体实现
+        queue.offer(level, System.currentTimeMillis(), className, Thread.currentThread().getName(), throwable, msg);
+    }
+
+    // 模板和参数原样放入可复用的事件中，由日志线程格式化，调用线程上不产生字符串
+    @Override
+    public void log(LogLevel level, String template, int kinds, Object o0, Object o1, Object o2, long l0, long l1, long l2) {
+        queue.offer(level, System.currentTimeMillis(), className, Thread.currentThread().getName(), template, kinds, o0, o1, o2, l0, l1, l2);
     }
 }
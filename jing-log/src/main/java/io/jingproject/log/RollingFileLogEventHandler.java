@@ -0,0 +1,234 @@
+package io.jingproject.log;
+
+import io.jingproject.common.ConfigurationFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RollingFileLogEventHandler appends the formatted events into a window of the log file mapped in shared mode,
+ * the dirty pages are written back by the kernel, no syscall is needed per batch
+ * <p>
+ * The file is rolled when its size reaches the limit or the rolling interval elapsed, and is only synced on rolling,
+ * or periodically if a sync interval is configured. Rolling happens on the log thread, producers are never blocked by it
+ * <p>
+ * Events are written as text by default, or as binary records if jing.log.file.format is binary, see {@link BinaryLogBuffer}
+ */
+public final class RollingFileLogEventHandler implements LogEventHandler {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final long DEFAULT_WINDOW_SIZE = 16L * 1024 * 1024;
+    private static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+    private static final long DEFAULT_ROLL_INTERVAL = TimeUnit.DAYS.toSeconds(1);
+    private static final DateTimeFormatter SUFFIX_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path path;
+    private final long windowSize;
+    private final long maxSize;
+    private final long rollInterval;
+    private final long syncInterval;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final LogEncoder buffer;
+
+    // 以下字段只在日志线程中访问，文件在第一次写入时才打开
+    private FileChannel channel;
+    private Arena arena;
+    private MemorySegment window;
+    private long windowOffset;
+    private long windowPosition;
+    private long openTime;
+    private long nextRollTime;
+    private long lastSyncTime;
+
+    public RollingFileLogEventHandler(Path path) {
+        this.path = path.toAbsolutePath();
+        this.windowSize = ConfigurationFactory.confAsLong("jing.log.file.windowsize", DEFAULT_WINDOW_SIZE);
+        this.maxSize = ConfigurationFactory.confAsLong("jing.log.file.maxsize", DEFAULT_MAX_SIZE);
+        this.rollInterval = TimeUnit.SECONDS.toMillis(ConfigurationFactory.confAsLong("jing.log.file.rollinterval", DEFAULT_ROLL_INTERVAL));
+        this.syncInterval = ConfigurationFactory.confAsLong("jing.log.file.syncinterval", 0L);
+        if (windowSize <= 0L || maxSize <= 0L) {
+            throw new IllegalArgumentException("Invalid log file window size : " + windowSize + ", max size : " + maxSize);
+        }
+        int bufferSize = ConfigurationFactory.confAsInt("jing.log.buffersize", DEFAULT_BUFFER_SIZE);
+        // 二进制格式不在本机格式化，由LogDecoder离线还原为文本
+        String format = ConfigurationFactory.conf("jing.log.file.format", "text");
+        this.buffer = switch (format.toLowerCase(Locale.ROOT)) {
+            case "text" -> new LogBuffer(bufferSize, false, this::write);
+            case "binary" -> new BinaryLogBuffer(bufferSize, this::write);
+            default -> throw new IllegalArgumentException("Unsupported log file format : " + format);
+        };
+    }
+
+    /**
+     * Rolling is checked before each event, so an event would never be split into two files,
+     * the size could exceed the limit by at most the buffered content
+     */
+    @Override
+    public void handle(LogEvent logEvent) {
+        if (channel != null && (logEvent.timestamp() >= nextRollTime || windowOffset + windowPosition >= maxSize)) {
+            buffer.flush();
+            roll(logEvent.timestamp());
+        }
+        buffer.append(logEvent);
+    }
+
+    @Override
+    public void flush() {
+        buffer.flush();
+        if (channel == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (syncInterval > 0L && now - lastSyncTime >= syncInterval) {
+            window.force();
+            lastSyncTime = now;
+        }
+    }
+
+    @Override
+    public void close() {
+        buffer.flush();
+        if (channel != null) {
+            closeFile();
+        }
+    }
+
+    private void write(MemorySegment segment, long size) {
+        if (channel == null) {
+            openFile(System.currentTimeMillis());
+        }
+        long offset = 0L;
+        while (offset < size) {
+            if (windowPosition == window.byteSize()) {
+                remap();
+            }
+            long len = Math.min(size - offset, window.byteSize() - windowPosition);
+            MemorySegment.copy(segment, offset, window, windowPosition, len);
+            windowPosition += len;
+            offset += len;
+        }
+    }
+
+    private void roll(long now) {
+        // 空文件不滚动，只推进下一次滚动的时间
+        if (windowOffset + windowPosition == 0L) {
+            openTime = now;
+            nextRollTime = nextRollTime(now);
+            return;
+        }
+        closeFile();
+        try {
+            Files.move(path, rolledPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll log file : " + path, e);
+        }
+        openFile(now);
+        buffer.reset();
+    }
+
+    private Path rolledPath() {
+        String name = path.getFileName() + "." + LocalDateTime.ofInstant(Instant.ofEpochMilli(openTime), zone).format(SUFFIX_FORMATTER);
+        Path target = path.resolveSibling(name);
+        for (int i = 1; Files.exists(target); i++) {
+            target = path.resolveSibling(name + "." + i);
+        }
+        return target;
+    }
+
+    private void openFile(long now) {
+        try {
+            Path parent = path.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            windowOffset = contentEnd(channel);
+            windowPosition = 0L;
+            map();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open log file : " + path, e);
+        }
+        openTime = now;
+        nextRollTime = nextRollTime(now);
+        lastSyncTime = now;
+    }
+
+    /**
+     * The mapped window extends the file, the unwritten tail is filled with zeros which should be truncated on closing,
+     * if the previous process crashed before that, new content is appended right after the last non-zero byte
+     */
+    private static long contentEnd(FileChannel channel) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(8192);
+        long end = channel.size();
+        while (end > 0L) {
+            long start = Math.max(0L, end - bb.capacity());
+            bb.clear().limit((int) (end - start));
+            while (bb.hasRemaining()) {
+                if (channel.read(bb, start + bb.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = bb.position() - 1; i >= 0; i--) {
+                if (bb.get(i) != 0) {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0L;
+    }
+
+    private void map() throws IOException {
+        arena = Arena.ofShared();
+        window = channel.map(FileChannel.MapMode.READ_WRITE, windowOffset, windowSize, arena);
+    }
+
+    private void remap() {
+        arena.close();
+        windowOffset += windowPosition;
+        windowPosition = 0L;
+        try {
+            map();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map log file : " + path, e);
+        }
+    }
+
+    private void closeFile() {
+        try {
+            arena.close();
+            channel.truncate(windowOffset + windowPosition);
+            channel.force(true);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close log file : " + path, e);
+        } finally {
+            channel = null;
+            arena = null;
+            window = null;
+        }
+    }
+
+    /**
+     * Rolling boundaries are aligned to the local time, e.g. midnight for the default daily rolling
+     */
+    private long nextRollTime(long now) {
+        if (rollInterval <= 0L) {
+            return Long.MAX_VALUE;
+        }
+        long offset = TimeUnit.SECONDS.toMillis(zone.getRules().getOffset(Instant.ofEpochMilli(now)).getTotalSeconds());
+        return Math.floorDiv(now + offset, rollInterval) * rollInterval + rollInterval - offset;
+    }
+}
@@ -0,0 +1,57 @@
+package io.jingproject.log;
+
+import io.jingproject.common.BatchQueue;
+import io.jingproject.common.LogLevel;
+
+import java.util.function.Consumer;
+
+/**
+ * All the logging threads share one {@link BatchQueue}, template events are taken from a {@link LogEventPool}
+ */
+final class SharedLogQueue implements LogQueue {
+    private final BatchQueue<LogEvent> queue;
+    private final LogEventPool pool;
+
+    SharedLogQueue(int batchSize, long capacity, BatchQueue.OverflowPolicy policy, int poolSize) {
+        this.queue = new BatchQueue<>(batchSize, capacity, policy);
+        this.pool = new LogEventPool(poolSize);
+    }
+
+    @Override
+    public void offer(LogLevel level, long timestamp, String className, String threadName, Throwable throwable, String msg) {
+        queue.offer(new LogEvent(level, timestamp, className, threadName, throwable, msg));
+    }
+
+    @Override
+    public void offer(LogLevel level, long timestamp, String className, String threadName, String template, int kinds,
+                      Object o0, Object o1, Object o2, long l0, long l1, long l2) {
+        LogEvent event = pool.acquire();
+        event.setTemplate(level, timestamp, className, threadName, template, kinds, o0, o1, o2, l0, l1, l2);
+        if (!queue.offer(event)) {
+            pool.release(event);
+        }
+    }
+
+    @Override
+    public boolean await(long timeout) {
+        return queue.await(timeout);
+    }
+
+    @Override
+    public void drain(Consumer<LogEvent> consumer) {
+        queue.drain(event -> {
+            try {
+                consumer.accept(event);
+            } finally {
+                if (event.template() != null) {
+                    pool.release(event);
+                }
+            }
+        });
+    }
+
+    @Override
+    public long dropped() {
+        return queue.dropped();
+    }
+}
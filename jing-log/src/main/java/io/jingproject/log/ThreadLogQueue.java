@@ -0,0 +1,311 @@
+package io.jingproject.log;
+
+import io.jingproject.common.LogLevel;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Each platform thread offers into its own SPSC ring, registered on its first offer and reclaimed by the log thread once the thread died,
+ * so the logging threads never contend with each other
+ * <p>
+ * The slots of a ring hold reusable events which are filled in place, no event is allocated after a slot has been used once.
+ * The log thread merges the rings by timestamp within each drain, the events of each thread are always kept in order,
+ * while events published after a drain started could be earlier than the ones already written by that drain
+ * <p>
+ * Virtual threads are too many to own a ring each, their events go to a shared queue which is drained before the rings
+ */
+final class ThreadLogQueue implements LogQueue {
+    private static final VarHandle WAITER;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(ThreadLogQueue.class, MethodHandles.lookup());
+            WAITER = lookup.findVarHandle(ThreadLogQueue.class, "waiter", Thread.class);
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int ringSize;
+    private final boolean block;
+    private final LogQueue fallback;
+    private final List<Ring> rings = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Ring> local = ThreadLocal.withInitial(this::register);
+
+    /**
+     * The log thread parked in {@link #await(long)}, null if it's not waiting
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile Thread waiter = null;
+
+    // 以下字段只在日志线程中访问
+    private final List<Ring> sweeping = new ArrayList<>();
+    private long reclaimedDropped = 0L;
+
+    /**
+     * @param block whether a producer waits for room when its ring is full, or drops the event
+     */
+    ThreadLogQueue(int ringSize, boolean block, LogQueue fallback) {
+        if (ringSize <= 0) {
+            throw new IllegalArgumentException("Invalid log ring size : " + ringSize);
+        }
+        this.ringSize = Integer.highestOneBit(Math.max(ringSize, 2) - 1) << 1;
+        this.block = block;
+        this.fallback = fallback;
+    }
+
+    private Ring register() {
+        Ring ring = new Ring(Thread.currentThread(), ringSize);
+        rings.add(ring);
+        return ring;
+    }
+
+    @Override
+    public void offer(LogLevel level, long timestamp, String className, String threadName, Throwable throwable, String msg) {
+        if (Thread.currentThread().isVirtual()) {
+            fallback.offer(level, timestamp, className, threadName, throwable, msg);
+            wakeup();
+            return;
+        }
+        Ring ring = local.get();
+        LogEvent event = ring.claim(block);
+        if (event != null) {
+            event.setMessage(level, timestamp, className, threadName, throwable, msg);
+            ring.publish();
+            wakeup();
+        }
+    }
+
+    @Override
+    public void offer(LogLevel level, long timestamp, String className, String threadName, String template, int kinds,
+                      Object o0, Object o1, Object o2, long l0, long l1, long l2) {
+        if (Thread.currentThread().isVirtual()) {
+            fallback.offer(level, timestamp, className, threadName, template, kinds, o0, o1, o2, l0, l1, l2);
+            wakeup();
+            return;
+        }
+        Ring ring = local.get();
+        LogEvent event = ring.claim(block);
+        if (event != null) {
+            event.setTemplate(level, timestamp, className, threadName, template, kinds, o0, o1, o2, l0, l1, l2);
+            ring.publish();
+            wakeup();
+        }
+    }
+
+    /**
+     * The ring index has been published by a volatile write before reading the waiter, so either the log thread sees the event or it's unparked here
+     */
+    private void wakeup() {
+        Thread w = waiter;
+        if (w != null && WAITER.compareAndSet(this, w, null)) {
+            LockSupport.unpark(w);
+        }
+    }
+
+    private boolean pending() {
+        if (fallback.await(0L)) {
+            return true;
+        }
+        for (Ring ring : rings) {
+            if (ring.producerIndex != ring.consumerIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean await(long timeout) {
+        if (pending()) {
+            return true;
+        }
+        if (timeout <= 0L) {
+            return false;
+        }
+        Thread current = Thread.currentThread();
+        long deadline = System.nanoTime() + timeout;
+        waiter = current;
+        try {
+            while (!pending()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, remaining);
+                if (current.isInterrupted()) {
+                    return pending();
+                }
+                waiter = current;
+            }
+            return true;
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /**
+     * Each round picks the earliest head among the rings, the events published after the drain started are left for the next drain,
+     * rings of dead threads are removed once they have been drained
+     */
+    @Override
+    public void drain(Consumer<LogEvent> consumer) {
+        fallback.drain(consumer);
+        for (Ring ring : rings) {
+            // 先确认线程已结束再读取生产者下标，线程结束前的写入对这里可见
+            boolean dead = !ring.owner.isAlive();
+            ring.limit = ring.producerIndex;
+            if (ring.consumerIndex != ring.limit) {
+                sweeping.add(ring);
+            } else if (dead) {
+                rings.remove(ring);
+                reclaimedDropped += ring.dropped;
+            }
+        }
+        try {
+            while (!sweeping.isEmpty()) {
+                Ring earliest = null;
+                long timestamp = Long.MAX_VALUE;
+                for (Ring ring : sweeping) {
+                    long t = ring.head().timestamp();
+                    if (t < timestamp || earliest == null) {
+                        earliest = ring;
+                        timestamp = t;
+                    }
+                }
+                try {
+                    consumer.accept(earliest.head());
+                } finally {
+                    if (earliest.release()) {
+                        sweeping.remove(earliest);
+                    }
+                }
+            }
+        } finally {
+            // 处理器抛出异常时剩余的事件留到下一次drain
+            sweeping.clear();
+        }
+    }
+
+    @Override
+    public long dropped() {
+        long r = reclaimedDropped + fallback.dropped();
+        for (Ring ring : rings) {
+            r += ring.dropped;
+        }
+        return r;
+    }
+
+    private static final class Ring {
+        private static final VarHandle PRODUCER_INDEX;
+        private static final VarHandle CONSUMER_INDEX;
+        private static final VarHandle DROPPED;
+        private static final int MAX_SPIN_COUNT = 64;
+        private static final long PARK_NANOS = 1000L;
+
+        static {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(Ring.class, MethodHandles.lookup());
+                PRODUCER_INDEX = lookup.findVarHandle(Ring.class, "producerIndex", long.class);
+                CONSUMER_INDEX = lookup.findVarHandle(Ring.class, "consumerIndex", long.class);
+                DROPPED = lookup.findVarHandle(Ring.class, "dropped", long.class);
+            } catch (IllegalAccessException | NoSuchFieldException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final Thread owner;
+        private final LogEvent[] slots;
+        private final int mask;
+
+        /**
+         * Next index to be published, only written by the owner thread
+         */
+        @SuppressWarnings("FieldMayBeFinal")
+        private volatile long producerIndex = 0L;
+
+        /**
+         * Next index to be consumed, only written by the log thread
+         */
+        @SuppressWarnings("FieldMayBeFinal")
+        private volatile long consumerIndex = 0L;
+
+        /**
+         * Only written by the owner thread
+         */
+        @SuppressWarnings("FieldMayBeFinal")
+        private volatile long dropped = 0L;
+
+        /**
+         * Owner-owned cache of the consumer index, the shared one is only read when the ring seems full
+         */
+        private long cachedConsumerIndex = 0L;
+
+        /**
+         * Log thread owned, the producer index observed when current drain started
+         */
+        private long limit = 0L;
+
+        Ring(Thread owner, int size) {
+            this.owner = owner;
+            this.slots = new LogEvent[size];
+            this.mask = size - 1;
+        }
+
+        /**
+         * Return the slot event to be filled, or null if the ring is full and the event should be dropped
+         */
+        LogEvent claim(boolean block) {
+            long index = (long) PRODUCER_INDEX.getOpaque(this);
+            int spin = 0;
+            while (index - cachedConsumerIndex == slots.length) {
+                cachedConsumerIndex = (long) CONSUMER_INDEX.getAcquire(this);
+                if (index - cachedConsumerIndex != slots.length) {
+                    break;
+                }
+                if (!block) {
+                    DROPPED.setRelease(this, (long) DROPPED.getOpaque(this) + 1L);
+                    return null;
+                }
+                if (spin++ < MAX_SPIN_COUNT) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+            }
+            int slot = (int) index & mask;
+            LogEvent event = slots[slot];
+            if (event == null) {
+                event = new LogEvent();
+                slots[slot] = event;
+            }
+            return event;
+        }
+
+        void publish() {
+            producerIndex = (long) PRODUCER_INDEX.getOpaque(this) + 1L;
+        }
+
+        LogEvent head() {
+            return slots[(int) consumerIndex & mask];
+        }
+
+        /**
+         * Clear the head event and hand its slot back to the owner
+         *
+         * @return true if the events observed when current drain started have all been consumed
+         */
+        boolean release() {
+            long index = consumerIndex;
+            slots[(int) index & mask].clear();
+            CONSUMER_INDEX.setRelease(this, index + 1L);
+            return index + 1L == limit;
+        }
+    }
+}
@@ -6,6 +6,5 @@ module jing.log {
     requires transitive static jing.annprocessor;
     requires transitive static jing.ffmprocessor;
 
-    provides io.jingproject.common.LoggerFacade with io.jingproject.log.LoggerFacadeImpl;
     uses LogEventHandler;
 }
\ No newline at end of file
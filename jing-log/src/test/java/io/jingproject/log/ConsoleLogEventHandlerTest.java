@@ -0,0 +1,21 @@
+package io.jingproject.log;
+
+import io.jingproject.common.LogLevel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ConsoleLogEventHandlerTest {
+    @Test
+    public void testWrite() {
+        ConsoleLogEventHandler handler = new ConsoleLogEventHandler();
+        // 超过缓冲区大小的内容分多次写入stdout，写入失败时抛出ForeignException
+        String msg = "console ".repeat(256);
+        Assertions.assertDoesNotThrow(() -> {
+            for (int i = 0; i < 8; i++) {
+                handler.handle(new LogEvent(LogLevel.INFO, System.currentTimeMillis(), ConsoleLogEventHandlerTest.class.getName(), "main", null, i + " " + msg));
+            }
+            handler.flush();
+            handler.flush();
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package io.jingproject.log;
+
+import io.jingproject.common.LogLevel;
+import io.jingproject.common.Logger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LogBufferTest {
+    private static final String CLASS_NAME = "io.jingproject.Test";
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final List<Long> writes = new ArrayList<>();
+
+    private LogBuffer create(int capacity, boolean ansi) {
+        return new LogBuffer(capacity, ansi, ZoneOffset.UTC, (segment, size) -> {
+            writes.add(size);
+            out.writeBytes(segment.asSlice(0L, size).toArray(ValueLayout.JAVA_BYTE));
+        });
+    }
+
+    private String text() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testFormat() {
+        LogBuffer buffer = create(4096, false);
+        buffer.append(new LogEvent(LogLevel.INFO, 1_700_000_000_007L, CLASS_NAME, "main", null, "started"));
+        buffer.append(new LogEvent(LogLevel.DEBUG, -1L, CLASS_NAME, "worker", null, null));
+        LogEvent event = new LogEvent();
+        event.setTemplate(LogLevel.ERROR, 1_700_000_000_123L, CLASS_NAME, "main", "{} of {} at {}",
+                Logger.ARG_LONG | Logger.ARG_LONG << 2 | Logger.ARG_DOUBLE << 4, null, null, null, -3L, Long.MIN_VALUE, Double.doubleToRawLongBits(0.5d));
+        buffer.append(event);
+        Assertions.assertEquals("", text());
+        buffer.flush();
+        Assertions.assertEquals("""
+                2023-11-14 22:13:20.007 [main] INFO  io.jingproject.Test - started
+                1969-12-31 23:59:59.999 [worker] DEBUG io.jingproject.Test - null
+                2023-11-14 22:13:20.123 [main] ERROR io.jingproject.Test - -3 of -9223372036854775808 at 0.5
+                """, text());
+    }
+
+    @Test
+    public void testAnsi() {
+        LogBuffer buffer = create(4096, true);
+        buffer.append(new LogEvent(LogLevel.INFO, 0L, CLASS_NAME, "main", null, "msg"));
+        buffer.flush();
+        Assertions.assertEquals("1970-01-01 00:00:00.000 [main] \u001B[32mINFO \u001B[0m io.jingproject.Test - msg\n", text());
+    }
+
+    @Test
+    public void testStackTrace() {
+        LogBuffer buffer = create(4096, false);
+        IllegalStateException e = new IllegalStateException("failed");
+        buffer.append(new LogEvent(LogLevel.ERROR, 0L, CLASS_NAME, "main", e, "error"));
+        buffer.flush();
+        Assertions.assertEquals("1970-01-01 00:00:00.000 [main] ERROR io.jingproject.Test - error\n" + LogBuffer.stackTrace(e), text());
+    }
+
+    @Test
+    public void testFlushWhenFull() {
+        LogBuffer buffer = create(16, false);
+        buffer.flush();
+        Assertions.assertEquals(List.of(), writes);
+        String msg = "é 中文 😀 ".repeat(8);
+        buffer.append(new LogEvent(LogLevel.INFO, 0L, CLASS_NAME, "main", null, msg));
+        // 缓冲区写满时交给sink，剩余内容在flush时写出
+        Assertions.assertFalse(writes.isEmpty());
+        Assertions.assertTrue(writes.stream().allMatch(size -> size == 16L));
+        buffer.flush();
+        Assertions.assertTrue(writes.getLast() <= 16L);
+        Assertions.assertEquals("1970-01-01 00:00:00.000 [main] INFO  io.jingproject.Test - " + msg + "\n", text());
+        int count = writes.size();
+        buffer.flush();
+        Assertions.assertEquals(count, writes.size());
+    }
+}
@@ -0,0 +1,157 @@
+package io.jingproject.log;
+
+import io.jingproject.common.LogLevel;
+import io.jingproject.common.Logger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class LogDecoderTest {
+    private static final String CLASS_NAME = LogDecoderTest.class.getName();
+
+    private static LogBuffer.Sink collect(ByteArrayOutputStream out) {
+        return (segment, size) -> out.writeBytes(segment.asSlice(0L, size).toArray(ValueLayout.JAVA_BYTE));
+    }
+
+    private static byte[] encode(List<LogEvent> events) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // 较小的缓冲区使记录跨越多次写入
+        BinaryLogBuffer buffer = new BinaryLogBuffer(64, collect(out));
+        events.forEach(buffer::append);
+        buffer.flush();
+        return out.toByteArray();
+    }
+
+    private static String text(List<LogEvent> events) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LogBuffer buffer = new LogBuffer(4096, false, collect(out));
+        events.forEach(buffer::append);
+        buffer.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String decode(byte[] bytes, ByteArrayOutputStream out) throws IOException {
+        new LogDecoder(new ByteArrayInputStream(bytes), collect(out)).decode();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String decode(byte[] bytes) throws IOException {
+        return decode(bytes, new ByteArrayOutputStream());
+    }
+
+    private static int occurrences(byte[] bytes, String s) {
+        // 长度前缀加上内容，避免匹配到更长的字符串
+        byte[] pattern = (((char) s.length()) + s).getBytes(StandardCharsets.US_ASCII);
+        int count = 0;
+        for (int i = 0; i + pattern.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + pattern.length, pattern, 0, pattern.length)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static LogEvent template(long timestamp, String className, String threadName, String template, int kinds,
+                                     Object o0, Object o1, Object o2, long l0, long l1, long l2) {
+        LogEvent event = new LogEvent();
+        event.setTemplate(LogLevel.INFO, timestamp, className, threadName, template, kinds, o0, o1, o2, l0, l1, l2);
+        return event;
+    }
+
+    private static List<LogEvent> events(long timestamp) {
+        return List.of(
+                new LogEvent(LogLevel.INFO, timestamp, CLASS_NAME, "main", null, "started"),
+                new LogEvent(LogLevel.DEBUG, timestamp + 1500L, CLASS_NAME, "worker-1", null, "é 中文 😀"),
+                template(timestamp - 20L, CLASS_NAME, "main", "{} + {} = {}", Logger.ARG_LONG | Logger.ARG_LONG << 2 | Logger.ARG_OBJECT << 4,
+                        null, null, "x", -1L, Long.MIN_VALUE, 0L),
+                template(timestamp + 3L, CLASS_NAME, "worker-1", "ratio {} {}", Logger.ARG_DOUBLE | Logger.ARG_NONE << 2,
+                        null, null, null, Double.doubleToRawLongBits(0.25d), 0L, 0L),
+                new LogEvent(LogLevel.ERROR, timestamp + 4L, CLASS_NAME, "main", new IllegalStateException("failed"), "error"));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<LogEvent> events = events(System.currentTimeMillis());
+        Assertions.assertEquals(text(events), decode(encode(events)));
+    }
+
+    @Test
+    public void testDictionaryOverflow() throws IOException {
+        long now = System.currentTimeMillis();
+        List<LogEvent> events = new ArrayList<>();
+        // 字典最多4096项，之后的新字符串以引用0内联写入
+        for (int i = 0; i < 5000; i++) {
+            events.add(new LogEvent(LogLevel.INFO, now + i, "c" + i, "t" + i, null, "m" + i));
+        }
+        events.add(new LogEvent(LogLevel.INFO, now, events.get(4095).className(), events.get(4095).threadName(), null, "last entry"));
+        events.add(new LogEvent(LogLevel.INFO, now, events.get(4096).className(), events.get(4096).threadName(), null, "inline"));
+        byte[] bytes = encode(events);
+        Assertions.assertEquals(text(events), decode(bytes));
+        // 字典中的字符串只写入一次，字典满之后每次都内联写入
+        Assertions.assertEquals(1, occurrences(bytes, "c4095"));
+        Assertions.assertEquals(2, occurrences(bytes, "c4096"));
+        Assertions.assertEquals(2, occurrences(bytes, "t4096"));
+    }
+
+    @Test
+    public void testRestart() throws IOException {
+        long now = System.currentTimeMillis();
+        List<LogEvent> first = events(now);
+        List<LogEvent> second = List.of(
+                new LogEvent(LogLevel.INFO, now - 60_000L, "other.Class", "restarted", null, "restarted"),
+                new LogEvent(LogLevel.INFO, now - 59_000L, CLASS_NAME, "main", null, "again"));
+        // 重启后的进程在同一个文件中追加新的头部，字典从头开始
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.writeBytes(encode(first));
+        file.writeBytes(encode(second));
+        Assertions.assertEquals(text(first) + text(second), decode(file.toByteArray()));
+    }
+
+    @Test
+    public void testReset() throws IOException {
+        long now = System.currentTimeMillis();
+        List<LogEvent> events = events(now);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryLogBuffer buffer = new BinaryLogBuffer(64, collect(out));
+        events.forEach(buffer::append);
+        buffer.flush();
+        int size = out.size();
+        // 滚动到新文件时重新写入头部和字典
+        buffer.reset();
+        events.forEach(buffer::append);
+        buffer.flush();
+        byte[] bytes = out.toByteArray();
+        Assertions.assertEquals(BinaryLogBuffer.HEADER, bytes[size]);
+        Assertions.assertEquals(size * 2, bytes.length);
+        Assertions.assertEquals(text(events), decode(Arrays.copyOfRange(bytes, size, bytes.length)));
+    }
+
+    @Test
+    public void testZeroPadding() throws IOException {
+        List<LogEvent> events = events(System.currentTimeMillis());
+        byte[] bytes = encode(events);
+        // 未正常关闭的文件末尾残留映射窗口填充的0
+        byte[] padded = new byte[bytes.length + 8192];
+        System.arraycopy(bytes, 0, padded, 0, bytes.length);
+        Assertions.assertEquals(text(events), decode(padded));
+    }
+
+    @Test
+    public void testTruncated() {
+        List<LogEvent> events = events(System.currentTimeMillis());
+        byte[] bytes = encode(events);
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assertions.assertThrows(IOException.class, () -> decode(truncated, out));
+        // 截断之前的记录仍然被输出
+        Assertions.assertEquals(text(events.subList(0, events.size() - 1)), out.toString(StandardCharsets.UTF_8));
+    }
+}
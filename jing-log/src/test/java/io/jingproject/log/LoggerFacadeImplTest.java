@@ -0,0 +1,87 @@
+package io.jingproject.log;
+
+import io.jingproject.common.Logger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LoggerFacadeImplTest {
+    // 与src/test/resources/jing-config.properties中的配置一致
+    private static final int CAPACITY = 64;
+
+    static final class CaptureHandler implements LogEventHandler {
+        private final List<String> events = new ArrayList<>();
+        private int flushes = 0;
+        private boolean closed = false;
+
+        @Override
+        public void handle(LogEvent logEvent) {
+            Assertions.assertFalse(closed);
+            events.add(logEvent.level() + " " + logEvent.msg());
+        }
+
+        @Override
+        public void flush() {
+            Assertions.assertFalse(closed);
+            flushes++;
+        }
+
+        @Override
+        public void close() {
+            Assertions.assertFalse(closed);
+            closed = true;
+        }
+    }
+
+    @Test
+    public void testDrainOnStop() throws Exception {
+        CaptureHandler handler = new CaptureHandler();
+        LoggerFacadeImpl facade = new LoggerFacadeImpl(() -> List.of(handler));
+        facade.start();
+        Logger logger = facade.getLogger(LoggerFacadeImplTest.class);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < CAPACITY / 2; i++) {
+            logger.info("message {}", i);
+            expected.add("INFO message " + i);
+        }
+        // 默认级别为INFO
+        logger.debug("filtered");
+        logger.error("last");
+        expected.add("ERROR last");
+        facade.stop();
+        // stop返回前日志线程已经消费并刷新所有事件，然后关闭处理器
+        Assertions.assertEquals(expected, handler.events);
+        Assertions.assertTrue(handler.flushes > 0);
+        Assertions.assertTrue(handler.closed);
+    }
+
+    @Test
+    public void testStopWithoutStart() throws Exception {
+        CaptureHandler handler = new CaptureHandler();
+        LoggerFacadeImpl facade = new LoggerFacadeImpl(() -> List.of(handler));
+        Logger logger = facade.getLogger(LoggerFacadeImplTest.class);
+        logger.info("before stop");
+        facade.stop();
+        Assertions.assertEquals(List.of("INFO before stop"), handler.events);
+        Assertions.assertEquals(1, handler.flushes);
+        Assertions.assertTrue(handler.closed);
+    }
+
+    @Test
+    public void testDroppedReported() throws Exception {
+        CaptureHandler handler = new CaptureHandler();
+        LoggerFacadeImpl facade = new LoggerFacadeImpl(() -> List.of(handler));
+        Logger logger = facade.getLogger(LoggerFacadeImplTest.class);
+        // 日志线程未启动，超出容量的事件被丢弃
+        for (int i = 0; i < CAPACITY + 10; i++) {
+            logger.info("message {}", i);
+        }
+        facade.stop();
+        Assertions.assertEquals(CAPACITY + 1, handler.events.size());
+        Assertions.assertEquals("ERROR 10 log events dropped due to overflow", handler.events.getFirst());
+        Assertions.assertEquals("INFO message 0", handler.events.get(1));
+        Assertions.assertEquals("INFO message " + (CAPACITY - 1), handler.events.getLast());
+    }
+}
@@ -0,0 +1,47 @@
+package io.jingproject.log;
+
+import io.jingproject.common.LogLevel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class RollingFileLogEventHandlerTest {
+    // 与src/test/resources/jing-config.properties中的配置一致
+    private static final long MAX_SIZE = 4096L;
+    private static final long BUFFER_SIZE = 1024L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testRollWithinBatch() throws IOException {
+        RollingFileLogEventHandler handler = new RollingFileLogEventHandler(dir.resolve("app.log"));
+        long now = System.currentTimeMillis();
+        String msg = "x".repeat(64);
+        // 一个批次内写入远超上限的内容，中途不调用flush
+        for (int i = 0; i < 200; i++) {
+            handler.handle(new LogEvent(LogLevel.INFO, now, RollingFileLogEventHandlerTest.class.getName(), "main", null, i + " " + msg));
+        }
+        handler.close();
+        List<Path> files;
+        try (Stream<Path> s = Files.list(dir)) {
+            files = s.toList();
+        }
+        Assertions.assertTrue(files.size() > 1);
+        long lines = 0L;
+        for (Path file : files) {
+            byte[] content = Files.readAllBytes(file);
+            Assertions.assertTrue(content.length <= MAX_SIZE + BUFFER_SIZE, file + " : " + content.length);
+            // 每个文件都以完整的一行结束
+            Assertions.assertEquals('\n', content[content.length - 1]);
+            lines += Files.readAllLines(file).size();
+        }
+        Assertions.assertEquals(200L, lines);
+    }
+}
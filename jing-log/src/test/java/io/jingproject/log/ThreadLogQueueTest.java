@@ -0,0 +1,139 @@
+package io.jingproject.log;
+
+import io.jingproject.common.BatchQueue;
+import io.jingproject.common.LogLevel;
+import io.jingproject.common.Logger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ThreadLogQueueTest {
+    record Entry(long timestamp, String threadName, String msg) {
+
+    }
+
+    private static ThreadLogQueue create(int ringSize, boolean block) {
+        return new ThreadLogQueue(ringSize, block, new SharedLogQueue(16, 1024L, BatchQueue.OverflowPolicy.DROP_NEWEST, 16));
+    }
+
+    private static List<Entry> drain(ThreadLogQueue queue) {
+        List<Entry> entries = new ArrayList<>();
+        // 事件会被复用，只能在回调中读取
+        queue.drain(event -> entries.add(new Entry(event.timestamp(), event.threadName(), event.msg())));
+        return entries;
+    }
+
+    private static int rings(ThreadLogQueue queue) throws ReflectiveOperationException {
+        Field field = ThreadLogQueue.class.getDeclaredField("rings");
+        field.setAccessible(true);
+        return ((List<?>) field.get(queue)).size();
+    }
+
+    private static void offer(ThreadLogQueue queue, String threadName, long... timestamps) throws InterruptedException {
+        Thread t = Thread.ofPlatform().name(threadName).start(() -> {
+            for (long timestamp : timestamps) {
+                queue.offer(LogLevel.INFO, timestamp, ThreadLogQueueTest.class.getName(), threadName, null, threadName + "-" + timestamp);
+            }
+        });
+        t.join();
+    }
+
+    @Test
+    public void testMerge() throws InterruptedException {
+        ThreadLogQueue queue = create(16, false);
+        offer(queue, "a", 1L, 4L, 5L, 9L);
+        offer(queue, "b", 2L, 3L, 6L);
+        offer(queue, "c", 7L, 8L);
+        Assertions.assertTrue(queue.await(0L));
+        List<Entry> entries = drain(queue);
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), entries.stream().map(Entry::timestamp).toList());
+        Assertions.assertEquals("a-1", entries.getFirst().msg());
+        Assertions.assertEquals("c", entries.get(6).threadName());
+        Assertions.assertFalse(queue.await(0L));
+        Assertions.assertEquals(List.of(), drain(queue));
+    }
+
+    @Test
+    public void testMergeKeepsThreadOrder() throws InterruptedException {
+        ThreadLogQueue queue = create(16, false);
+        // 同一线程内时间戳回退时仍然保持写入顺序
+        offer(queue, "a", 5L, 1L, 6L);
+        offer(queue, "b", 2L, 7L);
+        Assertions.assertEquals(List.of("b-2", "a-5", "a-1", "a-6", "b-7"), drain(queue).stream().map(Entry::msg).toList());
+    }
+
+    @Test
+    public void testTemplate() throws InterruptedException {
+        ThreadLogQueue queue = create(16, false);
+        Thread t = Thread.ofPlatform().start(() -> queue.offer(LogLevel.INFO, 1L, ThreadLogQueueTest.class.getName(), "t",
+                "{} + {} = {}", Logger.ARG_LONG | Logger.ARG_LONG << 2 | Logger.ARG_OBJECT << 4, null, null, "3", 1L, 2L, 0L));
+        t.join();
+        Assertions.assertEquals(List.of(new Entry(1L, "t", "1 + 2 = 3")), drain(queue));
+    }
+
+    @Test
+    public void testDeadThreadReclaimed() throws InterruptedException, ReflectiveOperationException {
+        ThreadLogQueue queue = create(2, false);
+        offer(queue, "a", 1L, 2L, 3L, 4L, 5L);
+        offer(queue, "b", 6L);
+        Assertions.assertEquals(2, rings(queue));
+        Assertions.assertEquals(3L, queue.dropped());
+        Assertions.assertEquals(List.of(1L, 2L, 6L), drain(queue).stream().map(Entry::timestamp).toList());
+        // 线程已经结束且环形队列已经消费完，下一次drain时回收
+        Assertions.assertEquals(2, rings(queue));
+        Assertions.assertEquals(List.of(), drain(queue));
+        Assertions.assertEquals(0, rings(queue));
+        Assertions.assertEquals(3L, queue.dropped());
+    }
+
+    @Test
+    public void testLiveThreadKept() throws InterruptedException, ReflectiveOperationException {
+        ThreadLogQueue queue = create(16, false);
+        queue.offer(LogLevel.INFO, 1L, ThreadLogQueueTest.class.getName(), "main", null, "main-1");
+        Assertions.assertEquals(List.of("main-1"), drain(queue).stream().map(Entry::msg).toList());
+        drain(queue);
+        Assertions.assertEquals(1, rings(queue));
+        queue.offer(LogLevel.INFO, 2L, ThreadLogQueueTest.class.getName(), "main", null, "main-2");
+        Assertions.assertEquals(List.of("main-2"), drain(queue).stream().map(Entry::msg).toList());
+    }
+
+    @Test
+    public void testBlock() throws InterruptedException {
+        ThreadLogQueue queue = create(2, true);
+        int count = 10000;
+        Thread producer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < count; i++) {
+                queue.offer(LogLevel.INFO, i, ThreadLogQueueTest.class.getName(), "p", null, String.valueOf(i));
+            }
+        });
+        List<Entry> entries = new ArrayList<>();
+        while (entries.size() < count) {
+            if (queue.await(1_000_000_000L)) {
+                entries.addAll(drain(queue));
+            }
+        }
+        producer.join();
+        Assertions.assertEquals(0L, queue.dropped());
+        for (int i = 0; i < count; i++) {
+            Assertions.assertEquals(i, entries.get(i).timestamp());
+        }
+    }
+
+    @Test
+    public void testVirtualThreadFallback() throws InterruptedException, ReflectiveOperationException {
+        ThreadLogQueue queue = create(16, false);
+        Thread t = Thread.ofVirtual().start(() -> {
+            queue.offer(LogLevel.INFO, 2L, ThreadLogQueueTest.class.getName(), "v", null, "v-2");
+            queue.offer(LogLevel.INFO, 3L, ThreadLogQueueTest.class.getName(), "v", "v-{}", Logger.ARG_LONG, null, null, null, 3L, 0L, 0L);
+        });
+        t.join();
+        offer(queue, "a", 1L);
+        // 虚拟线程不注册环形队列，事件进入共享队列，并在环形队列之前被消费
+        Assertions.assertEquals(1, rings(queue));
+        Assertions.assertTrue(queue.await(0L));
+        Assertions.assertEquals(List.of("v-2", "v-3", "a-1"), drain(queue).stream().map(Entry::msg).toList());
+    }
+}
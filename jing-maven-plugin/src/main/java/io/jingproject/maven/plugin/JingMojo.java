@@ -32,15 +32,26 @@ public final class JingMojo extends AbstractMojo {
     @Parameter(defaultValue = "${project}", required = true, readonly = true)
     private MavenProject project;
 
+    /**
+     * Where the annotation processor writes Jing-providers.json, same as the default of maven-compiler-plugin
+     */
+    @Parameter(defaultValue = "${project.build.directory}/generated-sources/annotations")
+    private String generatedSourcesDirectory;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
+        List<Path> searchDirs = new ArrayList<>();
+        searchDirs.add(Paths.get(generatedSourcesDirectory));
         for (Resource resource : project.getResources()) {
-            Path resourceDir = Paths.get(resource.getDirectory());
-            getLog().debug("Searching for Jing-providers.json file: " + resourceDir.toAbsolutePath());
-            Path targetPath = resourceDir.resolve(FILE_NAME);
+            searchDirs.add(Paths.get(resource.getDirectory()));
+        }
+        for (Path dir : searchDirs) {
+            getLog().debug("Searching for Jing-providers.json file: " + dir.toAbsolutePath());
+            Path targetPath = dir.resolve(FILE_NAME);
             if (Files.isRegularFile(targetPath)) {
                 getLog().debug("Found Jing-providers.json file: " + targetPath.toAbsolutePath());
                 processJingProviderFile(targetPath);
+                return;
             }
         }
         getLog().debug("Jing-providers.json file not found, skipping process Jing-providers.json");
@@ -57,6 +68,10 @@ public final class JingMojo extends AbstractMojo {
             throw new MojoExecutionException("Cannot read from Jing-providers.json", e);
         }
         Map<String, Set<String>> data = parseProviderData(content);
+        if (data.isEmpty()) {
+            getLog().debug("Jing-providers.json is empty, skipping process Jing-providers.json");
+            return;
+        }
         Path targetDirPath = Path.of(project.getBuild().getOutputDirectory(), "META-INF", "services");
         try {
             Files.createDirectories(targetDirPath);
@@ -95,6 +110,9 @@ public final class JingMojo extends AbstractMojo {
         Set<String> set = new HashSet<>();
         int index = 0, nextIndex;
         index = searchByte(content, index, b -> b == (byte) '{');
+        if (content[searchByte(content, index, b -> b != (byte) ' ' && b != (byte) '\t' && b != (byte) '\r' && b != (byte) '\n') - 1] == (byte) '}') {
+            return r;
+        }
         for (; ; ) {
             index = searchByte(content, index, b -> b == (byte) '"');
             nextIndex = searchByte(content, index, b -> b == (byte) '"');
@@ -113,8 +131,8 @@ public final class JingMojo extends AbstractMojo {
                 throw new MojoFailureException("Jing-providers.json contains duplicate key");
             }
             set = new HashSet<>();
-            searchByte(content, index, b -> b == (byte) ',' || b == (byte) '}');
-            if (content[index - 1] != (byte) '}') {
+            index = searchByte(content, index, b -> b == (byte) ',' || b == (byte) '}');
+            if (content[index - 1] == (byte) '}') {
                 return r;
             }
         }
@@ -0,0 +1,404 @@
+package io.jingproject.net;
+
+import io.jingproject.bindings.alloc.Allocator;
+import io.jingproject.bindings.alloc.MmapSegment;
+import io.jingproject.bindings.alloc.PoolAllocator;
+import io.jingproject.bindings.net.IoUringMux;
+import io.jingproject.bindings.net.Mux;
+import io.jingproject.common.BatchQueue;
+import io.jingproject.common.Descriptor;
+import io.jingproject.common.Logger;
+import io.jingproject.common.LoggerFactory;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * EventLoop owns a platform thread, a Mux instance, a thread-local MmapSegment bound to {@link Allocator#MMAP_SCOPE}
+ * and a PoolAllocator bound to {@link Allocator#POOL_SCOPE} for buffers outliving a single event
+ * descriptors registered into the loop are identified by slots, the slot is passed to the Mux as the event data,
+ * so the handle could be found by index without any lookup or allocation
+ * <p>
+ * All the register/modify/deregister operations must be called in the loop thread, use {@link #execute(Runnable)} from other threads
+ */
+public final class EventLoop implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(EventLoop.class);
+    private static final int INITIAL_SLOT_CAPACITY = 64;
+    private final int index;
+    private final int maxEvents;
+    private final int timeout;
+    private final long mmapSize;
+    private final long poolSize;
+    private final Mux mux = Mux.newInstance();
+    /**
+     * Non-null if the mux supports submitting accept, recv and send directly
+     */
+    private final IoUringMux ring = mux instanceof IoUringMux m ? m : null;
+    private final BatchQueue<Runnable> tasks = new BatchQueue<>();
+    private final Mux.CtlFailure ctlFailure = this::onCtlFailure;
+    private final Consumer<Runnable> taskRunner = this::runTask;
+    private final PriorityQueue<Scheduled> scheduled = new PriorityQueue<>(Comparator.comparingLong(Scheduled::deadline));
+    private final Thread thread;
+    private volatile boolean running = true;
+    /**
+     * Created in the loop thread once the mux has been initialized, null on windows
+     */
+    private volatile Wakeup wakeup;
+    private Descriptor[] descriptors = new Descriptor[INITIAL_SLOT_CAPACITY];
+    private IoHandle[] handles = new IoHandle[INITIAL_SLOT_CAPACITY];
+    private int[] flags = new int[INITIAL_SLOT_CAPACITY];
+    /**
+     * Handles deregistered with requests still in flight, the slots are kept until the final completions have been delivered,
+     * so the kernel could never write into a released buffer or complete into a reused slot
+     */
+    private IoHandle[] draining = new IoHandle[INITIAL_SLOT_CAPACITY];
+    private int drainingCount = 0;
+    /**
+     * Released slots, the ones below reusableCount could be reused immediately, the others were released during
+     * current event dispatching and would only become reusable after the whole batch has been consumed,
+     * so stale events in the same batch could never be delivered to a newly registered handle
+     */
+    private int[] freeSlots = new int[INITIAL_SLOT_CAPACITY];
+    private int reusableCount = 0;
+    private int freeCount = 0;
+    private int nextSlot = 0;
+
+    EventLoop(int index, int maxEvents, int timeout, long mmapSize, long poolSize) {
+        this.index = index;
+        this.maxEvents = maxEvents;
+        this.timeout = timeout;
+        this.mmapSize = mmapSize;
+        this.poolSize = poolSize;
+        this.thread = Thread.ofPlatform().name("jing-net-loop-" + index).unstarted(this);
+    }
+
+    public int index() {
+        return index;
+    }
+
+    public boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Execute the task in the loop thread, tasks submitted from other threads would be executed before next poll,
+     * a parked poll is interrupted through the wakeup descriptor, on windows the latency is still bounded by the poll timeout
+     */
+    public void execute(Runnable task) {
+        if (inLoop()) {
+            task.run();
+        } else {
+            tasks.offer(task);
+            wakeup();
+        }
+    }
+
+    /**
+     * Execute the task in the loop thread after the delay, the deadline is only checked once per loop iteration,
+     * so the task could be delayed by at most the poll timeout
+     */
+    public void schedule(Runnable task, long delayMillis) {
+        assert inLoop();
+        scheduled.add(new Scheduled(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis), task));
+    }
+
+    /**
+     * Whether the requests could be submitted by {@link #submitAccept(int)}, {@link #submitRecv(int, MemorySegment)}
+     * and {@link #submitSend(int, MemorySegment)}, their completions are delivered to {@link IoHandle#onCompleted(EventLoop, int, int, int)}
+     * so the data is transferred without waiting for readiness first
+     */
+    public boolean completionBased() {
+        return ring != null;
+    }
+
+    public void submitAccept(int slot) {
+        assert inLoop() && ring != null;
+        ring.accept(descriptors[slot], slot);
+    }
+
+    /**
+     * The buffer is written asynchronously, it must not be released before the completion has been delivered,
+     * requests in flight when the slot is deregistered are cancelled, their completions are still delivered before {@link IoHandle#onRemoved(EventLoop, int)}
+     */
+    public void submitRecv(int slot, MemorySegment buffer) {
+        assert inLoop() && ring != null;
+        ring.recv(descriptors[slot], buffer, slot);
+    }
+
+    public void submitSend(int slot, MemorySegment buffer) {
+        assert inLoop() && ring != null;
+        ring.send(descriptors[slot], buffer, slot);
+    }
+
+    /**
+     * Whether the slot is registered, false once it has been deregistered even if its completions are still being delivered
+     */
+    public boolean registered(int slot) {
+        assert inLoop();
+        return handles[slot] != null;
+    }
+
+    public int register(Descriptor descriptor, int flag, IoHandle handle) {
+        assert inLoop();
+        int slot = allocateSlot();
+        if (flag != Mux.MUX_NONE_FLAG) {
+            try {
+                mux.ctl(descriptor, Mux.MUX_NONE_FLAG, flag, slot);
+            } catch (RuntimeException e) {
+                releaseSlot(slot);
+                throw e;
+            }
+        }
+        descriptors[slot] = descriptor;
+        handles[slot] = handle;
+        flags[slot] = flag;
+        return slot;
+    }
+
+    public void modify(int slot, int flag) {
+        assert inLoop();
+        int current = flags[slot];
+        if (current == flag) {
+            return;
+        }
+        mux.ctl(descriptors[slot], current, flag, slot);
+        flags[slot] = flag;
+    }
+
+    /**
+     * Re-enable a oneshot registration after its event has been delivered
+     */
+    public void rearm(int slot) {
+        assert inLoop();
+        int current = flags[slot];
+        if ((current & Mux.MUX_ONESHOT_FLAG) == 0) {
+            throw new IllegalStateException("Slot " + slot + " is not registered as oneshot");
+        }
+        mux.ctl(descriptors[slot], current, current, slot);
+    }
+
+    public void deregister(int slot) {
+        assert inLoop();
+        IoHandle handle = handles[slot];
+        if (handle == null) {
+            return;
+        }
+        int current = flags[slot];
+        Descriptor descriptor = descriptors[slot];
+        descriptors[slot] = null;
+        handles[slot] = null;
+        flags[slot] = Mux.MUX_NONE_FLAG;
+        if (ring != null && ring.pending(slot)) {
+            // 取消是异步的，槽位和handle保留到最后的完成事件送达后再释放
+            draining[slot] = handle;
+            drainingCount = Math.addExact(drainingCount, 1);
+            try {
+                if (current != Mux.MUX_NONE_FLAG) {
+                    mux.ctl(descriptor, current, Mux.MUX_NONE_FLAG, slot);
+                }
+            } finally {
+                ring.cancel(slot);
+            }
+            return;
+        }
+        releaseSlot(slot);
+        try {
+            if (current != Mux.MUX_NONE_FLAG) {
+                mux.ctl(descriptor, current, Mux.MUX_NONE_FLAG, slot);
+            }
+        } finally {
+            handle.onRemoved(this, slot);
+        }
+    }
+
+    private int allocateSlot() {
+        if (reusableCount > 0) {
+            int last = Math.subtractExact(reusableCount, 1);
+            int slot = freeSlots[last];
+            freeCount = Math.subtractExact(freeCount, 1);
+            freeSlots[last] = freeSlots[freeCount];
+            reusableCount = last;
+            return slot;
+        }
+        int slot = nextSlot;
+        if (slot == handles.length) {
+            int newCapacity = Math.multiplyExact(slot, 2);
+            descriptors = Arrays.copyOf(descriptors, newCapacity);
+            handles = Arrays.copyOf(handles, newCapacity);
+            flags = Arrays.copyOf(flags, newCapacity);
+            draining = Arrays.copyOf(draining, newCapacity);
+            freeSlots = Arrays.copyOf(freeSlots, newCapacity);
+        }
+        nextSlot = Math.addExact(slot, 1);
+        return slot;
+    }
+
+    private void releaseSlot(int slot) {
+        freeSlots[freeCount] = slot;
+        freeCount = Math.addExact(freeCount, 1);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void shutdown() {
+        running = false;
+        wakeup();
+    }
+
+    private void wakeup() {
+        Wakeup w = wakeup;
+        if (w != null) {
+            w.signal();
+        }
+    }
+
+    void join() throws InterruptedException {
+        thread.join();
+    }
+
+    @Override
+    public void run() {
+        try (MmapSegment mmapSegment = new MmapSegment(mmapSize); PoolAllocator poolAllocator = new PoolAllocator(poolSize)) {
+            ScopedValue.where(Allocator.MMAP_SCOPE, mmapSegment).where(Allocator.POOL_SCOPE, poolAllocator).run(() -> loop(mmapSegment));
+        } catch (Throwable t) {
+            log.error("Event loop " + index + " terminated unexpectedly", t);
+        }
+    }
+
+    private void loop(MmapSegment mmapSegment) {
+        mux.init();
+        try {
+            MemorySegment events = mux.events(mmapSegment, maxEvents);
+            Wakeup w = Wakeup.create();
+            if (w != null) {
+                try {
+                    register(w.descriptor(), Mux.MUX_READABLE_FLAG, w);
+                } catch (RuntimeException e) {
+                    w.onRemoved(this, -1);
+                    throw e;
+                }
+                wakeup = w;
+            }
+            while (running) {
+                tasks.drain(taskRunner);
+                mux.flush(ctlFailure);
+                int count;
+                if (w == null) {
+                    count = mux.poll(events, maxEvents, timeout);
+                } else {
+                    // 先标记为parked再检查任务队列，与execute中先入队再检查parked配对，任务不会被漏掉
+                    w.park();
+                    count = mux.poll(events, maxEvents, tasks.await(0L) || !running ? 0 : timeout);
+                    w.unpark();
+                }
+                process(events, count);
+                runScheduled();
+            }
+            tasks.drain(taskRunner);
+            for (int slot = 0; slot < nextSlot; slot++) {
+                if (handles[slot] != null) {
+                    deregister(slot);
+                }
+            }
+            // 关闭ring之前等待被取消请求的完成事件，否则内核仍可能写入已经释放的缓冲区
+            while (drainingCount > 0) {
+                mux.flush(ctlFailure);
+                process(events, mux.poll(events, maxEvents, timeout));
+            }
+        } finally {
+            mux.close();
+        }
+    }
+
+    private void process(MemorySegment events, int count) {
+        for (int i = 0; i < count; i++) {
+            int slot = mux.data(events, i);
+            int op = ring == null ? IoUringMux.OP_POLL : ring.op(events, i);
+            if (op != IoUringMux.OP_POLL) {
+                complete(slot, op, ring.result(events, i));
+                continue;
+            }
+            IoHandle handle = handles[slot];
+            if (handle != null) {
+                dispatch(handle, slot, mux.flag(events, i));
+            }
+        }
+        reusableCount = freeCount;
+    }
+
+    private void onCtlFailure(int slot, int err) {
+        log.error("Failed to ctl slot " + slot + " in event loop " + index + ", err : " + err);
+        if (handles[slot] != null) {
+            deregister(slot);
+        }
+    }
+
+    private void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.error("Failed to execute task in event loop " + index, e);
+        }
+    }
+
+    private void runScheduled() {
+        if (scheduled.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Scheduled s = scheduled.peek(); s != null && s.deadline() - now <= 0L; s = scheduled.peek()) {
+            scheduled.poll();
+            runTask(s.task());
+        }
+    }
+
+    private void dispatch(IoHandle handle, int slot, int flag) {
+        try {
+            handle.onEvent(this, slot, flag);
+        } catch (RuntimeException e) {
+            log.error("Failed to handle event in event loop " + index, e);
+            deregister(slot);
+        }
+    }
+
+    /**
+     * Completions of a deregistered slot are still delivered to its handle, the slot is released after the last one
+     */
+    private void complete(int slot, int op, int result) {
+        IoHandle handle = handles[slot];
+        if (handle == null) {
+            handle = draining[slot];
+            try {
+                handle.onCompleted(this, slot, op, result);
+            } catch (RuntimeException e) {
+                log.error("Failed to handle completion in event loop " + index, e);
+            }
+            if (!ring.pending(slot)) {
+                draining[slot] = null;
+                drainingCount = Math.subtractExact(drainingCount, 1);
+                releaseSlot(slot);
+                try {
+                    handle.onRemoved(this, slot);
+                } catch (RuntimeException e) {
+                    log.error("Failed to remove handle in event loop " + index, e);
+                }
+            }
+            return;
+        }
+        try {
+            handle.onCompleted(this, slot, op, result);
+        } catch (RuntimeException e) {
+            log.error("Failed to handle completion in event loop " + index, e);
+            deregister(slot);
+        }
+    }
+
+    private record Scheduled(long deadline, Runnable task) {
+    }
+}
@@ -0,0 +1,31 @@
+package io.jingproject.net;
+
+import io.jingproject.bindings.net.IoUringMux;
+
+/**
+ * IoHandle receives readiness events of a descriptor registered into an event loop
+ * all the methods would only be invoked in the event loop thread which the handle belongs to
+ */
+public interface IoHandle {
+    /**
+     * Invoked when the registered descriptor is ready, flag is a combination of Mux flags
+     * for edge-triggered registrations the handle must keep reading or writing until EAGAIN, otherwise the event would be lost
+     */
+    void onEvent(EventLoop loop, int slot, int flag);
+
+    /**
+     * Invoked when a request submitted through the event loop completed, only for completion based loops, see {@link EventLoop#completionBased()}
+     * op is one of {@link IoUringMux#OP_ACCEPT}, {@link IoUringMux#OP_RECV} and {@link IoUringMux#OP_SEND}, result is the op result or negative errno,
+     * completions of the requests cancelled by deregistering are still delivered, check {@link EventLoop#registered(int)} before submitting again
+     */
+    default void onCompleted(EventLoop loop, int slot, int op, int result) {
+        throw new UnsupportedOperationException("Completion is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Invoked when the handle is removed from the event loop, either deregistered or the loop is shutting down,
+     * if requests were still in flight, it's invoked after their final completions have been delivered to {@link #onCompleted(EventLoop, int, int, int)},
+     * so the buffers of the requests could be released here
+     */
+    void onRemoved(EventLoop loop, int slot);
+}
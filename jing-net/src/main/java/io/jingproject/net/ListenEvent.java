@@ -0,0 +1,21 @@
+package io.jingproject.net;
+
+import io.jingproject.common.Descriptor;
+import io.jingproject.common.NetEvent;
+
+import java.net.InetSocketAddress;
+import java.util.function.Function;
+
+/**
+ * Listen on the address, acceptor creates the handle for each accepted socket,
+ * when reusePort is true every event loop opens its own SO_REUSEPORT socket on the same port
+ * <p>
+ * Not supported on windows yet, handling the event throws UnsupportedOperationException there
+ */
+public record ListenEvent(
+        InetSocketAddress address,
+        int backlog,
+        boolean reusePort,
+        Function<Descriptor, IoHandle> acceptor
+) implements NetEvent {
+}
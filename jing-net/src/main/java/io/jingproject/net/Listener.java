@@ -0,0 +1,139 @@
+package io.jingproject.net;
+
+import io.jingproject.bindings.net.Mux;
+import io.jingproject.common.Descriptor;
+import io.jingproject.common.Logger;
+import io.jingproject.common.LoggerFactory;
+
+import java.util.function.Function;
+
+/**
+ * Listener accepts connections in the event loop thread, in reusePort mode the accepted sockets stay in the same loop,
+ * so there is no cross-thread handoff at all, otherwise they are spread across the engine
+ */
+final class Listener implements IoHandle {
+    private static final Logger log = LoggerFactory.getLogger(Listener.class);
+    /**
+     * Max connections accepted in one event, the rest would be accepted in next poll since the listener is level-triggered
+     */
+    private static final int ACCEPT_BATCH_SIZE = 64;
+    private static final long MIN_BACKOFF_MILLIS = 10L;
+    private static final long MAX_BACKOFF_MILLIS = 1000L;
+    private final NetEngine engine;
+    private final Descriptor descriptor;
+    private final boolean reusePort;
+    private final Function<Descriptor, IoHandle> acceptor;
+    // 以下字段只在事件循环线程中访问
+    private long backoffMillis = 0L;
+    private boolean removed = false;
+
+    Listener(NetEngine engine, Descriptor descriptor, boolean reusePort, Function<Descriptor, IoHandle> acceptor) {
+        this.engine = engine;
+        this.descriptor = descriptor;
+        this.reusePort = reusePort;
+        this.acceptor = acceptor;
+    }
+
+    /**
+     * Start accepting after the listener has been registered, a completion based loop keeps one accept request in flight,
+     * otherwise the listener has been registered as readable and accepts in {@link #onEvent(EventLoop, int, int)}
+     */
+    void start(EventLoop loop, int slot) {
+        if (loop.completionBased()) {
+            loop.submitAccept(slot);
+        }
+    }
+
+    @Override
+    public void onEvent(EventLoop loop, int slot, int flag) {
+        for (int i = 0; i < ACCEPT_BATCH_SIZE; i++) {
+            int fd = Sockets.accept(descriptor);
+            if (fd == Sockets.ACCEPT_DRAINED) {
+                return;
+            } else if (fd == Sockets.ACCEPT_ABORTED) {
+                log.debug("Pending connection aborted before accepted");
+            } else if (fd == Sockets.ACCEPT_EXHAUSTED) {
+                backoff(loop, slot);
+                return;
+            } else {
+                accepted(loop, fd);
+            }
+        }
+    }
+
+    @Override
+    public void onCompleted(EventLoop loop, int slot, int op, int result) {
+        if (!loop.registered(slot)) {
+            // 已注销，这是被取消的accept请求最后的完成事件，已经建立的连接直接关闭
+            if (result >= 0) {
+                closeQuietly(Descriptor.of(result));
+            }
+            return;
+        }
+        int r = result >= 0 ? result : Sockets.acceptError(-result);
+        if (r == Sockets.ACCEPT_EXHAUSTED) {
+            backoff(loop, slot);
+            return;
+        } else if (r == Sockets.ACCEPT_ABORTED) {
+            log.debug("Pending connection aborted before accepted");
+        } else if (r >= 0) {
+            accepted(loop, r);
+        }
+        loop.submitAccept(slot);
+    }
+
+    private void accepted(EventLoop loop, int fd) {
+        backoffMillis = 0L;
+        Descriptor socket = Descriptor.of(fd);
+        try {
+            IoHandle handle = acceptor.apply(socket);
+            if (reusePort) {
+                loop.register(socket, Mux.MUX_READABLE_FLAG, handle);
+            } else {
+                engine.register(socket, Mux.MUX_READABLE_FLAG, handle);
+            }
+        } catch (RuntimeException e) {
+            // 单个连接的失败不影响监听
+            log.error("Failed to handle accepted socket", e);
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * A readiness based listener is level-triggered, it must stop watching the socket until the back-off elapsed,
+     * otherwise the pending connections would wake up the loop again immediately,
+     * a completion based listener simply submits the next accept request after the back-off
+     */
+    private void backoff(EventLoop loop, int slot) {
+        backoffMillis = backoffMillis == 0L ? MIN_BACKOFF_MILLIS : Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+        log.error("Running out of descriptors or memory when accepting, retry in " + backoffMillis + " ms");
+        if (loop.completionBased()) {
+            loop.schedule(() -> {
+                if (!removed) {
+                    loop.submitAccept(slot);
+                }
+            }, backoffMillis);
+            return;
+        }
+        loop.modify(slot, Mux.MUX_NONE_FLAG);
+        loop.schedule(() -> {
+            if (!removed) {
+                loop.modify(slot, Mux.MUX_READABLE_FLAG);
+            }
+        }, backoffMillis);
+    }
+
+    private static void closeQuietly(Descriptor socket) {
+        try {
+            Sockets.close(socket);
+        } catch (RuntimeException e) {
+            log.error("Failed to close accepted socket", e);
+        }
+    }
+
+    @Override
+    public void onRemoved(EventLoop loop, int slot) {
+        removed = true;
+        Sockets.close(descriptor);
+    }
+}
@@ -0,0 +1,134 @@
+package io.jingproject.net;
+
+import io.jingproject.bindings.net.Mux;
+import io.jingproject.common.Anchor;
+import io.jingproject.common.ConfigurationFactory;
+import io.jingproject.common.Descriptor;
+import io.jingproject.common.LifeCycle;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * NetEngine holds a fixed number of event loops, each loop runs in its own platform thread,
+ * registered descriptors are spread across the loops in a round-robin manner
+ */
+public final class NetEngine implements LifeCycle {
+    private static final long DEFAULT_MMAP_SIZE = 64L * 1024 * 1024;
+    private static final long DEFAULT_POOL_SIZE = 1024L * 1024 * 1024;
+    private final EventLoop[] loops;
+    private final AtomicInteger counter = new AtomicInteger(0);
+
+    public NetEngine() {
+        int loopCount = ConfigurationFactory.confAsInt("jing.net.loops", Runtime.getRuntime().availableProcessors());
+        int maxEvents = ConfigurationFactory.confAsInt("jing.net.maxevents", 1024);
+        int timeout = ConfigurationFactory.confAsInt("jing.net.timeout", 10);
+        long mmapSize = ConfigurationFactory.confAsLong("jing.net.mmapsize", DEFAULT_MMAP_SIZE);
+        long poolSize = ConfigurationFactory.confAsLong("jing.net.poolsize", DEFAULT_POOL_SIZE);
+        if (loopCount <= 0 || maxEvents <= 0 || timeout < 0 || mmapSize <= 0L || poolSize <= 0L) {
+            throw new IllegalArgumentException("Invalid net engine configuration");
+        }
+        this.loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new EventLoop(i, maxEvents, timeout, mmapSize, poolSize);
+        }
+    }
+
+    public static NetEngine getInstance() {
+        class Holder {
+            static final NetEngine INSTANCE = Anchor.compute(NetEngine.class, NetEngine::new);
+        }
+        return Holder.INSTANCE;
+    }
+
+    public int loopCount() {
+        return loops.length;
+    }
+
+    public EventLoop loop(int index) {
+        return loops[index];
+    }
+
+    public EventLoop next() {
+        int i = counter.getAndIncrement() & Integer.MAX_VALUE;
+        return loops[i % loops.length];
+    }
+
+    public void register(Descriptor descriptor, int flag, IoHandle handle) {
+        EventLoop loop = next();
+        loop.execute(() -> loop.register(descriptor, flag, handle));
+    }
+
+    /**
+     * Listen on the address, in reusePort mode every loop owns its own listening socket and accepts connections by itself,
+     * otherwise a single listening socket is registered into one loop and the accepted sockets are spread across the engine
+     * <p>
+     * Only linux and macos are supported, the listening socket is created through the posix bindings,
+     * on windows it throws UnsupportedOperationException before anything is created
+     */
+    public void listen(InetSocketAddress address, int backlog, boolean reusePort, Function<Descriptor, IoHandle> acceptor) {
+        if (!reusePort) {
+            Descriptor descriptor = Sockets.listen(address, backlog, false);
+            registerListener(next(), descriptor, false, acceptor);
+            return;
+        }
+        if (address.getPort() == 0 && loops.length > 1) {
+            throw new IllegalArgumentException("Port must be specified for reusePort listeners");
+        }
+        Descriptor[] descriptors = new Descriptor[loops.length];
+        try {
+            for (int i = 0; i < loops.length; i++) {
+                descriptors[i] = Sockets.listen(address, backlog, true);
+            }
+        } catch (RuntimeException e) {
+            for (Descriptor descriptor : descriptors) {
+                if (descriptor != null) {
+                    Sockets.close(descriptor);
+                }
+            }
+            throw e;
+        }
+        for (int i = 0; i < loops.length; i++) {
+            registerListener(loops[i], descriptors[i], true, acceptor);
+        }
+    }
+
+    private void registerListener(EventLoop loop, Descriptor descriptor, boolean reusePort, Function<Descriptor, IoHandle> acceptor) {
+        loop.execute(() -> {
+            Listener listener = new Listener(this, descriptor, reusePort, acceptor);
+            int flag = loop.completionBased() ? Mux.MUX_NONE_FLAG : Mux.MUX_READABLE_FLAG;
+            int slot;
+            try {
+                slot = loop.register(descriptor, flag, listener);
+            } catch (RuntimeException e) {
+                Sockets.close(descriptor);
+                throw e;
+            }
+            try {
+                listener.start(loop, slot);
+            } catch (RuntimeException e) {
+                // 注销时由Listener关闭描述符
+                loop.deregister(slot);
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    public void start() throws Exception {
+        for (EventLoop loop : loops) {
+            loop.start();
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        for (EventLoop loop : loops) {
+            loop.shutdown();
+        }
+        for (EventLoop loop : loops) {
+            loop.join();
+        }
+    }
+}
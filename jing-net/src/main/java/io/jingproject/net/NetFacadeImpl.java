@@ -1,11 +1,19 @@
 package io.jingproject.net;
 
+import io.jingproject.annprocess.Provider;
 import io.jingproject.common.NetEvent;
 import io.jingproject.common.NetFacade;
 
+@Provider(target = NetFacade.class)
 public final class NetFacadeImpl implements NetFacade {
+    private final NetEngine engine = NetEngine.getInstance();
+
     @Override
     public void handle(NetEvent event) {
-
+        switch (event) {
+            case RegisterEvent r -> engine.register(r.descriptor(), r.flag(), r.handle());
+            case ListenEvent l -> engine.listen(l.address(), l.backlog(), l.reusePort(), l.acceptor());
+            default -> throw new UnsupportedOperationException("NetEvent could not be handled : " + event);
+        }
     }
 }
@@ -0,0 +1,14 @@
+package io.jingproject.net;
+
+import io.jingproject.common.Descriptor;
+import io.jingproject.common.NetEvent;
+
+/**
+ * Register a descriptor with its handle into one of the event loops of the engine
+ */
+public record RegisterEvent(
+        Descriptor descriptor,
+        int flag,
+        IoHandle handle
+) implements NetEvent {
+}
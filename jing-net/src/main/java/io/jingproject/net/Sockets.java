@@ -0,0 +1,140 @@
+package io.jingproject.net;
+
+import io.jingproject.bindings.NetBindings;
+import io.jingproject.bindings.PosixNetBindings;
+import io.jingproject.bindings.SysPosixBindings;
+import io.jingproject.bindings.alloc.Allocator;
+import io.jingproject.common.Descriptor;
+import io.jingproject.common.Os;
+import io.jingproject.ffm.ForeignException;
+import io.jingproject.ffm.SharedLibs;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.net.InetSocketAddress;
+
+/**
+ * Socket operations on top of the posix bindings, all the sockets created here are non-blocking and close-on-exec
+ */
+final class Sockets {
+    private static final NetBindings NET_BINDINGS = SharedLibs.getImpl(NetBindings.class);
+    private static final PosixNetBindings POSIX_NET_BINDINGS = SharedLibs.getImpl(PosixNetBindings.class);
+    private static final SysPosixBindings SYS_POSIX_BINDINGS = SharedLibs.getImpl(SysPosixBindings.class);
+
+    private Sockets() {
+        throw new UnsupportedOperationException("utility class");
+    }
+
+    /**
+     * Create a listening socket bound to the address, when reusePort is true SO_REUSEPORT is enabled,
+     * so multiple sockets could be bound to the same port and the kernel would spread the connections among them
+     */
+    static Descriptor listen(InetSocketAddress address, int backlog, boolean reusePort) {
+        if (Os.current() == Os.WINDOWS) {
+            throw new UnsupportedOperationException("Listening socket is not supported on windows yet");
+        }
+        if (address.isUnresolved()) {
+            throw new IllegalArgumentException("Unresolved address : " + address);
+        }
+        byte[] ip = address.getAddress().getAddress();
+        int af = ip.length == 4 ? NET_BINDINGS.afInetCode() : NET_BINDINGS.afInet6Code();
+        int fd = POSIX_NET_BINDINGS.posixSocket(af, NET_BINDINGS.tcpTypeCode(), NET_BINDINGS.tcpProtocolCode());
+        if (fd < 0) {
+            int err = Math.abs(fd);
+            throw new ForeignException("Failed to create socket, err : " + err);
+        }
+        try (Allocator allocator = Allocator.newInstance()) {
+            setOpt(fd, POSIX_NET_BINDINGS.posixSolSocket(), POSIX_NET_BINDINGS.posixSoReuseAddr(), 1);
+            if (reusePort) {
+                setOpt(fd, POSIX_NET_BINDINGS.posixSolSocket(), POSIX_NET_BINDINGS.posixSoReusePort(), 1);
+            }
+            int addrLen;
+            MemorySegment addr;
+            if (ip.length == 4) {
+                addrLen = NET_BINDINGS.sockaddrInSize();
+                addr = allocator.allocate(addrLen, Long.BYTES);
+                int v = ((ip[0] & 0xFF) << 24) | ((ip[1] & 0xFF) << 16) | ((ip[2] & 0xFF) << 8) | (ip[3] & 0xFF);
+                NET_BINDINGS.setSockaddrIn(addr, v, address.getPort());
+            } else {
+                addrLen = NET_BINDINGS.sockaddrIn6Size();
+                addr = allocator.allocate(addrLen, Long.BYTES);
+                MemorySegment ipSegment = allocator.allocate(ip.length, 1L);
+                MemorySegment.copy(ip, 0, ipSegment, ValueLayout.JAVA_BYTE, 0L, ip.length);
+                NET_BINDINGS.setSockaddrIn6(addr, ipSegment, address.getPort());
+            }
+            int err = POSIX_NET_BINDINGS.posixBind(fd, addr, addrLen);
+            if (err > 0) {
+                throw new ForeignException("Failed to bind socket to " + address + ", err : " + err);
+            }
+            err = POSIX_NET_BINDINGS.posixListen(fd, backlog);
+            if (err > 0) {
+                throw new ForeignException("Failed to listen socket on " + address + ", err : " + err);
+            }
+        } catch (RuntimeException e) {
+            SYS_POSIX_BINDINGS.posixClose(fd);
+            throw e;
+        }
+        return Descriptor.of(fd);
+    }
+
+    private static void setOpt(int fd, int level, int optName, int value) {
+        int err = POSIX_NET_BINDINGS.posixSetSockOpt(fd, level, optName, value);
+        if (err > 0) {
+            throw new ForeignException("Failed to set socket option, err : " + err);
+        }
+    }
+
+    /**
+     * No more pending connection to accept
+     */
+    static final int ACCEPT_DRAINED = -1;
+    /**
+     * The pending connection failed before it could be accepted, or a pending network error was passed through by accept on linux,
+     * accepting could continue
+     */
+    static final int ACCEPT_ABORTED = -2;
+    /**
+     * Running out of descriptors or memory, accepting should be retried later
+     */
+    static final int ACCEPT_EXHAUSTED = -3;
+    private static final int ERR_KIND_ABORTED = 1;
+    private static final int ERR_KIND_EXHAUSTED = 2;
+
+    /**
+     * Accept a pending connection, return the accepted fd or one of the negative ACCEPT_* results,
+     * only the errors which mean the listening socket itself is broken are thrown
+     */
+    static int accept(Descriptor listener) {
+        for (; ; ) {
+            int v = POSIX_NET_BINDINGS.posixAccept(listener.asInt(), MemorySegment.NULL, MemorySegment.NULL);
+            if (v >= 0) {
+                return v;
+            }
+            int err = Math.abs(v);
+            if (err != NET_BINDINGS.interruptErrCode()) {
+                return acceptError(err);
+            }
+        }
+    }
+
+    /**
+     * Map the errno of accept to one of the negative ACCEPT_* results, or throw if the listening socket itself is broken
+     */
+    static int acceptError(int err) {
+        if (err == NET_BINDINGS.sendBlockErrCode()) {
+            return ACCEPT_DRAINED;
+        }
+        return switch (POSIX_NET_BINDINGS.posixAcceptErrKind(err)) {
+            case ERR_KIND_ABORTED -> ACCEPT_ABORTED;
+            case ERR_KIND_EXHAUSTED -> ACCEPT_EXHAUSTED;
+            default -> throw new ForeignException("Failed to accept socket, err : " + err);
+        };
+    }
+
+    static void close(Descriptor descriptor) {
+        int err = SYS_POSIX_BINDINGS.posixClose(descriptor.asInt());
+        if (err > 0) {
+            throw new ForeignException("Failed to close socket, err : " + err);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package io.jingproject.net;
+
+import io.jingproject.bindings.PosixNetBindings;
+import io.jingproject.bindings.SysPosixBindings;
+import io.jingproject.bindings.alloc.Allocator;
+import io.jingproject.common.Descriptor;
+import io.jingproject.common.Os;
+import io.jingproject.ffm.ForeignException;
+import io.jingproject.ffm.SharedLibs;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Wakeup descriptor of an event loop, an eventfd on linux or a pipe on macos, registered as readable into the Mux,
+ * so tasks submitted from other threads could interrupt a parked poll instead of waiting for the timeout
+ * <p>
+ * The loop marks itself parked before checking the task queue, and a producer only signals after offering its task and winning
+ * the parked state, so either the loop sees the task or the producer signals, and at most one signal is sent per poll
+ */
+final class Wakeup implements IoHandle {
+    private static final PosixNetBindings POSIX_NET_BINDINGS = SharedLibs.getImpl(PosixNetBindings.class);
+    private static final SysPosixBindings SYS_POSIX_BINDINGS = SharedLibs.getImpl(SysPosixBindings.class);
+    private static final VarHandle STATE;
+    private static final int AWAKE = 0;
+    private static final int PARKED = 1;
+    private static final int SIGNALLING = 2;
+    private static final int CLOSED = 3;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(Wakeup.class, MethodHandles.lookup());
+            STATE = lookup.findVarHandle(Wakeup.class, "state", int.class);
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int readFd;
+    private final int writeFd;
+
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile int state = AWAKE;
+
+    private Wakeup(int readFd, int writeFd) {
+        this.readFd = readFd;
+        this.writeFd = writeFd;
+    }
+
+    /**
+     * Return null on windows, wepoll only accepts sockets, the loop falls back to the poll timeout there
+     */
+    static Wakeup create() {
+        if (Os.current() == Os.WINDOWS) {
+            return null;
+        }
+        try (Allocator allocator = Allocator.newInstance()) {
+            MemorySegment fds = allocator.allocate(2L * Integer.BYTES, Integer.BYTES);
+            int err = POSIX_NET_BINDINGS.posixWakeupCreate(fds);
+            if (err > 0) {
+                throw new ForeignException("Failed to create wakeup descriptor, err : " + err);
+            }
+            return new Wakeup(fds.getAtIndex(ValueLayout.JAVA_INT, 0L), fds.getAtIndex(ValueLayout.JAVA_INT, 1L));
+        }
+    }
+
+    Descriptor descriptor() {
+        return Descriptor.of(readFd);
+    }
+
+    /**
+     * Called by the loop thread before checking the task queue, waits for an in-flight signal of the previous poll
+     */
+    void park() {
+        for (int s = state; s != CLOSED; s = state) {
+            if (s == AWAKE && STATE.compareAndSet(this, AWAKE, PARKED)) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Called by the loop thread after the poll returned
+     */
+    void unpark() {
+        STATE.compareAndSet(this, PARKED, AWAKE);
+    }
+
+    /**
+     * Called by other threads after their task has been offered
+     */
+    void signal() {
+        if (state == PARKED && STATE.compareAndSet(this, PARKED, SIGNALLING)) {
+            try {
+                int err = POSIX_NET_BINDINGS.posixWakeupSignal(writeFd);
+                if (err > 0) {
+                    throw new ForeignException("Failed to signal wakeup descriptor, err : " + err);
+                }
+            } finally {
+                state = AWAKE;
+            }
+        }
+    }
+
+    @Override
+    public void onEvent(EventLoop loop, int slot, int flag) {
+        int err = POSIX_NET_BINDINGS.posixWakeupDrain(readFd);
+        if (err > 0) {
+            throw new ForeignException("Failed to drain wakeup descriptor, err : " + err);
+        }
+    }
+
+    /**
+     * The descriptors are only closed after any in-flight signal finished, later signals are ignored,
+     * the loop keeps polling with its timeout if the wakeup has been removed on failure
+     */
+    @Override
+    public void onRemoved(EventLoop loop, int slot) {
+        while (!STATE.compareAndSet(this, AWAKE, CLOSED)) {
+            Thread.onSpinWait();
+        }
+        SYS_POSIX_BINDINGS.posixClose(readFd);
+        if (writeFd != readFd) {
+            SYS_POSIX_BINDINGS.posixClose(writeFd);
+        }
+    }
+}
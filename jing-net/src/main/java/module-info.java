@@ -4,4 +4,6 @@ module jing.net {
     requires transitive jing.bindings;
     requires transitive static jing.annprocessor;
     requires transitive static jing.ffmprocessor;
+
+    exports io.jingproject.net;
 }
\ No newline at end of file